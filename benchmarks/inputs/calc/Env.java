@@ -0,0 +1,27 @@
+package calc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** A scope mapping names to values, chained to its enclosing scope. */
+public class Env {
+    private final Env parent;
+    private final Map<String, Value> bindings = new HashMap<String, Value>();
+
+    public Env( Env parent ) {
+        this.parent = parent;
+    }
+
+    public Env bind( String name, Value value ) {
+        bindings.put( name, value );
+        return this;
+    }
+
+    public Value lookup( String name ) {
+        for( Env e = this; e != null; e = e.parent ) {
+            Value v = e.bindings.get( name );
+            if( v != null ) return v;
+        }
+        throw new EvalException( "unbound variable " + name );
+    }
+}
@@ -0,0 +1,8 @@
+package calc;
+
+/** Thrown when a program fails at run time. */
+public class EvalException extends RuntimeException {
+    public EvalException( String message ) {
+        super( message );
+    }
+}
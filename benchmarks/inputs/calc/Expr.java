@@ -0,0 +1,86 @@
+package calc;
+
+import java.util.List;
+
+/** An expression of the toy language. */
+public abstract class Expr {
+    public abstract <R> R accept( Visitor<R> v );
+
+    public interface Visitor<R> {
+        R visitNum( Num e );
+        R visitVar( Var e );
+        R visitBinOp( BinOp e );
+        R visitLet( Let e );
+        R visitIf( If e );
+        R visitFun( Fun e );
+        R visitCall( Call e );
+    }
+
+    public static class Num extends Expr {
+        public final int value;
+        public Num( int value ) { this.value = value; }
+        public <R> R accept( Visitor<R> v ) { return v.visitNum( this ); }
+    }
+
+    public static class Var extends Expr {
+        public final String name;
+        public Var( String name ) { this.name = name; }
+        public <R> R accept( Visitor<R> v ) { return v.visitVar( this ); }
+    }
+
+    public static class BinOp extends Expr {
+        public final String op;
+        public final Expr left;
+        public final Expr right;
+        public BinOp( String op, Expr left, Expr right ) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+        public <R> R accept( Visitor<R> v ) { return v.visitBinOp( this ); }
+    }
+
+    public static class Let extends Expr {
+        public final String name;
+        public final Expr value;
+        public final Expr body;
+        public Let( String name, Expr value, Expr body ) {
+            this.name = name;
+            this.value = value;
+            this.body = body;
+        }
+        public <R> R accept( Visitor<R> v ) { return v.visitLet( this ); }
+    }
+
+    public static class If extends Expr {
+        public final Expr cond;
+        public final Expr then;
+        public final Expr otherwise;
+        public If( Expr cond, Expr then, Expr otherwise ) {
+            this.cond = cond;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+        public <R> R accept( Visitor<R> v ) { return v.visitIf( this ); }
+    }
+
+    public static class Fun extends Expr {
+        public final String param;
+        public final Expr body;
+        public Fun( String param, Expr body ) {
+            this.param = param;
+            this.body = body;
+        }
+        public <R> R accept( Visitor<R> v ) { return v.visitFun( this ); }
+    }
+
+    public static class Call extends Expr {
+        public final Expr fun;
+        public final List<Expr> args;
+        public Call( Expr fun, List<Expr> args ) {
+            this.fun = fun;
+            this.args = args;
+        }
+        public <R> R accept( Visitor<R> v ) { return v.visitCall( this ); }
+    }
+}
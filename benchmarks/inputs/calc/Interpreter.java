@@ -0,0 +1,84 @@
+package calc;
+
+import java.util.Iterator;
+
+/** Evaluates expressions. Functions may call themselves through the name
+ * they are bound to by an enclosing let. */
+public class Interpreter {
+    private static final int MAX_DEPTH = 1000;
+
+    private int steps;
+    private int depth;
+
+    public int getSteps() { return steps; }
+
+    public Value run( Expr e ) {
+        depth = 0;
+        return eval( e, new Env( null ) );
+    }
+
+    private Value eval( Expr e, final Env env ) {
+        steps++;
+        return e.accept( new Expr.Visitor<Value>() {
+            public Value visitNum( Expr.Num e ) {
+                return Value.Int.of( e.value );
+            }
+            public Value visitVar( Expr.Var e ) {
+                return env.lookup( e.name );
+            }
+            public Value visitBinOp( Expr.BinOp e ) {
+                int l = eval( e.left, env ).asInt();
+                int r = eval( e.right, env ).asInt();
+                return Value.Int.of( apply( e.op, l, r ) );
+            }
+            public Value visitLet( Expr.Let e ) {
+                Env scope = new Env( env );
+                // bind first so that functions can refer to themselves
+                Value v = eval( e.value, scope );
+                scope.bind( e.name, v );
+                return eval( e.body, scope );
+            }
+            public Value visitIf( Expr.If e ) {
+                if( eval( e.cond, env ).asInt() != 0 ) return eval( e.then, env );
+                return eval( e.otherwise, env );
+            }
+            public Value visitFun( Expr.Fun e ) {
+                return new Value.Closure( e, env );
+            }
+            public Value visitCall( Expr.Call e ) {
+                Value.Closure c = eval( e.fun, env ).asClosure();
+                if( e.args.size() != 1 ) {
+                    throw new EvalException( "functions take one argument, not " + e.args.size() );
+                }
+                Env scope = new Env( c.env );
+                for( Iterator<Expr> it = e.args.iterator(); it.hasNext(); ) {
+                    scope.bind( c.fun.param, eval( it.next(), env ) );
+                }
+                if( ++depth > MAX_DEPTH ) throw new EvalException( "recursion too deep" );
+                try {
+                    return eval( c.fun.body, scope );
+                } finally {
+                    depth--;
+                }
+            }
+        } );
+    }
+
+    static int apply( String op, int l, int r ) {
+        char c = op.charAt( 0 );
+        switch( c ) {
+            case '+': return l + r;
+            case '-': return l - r;
+            case '*': return l * r;
+            case '/':
+                if( r == 0 ) throw new EvalException( "division by zero" );
+                return l / r;
+            case '%':
+                if( r == 0 ) throw new EvalException( "division by zero" );
+                return l % r;
+            case '<': return l < r ? 1 : 0;
+            case '=': return l == r ? 1 : 0;
+            default: throw new EvalException( "unknown operator " + op );
+        }
+    }
+}
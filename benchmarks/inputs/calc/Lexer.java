@@ -0,0 +1,69 @@
+package calc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Splits the source of a program into tokens. */
+public class Lexer {
+    private static final Map<String, Integer> KEYWORDS = new HashMap<String, Integer>();
+    static {
+        KEYWORDS.put( "let", Integer.valueOf( Token.LET ) );
+        KEYWORDS.put( "in", Integer.valueOf( Token.IN ) );
+        KEYWORDS.put( "if", Integer.valueOf( Token.IF ) );
+        KEYWORDS.put( "then", Integer.valueOf( Token.THEN ) );
+        KEYWORDS.put( "else", Integer.valueOf( Token.ELSE ) );
+        KEYWORDS.put( "fun", Integer.valueOf( Token.FUN ) );
+    }
+
+    private final String source;
+    private int pos;
+
+    public Lexer( String source ) {
+        this.source = source;
+    }
+
+    public Token next() throws ParseException {
+        while( pos < source.length() && Character.isWhitespace( source.charAt( pos ) ) ) pos++;
+        if( pos >= source.length() ) return new Token( Token.EOF, "", pos );
+        int start = pos;
+        char c = source.charAt( pos );
+        if( Character.isDigit( c ) ) {
+            while( pos < source.length() && Character.isDigit( source.charAt( pos ) ) ) pos++;
+            return new Token( Token.NUMBER, source.substring( start, pos ), start );
+        }
+        if( Character.isLetter( c ) ) {
+            while( pos < source.length() && Character.isLetterOrDigit( source.charAt( pos ) ) ) pos++;
+            String word = source.substring( start, pos );
+            Integer keyword = KEYWORDS.get( word );
+            return new Token( keyword == null ? Token.IDENT : keyword.intValue(), word, start );
+        }
+        pos++;
+        switch( c ) {
+            case '(':
+                return new Token( Token.LPAREN, "(", start );
+            case ')':
+                return new Token( Token.RPAREN, ")", start );
+            case '+':
+            case '*':
+            case '/':
+            case '%':
+            case '<':
+            case ',':
+                return new Token( Token.OP, String.valueOf( c ), start );
+            case '-':
+                if( pos < source.length() && source.charAt( pos ) == '>' ) {
+                    pos++;
+                    return new Token( Token.ARROW, "->", start );
+                }
+                return new Token( Token.OP, "-", start );
+            case '=':
+                if( pos < source.length() && source.charAt( pos ) == '=' ) {
+                    pos++;
+                    return new Token( Token.OP, "==", start );
+                }
+                return new Token( Token.OP, "=", start );
+            default:
+                throw new ParseException( "unexpected character '" + c + "'", start );
+        }
+    }
+}
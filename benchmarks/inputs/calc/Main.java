@@ -0,0 +1,47 @@
+package calc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Entry point of the benchmark input program: parses, simplifies,
+ * prints and evaluates a fixed set of expressions. */
+public class Main {
+    static final String[] PROGRAMS = {
+        "1 + 2 * 3",
+        "let x = 4 in x * x - 2 * x + 1",
+        "let f = fun n -> if n < 2 then 1 else n * f(n - 1) in f(10)",
+        "let fib = fun n -> if n < 2 then n else fib(n - 1) + fib(n - 2) in fib(15)",
+        "let a = 7 in let b = 3 in (a + b) * (a - b) / 2 % 5",
+        "if 1 < 2 then 0 + 42 else 1 / 0",
+        "let g = fun x -> x * 2 + 0 in g(g(g(1)))",
+        "let sum = fun n -> if n == 0 then 0 else n + sum(n - 1) in sum(100)",
+        "1 / (2 - 2)",
+        "let y = 3 in z + y",
+        "(1 + 2",
+    };
+
+    public static void main( String[] args ) {
+        List<String> sources = new ArrayList<String>();
+        for( int i = 0; i < PROGRAMS.length; i++ ) sources.add( PROGRAMS[i] );
+        for( int i = 0; i < args.length; i++ ) sources.add( args[i] );
+
+        Interpreter interpreter = new Interpreter();
+        int failures = 0;
+        for( String source : sources ) {
+            try {
+                Expr e = new Parser( new Lexer( source ) ).parseProgram();
+                Expr simplified = e.accept( new Simplifier() );
+                String shown = simplified.accept( new Printer() );
+                Value v = interpreter.run( simplified );
+                System.out.println( shown + " => " + v );
+            } catch( ParseException ex ) {
+                failures++;
+                System.out.println( "parse error at " + ex.getPosition() + ": " + ex.getMessage() );
+            } catch( EvalException ex ) {
+                failures++;
+                System.out.println( "evaluation error: " + ex.getMessage() );
+            }
+        }
+        System.out.println( interpreter.getSteps() + " steps, " + failures + " failures" );
+    }
+}
@@ -0,0 +1,13 @@
+package calc;
+
+/** Thrown when the source of a program is malformed. */
+public class ParseException extends Exception {
+    private final int position;
+
+    public ParseException( String message, int position ) {
+        super( message );
+        this.position = position;
+    }
+
+    public int getPosition() { return position; }
+}
@@ -0,0 +1,152 @@
+package calc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** A recursive descent parser for the toy language.
+ *
+ * <pre>
+ * expr  ::= let IDENT = expr in expr | if expr then expr else expr
+ *         | fun IDENT -> expr | compare
+ * compare ::= sum [ ( &lt; | == ) sum ]
+ * sum   ::= term { ( + | - ) term }
+ * term  ::= call { ( * | / | % ) call }
+ * call  ::= atom { ( expr { , expr } ) }
+ * atom  ::= NUMBER | IDENT | ( expr )
+ * </pre>
+ */
+public class Parser {
+    private final Lexer lexer;
+    private Token current;
+
+    public Parser( Lexer lexer ) {
+        this.lexer = lexer;
+    }
+
+    public Expr parseProgram() throws ParseException {
+        current = lexer.next();
+        Expr e = parseExpr();
+        if( current.getKind() != Token.EOF ) {
+            throw new ParseException( "unexpected " + current, current.getPosition() );
+        }
+        return e;
+    }
+
+    private Expr parseExpr() throws ParseException {
+        switch( current.getKind() ) {
+            case Token.LET: {
+                advance();
+                String name = expect( Token.IDENT ).getText();
+                if( !current.is( Token.OP, "=" ) ) {
+                    throw new ParseException( "expected '=' but found " + current, current.getPosition() );
+                }
+                advance();
+                Expr value = parseExpr();
+                expect( Token.IN );
+                return new Expr.Let( name, value, parseExpr() );
+            }
+            case Token.IF: {
+                advance();
+                Expr cond = parseExpr();
+                expect( Token.THEN );
+                Expr then = parseExpr();
+                expect( Token.ELSE );
+                return new Expr.If( cond, then, parseExpr() );
+            }
+            case Token.FUN: {
+                advance();
+                String param = expect( Token.IDENT ).getText();
+                expect( Token.ARROW );
+                return new Expr.Fun( param, parseExpr() );
+            }
+            default:
+                return parseCompare();
+        }
+    }
+
+    private Expr parseCompare() throws ParseException {
+        Expr left = parseSum();
+        if( current.is( Token.OP, "<" ) || current.is( Token.OP, "==" ) ) {
+            String op = current.getText();
+            advance();
+            return new Expr.BinOp( op, left, parseSum() );
+        }
+        return left;
+    }
+
+    private Expr parseSum() throws ParseException {
+        Expr e = parseTerm();
+        while( current.is( Token.OP, "+" ) || current.is( Token.OP, "-" ) ) {
+            String op = current.getText();
+            advance();
+            e = new Expr.BinOp( op, e, parseTerm() );
+        }
+        return e;
+    }
+
+    private Expr parseTerm() throws ParseException {
+        Expr e = parseCall();
+        while( current.is( Token.OP, "*" ) || current.is( Token.OP, "/" )
+                || current.is( Token.OP, "%" ) ) {
+            String op = current.getText();
+            advance();
+            e = new Expr.BinOp( op, e, parseCall() );
+        }
+        return e;
+    }
+
+    private Expr parseCall() throws ParseException {
+        Expr e = parseAtom();
+        while( current.getKind() == Token.LPAREN ) {
+            advance();
+            List<Expr> args = new ArrayList<Expr>();
+            if( current.getKind() != Token.RPAREN ) {
+                args.add( parseExpr() );
+                while( current.is( Token.OP, "," ) ) {
+                    advance();
+                    args.add( parseExpr() );
+                }
+            }
+            expect( Token.RPAREN );
+            e = new Expr.Call( e, args );
+        }
+        return e;
+    }
+
+    private Expr parseAtom() throws ParseException {
+        Token t = current;
+        switch( t.getKind() ) {
+            case Token.NUMBER:
+                advance();
+                try {
+                    return new Expr.Num( Integer.parseInt( t.getText() ) );
+                } catch( NumberFormatException e ) {
+                    throw new ParseException( "number too large", t.getPosition() );
+                }
+            case Token.IDENT:
+                advance();
+                return new Expr.Var( t.getText() );
+            case Token.LPAREN: {
+                advance();
+                Expr e = parseExpr();
+                expect( Token.RPAREN );
+                return e;
+            }
+            default:
+                throw new ParseException( "unexpected " + t, t.getPosition() );
+        }
+    }
+
+    private Token expect( int kind ) throws ParseException {
+        if( current.getKind() != kind ) {
+            throw new ParseException( "unexpected " + current, current.getPosition() );
+        }
+        Token t = current;
+        advance();
+        return t;
+    }
+
+    private void advance() throws ParseException {
+        current = lexer.next();
+    }
+}
@@ -0,0 +1,36 @@
+package calc;
+
+/** Prints expressions back in the syntax accepted by the {@link Parser},
+ * with full parentheses. */
+public class Printer implements Expr.Visitor<String> {
+    public String visitNum( Expr.Num e ) { return String.valueOf( e.value ); }
+
+    public String visitVar( Expr.Var e ) { return e.name; }
+
+    public String visitBinOp( Expr.BinOp e ) {
+        return "(" + e.left.accept( this ) + " " + e.op + " " + e.right.accept( this ) + ")";
+    }
+
+    public String visitLet( Expr.Let e ) {
+        return "let " + e.name + " = " + e.value.accept( this ) + " in " + e.body.accept( this );
+    }
+
+    public String visitIf( Expr.If e ) {
+        return "if " + e.cond.accept( this ) + " then " + e.then.accept( this )
+            + " else " + e.otherwise.accept( this );
+    }
+
+    public String visitFun( Expr.Fun e ) {
+        return "(fun " + e.param + " -> " + e.body.accept( this ) + ")";
+    }
+
+    public String visitCall( Expr.Call e ) {
+        StringBuffer b = new StringBuffer();
+        b.append( e.fun.accept( this ) ).append( '(' );
+        for( int i = 0; i < e.args.size(); i++ ) {
+            if( i > 0 ) b.append( ", " );
+            b.append( e.args.get( i ).accept( this ) );
+        }
+        return b.append( ')' ).toString();
+    }
+}
@@ -0,0 +1,55 @@
+package calc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Folds constant subexpressions and removes neutral operations. */
+public class Simplifier implements Expr.Visitor<Expr> {
+    public Expr visitNum( Expr.Num e ) { return e; }
+
+    public Expr visitVar( Expr.Var e ) { return e; }
+
+    public Expr visitBinOp( Expr.BinOp e ) {
+        Expr l = e.left.accept( this );
+        Expr r = e.right.accept( this );
+        if( l instanceof Expr.Num && r instanceof Expr.Num ) {
+            try {
+                return new Expr.Num( Interpreter.apply( e.op, ( (Expr.Num) l ).value, ( (Expr.Num) r ).value ) );
+            } catch( EvalException ex ) {
+                // leave it to fail at run time
+            }
+        }
+        if( isConstant( r, 0 ) && ( e.op.equals( "+" ) || e.op.equals( "-" ) ) ) return l;
+        if( isConstant( l, 0 ) && e.op.equals( "+" ) ) return r;
+        if( isConstant( r, 1 ) && ( e.op.equals( "*" ) || e.op.equals( "/" ) ) ) return l;
+        if( isConstant( l, 1 ) && e.op.equals( "*" ) ) return r;
+        if( l == e.left && r == e.right ) return e;
+        return new Expr.BinOp( e.op, l, r );
+    }
+
+    public Expr visitLet( Expr.Let e ) {
+        return new Expr.Let( e.name, e.value.accept( this ), e.body.accept( this ) );
+    }
+
+    public Expr visitIf( Expr.If e ) {
+        Expr cond = e.cond.accept( this );
+        if( cond instanceof Expr.Num ) {
+            return ( ( (Expr.Num) cond ).value != 0 ? e.then : e.otherwise ).accept( this );
+        }
+        return new Expr.If( cond, e.then.accept( this ), e.otherwise.accept( this ) );
+    }
+
+    public Expr visitFun( Expr.Fun e ) {
+        return new Expr.Fun( e.param, e.body.accept( this ) );
+    }
+
+    public Expr visitCall( Expr.Call e ) {
+        List<Expr> args = new ArrayList<Expr>( e.args.size() );
+        for( Expr arg : e.args ) args.add( arg.accept( this ) );
+        return new Expr.Call( e.fun.accept( this ), args );
+    }
+
+    private static boolean isConstant( Expr e, int value ) {
+        return e instanceof Expr.Num && ( (Expr.Num) e ).value == value;
+    }
+}
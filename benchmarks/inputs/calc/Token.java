@@ -0,0 +1,40 @@
+package calc;
+
+/** A token produced by the {@link Lexer}. */
+public class Token {
+    public static final int EOF = 0;
+    public static final int NUMBER = 1;
+    public static final int IDENT = 2;
+    public static final int OP = 3;
+    public static final int LPAREN = 4;
+    public static final int RPAREN = 5;
+    public static final int LET = 6;
+    public static final int IN = 7;
+    public static final int IF = 8;
+    public static final int THEN = 9;
+    public static final int ELSE = 10;
+    public static final int FUN = 11;
+    public static final int ARROW = 12;
+
+    private final int kind;
+    private final String text;
+    private final int position;
+
+    public Token( int kind, String text, int position ) {
+        this.kind = kind;
+        this.text = text;
+        this.position = position;
+    }
+
+    public int getKind() { return kind; }
+    public String getText() { return text; }
+    public int getPosition() { return position; }
+
+    public boolean is( int kind, String text ) {
+        return this.kind == kind && this.text.equals( text );
+    }
+
+    public String toString() {
+        return kind == EOF ? "end of input" : "'" + text + "'";
+    }
+}
@@ -0,0 +1,45 @@
+package calc;
+
+/** A run-time value of the toy language. */
+public abstract class Value {
+    public int asInt() {
+        throw new EvalException( this + " is not a number" );
+    }
+
+    public Closure asClosure() {
+        throw new EvalException( this + " is not a function" );
+    }
+
+    public static class Int extends Value {
+        private static final Int[] SMALL = new Int[256];
+        static {
+            for( int i = 0; i < SMALL.length; i++ ) SMALL[i] = new Int( i - 128 );
+        }
+
+        private final int value;
+        private Int( int value ) { this.value = value; }
+
+        public static Int of( int value ) {
+            if( value >= -128 && value < 128 ) return SMALL[value + 128];
+            return new Int( value );
+        }
+
+        public int asInt() { return value; }
+        public boolean equals( Object o ) {
+            return o instanceof Int && ( (Int) o ).value == value;
+        }
+        public int hashCode() { return value; }
+        public String toString() { return String.valueOf( value ); }
+    }
+
+    public static class Closure extends Value {
+        final Expr.Fun fun;
+        final Env env;
+        Closure( Expr.Fun fun, Env env ) {
+            this.fun = fun;
+            this.env = env;
+        }
+        public Closure asClosure() { return this; }
+        public String toString() { return "<fun " + fun.param + ">"; }
+    }
+}
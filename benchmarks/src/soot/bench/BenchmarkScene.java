@@ -0,0 +1,80 @@
+package soot.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import soot.Body;
+import soot.G;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+
+/**
+ * Sets Soot up on the benchmark input program, the classes compiled from
+ * benchmarks/inputs. The directory holding them is taken from the
+ * soot.bench.inputs system property. Library classes come from the
+ * soot.bench.classpath system property, or else from the rt.jar of the
+ * running JVM; set it to pin the library for comparable results. Classes
+ * in the java., javax., sun. and com.sun. packages get no bodies, so that
+ * the measurements depend on the input program rather than on the JDK.
+ */
+final class BenchmarkScene {
+    static final String MAIN_CLASS = "calc.Main";
+
+    private BenchmarkScene() {}
+
+    static String inputDir() {
+        return System.getProperty( "soot.bench.inputs", "benchmarkinputs" );
+    }
+
+    static String libraryClassPath() {
+        String cp = System.getProperty( "soot.bench.classpath" );
+        return cp != null ? cp : Scene.v().defaultClassPath();
+    }
+
+    /** Discards all of Soot's state and sets the options for the input
+     * program, without loading any classes. */
+    static void reset( boolean wholeProgram ) {
+        G.reset();
+        Options o = Options.v();
+        o.set_soot_classpath( inputDir() + File.pathSeparator + libraryClassPath() );
+        o.set_process_dir( Collections.singletonList( inputDir() ) );
+        o.set_exclude( Arrays.asList( new String[] { "java.", "javax.", "sun.", "com.sun." } ) );
+        o.set_no_bodies_for_excluded( true );
+        o.set_allow_phantom_refs( true );
+        o.set_output_format( Options.output_format_none );
+        o.set_whole_program( wholeProgram );
+        o.set_main_class( MAIN_CLASS );
+    }
+
+    /** Resets Soot and loads the input program. */
+    static void load( boolean wholeProgram ) {
+        reset( wholeProgram );
+        Scene.v().loadNecessaryClasses();
+    }
+
+    /** Returns the methods of the input program that have bodies. */
+    static List<SootMethod> concreteMethods() {
+        List<SootMethod> ret = new ArrayList<SootMethod>();
+        for( SootClass c : Scene.v().getApplicationClasses() ) {
+            for( SootMethod m : c.getMethods() ) {
+                if( m.isConcrete() ) ret.add( m );
+            }
+        }
+        return ret;
+    }
+
+    /** Returns the Jimple bodies of the input program, building them if
+     * necessary. */
+    static List<Body> bodies() {
+        List<Body> ret = new ArrayList<Body>();
+        for( SootMethod m : concreteMethods() ) {
+            ret.add( m.retrieveActiveBody() );
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,38 @@
+package soot.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.SootMethod;
+
+/** Building the Jimple bodies of the input program from bytecode,
+ * including the jb pack. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class BodyConstructionBenchmark {
+    private List<SootMethod> methods;
+
+    @Setup( Level.Invocation )
+    public void setUp() {
+        BenchmarkScene.load( false );
+        methods = BenchmarkScene.concreteMethods();
+    }
+
+    @Benchmark
+    public void buildBodies( Blackhole bh ) {
+        for( SootMethod m : methods ) {
+            bh.consume( m.retrieveActiveBody() );
+        }
+    }
+}
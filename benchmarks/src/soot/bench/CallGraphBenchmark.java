@@ -0,0 +1,38 @@
+package soot.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.jimple.toolkits.callgraph.CHATransformer;
+
+/** Building the call graph of the input program by class hierarchy
+ * analysis. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class CallGraphBenchmark {
+    @Setup( Level.Trial )
+    public void setUp() {
+        BenchmarkScene.load( true );
+        PhaseOptions.v().setPhaseOption( "cg.cha", "enabled:true" );
+        // a first run builds the bodies of all reachable methods
+        cha();
+    }
+
+    @Benchmark
+    public int cha() {
+        Scene.v().releaseCallGraph();
+        CHATransformer.v().transform( "cg.cha", PhaseOptions.v().getPhaseOptions( "cg.cha" ) );
+        return Scene.v().getCallGraph().size();
+    }
+}
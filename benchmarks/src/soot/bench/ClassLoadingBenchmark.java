@@ -0,0 +1,32 @@
+package soot.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import soot.Scene;
+
+/** Resolving the input program and the library classes it refers to,
+ * which reads and parses their class files through coffi. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class ClassLoadingBenchmark {
+    @Setup( Level.Invocation )
+    public void setUp() {
+        BenchmarkScene.reset( false );
+    }
+
+    @Benchmark
+    public int loadClasses() {
+        Scene.v().loadNecessaryClasses();
+        return Scene.v().getClasses().size();
+    }
+}
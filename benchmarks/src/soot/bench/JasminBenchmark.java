@@ -0,0 +1,72 @@
+package soot.bench;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.baf.JasminClass;
+import soot.util.JasminOutputStream;
+
+/** Writing the input program as Jasmin assembler, and assembling that
+ * into class files, from Baf bodies built beforehand. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class JasminBenchmark {
+    private List<SootClass> classes;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        BenchmarkScene.load( false );
+        for( SootMethod m : BenchmarkScene.concreteMethods() ) {
+            m.retrieveActiveBody();
+            m.setActiveBody( PackManager.v().convertJimpleBodyToBaf( m ) );
+        }
+        classes = new ArrayList<SootClass>( Scene.v().getApplicationClasses() );
+    }
+
+    @Benchmark
+    public long jasminText() {
+        CountingStream out = new CountingStream();
+        PrintWriter writer = new PrintWriter( new OutputStreamWriter( out ) );
+        for( SootClass c : classes ) {
+            new JasminClass( c ).print( writer );
+        }
+        writer.flush();
+        return out.count;
+    }
+
+    @Benchmark
+    public long classFiles() {
+        CountingStream out = new CountingStream();
+        for( SootClass c : classes ) {
+            PrintWriter writer = new PrintWriter( new OutputStreamWriter( new JasminOutputStream( out ) ) );
+            new JasminClass( c ).print( writer );
+            writer.flush();
+        }
+        return out.count;
+    }
+
+    /** Discards what is written to it, counting the bytes. */
+    private static final class CountingStream extends OutputStream {
+        long count;
+        public void write( int b ) { count++; }
+        public void write( byte[] b, int off, int len ) { count += len; }
+    }
+}
@@ -0,0 +1,53 @@
+package soot.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.Body;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+import soot.toolkits.scalar.SimpleLiveLocals;
+import soot.toolkits.scalar.SimpleLocalDefs;
+
+/** Running the reaching definitions and live locals analyses on every
+ * body of the input program; the unit graphs are built beforehand. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class LocalAnalysisBenchmark {
+    private List<UnitGraph> graphs;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        BenchmarkScene.load( false );
+        graphs = new ArrayList<UnitGraph>();
+        for( Body b : BenchmarkScene.bodies() ) {
+            graphs.add( new ExceptionalUnitGraph( b ) );
+        }
+    }
+
+    @Benchmark
+    public void simpleLocalDefs( Blackhole bh ) {
+        for( UnitGraph g : graphs ) {
+            bh.consume( new SimpleLocalDefs( g ) );
+        }
+    }
+
+    @Benchmark
+    public void simpleLiveLocals( Blackhole bh ) {
+        for( UnitGraph g : graphs ) {
+            bh.consume( new SimpleLiveLocals( g ) );
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package soot.bench;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import soot.G;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.SootMethod;
+import soot.jimple.spark.builder.ContextInsensitiveBuilder;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.toolkits.callgraph.CHATransformer;
+import soot.options.SparkOptions;
+
+/** Building the method PAGs of the methods of the input program that are
+ * reachable in its CHA call graph on numThreads threads, and merging them
+ * into a pointer assignment graph. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class PAGBuildBenchmark {
+    @Param( { "1", "2", "4" } )
+    public int numThreads;
+
+    private SparkOptions opts;
+    private List<SootMethod> methods;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        BenchmarkScene.load( true );
+        CHATransformer.v().transform( "cg.cha", PhaseOptions.v().getPhaseOptions( "cg.cha" ) );
+        opts = new SparkOptions( PhaseOptions.v().getPhaseOptions( "cg.spark" ) );
+        methods = new ArrayList<SootMethod>();
+        for( Iterator<?> mIt = Scene.v().getReachableMethods().listener(); mIt.hasNext(); ) {
+            SootMethod m = (SootMethod) mIt.next();
+            if( m.isConcrete() || m.isNative() ) methods.add( m );
+        }
+        // a first run builds the bodies of all reachable methods
+        build();
+    }
+
+    @Benchmark
+    public PAG build() {
+        // method PAGs are kept for the PAG they were first built for
+        G.v().MethodPAG_methodToPag.clear();
+        PAG pag = new ContextInsensitiveBuilder().setup( opts );
+        pag.buildMethodPAGs( methods, numThreads );
+        return pag;
+    }
+}
@@ -0,0 +1,52 @@
+package soot.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import soot.G;
+import soot.PhaseOptions;
+import soot.PointsToAnalysis;
+import soot.Scene;
+import soot.jimple.spark.SparkTransformer;
+
+/** Building the pointer assignment graph of the input program and
+ * propagating points-to sets through it with each set implementation.
+ * setImpl takes every value of the set-impl option of cg.spark; keep the
+ * two lists in step. Soot is reset before each iteration, since the
+ * heintze and sharedlist sets keep global tables that grow with every
+ * run. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class SparkBenchmark {
+    @Param( { "hash", "bit", "hybrid", "array", "heintze", "sharedlist", "double" } )
+    public String setImpl;
+
+    @Setup( Level.Iteration )
+    public void setUp() {
+        BenchmarkScene.load( true );
+        PhaseOptions.v().setPhaseOption( "cg.spark", "enabled:true" );
+        PhaseOptions.v().setPhaseOption( "cg.spark", "set-impl:" + setImpl );
+        // a first run builds the bodies of all reachable methods
+        spark();
+    }
+
+    @Benchmark
+    public PointsToAnalysis spark() {
+        Scene.v().releaseCallGraph();
+        Scene.v().releasePointsToAnalysis();
+        // method PAGs are kept for the PAG they were first built for
+        G.v().MethodPAG_methodToPag.clear();
+        SparkTransformer.v().transform( "cg.spark", PhaseOptions.v().getPhaseOptions( "cg.spark" ) );
+        return Scene.v().getPointsToAnalysis();
+    }
+}
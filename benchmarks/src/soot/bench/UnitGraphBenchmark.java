@@ -0,0 +1,38 @@
+package soot.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.Body;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+
+/** Building an ExceptionalUnitGraph for every body of the input program. */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class UnitGraphBenchmark {
+    private List<Body> bodies;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        BenchmarkScene.load( false );
+        bodies = BenchmarkScene.bodies();
+    }
+
+    @Benchmark
+    public void exceptionalUnitGraph( Blackhole bh ) {
+        for( Body b : bodies ) {
+            bh.consume( new ExceptionalUnitGraph( b ) );
+        }
+    }
+}
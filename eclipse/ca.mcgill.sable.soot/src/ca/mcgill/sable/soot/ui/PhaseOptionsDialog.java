@@ -711,6 +711,12 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		addToEnableGroup("cg", getcgtrim_clinit_widget(), "trim-clinit");
 		
 		
+		addToEnableGroup("cg", getcgcompact_widget(), "compact");
+		
+		
+		addToEnableGroup("cg", getcgfreeze_widget(), "freeze");
+		
+		
 		getcgenabled_widget().getButton().addSelectionListener(this);
 		
 		getcgsafe_forname_widget().getButton().addSelectionListener(this);
@@ -725,6 +731,10 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		getcgtrim_clinit_widget().getButton().addSelectionListener(this);
 		
+		getcgcompact_widget().getButton().addSelectionListener(this);
+		
+		getcgfreeze_widget().getButton().addSelectionListener(this);
+		
 		
 		makeNewEnableGroup("cg", "cg.cha");
 		
@@ -787,6 +797,9 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparkon_fly_cg_widget(), "on-fly-cg");
 
 		
+		addToEnableGroup("cg", "cg.spark", getcgcg_sparkcompact_pag_widget(), "compact-pag");
+
+		
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparksimplify_offline_widget(), "simplify-offline");
 
 		
@@ -835,6 +848,9 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparkset_mass_widget(), "set-mass");
 
 		
+		addToEnableGroup("cg", "cg.spark", getcgcg_sparkfreeze_sets_widget(), "freeze-sets");
+
+		
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparkcs_demand_widget(), "cs-demand");
 
 		
@@ -2055,6 +2071,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getInput_Optionsno_bodies_for_excluded_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getInput_Optionsincremental_delete_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getInput_Optionsincremental_delete_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		boolRes = getInput_Optionsj2me_widget().getButton().getSelection();
 		
 		
@@ -2111,6 +2137,24 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getInput_Optionsforce_android_jar_widget().getAlias(), stringRes);
 		}
 		
+		stringRes = getInput_Optionsbody_cache_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getInput_Optionsbody_cache_widget().getAlias(), stringRes);
+		}
+		
+		stringRes = getInput_Optionsincremental_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getInput_Optionsincremental_widget().getAlias(), stringRes);
+		}
+		
 		stringRes = getInput_Optionsmain_class_widget().getText().getText();
 		
 		defStringRes = "";
@@ -2180,6 +2224,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getOutput_Optionsno_output_inner_classes_attribute_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getOutput_Optionsdirect_class_output_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getOutput_Optionsdirect_class_output_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		boolRes = getOutput_Optionsshow_exception_dests_widget().getButton().getSelection();
 		
 		
@@ -2306,6 +2360,15 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		if (boolRes != defBoolRes) {
 			getConfig().put(getProcessing_Optionsignore_resolution_errors_widget().getAlias(), new Boolean(boolRes));
 		}
+		
+		stringRes = getProcessing_Optionsnum_threads_widget().getText().getText();
+		
+		defStringRes = "1";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getProcessing_Optionsnum_threads_widget().getAlias(), stringRes);
+		}
 		 
 		stringRes = getProcessing_Optionsthrow_analysis_widget().getSelectedAlias();
 
@@ -2887,6 +2950,26 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgtrim_clinit_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getcgcompact_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgcompact_widget().getAlias(), new Boolean(boolRes));
+		}
+		
+		boolRes = getcgfreeze_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgfreeze_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		stringRes = getcgjdkver_widget().getText().getText();
 		
 		defStringRes = "3";
@@ -3084,6 +3167,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgcg_sparkon_fly_cg_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getcgcg_sparkcompact_pag_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgcg_sparkcompact_pag_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		boolRes = getcgcg_sparksimplify_offline_widget().getButton().getSelection();
 		
 		
@@ -3244,6 +3337,34 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgcg_sparkset_mass_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getcgcg_sparkfreeze_sets_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgcg_sparkfreeze_sets_widget().getAlias(), new Boolean(boolRes));
+		}
+		
+		stringRes = getcgcg_sparksave_snapshot_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getcgcg_sparksave_snapshot_widget().getAlias(), stringRes);
+		}
+		
+		stringRes = getcgcg_sparkload_snapshot_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getcgcg_sparkload_snapshot_widget().getAlias(), stringRes);
+		}
+		
 		boolRes = getcgcg_sparkcs_demand_widget().getButton().getSelection();
 		
 		
@@ -5245,6 +5366,15 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getMiscellaneous_Optionssubtract_gc_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		stringRes = getMiscellaneous_Optionsphase_telemetry_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getMiscellaneous_Optionsphase_telemetry_widget().getAlias(), stringRes);
+		}
+		
 		
 		setSootMainClass(getSootMainClassWidget().getText().getText());			
 		return setSootMainProject(getSootMainProjectWidget().getText().getText());
@@ -6555,6 +6685,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return Input_Optionsno_bodies_for_excluded_widget;
 	}	
 	
+	private BooleanOptionWidget Input_Optionsincremental_delete_widget;
+	
+	private void setInput_Optionsincremental_delete_widget(BooleanOptionWidget widget) {
+		Input_Optionsincremental_delete_widget = widget;
+	}
+	
+	public BooleanOptionWidget getInput_Optionsincremental_delete_widget() {
+		return Input_Optionsincremental_delete_widget;
+	}	
+	
 	private BooleanOptionWidget Input_Optionsj2me_widget;
 	
 	private void setInput_Optionsj2me_widget(BooleanOptionWidget widget) {
@@ -6624,6 +6764,30 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	
 	
 	
+	private StringOptionWidget Input_Optionsbody_cache_widget;
+	
+	private void setInput_Optionsbody_cache_widget(StringOptionWidget widget) {
+		Input_Optionsbody_cache_widget = widget;
+	}
+	
+	public StringOptionWidget getInput_Optionsbody_cache_widget() {
+		return Input_Optionsbody_cache_widget;
+	}
+	
+	
+	
+	private StringOptionWidget Input_Optionsincremental_widget;
+	
+	private void setInput_Optionsincremental_widget(StringOptionWidget widget) {
+		Input_Optionsincremental_widget = widget;
+	}
+	
+	public StringOptionWidget getInput_Optionsincremental_widget() {
+		return Input_Optionsincremental_widget;
+	}
+	
+	
+	
 	private StringOptionWidget Input_Optionsmain_class_widget;
 	
 	private void setInput_Optionsmain_class_widget(StringOptionWidget widget) {
@@ -6697,6 +6861,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return Output_Optionsno_output_inner_classes_attribute_widget;
 	}	
 	
+	private BooleanOptionWidget Output_Optionsdirect_class_output_widget;
+	
+	private void setOutput_Optionsdirect_class_output_widget(BooleanOptionWidget widget) {
+		Output_Optionsdirect_class_output_widget = widget;
+	}
+	
+	public BooleanOptionWidget getOutput_Optionsdirect_class_output_widget() {
+		return Output_Optionsdirect_class_output_widget;
+	}	
+	
 	private BooleanOptionWidget Output_Optionsshow_exception_dests_widget;
 	
 	private void setOutput_Optionsshow_exception_dests_widget(BooleanOptionWidget widget) {
@@ -6836,6 +7010,18 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	}	
 	
 	
+	private StringOptionWidget Processing_Optionsnum_threads_widget;
+	
+	private void setProcessing_Optionsnum_threads_widget(StringOptionWidget widget) {
+		Processing_Optionsnum_threads_widget = widget;
+	}
+	
+	public StringOptionWidget getProcessing_Optionsnum_threads_widget() {
+		return Processing_Optionsnum_threads_widget;
+	}
+	
+	
+	
 	private MultiOptionWidget Processing_Optionsthrow_analysis_widget;
 	
 	private void setProcessing_Optionsthrow_analysis_widget(MultiOptionWidget widget) {
@@ -7417,6 +7603,26 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return cgtrim_clinit_widget;
 	}	
 	
+	private BooleanOptionWidget cgcompact_widget;
+	
+	private void setcgcompact_widget(BooleanOptionWidget widget) {
+		cgcompact_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgcompact_widget() {
+		return cgcompact_widget;
+	}	
+	
+	private BooleanOptionWidget cgfreeze_widget;
+	
+	private void setcgfreeze_widget(BooleanOptionWidget widget) {
+		cgfreeze_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgfreeze_widget() {
+		return cgfreeze_widget;
+	}	
+	
 	
 	private StringOptionWidget cgjdkver_widget;
 	
@@ -7623,6 +7829,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return cgcg_sparkon_fly_cg_widget;
 	}	
 	
+	private BooleanOptionWidget cgcg_sparkcompact_pag_widget;
+	
+	private void setcgcg_sparkcompact_pag_widget(BooleanOptionWidget widget) {
+		cgcg_sparkcompact_pag_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgcg_sparkcompact_pag_widget() {
+		return cgcg_sparkcompact_pag_widget;
+	}	
+	
 	private BooleanOptionWidget cgcg_sparksimplify_offline_widget;
 	
 	private void setcgcg_sparksimplify_offline_widget(BooleanOptionWidget widget) {
@@ -7791,6 +8007,40 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return cgcg_sparkset_mass_widget;
 	}	
 	
+	private BooleanOptionWidget cgcg_sparkfreeze_sets_widget;
+	
+	private void setcgcg_sparkfreeze_sets_widget(BooleanOptionWidget widget) {
+		cgcg_sparkfreeze_sets_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgcg_sparkfreeze_sets_widget() {
+		return cgcg_sparkfreeze_sets_widget;
+	}	
+	
+	
+	private StringOptionWidget cgcg_sparksave_snapshot_widget;
+	
+	private void setcgcg_sparksave_snapshot_widget(StringOptionWidget widget) {
+		cgcg_sparksave_snapshot_widget = widget;
+	}
+	
+	public StringOptionWidget getcgcg_sparksave_snapshot_widget() {
+		return cgcg_sparksave_snapshot_widget;
+	}
+	
+	
+	
+	private StringOptionWidget cgcg_sparkload_snapshot_widget;
+	
+	private void setcgcg_sparkload_snapshot_widget(StringOptionWidget widget) {
+		cgcg_sparkload_snapshot_widget = widget;
+	}
+	
+	public StringOptionWidget getcgcg_sparkload_snapshot_widget() {
+		return cgcg_sparkload_snapshot_widget;
+	}
+	
+	
 	private BooleanOptionWidget cgcg_sparkcs_demand_widget;
 	
 	private void setcgcg_sparkcs_demand_widget(BooleanOptionWidget widget) {
@@ -9879,6 +10129,18 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return Miscellaneous_Optionssubtract_gc_widget;
 	}	
 	
+	
+	private StringOptionWidget Miscellaneous_Optionsphase_telemetry_widget;
+	
+	private void setMiscellaneous_Optionsphase_telemetry_widget(StringOptionWidget widget) {
+		Miscellaneous_Optionsphase_telemetry_widget = widget;
+	}
+	
+	public StringOptionWidget getMiscellaneous_Optionsphase_telemetry_widget() {
+		return Miscellaneous_Optionsphase_telemetry_widget;
+	}
+	
+	
 
 	private Composite General_OptionsCreate(Composite parent) {
 		String defKey;
@@ -10169,7 +10431,7 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			
 		}
 
-		setInput_Optionsoaat_widget(new BooleanOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("One at a time", "", "","oaat", "\nThis option is meant to keep memory consumption low. If \nenabled, the -process-dir option must be used as well. From the \nprocess-dir, Soot will process one class at a time. Only body \npacks are run, no whole-program packs. 			 ", defaultBool)));
+		setInput_Optionsoaat_widget(new BooleanOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("One at a time", "", "","oaat", "\nThis option is meant to keep memory consumption low. If \nenabled, the -process-dir option must be used as well. From the \nprocess-dir, Soot will process one class at a time. Only body \npacks are run, no whole-program packs. 			 With -num-threads \nabove 1, a reader thread resolves the classes and hands them to \nthat many threads running the body packs, while the main thread \nwrites them out in order. The reader stays at most two classes \nper thread ahead of the writer, so memory stays bounded. ", defaultBool)));
 		
 		
 		
@@ -10237,6 +10499,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		
 		
+		defKey = ""+" "+""+" "+"incremental-delete";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setInput_Optionsincremental_delete_widget(new BooleanOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Delete Stale Incremental Output", "", "","incremental-delete", "\nWith -incremental, delete the output files recorded for classes \nthat are no longer in the Scene. Without this option, such files \nare left in place and only counted. ", defaultBool)));
+		
+		
+		
 		defKey = ""+" "+""+" "+"j2me";
 		defKey = defKey.trim();
 
@@ -10377,6 +10655,36 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setInput_Optionsforce_android_jar_widget(new StringOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Force specific Android jar file",  "", "","force-android-jar", "\nUse PATH as the path to the android.jar file Soot should use. \nThis option overrides the 'android-jars' option. 			", defaultString)));
 		
 		
+		defKey = ""+" "+""+" "+"body-cache";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setInput_Optionsbody_cache_widget(new StringOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Body Cache Directory",  "", "","body-cache", "\nKeep the Jimple bodies that Soot builds from class files in the \ndirectory DIR, and reuse them in later runs instead of decoding \nthe bytecode and running the jb pack again. Entries are keyed by \na digest of the class file contents together with the jb phase \noptions, so a changed class or a change to those options simply \nmisses the cache. Bodies built from a class file that is \nunchanged are assumed not to depend on changes to the classes it \nreferences. The cache is not used when -keep-line-number or \n-keep-offset is given, since the cached form does not record \nthose tags. ", defaultString)));
+		
+		
+		defKey = ""+" "+""+" "+"incremental";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setInput_Optionsincremental_widget(new StringOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Incremental State File",  "", "","incremental", "\nRecord in FILE which application classes were processed, and \nskip in the next run those that have not changed. For each \nclass, the file records a fingerprint of the file it was read \nfrom, chosen as -src-prec chooses it, the output file written \nfor it, and fingerprints of the classes it references and of \ntheir superclasses and interfaces. A class whose fingerprints \nall match and whose output file is still there is neither \ntransformed nor written again. All classes are processed if the \ncommand line or any phase option differs from the run that wrote \nFILE. Only the per-class work of runs that are not \nwhole-program is incremental: there is no call graph, class \nhierarchy or points-to analysis to update. Soot therefore stops \nwith an error if this option is combined with whole-program \nmode, with -oaat, or with output that is not one file per class, \nsuch as -outjar or -f dava. Whole-program runs can reuse Spark \nresults with the save-snapshot and load-snapshot options of \ncg.spark instead. ", defaultString)));
+		
+		
 		defKey = ""+" "+""+" "+"main-class";
 		defKey = defKey.trim();
 		
@@ -10502,6 +10810,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		
 		
+		defKey = ""+" "+""+" "+"direct-class-output";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setOutput_Optionsdirect_class_output_widget(new BooleanOptionWidget(editGroupOutput_Options, SWT.NONE, new OptionData("Direct Class Output", "", "","direct-class-output", "\nWhen producing class files, Soot normally prints each class as \nJasmin assembler text and then assembles that text. With this \noption, Soot instead encodes the constant pool, bytecode, \nexception tables and attributes directly from the Baf bodies, \nwhich avoids building and re-parsing the intermediate text. The \ngenerated class files carry the same attributes that the Jasmin \npath would produce. ", defaultBool)));
+		
+		
+		
 		defKey = ""+" "+""+" "+"show-exception-dests";
 		defKey = defKey.trim();
 
@@ -10858,6 +11182,21 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		}
 		
 		
+		
+		defKey = ""+" "+""+" "+"num-threads";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "1";
+			
+		}
+
+		setProcessing_Optionsnum_threads_widget(new StringOptionWidget(editGroupProcessing_Options, SWT.NONE, new OptionData("Number of threads",  "", "","num-threads", "\nConstruct the method bodies (including the jb pack) and run the \nbody packs of independent classes concurrently on NUM worker \nthreads. With the default value of 1, all classes are processed \nsequentially on the main thread. A value of 0 or less uses one \nthread per available processor. Bytecode is still converted to \nnaive Jimple one method at a time. While classes are being \nresolved, their class files are also read and parsed ahead of \ntime on the same number of background threads; the resolver then \nonly has to add the parsed classes to the scene. The parallel \nSpark propagator also uses this number of threads, and so does \ncall graph construction with CHA, which builds the bodies of the \nnewly reachable methods in parallel. Output files are still \nwritten sequentially, in the same order as in a single-threaded \nrun, so the produced output does not depend on the number of \nthreads. Dava output, Shimple and interactive mode always run on \na single thread.", defaultString)));
+		
 
 		
 		return editGroupProcessing_Options;
@@ -12671,6 +13010,38 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		
 		
+		defKey = "p"+" "+"cg"+" "+"compact";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgcompact_widget(new BooleanOptionWidget(editGroupcg, SWT.NONE, new OptionData("Compact Call Graph", "p", "cg","compact", "\nWhen this option is true, the call graph is stored as a \nCompactCallGraph, which keeps the edges in arrays of method and \nunit numbers rather than as Edge objects in hash tables and \nlists. It holds the same edges, and returns them in the same \norder, in a fraction of the memory, but returns a new Edge \nobject each time an edge is retrieved. This is worthwhile for \nvery large call graphs, such as context-sensitive ones.", defaultBool)));
+		
+		
+		
+		defKey = "p"+" "+"cg"+" "+"freeze";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgfreeze_widget(new BooleanOptionWidget(editGroupcg, SWT.NONE, new OptionData("Freeze Compact Call Graph", "p", "cg","freeze", "\nWhen this option and the compact option are true, the call graph \nis frozen once it has been built and trimmed of static \ninitializer edges. This releases the memory needed only to add \nand remove edges, including the map from statements to their \nnumbers, leaving the call graph in about a third of the memory \nof a CallGraph. Any later attempt to add or remove an edge, for \ninstance by a transformer that inlines methods, fails.", defaultBool)));
+		
+		
+		
 		defKey = "p"+" "+"cg"+" "+"jdkver";
 		defKey = defKey.trim();
 		
@@ -13107,6 +13478,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setcgcg_sparkon_fly_cg_widget(new BooleanOptionWidget(editGroupcgSpark_Pointer_Assignment_Graph_Building_Options, SWT.NONE, new OptionData("On Fly Call Graph", "p", "cg.spark","on-fly-cg", "\nWhen this option is set to true, the call graph is computed \non-the-fly as points-to information is computed. Otherwise, an \ninitial CHA approximation to the call graph is used. ", defaultBool)));
 		
 		
+		
+		defKey = "p"+" "+"cg.spark"+" "+"compact-pag";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgcg_sparkcompact_pag_widget(new BooleanOptionWidget(editGroupcgSpark_Pointer_Assignment_Graph_Building_Options, SWT.NONE, new OptionData("Compact PAG", "p", "cg.spark","compact-pag", "\nWhen this option is set to true, the edges of the pointer \nassignment graph are stored as arrays of node numbers indexed by \nthe number of their source node, rather than in hash maps of \nhash sets. Once the graph has been built and simplified, the \nedges are packed into a single array per edge kind before \npropagation starts. This takes much less memory on large \nprograms; the computed points-to sets are the same. ", defaultBool)));
+		
+		
 
 		
 		return editGroupcgSpark_Pointer_Assignment_Graph_Building_Options;
@@ -13230,12 +13617,24 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		true),
 		
+		new OptionData("Parallel",
+		"parallel",
+		"\nParallel is the worklist-based algorithm with the points-to set \nupdates spread over the number of threads given by the \n-num-threads option. It computes the same points-to sets as \nWorklist. The heintze and sharedlist set implementations share \nstate between sets, so with those it uses a single thread. ",
+		
+		false),
+		
 		new OptionData("Cycle",
 		"cycle",
 		"\nThis algorithm finds cycles in the PAG on-the-fly. It is not yet \nfinished.",
 		
 		false),
 		
+		new OptionData("Lazy Cycle",
+		"lazycycle",
+		"\nLazy Cycle is the worklist-based algorithm, extended to find \ncycles of simple edges while it propagates. Whenever propagating \nalong an edge leaves both ends with the same points-to set, it \nsearches for cycles from the target of the edge, and merges the \nnodes of each cycle found. It computes the same points-to sets \nas Worklist, and also collapses cycles that only appear once the \ncall graph is built on the fly. ",
+		
+		false),
+		
 		new OptionData("Merge",
 		"merge",
 		"\nMerge is an algorithm that merges all concrete field (yellow) \nnodes with their corresponding field reference (red) nodes. This \nalgorithm is not yet finished. ",
@@ -13611,6 +14010,52 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setcgcg_sparkset_mass_widget(new BooleanOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Calculate Set Mass", "p", "cg.spark","set-mass", "\nWhen this option is set to true, Spark computes and prints \nvarious cryptic statistics about the size of the points-to sets \ncomputed. ", defaultBool)));
 		
 		
+		
+		defKey = "p"+" "+"cg.spark"+" "+"freeze-sets";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgcg_sparkfreeze_sets_widget(new BooleanOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Freeze Sets", "p", "cg.spark","freeze-sets", "\nWhen this option is set to true, Spark replaces the points-to \nsets of all nodes by immutable sets once it has finished, so \nthat the memory used during propagation can be reclaimed for the \nanalyses that use its results. Each frozen set is a sorted array \nof objects, and nodes whose sets have the same type and hold the \nsame objects share one frozen set. Adding to a frozen set throws \nan exception. This option is ignored when the geometric \npoints-to analysis is enabled, since it refines the sets of \nSpark. ", defaultBool)));
+		
+		
+		
+		defKey = "p"+" "+"cg.spark"+" "+"save-snapshot";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setcgcg_sparksave_snapshot_widget(new StringOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Save Snapshot",  "p", "cg.spark","save-snapshot", "\nWhen this option is set to a file name, the call graph, the \nreachable methods and the points-to sets computed by Spark are \nwritten to that file in a compact binary format, to be loaded by \na later run on the same program with the Load Snapshot option. \nThe snapshot is keyed by a digest of the classes in the Scene, \nof the files they were read from, of the entry points, of the \noptions of the jb, jj and wjpp packs and of the options of the \ncg and cg.spark phases, and also holds a digest of each method \nbody it refers to. Snapshots cannot be taken with the rta, \ngeom-pta or cs-demand options. ", defaultString)));
+		
+		
+		defKey = "p"+" "+"cg.spark"+" "+"load-snapshot";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setcgcg_sparkload_snapshot_widget(new StringOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Load Snapshot",  "p", "cg.spark","load-snapshot", "\nWhen this option is set to a file name, and that file holds a \nsnapshot saved by the Save Snapshot option for the same classes, \nentry points and options, Spark does not run; the call graph, \nreachable methods and points-to analysis are instead read from \nthe snapshot as they are asked for. The points-to analysis then \nhas the points-to sets of the snapshot but no pointer assignment \ngraph edges, and the output options of Spark have no effect. The \nbodies of methods must not be changed before their points-to \nsets and call edges are first looked up; a body that differs \nfrom the one the snapshot was taken of is reported with an \nexception when it is first used. If the file does not exist or \nis out of date, Spark runs as usual. ", defaultString)));
+		
 
 		
 		return editGroupcgSpark_Output_Options;
@@ -19818,6 +20263,21 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setMiscellaneous_Optionssubtract_gc_widget(new BooleanOptionWidget(editGroupMiscellaneous_Options, SWT.NONE, new OptionData("Subtract Garbage Collection Time", "", "","subtract-gc", "\nAttempt to subtract time spent in garbage collection from the \nreports of times required for transformations. ", defaultBool)));
 		
 		
+		
+		defKey = ""+" "+""+" "+"phase-telemetry";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setMiscellaneous_Optionsphase_telemetry_widget(new StringOptionWidget(editGroupMiscellaneous_Options, SWT.NONE, new OptionData("Phase Telemetry File",  "", "","phase-telemetry", "\nMeasure every application of a pack or transform and write the \ntotals for each phase to FILE as JSON once the output has been \nwritten. For each phase, the file gives the number of \napplications and of bodies transformed, the wall-clock time, the \nCPU time and the bytes allocated by the thread applying the \nphase, and the number of units in the bodies before and after \nthe phase. The figures of a pack include those of its \ntransforms; those of a scene transform only include the thread \nthat applied it, not threads it started. Writing the output is \nrecorded under the phase output. ", defaultString)));
+		
 
 		
 		return editGroupMiscellaneous_Options;
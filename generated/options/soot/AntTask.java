@@ -233,6 +233,20 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-no-bodies-for-excluded");
         }
   
+        public void setbody_cache(String arg) {
+            addArg("-body-cache");
+            addArg(arg);
+        }
+  
+        public void setincremental(String arg) {
+            addArg("-incremental");
+            addArg(arg);
+        }
+  
+        public void setincremental_delete(boolean arg) {
+            if(arg) addArg("-incremental-delete");
+        }
+  
         public void setj2me(boolean arg) {
             if(arg) addArg("-j2me");
         }
@@ -309,6 +323,10 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-no-output-inner-classes-attribute");
         }
   
+        public void setdirect_class_output(boolean arg) {
+            if(arg) addArg("-direct-class-output");
+        }
+  
         public void setdump_body(Path arg) {
             if(dump_body == null )
                 dump_body = new Path(getProject());
@@ -382,6 +400,11 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-ignore-resolution-errors");
         }
   
+        public void setnum_threads(int arg) {
+            addArg("-num-threads");
+            addArg(Integer.toString(arg));
+        }
+  
         public void setinclude(Path arg) {
             if(include == null )
                 include = new Path(getProject());
@@ -478,6 +501,11 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-time");
         }
   
+        public void setphase_telemetry(String arg) {
+            addArg("-phase-telemetry");
+            addArg(arg);
+        }
+  
         public void setsubtract_gc(boolean arg) {
             if(arg) addArg("-subtract-gc");
         }
@@ -1092,6 +1120,18 @@ public class AntTask extends MatchingTask {
             addArg("trim-clinit:"+(arg?"true":"false"));
           }
       
+          public void setcompact(boolean arg) {
+            addArg("-p");
+            addArg("cg");
+            addArg("compact:"+(arg?"true":"false"));
+          }
+      
+          public void setfreeze(boolean arg) {
+            addArg("-p");
+            addArg("cg");
+            addArg("freeze:"+(arg?"true":"false"));
+          }
+      
           public void setjdkver(String arg) {
             addArg("-p");
             addArg("cg");
@@ -1230,6 +1270,12 @@ public class AntTask extends MatchingTask {
             addArg("on-fly-cg:"+(arg?"true":"false"));
           }
       
+          public void setcompact_pag(boolean arg) {
+            addArg("-p");
+            addArg("cg.spark");
+            addArg("compact-pag:"+(arg?"true":"false"));
+          }
+      
           public void setsimplify_offline(boolean arg) {
             addArg("-p");
             addArg("cg.spark");
@@ -1302,6 +1348,12 @@ public class AntTask extends MatchingTask {
             addArg("set-mass:"+(arg?"true":"false"));
           }
       
+          public void setfreeze_sets(boolean arg) {
+            addArg("-p");
+            addArg("cg.spark");
+            addArg("freeze-sets:"+(arg?"true":"false"));
+          }
+      
           public void setcs_demand(boolean arg) {
             addArg("-p");
             addArg("cg.spark");
@@ -1356,6 +1408,18 @@ public class AntTask extends MatchingTask {
             addArg("double-set-new:"+arg);
           }
       
+          public void setsave_snapshot(String arg) {
+            addArg("-p");
+            addArg("cg.spark");
+            addArg("save-snapshot:"+arg);
+          }
+      
+          public void setload_snapshot(String arg) {
+            addArg("-p");
+            addArg("cg.spark");
+            addArg("load-snapshot:"+arg);
+          }
+      
           public void settraversal(String arg) {
             addArg("-p");
             addArg("cg.spark");
@@ -142,6 +142,38 @@ public class CGOptions
         return soot.PhaseOptions.getBoolean( options, "trim-clinit" );
     }
     
+    /** Compact Call Graph --
+    
+     * Store the call graph in int arrays.
+    
+     * When this option is true, the call graph is stored as a 
+     * CompactCallGraph, which keeps the edges in arrays of method and 
+     * unit numbers rather than as Edge objects in hash tables and 
+     * lists. It holds the same edges, and returns them in the same 
+     * order, in a fraction of the memory, but returns a new Edge 
+     * object each time an edge is retrieved. This is worthwhile for 
+     * very large call graphs, such as context-sensitive ones.
+     */
+    public boolean compact() {
+        return soot.PhaseOptions.getBoolean( options, "compact" );
+    }
+    
+    /** Freeze Compact Call Graph --
+    
+     * Make the compact call graph read-only once built.
+    
+     * When this option and the compact option are true, the call graph 
+     * is frozen once it has been built and trimmed of static 
+     * initializer edges. This releases the memory needed only to add 
+     * and remove edges, including the map from statements to their 
+     * numbers, leaving the call graph in about a third of the memory 
+     * of a CallGraph. Any later attempt to add or remove an edge, for 
+     * instance by a transformer that inlines methods, fails.
+     */
+    public boolean freeze() {
+        return soot.PhaseOptions.getBoolean( options, "freeze" );
+    }
+    
     /** JDK version --
     
      * JDK version for native methods.
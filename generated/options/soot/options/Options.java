@@ -343,6 +343,45 @@ public class Options extends OptionsBase {
             )
                 no_bodies_for_excluded = true;
   
+            else if( false
+            || option.equals( "body-cache" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                if( body_cache.length() == 0 )
+                    body_cache = value;
+                else {
+                    G.v().out.println( "Duplicate values "+body_cache+" and "+value+" for option -"+option );
+                    return false;
+                }
+            }
+  
+            else if( false
+            || option.equals( "incremental" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                if( incremental.length() == 0 )
+                    incremental = value;
+                else {
+                    G.v().out.println( "Duplicate values "+incremental+" and "+value+" for option -"+option );
+                    return false;
+                }
+            }
+  
+            else if( false 
+            || option.equals( "incremental-delete" )
+            )
+                incremental_delete = true;
+  
             else if( false 
             || option.equals( "j2me" )
             )
@@ -610,6 +649,11 @@ public class Options extends OptionsBase {
             )
                 no_output_inner_classes_attribute = true;
   
+            else if( false 
+            || option.equals( "direct-class-output" )
+            )
+                direct_class_output = true;
+  
             else if( false
             || option.equals( "dump-body" )
             ) {
@@ -781,6 +825,23 @@ public class Options extends OptionsBase {
             )
                 ignore_resolution_errors = true;
   
+            else if( false
+            || option.equals( "num-threads" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                try {
+                    num_threads = Integer.parseInt( value );
+                } catch( NumberFormatException e ) {
+                    G.v().out.println( "Invalid integer "+value+" given for option -"+option );
+                    return false;
+                }
+            }
+  
             else if( false
             || option.equals( "i" )
             || option.equals( "include" )
@@ -945,6 +1006,23 @@ public class Options extends OptionsBase {
             )
                 time = true;
   
+            else if( false
+            || option.equals( "phase-telemetry" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                if( phase_telemetry.length() == 0 )
+                    phase_telemetry = value;
+                else {
+                    G.v().out.println( "Duplicate values "+phase_telemetry+" and "+value+" for option -"+option );
+                    return false;
+                }
+            }
+  
             else if( false 
             || option.equals( "subtract-gc" )
             )
@@ -1077,6 +1155,16 @@ public class Options extends OptionsBase {
     private boolean no_bodies_for_excluded = false;
     public void set_no_bodies_for_excluded( boolean setting ) { no_bodies_for_excluded = setting; }
   
+    public String body_cache() { return body_cache; }
+    public void set_body_cache( String setting ) { body_cache = setting; }
+    private String body_cache = "";
+    public String incremental() { return incremental; }
+    public void set_incremental( String setting ) { incremental = setting; }
+    private String incremental = "";
+    public boolean incremental_delete() { return incremental_delete; }
+    private boolean incremental_delete = false;
+    public void set_incremental_delete( boolean setting ) { incremental_delete = setting; }
+  
     public boolean j2me() { return j2me; }
     private boolean j2me = false;
     public void set_j2me( boolean setting ) { j2me = setting; }
@@ -1117,6 +1205,10 @@ public class Options extends OptionsBase {
     private boolean no_output_inner_classes_attribute = false;
     public void set_no_output_inner_classes_attribute( boolean setting ) { no_output_inner_classes_attribute = setting; }
   
+    public boolean direct_class_output() { return direct_class_output; }
+    private boolean direct_class_output = false;
+    public void set_direct_class_output( boolean setting ) { direct_class_output = setting; }
+  
     public List dump_body() { 
         if( dump_body == null )
             return java.util.Collections.EMPTY_LIST;
@@ -1163,6 +1255,9 @@ public class Options extends OptionsBase {
     private boolean ignore_resolution_errors = false;
     public void set_ignore_resolution_errors( boolean setting ) { ignore_resolution_errors = setting; }
   
+    public int num_threads() { return num_threads; }
+    public void set_num_threads( int setting ) { num_threads = setting; }
+    private int num_threads = 1;
     public List include() { 
         if( include == null )
             return java.util.Collections.EMPTY_LIST;
@@ -1219,6 +1314,9 @@ public class Options extends OptionsBase {
     private boolean time = false;
     public void set_time( boolean setting ) { time = setting; }
   
+    public String phase_telemetry() { return phase_telemetry; }
+    public void set_phase_telemetry( String setting ) { phase_telemetry = setting; }
+    private String phase_telemetry = "";
     public boolean subtract_gc() { return subtract_gc; }
     private boolean subtract_gc = false;
     public void set_subtract_gc( boolean setting ) { subtract_gc = setting; }
@@ -1260,6 +1358,9 @@ public class Options extends OptionsBase {
 +padOpt(" -full-resolver", "Force transitive resolving of referenced classes" )
 +padOpt(" -allow-phantom-refs", "Allow unresolved classes; may cause errors" )
 +padOpt(" -no-bodies-for-excluded", "Do not load bodies for excluded classes" )
++padOpt(" -body-cache DIR", "Cache Jimple bodies built from class files in DIR" )
++padOpt(" -incremental FILE", "Skip classes unchanged since the run that wrote FILE (whole program in -w)" )
++padOpt(" -incremental-delete", "Delete output files of classes removed since the last incremental run" )
 +padOpt(" -j2me", "Use J2ME mode; changes assignment of types" )
 +padOpt(" -main-class CLASS", "Sets the main class for whole-program analysis." )
 +padOpt(" -polyglot", "Use Java 1.4 Polyglot frontend instead of JastAdd" )
@@ -1287,6 +1388,7 @@ public class Options extends OptionsBase {
 +padOpt(" -print-tags -print-tags-in-output", "Print tags in output files after stmt" )
 +padOpt(" -no-output-source-file-attribute", "Don't output Source File Attribute when producing class files" )
 +padOpt(" -no-output-inner-classes-attribute", "Don't output inner classes attribute in class files" )
++padOpt(" -direct-class-output", "Write class files directly from Baf instead of through Jasmin" )
 +padOpt(" -dump-body PHASENAME", "Dump the internal representation of each method before and after phase PHASENAME" )
 +padOpt(" -dump-cfg PHASENAME", "Dump the internal representation of each CFG constructed during phase PHASENAME" )
 +padOpt(" -show-exception-dests", "Include exception destination edges as well as CFG edges in dumped CFGs" )
@@ -1304,6 +1406,7 @@ public class Options extends OptionsBase {
 +padOpt(" -omit-excepting-unit-edges", "Omit CFG edges to handlers from excepting units which lack side effects" )
 +padOpt(" -trim-cfgs", "Trim unrealizable exceptional edges from CFGs" )
 +padOpt(" -ire -ignore-resolution-errors", "Does not throw an exception when a program references an undeclared field or method." )
++padOpt(" -num-threads NUM", "Build and transform bodies on NUM worker threads" )
 +"\nApplication Mode Options:\n"
       
 +padOpt(" -i PKG -include PKG", "Include classes in PKG as application classes" )
@@ -1326,6 +1429,7 @@ public class Options extends OptionsBase {
 +"\nMiscellaneous Options:\n"
       
 +padOpt(" -time", "Report time required for transformations" )
++padOpt(" -phase-telemetry FILE", "Write the cost of each pack and transform to FILE" )
 +padOpt(" -subtract-gc", "Subtract gc from time" );
     }
 
@@ -1650,6 +1754,8 @@ public class Options extends OptionsBase {
                 +padOpt( "all-reachable (false)", "Assume all methods of application classes are reachable." )
                 +padOpt( "implicit-entry (true)", "Include methods called implicitly by the VM as entry points" )
                 +padOpt( "trim-clinit (true)", "Removes redundant static initializer calls" )
+                +padOpt( "compact (false)", "Store the call graph in int arrays" )
+                +padOpt( "freeze (false)", "Make the compact call graph read-only once built" )
                 +padOpt( "reflection-log", "Uses a reflection log to resolve reflective calls." )
                 +padOpt( "guards (ignore)", "Describes how to guard the program from unsound assumptions." );
     
@@ -1679,6 +1785,7 @@ public class Options extends OptionsBase {
                 +padOpt( "empties-as-allocs (false)", "Treat singletons for empty sets etc. as allocation sites" )
                 +padOpt( "simple-edges-bidirectional (false)", "Equality-based analysis between variable nodes" )
                 +padOpt( "on-fly-cg (true)", "Build call graph as receiver types become known" )
+                +padOpt( "compact-pag (false)", "Store PAG edges in arrays indexed by node number" )
                 +padOpt( "simplify-offline (false)", "Collapse single-entry subgraphs of the PAG" )
                 +padOpt( "simplify-sccs (false)", "Collapse strongly-connected components of the PAG" )
                 +padOpt( "ignore-types-for-sccs (false)", "Ignore declared types when determining node equivalence for SCCs" )
@@ -1687,8 +1794,12 @@ public class Options extends OptionsBase {
                 
                 +padVal( "worklist (default)", "Fast, worklist-based algorithm" )
                 
+                +padVal( "parallel", "Worklist-based algorithm using several threads" )
+                
                 +padVal( "cycle", "Unfinished on-the-fly cycle detection algorithm" )
                 
+                +padVal( "lazycycle", "Worklist-based algorithm with lazy cycle detection" )
+                
                 +padVal( "merge", "Unfinished field reference merging algorithms" )
                 
                 +padVal( "alias", "Alias-edge based algorithm" )
@@ -1745,6 +1856,9 @@ public class Options extends OptionsBase {
                 +padOpt( "dump-answer (false)", "Dump computed reaching types for comparison with other solvers" )
                 +padOpt( "add-tags (false)", "Output points-to results in tags for viewing with the Jimple" )
                 +padOpt( "set-mass (false)", "Calculate statistics about points-to set sizes" )
+                +padOpt( "freeze-sets (false)", "Share identical points-to sets once Spark has finished" )
+                +padOpt( "save-snapshot ()", "Save results to a snapshot file for later runs" )
+                +padOpt( "load-snapshot ()", "Load results from a snapshot file instead of running Spark" )
                 +padOpt( "cs-demand (false)", "After running Spark, refine points-to sets on demand with context information" )
                 +padOpt( "lazy-pts (true)", "Create lazy points-to sets that create context information only when needed." )
                 +padOpt( "traversal (75000)", "Make the analysis traverse at most this number of nodes per query." )
@@ -2594,6 +2708,8 @@ public class Options extends OptionsBase {
                 +"all-reachable "
                 +"implicit-entry "
                 +"trim-clinit "
+                +"compact "
+                +"freeze "
                 +"reflection-log "
                 +"guards ";
     
@@ -2619,6 +2735,7 @@ public class Options extends OptionsBase {
                 +"empties-as-allocs "
                 +"simple-edges-bidirectional "
                 +"on-fly-cg "
+                +"compact-pag "
                 +"simplify-offline "
                 +"simplify-sccs "
                 +"ignore-types-for-sccs "
@@ -2635,6 +2752,9 @@ public class Options extends OptionsBase {
                 +"dump-answer "
                 +"add-tags "
                 +"set-mass "
+                +"freeze-sets "
+                +"save-snapshot "
+                +"load-snapshot "
                 +"cs-demand "
                 +"lazy-pts "
                 +"traversal "
@@ -3198,6 +3318,8 @@ public class Options extends OptionsBase {
               +"all-reachable:false "
               +"implicit-entry:true "
               +"trim-clinit:true "
+              +"compact:false "
+              +"freeze:false "
               +"guards:ignore ";
     
         if( phaseName.equals( "cg.cha" ) )
@@ -3222,6 +3344,7 @@ public class Options extends OptionsBase {
               +"empties-as-allocs:false "
               +"simple-edges-bidirectional:false "
               +"on-fly-cg:true "
+              +"compact-pag:false "
               +"simplify-offline:false "
               +"simplify-sccs:false "
               +"ignore-types-for-sccs:false "
@@ -3238,6 +3361,9 @@ public class Options extends OptionsBase {
               +"dump-answer:false "
               +"add-tags:false "
               +"set-mass:false "
+              +"freeze-sets:false "
+              +"save-snapshot: "
+              +"load-snapshot: "
               +"cs-demand:false "
               +"lazy-pts:true "
               +"traversal:75000 "
@@ -223,6 +223,22 @@ public class SparkOptions
         return soot.PhaseOptions.getBoolean( options, "on-fly-cg" );
     }
     
+    /** Compact PAG --
+    
+     * Store PAG edges in arrays indexed by node number.
+    
+     * When this option is set to true, the edges of the pointer 
+     * assignment graph are stored as arrays of node numbers indexed by 
+     * the number of their source node, rather than in hash maps of 
+     * hash sets. Once the graph has been built and simplified, the 
+     * edges are packed into a single array per edge kind before 
+     * propagation starts. This takes much less memory on large 
+     * programs; the computed points-to sets are the same. 
+     */
+    public boolean compact_pag() {
+        return soot.PhaseOptions.getBoolean( options, "compact-pag" );
+    }
+    
     /** Simplify Offline --
     
      * Collapse single-entry subgraphs of the PAG.
@@ -380,6 +396,24 @@ public class SparkOptions
         return soot.PhaseOptions.getBoolean( options, "set-mass" );
     }
     
+    /** Freeze Sets --
+    
+     * Share identical points-to sets once Spark has finished.
+    
+     * When this option is set to true, Spark replaces the points-to 
+     * sets of all nodes by immutable sets once it has finished, so 
+     * that the memory used during propagation can be reclaimed for the 
+     * analyses that use its results. Each frozen set is a sorted array 
+     * of objects, and nodes whose sets have the same type and hold the 
+     * same objects share one frozen set. Adding to a frozen set throws 
+     * an exception. This option is ignored when the geometric 
+     * points-to analysis is enabled, since it refines the sets of 
+     * Spark. 
+     */
+    public boolean freeze_sets() {
+        return soot.PhaseOptions.getBoolean( options, "freeze-sets" );
+    }
+    
     /** Demand-driven refinement-based context-sensitive points-to analysis --
     
      * After running Spark, refine points-to sets on demand with 
@@ -518,6 +552,46 @@ public class SparkOptions
         return soot.PhaseOptions.getInt( options, "geom-runs" );
     }
     
+    /** Save Snapshot --
+    
+     * Save results to a snapshot file for later runs.
+    
+     * When this option is set to a file name, the call graph, the 
+     * reachable methods and the points-to sets computed by Spark are 
+     * written to that file in a compact binary format, to be loaded by 
+     * a later run on the same program with the Load Snapshot option. 
+     * The snapshot is keyed by a digest of the classes in the Scene, 
+     * of the files they were read from, of the entry points, of the 
+     * options of the jb, jj and wjpp packs and of the options of the 
+     * cg and cg.spark phases, and also holds a digest of each method 
+     * body it refers to. Snapshots cannot be taken with the rta, 
+     * geom-pta or cs-demand options. 
+     */
+    public String save_snapshot() {
+        return soot.PhaseOptions.getString( options, "save-snapshot" );
+    }
+    
+    /** Load Snapshot --
+    
+     * Load results from a snapshot file instead of running Spark.
+    
+     * When this option is set to a file name, and that file holds a 
+     * snapshot saved by the Save Snapshot option for the same classes, 
+     * entry points and options, Spark does not run; the call graph, 
+     * reachable methods and points-to analysis are instead read from 
+     * the snapshot as they are asked for. The points-to analysis then 
+     * has the points-to sets of the snapshot but no pointer assignment 
+     * graph edges, and the output options of Spark have no effect. The 
+     * bodies of methods must not be changed before their points-to 
+     * sets and call edges are first looked up; a body that differs 
+     * from the one the snapshot was taken of is reported with an 
+     * exception when it is first used. If the file does not exist or 
+     * is out of date, Spark runs as usual. 
+     */
+    public String load_snapshot() {
+        return soot.PhaseOptions.getString( options, "load-snapshot" );
+    }
+    
     /** Verbose dump file --
     
      * Filename for detailed execution log.
@@ -547,10 +621,12 @@ public class SparkOptions
     
     public static final int propagator_iter = 1;
     public static final int propagator_worklist = 2;
-    public static final int propagator_cycle = 3;
-    public static final int propagator_merge = 4;
-    public static final int propagator_alias = 5;
-    public static final int propagator_none = 6;
+    public static final int propagator_parallel = 3;
+    public static final int propagator_cycle = 4;
+    public static final int propagator_lazycycle = 5;
+    public static final int propagator_merge = 6;
+    public static final int propagator_alias = 7;
+    public static final int propagator_none = 8;
     /** Propagator --
     
      * Select propagation algorithm.
@@ -567,9 +643,15 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "worklist" ) )
             return propagator_worklist;
         
+        if( s.equalsIgnoreCase( "parallel" ) )
+            return propagator_parallel;
+        
         if( s.equalsIgnoreCase( "cycle" ) )
             return propagator_cycle;
         
+        if( s.equalsIgnoreCase( "lazycycle" ) )
+            return propagator_lazycycle;
+        
         if( s.equalsIgnoreCase( "merge" ) )
             return propagator_merge;
         
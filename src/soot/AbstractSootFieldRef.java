@@ -73,7 +73,11 @@ class AbstractSootFieldRef implements SootFieldRef {
     }
 
     public SootField resolve() {
-        return resolve(null);
+        // resolution may add phantom fields to classes shared with
+        // other threads, so it is serialized on the scene
+        synchronized(Scene.v()) {
+            return resolve(null);
+        }
     }
     private SootField checkStatic(SootField ret) {
         if( ret.isStatic() != isStatic() && !ret.isPhantom()) {
@@ -54,6 +54,7 @@ import soot.tagkit.Tag;
 import soot.toolkits.exceptions.PedanticThrowAnalysis;
 import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.graph.UnitGraph;
+import soot.toolkits.scalar.BodyAnalysisCache;
 import soot.toolkits.scalar.FlowSet;
 import soot.toolkits.scalar.InitAnalysis;
 import soot.toolkits.scalar.LocalDefs;
@@ -89,6 +90,12 @@ public abstract class Body extends AbstractHost implements Serializable
     /** The chain of units for this Body. */
     protected PatchingChain<Unit> unitChain = new PatchingChain<Unit>(new HashChain<Unit>());
 
+    /** The cached analyses of this Body, created on demand. */
+    private transient BodyAnalysisCache analysisCache = null;
+
+    /** The number of analysis scopes currently open on this Body. */
+    private transient int analysisScopes = 0;
+
     /** Creates a deep copy of this Body. */
     abstract public Object clone();
 
@@ -127,6 +134,42 @@ public abstract class Body extends AbstractHost implements Serializable
         this.method = method;
     }
 
+    /**
+     * Returns the cache through which transformers share the control flow
+     * graph and the local defs, uses and liveness of this Body. The cache
+     * lives until the outermost analysis scope on this Body ends.
+     */
+    public BodyAnalysisCache getAnalysisCache()
+    {
+        if(analysisCache == null)
+            analysisCache = new BodyAnalysisCache(this);
+        return analysisCache;
+    }
+
+    /**
+     * Opens an analysis scope on this Body. Transformers run within the
+     * same scope share the analyses cached for this Body. Packs and
+     * BodyTransformers open a scope around their work; code running
+     * several transformers directly can open one around all of them.
+     */
+    public void beginAnalysisScope()
+    {
+        analysisScopes++;
+    }
+
+    /**
+     * Closes an analysis scope opened by {@link #beginAnalysisScope()}.
+     * When the outermost scope closes, the cached analyses are discarded,
+     * freeing their memory.
+     */
+    public void endAnalysisScope()
+    {
+        if(analysisScopes > 0)
+            analysisScopes--;
+        if(analysisScopes == 0)
+            analysisCache = null;
+    }
+
     /** Returns the number of locals declared in this body. */
     public int getLocalCount()
     {
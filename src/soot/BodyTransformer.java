@@ -48,7 +48,12 @@ public abstract class BodyTransformer extends Transformer
         if(!PhaseOptions.getBoolean(options, "enabled"))
             return;
 
-        internalTransform(b, phaseName, options);
+        b.beginAnalysisScope();
+        try {
+            internalTransform(b, phaseName, options);
+        } finally {
+            b.endAnalysisScope();
+        }
     }
 
     public final void transform(Body b, String phaseName)
@@ -31,7 +31,7 @@ public class CoffiClassProvider implements ClassProvider
         SourceLocator.FoundFile file = 
             SourceLocator.v().lookupInClassPath(fileName);
         if( file == null ) return null;
-        return new CoffiClassSource(className, file.inputStream());
+        return new CoffiClassSource(className, file);
     }
 }
 
@@ -23,6 +23,10 @@ import soot.javaToJimple.IInitialResolver.Dependencies;
 import soot.options.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /** A class source for resolving from .class files through coffi.
  */
@@ -32,20 +36,65 @@ public class CoffiClassSource extends ClassSource
         super( className );
         this.classFile = classFile;
     }
+    /** Creates a source for a class file that is only opened (and, in an
+     * archive, decompressed) when it is read. */
+    public CoffiClassSource( String className, SourceLocator.FoundFile foundFile ) {
+        super( className );
+        this.foundFile = foundFile;
+    }
     public Dependencies resolve( SootClass sc ) {
         if(Options.v().verbose())
             G.v().out.println("resolving [from .class]: " + className );
         List references = new ArrayList();
-        soot.coffi.Util.v().resolveFromClassFile(sc, classFile, references);
+        if( parsed != null ) {
+            soot.coffi.Util.v().resolveFromClassFile(sc, parsedClassFile(), references);
+        } else {
+            soot.coffi.Util.v().resolveFromClassFile(sc, classFile(), references);
+        }
 
         try {
-            classFile.close();
+            classFile().close();
         } catch (IOException e) { throw new RuntimeException("!?"); }
         
         IInitialResolver.Dependencies deps = new IInitialResolver.Dependencies();
         deps.typesToSignature.addAll(references);
         return deps;
     }
+
+    /** Starts reading and parsing the class file on the given executor,
+     * so that resolve only has to turn the result into the SootClass. */
+    public synchronized void prefetch( Executor executor ) {
+        if( parsed != null ) return;
+        parsed = new FutureTask<soot.coffi.ClassFile>( new Callable<soot.coffi.ClassFile>() {
+            public soot.coffi.ClassFile call() {
+                soot.coffi.ClassFile coffiClass = new soot.coffi.ClassFile( className );
+                return coffiClass.loadClassFileUnlessCached( classFile() ) ? coffiClass : null;
+            }
+        } );
+        executor.execute( parsed );
+    }
+
+    private soot.coffi.ClassFile parsedClassFile() {
+        try {
+            return parsed.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new CompilationDeathException( "Interrupted while reading "+className );
+        } catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+            if( cause instanceof Error ) throw (Error) cause;
+            throw new RuntimeException( cause );
+        }
+    }
+
+    private synchronized InputStream classFile() {
+        if( classFile == null ) classFile = foundFile.inputStream();
+        return classFile;
+    }
+
     protected InputStream classFile;
+    private SourceLocator.FoundFile foundFile;
+    private FutureTask<soot.coffi.ClassFile> parsed;
 }
 
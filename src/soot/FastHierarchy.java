@@ -76,6 +76,28 @@ public class FastHierarchy
 
     protected Scene sc;
 
+    /** Marks a dispatch that resolves to no method. */
+    private static final Object NO_TARGET = new Object();
+
+    /** This map caches the results of resolveConcreteDispatch and
+     * resolveAbstractDispatch, mapping each method to its DispatchCache. */
+    private LargeNumberedMap methodToDispatchCache =
+        new LargeNumberedMap( Scene.v().getMethodNumberer() );
+
+    /** The targets of calls to one method on each class. They are discarded
+     * when a method with its subsignature is added to or removed from a
+     * class in the Scene. */
+    private static class DispatchCache {
+        final int methodState;
+        final SmallNumberedMap concrete =
+            new SmallNumberedMap( Scene.v().getClassNumberer() );
+        final SmallNumberedMap abstr =
+            new SmallNumberedMap( Scene.v().getClassNumberer() );
+        DispatchCache( int methodState ) {
+            this.methodState = methodState;
+        }
+    }
+
     protected class Interval {
         int lower;
         int upper;
@@ -153,7 +175,7 @@ public class FastHierarchy
 
     /** For an interface parent (MUST be an interface), returns set of all
      * implementers of it but NOT their subclasses. */
-    public Set getAllImplementersOfInterface( SootClass parent ) {
+    public synchronized Set getAllImplementersOfInterface( SootClass parent ) {
         parent.checkLevel(SootClass.HIERARCHY);
         if( !interfaceToAllImplementers.containsKey( parent ) ) {
             for( Iterator subinterfaceIt = getAllSubinterfaces( parent ).iterator(); subinterfaceIt.hasNext(); ) {
@@ -170,7 +192,7 @@ public class FastHierarchy
 
     /** For an interface parent (MUST be an interface), returns set of all
      * subinterfaces. */
-    protected Set getAllSubinterfaces( SootClass parent ) {
+    protected synchronized Set getAllSubinterfaces( SootClass parent ) {
         parent.checkLevel(SootClass.HIERARCHY);
         if( !interfaceToAllSubinterfaces.containsKey( parent ) ) {
             interfaceToAllSubinterfaces.put( parent, parent );
@@ -429,6 +451,17 @@ public class FastHierarchy
     /** Given an object of declared type C, returns the methods which could
      * be called on an o.f() invocation. */
     public Set<SootMethod> resolveAbstractDispatch(SootClass abstractType, SootMethod m )
+    {
+        SmallNumberedMap cache = dispatchCache( m ).abstr;
+        Set<SootMethod> ret = (Set<SootMethod>) cache.get( abstractType );
+        if( ret == null ) {
+            ret = computeAbstractDispatch( abstractType, m );
+            cache.put( abstractType, ret );
+        }
+        return new HashSet<SootMethod>( ret );
+    }
+
+    private Set<SootMethod> computeAbstractDispatch(SootClass abstractType, SootMethod m )
     {
         String methodSig = m.getSubSignature();
         HashSet<SootClass> resolved = new HashSet<SootClass>();
@@ -478,6 +511,16 @@ public class FastHierarchy
                 "A concrete type cannot be an interface: "+concreteType );
         }
 
+        SmallNumberedMap cache = dispatchCache( m ).concrete;
+        Object cached = cache.get( concreteType );
+        if( cached != null ) return cached == NO_TARGET ? null : (SootMethod) cached;
+        SootMethod ret = computeConcreteDispatch( concreteType, m );
+        cache.put( concreteType, ret == null ? NO_TARGET : ret );
+        return ret;
+    }
+
+    private SootMethod computeConcreteDispatch(SootClass concreteType, SootMethod m)
+    {
         String methodSig = m.getSubSignature();
         while( true ) {
             if( concreteType.declaresMethod( methodSig ) ) {
@@ -497,6 +540,15 @@ public class FastHierarchy
 //        throw new RuntimeException("could not resolve concrete dispatch!\nType: "+concreteType+"\nMethod: "+m);
     }
 
+    private DispatchCache dispatchCache( SootMethod m ) {
+        DispatchCache ret = (DispatchCache) methodToDispatchCache.get( m );
+        int methodState = sc.getMethodState( m.getNumberedSubSignature() );
+        if( ret == null || ret.methodState != methodState ) {
+            methodToDispatchCache.put( m, ret = new DispatchCache( methodState ) );
+        }
+        return ret;
+    }
+
     /** Returns the target for the given SpecialInvokeExpr. */
     public SootMethod resolveSpecialDispatch(SpecialInvokeExpr ie, SootMethod container)
     {
@@ -28,8 +28,11 @@ import soot.coffi.*;
 import soot.dava.internal.SET.SETBasicBlock;
 import soot.dava.internal.SET.SETNode;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
 import soot.jimple.toolkits.pointer.util.NativeHelper;
 import soot.jimple.spark.pag.MethodPAG;
 import soot.jimple.spark.sets.P2SetFactory;
@@ -44,7 +47,11 @@ public class G extends Singletons
 {
     private static G instance = new G();
     public static G v() { return instance; }
-    public static void reset() { instance = new G(); }
+    public static void reset() {
+        G old = instance;
+        instance = new G();
+        old.closeArchives();
+    }
 
     public PrintStream out = System.out;
 
@@ -64,7 +71,7 @@ public class G extends Singletons
     public int SparkNativeHelper_tempVar = 0;
     public int PaddleNativeHelper_tempVar = 0;
     public boolean PointsToSetInternal_warnedAlready = false;
-    public HashMap<SootMethod, MethodPAG> MethodPAG_methodToPag = new HashMap<SootMethod, MethodPAG>();
+    public ConcurrentHashMap<SootMethod, MethodPAG> MethodPAG_methodToPag = new ConcurrentHashMap<SootMethod, MethodPAG>();
     public Set MethodRWSet_allGlobals = new HashSet();
     public Set MethodRWSet_allFields = new HashSet();
     public int GeneralConstObject_counter = 0;
@@ -77,6 +84,22 @@ public class G extends Singletons
     public int Timer_count;
     public final Map<Scene, ClassHierarchy> ClassHierarchy_classHierarchyMap = new HashMap<Scene, ClassHierarchy>();
     public final Map<MethodContext, MethodContext> MethodContext_map = new HashMap<MethodContext, MethodContext>();
+    /** Archives on the class path opened by the SourceLocator, by path;
+     * they stay open as long as this G, and are closed when it is reset. */
+    public final Map<String, ZipFile> SourceLocator_openArchives = new HashMap<String, ZipFile>();
+
+    private void closeArchives() {
+        synchronized( SourceLocator_openArchives ) {
+            for( ZipFile archive : SourceLocator_openArchives.values() ) {
+                try {
+                    archive.close();
+                } catch( IOException e ) {
+                    out.println( "Warning: could not close " + archive.getName() + ": " + e );
+                }
+            }
+            SourceLocator_openArchives.clear();
+        }
+    }
 
     public ShimpleFactory shimpleFactory = new DefaultShimpleFactory();
 
@@ -0,0 +1,429 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import soot.jimple.spark.snapshot.SparkSnapshot;
+import soot.options.Options;
+import soot.options.SparkOptions;
+
+/**
+ * The state kept between runs by <code>-incremental</code>, which lets a
+ * run skip the application classes that have not changed since the
+ * previous run.
+ *
+ * <p>The state file records, for each application class, a fingerprint of
+ * the file it was read from (see {@link SourceLocator#fingerprintOf}), the
+ * output file written for it, and the fingerprints of the classes it depends
+ * on: those the resolver recorded as referenced by it, those in its
+ * signatures, and all their superclasses, interfaces and outer classes. A
+ * class is skipped if none of these fingerprints has changed and its output
+ * file is still there; it is then neither transformed nor written again.
+ * Nothing is skipped if the command line or any phase option differs from
+ * the previous run.
+ *
+ * <p>In whole-program mode, the results for every class may depend on
+ * every other, and nothing here updates a call graph, class hierarchy or
+ * points-to analysis for a change. The state file then also records the
+ * fingerprints of all classes in the Scene, and classes are only skipped
+ * if none of those has changed either, that is if the whole program is
+ * unchanged. Spark then loads the snapshot it saved next to the state
+ * file instead of propagating again; see {@link #useSparkSnapshot()}.
+ */
+public class IncrementalState
+{
+    public IncrementalState( Singletons.Global g ) {}
+    public static IncrementalState v() { return G.v().soot_IncrementalState(); }
+
+    /** Bump when the state file changes, to orphan older state files. */
+    private static final String FORMAT = "2";
+
+    /** Stands for the fingerprint of a class with no file on the class path. */
+    private static final String NO_SOURCE = "-";
+
+    /** What the state file records about one application class. */
+    private static class Entry {
+        final String fingerprint;
+        final String output;
+        /** Maps the names of the classes depended on to their fingerprints. */
+        final Map<String, String> dependencies = new TreeMap<String, String>();
+        Entry( String fingerprint, String output ) {
+            this.fingerprint = fingerprint;
+            this.output = output;
+        }
+    }
+
+    /** The entries of the classes skipped in this run, by name; null unless
+     * a run is in progress. */
+    private Map<String, Entry> skipped;
+    /** The entries read from the state file of the previous run. */
+    private Map<String, Entry> previous;
+    /** The fingerprints of all classes in the Scene at the end of the
+     * previous run, by name, if it was a whole-program run. */
+    private Map<String, String> previousScene;
+    /** Fingerprints computed in this run, by class name. */
+    private final Map<String, String> fingerprints = new HashMap<String, String>();
+
+    /** Returns true if <code>-incremental</code> was given, and the other
+     * options allow classes to be skipped. Output that is not one file per
+     * class cannot be updated in part. */
+    public boolean isEnabled() {
+        String file = Options.v().incremental();
+        if( file == null || file.length() == 0 ) return false;
+        if( Options.v().oaat() || Options.v().interactive_mode() ) return false;
+        if( Options.v().output_jar() ) return false;
+        int format = Options.v().output_format();
+        return format != Options.output_format_none
+            && format != Options.output_format_dava
+            && format != Options.output_format_dex;
+    }
+
+    /** Returns true if a run with incremental state is in progress. */
+    public boolean isActive() {
+        return skipped != null;
+    }
+
+    /** Reads the state of the previous run, and decides which application
+     * classes to skip. Must be called before any bodies are built. */
+    public void start() {
+        if( !isEnabled() ) {
+            String file = Options.v().incremental();
+            if( file != null && file.length() > 0 ) {
+                throw new CompilationDeathException( CompilationDeathException.COMPILATION_ABORTED,
+                        "-incremental cannot be used with -oaat, or when the output is not one file per class" );
+            }
+            return;
+        }
+        if( isWholeProgram() ) useSparkSnapshot();
+        skipped = new HashMap<String, Entry>();
+        previous = new HashMap<String, Entry>();
+        previousScene = new HashMap<String, String>();
+        read( new File( Options.v().incremental() ), previous, previousScene );
+        int total = 0;
+        for( Iterator clIt = Scene.v().getApplicationClasses().iterator(); clIt.hasNext(); ) {
+            final SootClass cl = (SootClass) clIt.next();
+            total++;
+            Entry e = previous.get( cl.getName() );
+            if( e != null && isUnchanged( cl, e ) ) skipped.put( cl.getName(), e );
+        }
+        if( isWholeProgram() && ( skipped.size() < total || !isSceneUnchanged() ) ) {
+            G.v().out.println( "Incremental run: the program has changed; processing all classes" );
+            skipped.clear();
+            return;
+        }
+        G.v().out.println( "Incremental run: "+skipped.size()+" of "+total+" application classes are unchanged" );
+    }
+
+    private static boolean isWholeProgram() {
+        return Options.v().whole_program() || Options.v().whole_shimple();
+    }
+
+    /** Has Spark load its results from, and save them to, a snapshot file
+     * next to the state file, unless the snapshot options of cg.spark are
+     * already set or Spark cannot take snapshots with its other options.
+     * The snapshot is keyed by all classes in the Scene, so it is only used
+     * when the whole program is unchanged. */
+    private void useSparkSnapshot() {
+        SparkOptions spark = new SparkOptions( PhaseOptions.v().getPhaseOptions( "cg.spark" ) );
+        if( !spark.enabled() ) return;
+        if( spark.load_snapshot().length() > 0 || spark.save_snapshot().length() > 0 ) return;
+        if( SparkSnapshot.unsupported( spark ) != null ) return;
+        String snapshot = Options.v().incremental()+".spark";
+        PhaseOptions.v().setPhaseOption( "cg.spark", "load-snapshot:"+snapshot );
+        PhaseOptions.v().setPhaseOption( "cg.spark", "save-snapshot:"+snapshot );
+    }
+
+    /** Returns true if the previous run was whole-program, and none of the
+     * classes then in the Scene has changed since. */
+    private boolean isSceneUnchanged() {
+        if( previousScene.isEmpty() ) return false;
+        for( Iterator<Map.Entry<String, String>> it = previousScene.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, String> me = it.next();
+            if( !me.getValue().equals( fingerprintOf( me.getKey() ) ) ) return false;
+        }
+        return true;
+    }
+
+    /** Returns true if cl is unchanged since the previous run, and is
+     * therefore not processed in this one. */
+    public boolean isSkipped( SootClass cl ) {
+        return skipped != null && skipped.containsKey( cl.getName() );
+    }
+
+    /** Writes the state of this run, once its output has been written.
+     * Output files of classes that are no longer in the Scene are deleted
+     * with <code>-incremental-delete</code>, and only counted otherwise. */
+    public void finish() {
+        if( skipped == null ) return;
+        Map<String, Entry> current = new TreeMap<String, Entry>();
+        Set<String> outputs = new HashSet<String>();
+        for( Iterator clIt = Scene.v().getApplicationClasses().iterator(); clIt.hasNext(); ) {
+            final SootClass cl = (SootClass) clIt.next();
+            Entry e = skipped.get( cl.getName() );
+            if( e == null ) e = entryFor( cl );
+            if( e == null ) continue;
+            current.put( cl.getName(), e );
+            outputs.add( e.output );
+        }
+        int kept = 0;
+        for( Iterator<Map.Entry<String, Entry>> it = previous.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<String, Entry> me = it.next();
+            final Entry e = me.getValue();
+            if( outputs.contains( e.output ) ) continue;
+            if( Scene.v().containsClass( me.getKey() ) ) continue;
+            File stale = new File( e.output );
+            if( !stale.isFile() ) continue;
+            if( !Options.v().incremental_delete() ) {
+                kept++;
+            } else if( stale.delete() && Options.v().verbose() ) {
+                G.v().out.println( "Deleted "+stale+", whose class is gone" );
+            }
+        }
+        if( kept > 0 ) {
+            G.v().out.println( "Incremental run: left "+kept+" output files of removed classes; use -incremental-delete to delete them" );
+        }
+        Map<String, String> scene = new TreeMap<String, String>();
+        if( isWholeProgram() ) {
+            for( Iterator clIt = Scene.v().getClasses().iterator(); clIt.hasNext(); ) {
+                final SootClass cl = (SootClass) clIt.next();
+                scene.put( cl.getName(), fingerprintOf( cl.getName() ) );
+            }
+        }
+        write( new File( Options.v().incremental() ), current, scene );
+        skipped = null;
+        previous = null;
+        previousScene = null;
+        fingerprints.clear();
+    }
+
+    private boolean isUnchanged( SootClass cl, Entry e ) {
+        if( !e.fingerprint.equals( fingerprintOf( cl.getName() ) ) ) return false;
+        if( !e.output.equals( outputFileName( cl ) ) ) return false;
+        if( !new File( e.output ).isFile() ) return false;
+        for( Iterator<Map.Entry<String, String>> it = e.dependencies.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, String> dep = it.next();
+            if( !dep.getValue().equals( fingerprintOf( dep.getKey() ) ) ) return false;
+        }
+        return true;
+    }
+
+    /** Returns the entry recording cl as processed in this run, or null if
+     * cl was not read from a file. */
+    private Entry entryFor( SootClass cl ) {
+        String fingerprint = fingerprintOf( cl.getName() );
+        if( fingerprint == NO_SOURCE ) return null;
+        Entry ret = new Entry( fingerprint, outputFileName( cl ) );
+        for( Iterator<String> nameIt = dependencies( cl ).iterator(); nameIt.hasNext(); ) {
+            final String name = nameIt.next();
+            ret.dependencies.put( name, fingerprintOf( name ) );
+        }
+        return ret;
+    }
+
+    /** Returns the names of the classes whose changes may change the output
+     * for cl. */
+    private Set<String> dependencies( SootClass cl ) {
+        Set<String> ret = new HashSet<String>();
+        LinkedList<String> worklist = new LinkedList<String>();
+        for( Iterator refIt = SootResolver.v().referencesOf( cl ).iterator(); refIt.hasNext(); ) {
+            final Object ref = refIt.next();
+            if( ref instanceof String ) worklist.add( (String) ref );
+            else addClassOf( (Type) ref, worklist );
+        }
+        for( Iterator fIt = cl.getFields().iterator(); fIt.hasNext(); ) {
+            final SootField f = (SootField) fIt.next();
+            addClassOf( f.getType(), worklist );
+        }
+        for( Iterator mIt = cl.getMethods().iterator(); mIt.hasNext(); ) {
+            final SootMethod m = (SootMethod) mIt.next();
+            addClassOf( m.getReturnType(), worklist );
+            for( Iterator tIt = m.getParameterTypes().iterator(); tIt.hasNext(); ) {
+                addClassOf( (Type) tIt.next(), worklist );
+            }
+            for( Iterator eIt = m.getExceptions().iterator(); eIt.hasNext(); ) {
+                worklist.add( ((SootClass) eIt.next()).getName() );
+            }
+        }
+        worklist.add( cl.getName() );
+        while( !worklist.isEmpty() ) {
+            String name = worklist.removeFirst();
+            if( !ret.add( name ) || !Scene.v().containsClass( name ) ) continue;
+            SootClass c = Scene.v().getSootClass( name );
+            if( c.resolvingLevel() < SootClass.HIERARCHY ) continue;
+            if( c.hasSuperclass() ) worklist.add( c.getSuperclass().getName() );
+            if( c.hasOuterClass() ) worklist.add( c.getOuterClass().getName() );
+            for( Iterator iIt = c.getInterfaces().iterator(); iIt.hasNext(); ) {
+                worklist.add( ((SootClass) iIt.next()).getName() );
+            }
+        }
+        ret.remove( cl.getName() );
+        return ret;
+    }
+
+    private static void addClassOf( Type t, LinkedList<String> worklist ) {
+        if( t instanceof ArrayType ) t = ((ArrayType) t).baseType;
+        if( t instanceof RefType ) worklist.add( ((RefType) t).getClassName() );
+    }
+
+    private String fingerprintOf( String className ) {
+        String ret = fingerprints.get( className );
+        if( ret == null ) {
+            ret = SourceLocator.v().fingerprintOf( className );
+            if( ret == null ) ret = NO_SOURCE;
+            fingerprints.put( className, ret );
+        }
+        return ret;
+    }
+
+    private static String outputFileName( SootClass cl ) {
+        String ret = SourceLocator.v().getFileNameFor( cl, Options.v().output_format() );
+        if( Options.v().gzip() ) ret = ret+".gz";
+        return ret;
+    }
+
+    /** Returns a digest of the command line and of the options of all
+     * phases, which decide what is output for an unchanged class. */
+    private static String optionsDigest() {
+        StringBuffer b = new StringBuffer();
+        String[] args = Main.v().cmdLineArgs;
+        for( int i = 0; i < args.length; i++ ) b.append( args[i] ).append( '\n' );
+        for( Iterator<Pack> pIt = PackManager.v().allPacks().iterator(); pIt.hasNext(); ) {
+            final Pack p = pIt.next();
+            appendOptions( b, p.getPhaseName() );
+            for( Iterator tIt = p.iterator(); tIt.hasNext(); ) {
+                final Transform t = (Transform) tIt.next();
+                appendOptions( b, t.getPhaseName() );
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( b.toString().getBytes( "UTF-8" ) );
+            StringBuffer ret = new StringBuffer();
+            for( int i = 0; i < digest.length; i++ ) {
+                ret.append( Character.forDigit( ( digest[i] >> 4 ) & 0xf, 16 ) );
+                ret.append( Character.forDigit( digest[i] & 0xf, 16 ) );
+            }
+            return ret.toString();
+        } catch( NoSuchAlgorithmException e ) {
+            throw new RuntimeException( e );
+        } catch( UnsupportedEncodingException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static void appendOptions( StringBuffer b, String phaseName ) {
+        b.append( phaseName ).append( new TreeMap( PhaseOptions.v().getPhaseOptions( phaseName ) ) ).append( '\n' );
+    }
+
+    /* The state file is a header line followed by one line per class,
+     * "C name fingerprint output", each followed by one line per class it
+     * depends on, "D name fingerprint", and after a whole-program run, by
+     * one line per class in the Scene, "S name fingerprint", with the
+     * fields separated by tabs. */
+
+    /** Reads the state file into entries and scene, leaving them empty if
+     * it is missing, was written with different options or cannot be
+     * read. */
+    private static void read( File file, Map<String, Entry> entries, Map<String, String> scene ) {
+        if( !file.isFile() ) return;
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+            String header = in.readLine();
+            if( header == null || !header.equals( "soot-incremental\t"+FORMAT+"\t"+optionsDigest() ) ) {
+                G.v().out.println( "Incremental run: options have changed; processing all classes" );
+                return;
+            }
+            Entry e = null;
+            for( String line; ( line = in.readLine() ) != null; ) {
+                String[] fields = line.split( "\t" );
+                if( fields[0].equals( "C" ) && fields.length == 4 ) {
+                    e = new Entry( fields[2], fields[3] );
+                    entries.put( fields[1], e );
+                } else if( fields[0].equals( "D" ) && fields.length == 3 && e != null ) {
+                    e.dependencies.put( fields[1], fields[2] );
+                } else if( fields[0].equals( "S" ) && fields.length == 3 ) {
+                    scene.put( fields[1], fields[2] );
+                } else {
+                    throw new IOException( "malformed line "+line );
+                }
+            }
+        } catch( IOException e ) {
+            G.v().out.println( "Warning: could not read "+file+": "+e.getMessage()+"; processing all classes" );
+            entries.clear();
+            scene.clear();
+        } finally {
+            if( in != null ) {
+                try {
+                    in.close();
+                } catch( IOException e ) {
+                }
+            }
+        }
+    }
+
+    private static void write( File file, Map<String, Entry> entries, Map<String, String> scene ) {
+        File tmp = new File( file.getPath()+".tmp" );
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" ) );
+            out.print( "soot-incremental\t"+FORMAT+"\t"+optionsDigest()+"\n" );
+            for( Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Entry> me = it.next();
+                Entry e = me.getValue();
+                out.print( "C\t"+me.getKey()+"\t"+e.fingerprint+"\t"+e.output+"\n" );
+                for( Iterator<Map.Entry<String, String>> dIt = e.dependencies.entrySet().iterator(); dIt.hasNext(); ) {
+                    Map.Entry<String, String> dep = dIt.next();
+                    out.print( "D\t"+dep.getKey()+"\t"+dep.getValue()+"\n" );
+                }
+            }
+            for( Iterator<Map.Entry<String, String>> it = scene.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, String> me = it.next();
+                out.print( "S\t"+me.getKey()+"\t"+me.getValue()+"\n" );
+            }
+            out.close();
+            out = null;
+            if( file.exists() && !file.delete() ) throw new IOException( "cannot replace "+file );
+            if( !tmp.renameTo( file ) ) throw new IOException( "cannot rename "+tmp );
+        } catch( IOException e ) {
+            G.v().out.println( "Warning: could not write "+file+": "+e.getMessage() );
+            tmp.delete();
+        } finally {
+            if( out != null ) out.close();
+        }
+    }
+}
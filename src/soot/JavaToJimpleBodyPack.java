@@ -78,7 +78,7 @@ public class JavaToJimpleBodyPack extends BodyPack
         PackManager.v().getTransform( "jj.uce" ).apply( b );
                     
         if(Options.v().time())
-            Timers.v().stmtCount += b.getUnits().size();
+            Timers.v().addStmtCount(b.getUnits().size());
     }
 
 
@@ -80,7 +80,7 @@ public class JimpleBodyPack extends BodyPack
         PackManager.v().getTransform( "jb.uce" ).apply( b );
                     
         if(Options.v().time())
-            Timers.v().stmtCount += b.getUnits().size();
+            Timers.v().addStmtCount(b.getUnits().size());
     }
 
 
@@ -111,7 +111,9 @@ public abstract class Pack implements HasPhaseOptions
         if( !PhaseOptions.getBoolean( options, "enabled" ) ) return;
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(getPhaseName());
+        PhaseTelemetry.Sample sample = PhaseTelemetry.v().begin( null );
         internalApply();
+        if( sample != null ) PhaseTelemetry.v().end( getPhaseName(), sample, null );
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(getPhaseName());
     }
@@ -121,7 +123,14 @@ public abstract class Pack implements HasPhaseOptions
         if( !PhaseOptions.getBoolean( options, "enabled" ) ) return;
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(b, getPhaseName());
-        internalApply(b);
+        PhaseTelemetry.Sample sample = PhaseTelemetry.v().begin( b );
+        b.beginAnalysisScope();
+        try {
+            internalApply(b);
+        } finally {
+            b.endAnalysisScope();
+        }
+        if( sample != null ) PhaseTelemetry.v().end( getPhaseName(), sample, b );
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(b, getPhaseName());
     }
@@ -21,6 +21,16 @@ package soot;
 import java.util.*;
 import java.io.*;
 import java.util.zip.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import soot.util.*;
 import soot.util.queue.*;
 import soot.jimple.*;
@@ -328,6 +338,7 @@ public class PackManager {
     }
 
     public void runPacks() {
+        PhaseTelemetry.v().start();
     	if(Options.v().oaat())
     		runPacksForOneClassAtATime();
     	else
@@ -341,16 +352,21 @@ public class PackManager {
         }
         
 		setupJAR();
-        for( String path: (Collection<String>)Options.v().process_dir()) {
-            for (String cl : SourceLocator.v().getClassesUnder(path)) {            	
-                SootClass clazz = Scene.v().forceResolve(cl, SootClass.BODIES);
-				clazz.setApplicationClass();
-				//run packs
-				runBodyPacks(clazz);
-				//generate output
-				writeClass(clazz);
-				releaseBodies(clazz);
-				Scene.v().removeClass(clazz);
+        int numThreads = getNumThreads();
+        if( numThreads > 1 && canRunBodyPacksInParallel() ) {
+            runPacksForOneClassAtATime( numThreads );
+        } else {
+            for( String path: (Collection<String>)Options.v().process_dir()) {
+                for (String cl : SourceLocator.v().getClassesUnder(path)) {            	
+                    SootClass clazz = Scene.v().forceResolve(cl, SootClass.BODIES);
+                    clazz.setApplicationClass();
+                    //run packs
+                    runBodyPacks(clazz);
+                    //generate output
+                    writeClass(clazz);
+                    releaseBodies(clazz);
+                    Scene.v().removeClass(clazz);
+                }
             }
         }
         tearDownJAR();
@@ -358,12 +374,173 @@ public class PackManager {
         handleInnerClasses();
     }
 
+    /** The number of classes per worker thread that the -oaat pipeline
+     * holds between resolving and writing them. */
+    private static final int OAAT_CLASSES_PER_THREAD = 2;
+
+    /** The number of classes per worker thread that the -oaat pipeline
+     * resolves between two points where it removes the classes written
+     * since from the Scene. */
+    private static final int OAAT_BATCH_PER_THREAD = 64;
+
+    /** Marks the end of the classes passed from the reader to the writer. */
+    private static final Object END_OF_CLASSES = new Object();
+
+    /** Runs -oaat as a pipeline: a reader thread resolves the classes one by
+     * one and hands them to numThreads workers running the body packs, while
+     * the calling thread writes them out in the order they were resolved.
+     * The reader blocks once numThreads*OAAT_CLASSES_PER_THREAD classes wait
+     * to be written, which bounds the bodies in memory.
+     *
+     * <p>A class still to be written may refer to classes already written,
+     * so these are not removed from the Scene right away. Every
+     * numThreads*OAAT_BATCH_PER_THREAD classes, the reader removes the
+     * written classes that no class still to be written depends on; the
+     * others are kept for a later round. Neither the reader nor the workers
+     * wait for the writer to do so. */
+    private void runPacksForOneClassAtATime( final int numThreads ) {
+        prepareForWorkers();
+        final ExecutorService workers = Executors.newFixedThreadPool( numThreads );
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        final BlockingQueue<Object> toWrite =
+            new ArrayBlockingQueue<Object>( numThreads*OAAT_CLASSES_PER_THREAD );
+        final Set<SootClass> unwritten =
+            Collections.newSetFromMap( new ConcurrentHashMap<SootClass, Boolean>() );
+        final ConcurrentLinkedQueue<SootClass> written = new ConcurrentLinkedQueue<SootClass>();
+        Future<?> reading = reader.submit( new Callable<Object>() {
+            public Object call() throws InterruptedException {
+                try {
+                    readClasses( workers, toWrite, unwritten, written, numThreads*OAAT_BATCH_PER_THREAD );
+                } finally {
+                    toWrite.put( END_OF_CLASSES );
+                }
+                return null;
+            }
+        } );
+        try {
+            while( true ) {
+                Object next;
+                try {
+                    next = toWrite.take();
+                } catch( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw new CompilationDeathException( "Interrupted while waiting for worker threads" );
+                }
+                if( next == END_OF_CLASSES ) break;
+                SootClass clazz = (SootClass) waitFor( (Future<?>) next );
+                writeClass( clazz );
+                releaseBodies( clazz );
+                unwritten.remove( clazz );
+                written.add( clazz );
+            }
+            waitFor( reading );
+            removeWritten( unwritten, written );
+        } finally {
+            reader.shutdownNow();
+            workers.shutdownNow();
+            drainUntilDone( toWrite, reading );
+        }
+    }
+
+    /** Resolves the classes of the process-dir for the -oaat pipeline,
+     * submitting the body packs of each to workers and queueing the result
+     * in toWrite. Every batchSize classes, removes the classes written since
+     * that nothing unwritten depends on from the Scene. */
+    private void readClasses( ExecutorService workers, BlockingQueue<Object> toWrite,
+            Set<SootClass> unwritten, ConcurrentLinkedQueue<SootClass> written,
+            int batchSize ) throws InterruptedException {
+        int resolved = 0;
+        for( String path: (Collection<String>)Options.v().process_dir()) {
+            for (String cl : SourceLocator.v().getClassesUnder(path)) {
+                final SootClass clazz;
+                // workers resolve method and field references under the same lock
+                synchronized( Scene.v() ) {
+                    clazz = Scene.v().forceResolve(cl, SootClass.BODIES);
+                    clazz.setApplicationClass();
+                    unwritten.add( clazz );
+                }
+                toWrite.put( workers.submit( new Callable<SootClass>() {
+                    public SootClass call() {
+                        runBodyPacks( clazz );
+                        return clazz;
+                    }
+                } ) );
+                if( ++resolved % batchSize == 0 ) removeWritten( unwritten, written );
+            }
+        }
+    }
+
+    /** Removes from the Scene the written classes that none of the unwritten
+     * classes depends on, and leaves the others in written. A class depends
+     * on the classes it references, and on all their superclasses,
+     * interfaces and outer classes. */
+    private static void removeWritten( Set<SootClass> unwritten,
+            ConcurrentLinkedQueue<SootClass> written ) {
+        synchronized( Scene.v() ) {
+            // a class written while this runs is either in the copy, and so
+            // kept, or not yet in written
+            Set<String> live = dependencies( new ArrayList<SootClass>( unwritten ) );
+            List<SootClass> kept = new ArrayList<SootClass>();
+            for( SootClass clazz; ( clazz = written.poll() ) != null; ) {
+                if( live.contains( clazz.getName() ) ) kept.add( clazz );
+                else Scene.v().removeClass( clazz );
+            }
+            written.addAll( kept );
+        }
+    }
+
+    /** Returns the names of classes, of the classes they reference, and of
+     * all superclasses, interfaces and outer classes of these. */
+    private static Set<String> dependencies( Collection<SootClass> classes ) {
+        Set<String> ret = new HashSet<String>();
+        LinkedList<String> worklist = new LinkedList<String>();
+        for( SootClass clazz : classes ) {
+            worklist.add( clazz.getName() );
+            for( Object ref : SootResolver.v().referencesOf( clazz ) ) {
+                if( ref instanceof String ) {
+                    worklist.add( (String) ref );
+                    continue;
+                }
+                Type t = (Type) ref;
+                if( t instanceof ArrayType ) t = ((ArrayType) t).baseType;
+                if( t instanceof RefType ) worklist.add( ((RefType) t).getClassName() );
+            }
+        }
+        while( !worklist.isEmpty() ) {
+            String name = worklist.removeFirst();
+            if( !ret.add( name ) || !Scene.v().containsClass( name ) ) continue;
+            SootClass c = Scene.v().getSootClass( name );
+            if( c.resolvingLevel() < SootClass.HIERARCHY ) continue;
+            if( c.hasSuperclass() ) worklist.add( c.getSuperclass().getName() );
+            if( c.hasOuterClass() ) worklist.add( c.getOuterClass().getName() );
+            for( Iterator iIt = c.getInterfaces().iterator(); iIt.hasNext(); ) {
+                worklist.add( ((SootClass) iIt.next()).getName() );
+            }
+        }
+        return ret;
+    }
+
+    /** Empties toWrite until the reader has finished. A reader stopped by
+     * shutdownNow() still queues END_OF_CLASSES, which must not block once
+     * the writer has stopped taking from the queue. */
+    private static void drainUntilDone( BlockingQueue<Object> toWrite, Future<?> reading ) {
+        while( !reading.isDone() ) {
+            try {
+                toWrite.poll( 10, TimeUnit.MILLISECONDS );
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
 	private void runPacksNormally() {
 		if (Options.v().src_prec() == Options.src_prec_class && Options.v().keep_line_number()){
             LineNumberAdder lineNumAdder = LineNumberAdder.v();
             lineNumAdder.internalTransform("", null);
         }
         
+        IncrementalState.v().start();
         if (Options.v().whole_program() || Options.v().whole_shimple()) {
             runWholeProgramPacks();
         }
@@ -414,6 +591,7 @@ public class PackManager {
 
     private ZipOutputStream jarFile = null;
     public void writeOutput() {
+        PhaseTelemetry.Sample sample = PhaseTelemetry.v().begin( null );
         setupJAR();
         if(Options.v().verbose())
             PhaseDumper.v().dumpBefore("output");
@@ -429,8 +607,11 @@ public class PackManager {
         }
         postProcessXML( reachableClasses() );
         releaseBodies( reachableClasses() );
+        IncrementalState.v().finish();
         if(Options.v().verbose())
             PhaseDumper.v().dumpAfter("output");
+        if( sample != null ) PhaseTelemetry.v().end( "output", sample, null );
+        PhaseTelemetry.v().finish();
     }
     
 	public interface IDexPrinter {
@@ -520,12 +701,108 @@ public class PackManager {
     }
 
     private void runBodyPacks( Iterator classes ) {
+        int numThreads = getNumThreads();
+        if( numThreads > 1 && canRunBodyPacksInParallel() ) {
+            runBodyPacks( classes, numThreads );
+            return;
+        }
         while( classes.hasNext() ) {
             SootClass cl = (SootClass) classes.next();
             runBodyPacks( cl );
         }
     }
 
+    /** Dava and the interactive mode are inherently sequential, and Shimple
+     * caches the analyses of a single body in its global factory, so these
+     * keep the body packs on the calling thread. */
+    private boolean canRunBodyPacksInParallel() {
+        int format = Options.v().output_format();
+        return format != Options.output_format_dava
+            && format != Options.output_format_shimp
+            && format != Options.output_format_shimple
+            && !Options.v().via_shimple()
+            && !Options.v().whole_shimple()
+            && !Options.v().interactive_mode();
+    }
+
+    /** Runs the body packs on the given classes using a pool of
+     * <code>numThreads</code> worker threads. */
+    private void runBodyPacks( Iterator classes, int numThreads ) {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        while( classes.hasNext() ) {
+            final SootClass cl = (SootClass) classes.next();
+            tasks.add( new Runnable() {
+                public void run() {
+                    runBodyPacks( cl );
+                }
+            } );
+        }
+        prepareForWorkers();
+        runInParallel( tasks, numThreads );
+    }
+
+    /** Creates on the calling thread what threads building or transforming
+     * bodies would otherwise create lazily. Singletons are created under
+     * the lock of G, and coffi creates some while it holds the lock of the
+     * Scene; the fast hierarchy and the default throw analysis need the
+     * Scene to be made, so a worker making them could deadlock with one
+     * converting bytecode. Call this before starting such threads. */
+    public static void prepareForWorkers() {
+        Scene.v().getOrMakeFastHierarchy();
+        Scene.v().getDefaultThrowAnalysis();
+    }
+
+    /** Runs the given independent tasks on a pool of <code>numThreads</code>
+     * worker threads. The first failure (in the order of the tasks) is
+     * rethrown once all workers have finished. */
+    private static void runInParallel( List<Runnable> tasks, int numThreads ) {
+        ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+        try {
+            runInParallel( tasks, executor );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Runs the given independent tasks on the given executor and waits for
+     * all of them. The first failure (in the order of the tasks) is rethrown
+     * as soon as the tasks before it have finished; the caller should then
+     * shut the executor down. */
+    public static void runInParallel( List<Runnable> tasks, ExecutorService executor ) {
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for( Runnable task : tasks ) {
+            results.add( executor.submit( task ) );
+        }
+        for( Future<?> result : results ) {
+            waitFor( result );
+        }
+    }
+
+    /** Waits for the given task to finish, returning its result and
+     * rethrowing whatever it threw. */
+    private static Object waitFor( Future<?> result ) {
+        try {
+            return result.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new CompilationDeathException( "Interrupted while waiting for worker threads" );
+        } catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+            if( cause instanceof Error ) throw (Error) cause;
+            throw new RuntimeException( cause );
+        }
+    }
+
+    /** Returns the number of worker threads requested with
+     * <code>-num-threads</code>; values below 1 stand for the number of
+     * available processors. */
+    public int getNumThreads() {
+        int numThreads = Options.v().num_threads();
+        if( numThreads < 1 ) numThreads = Runtime.getRuntime().availableProcessors();
+        return numThreads;
+    }
+
     private void handleInnerClasses(){
        InnerClassTagAggregator agg = InnerClassTagAggregator.v();
        agg.internalTransform("", null);
@@ -553,8 +830,17 @@ public class PackManager {
         }
     }
 
+    /** Returns the application classes to process, leaving out those that
+     * an incremental run skips as unchanged. */
     private Iterator reachableClasses() {
-        return Scene.v().getApplicationClasses().snapshotIterator();
+        Iterator ret = Scene.v().getApplicationClasses().snapshotIterator();
+        if( !IncrementalState.v().isActive() ) return ret;
+        List<SootClass> classes = new ArrayList<SootClass>();
+        while( ret.hasNext() ) {
+            SootClass cl = (SootClass) ret.next();
+            if( !IncrementalState.v().isSkipped( cl ) ) classes.add( cl );
+        }
+        return classes.iterator();
     }
 
     /* post process for DAVA */
@@ -743,14 +1029,13 @@ public class PackManager {
     private void runBodyPacks(SootClass c) {
         final int format = Options.v().output_format();
         if (format == Options.output_format_dava) {
-            G.v().out.print("Decompiling ");
+            G.v().out.println("Decompiling " + c.getName() + "... ");
 
 	     //January 13th, 2006  SootMethodAddedByDava is set to false for SuperFirstStmtHandler
 	    G.v().SootMethodAddedByDava=false;
         } else {
-            G.v().out.print("Transforming ");
+            G.v().out.println("Transforming " + c.getName() + "... ");
         }
-        G.v().out.println(c.getName() + "... ");
 
         boolean produceBaf = false, produceGrimp = false, produceDava = false,
             produceJimple = true, produceShimple = false;
@@ -798,8 +1083,12 @@ public class PackManager {
         //to add method bodies during the following iteration;
         //such adding of methods happens in rare occasions: for instance when
         //resolving a method reference to a non-existing method, then this
-        //method is created as a phantom method when phantom-refs are enabled
-        LinkedList<SootMethod> methodsCopy = new LinkedList<SootMethod>(c.getMethods());
+        //method is created as a phantom method when phantom-refs are enabled,
+        //possibly by a transformer running on another thread
+        LinkedList<SootMethod> methodsCopy;
+        synchronized(Scene.v()) {
+            methodsCopy = new LinkedList<SootMethod>(c.getMethods());
+        }
         Iterator methodIt = methodsCopy.iterator();
         while (methodIt.hasNext()) {
             SootMethod m = (SootMethod) methodIt.next();
@@ -922,6 +1211,7 @@ public class PackManager {
         if( Options.v().gzip() ) fileName = fileName+".gz";
 
         OutputStream fileOutputStream = null;
+        GZIPOutputStream gzipOut = null;
         try {
             if( jarFile != null ) {
                 ZipEntry entry = new ZipEntry(fileName);
@@ -933,9 +1223,10 @@ public class PackManager {
                 fileOutputStream = streamOut;
             }
             if( Options.v().gzip() ) {
-                streamOut = new GZIPOutputStream(streamOut);
+                gzipOut = new GZIPOutputStream(streamOut);
+                streamOut = gzipOut;
             }
-            if(format == Options.output_format_class) {
+            if(format == Options.output_format_class && !Options.v().direct_class_output()) {
                 streamOut = new JasminOutputStream(streamOut);
             }
             writerOut = new PrintWriter(new OutputStreamWriter(streamOut));
@@ -944,11 +1235,22 @@ public class PackManager {
             throw new CompilationDeathException("Cannot output file " + fileName,e);
         }
 
+        // classes may be written on several threads, so the options are
+        // passed to each print rather than set on the shared printer
+        int printerOptions = Printer.v().getOptions();
         if (Options.v().xml_attributes()) {
-            Printer.v().setOption(Printer.ADD_JIMPLE_LN);
+            printerOptions |= Printer.ADD_JIMPLE_LN;
         }
         switch (format) {
             case Options.output_format_class :
+                if (Options.v().direct_class_output()) {
+                    try {
+                        new soot.baf.ClassFileWriter(c).write(streamOut);
+                    } catch (IOException e) {
+                        throw new CompilationDeathException("Cannot output file " + fileName, e);
+                    }
+                    break;
+                }
             case Options.output_format_jasmin :
                 if (c.containsBafBody())
                     new soot.baf.JasminClass(c).print(writerOut);
@@ -959,8 +1261,8 @@ public class PackManager {
             case Options.output_format_shimp :
             case Options.output_format_b :
             case Options.output_format_grimp :
-                Printer.v().setOption(Printer.USE_ABBREVIATIONS);
-                Printer.v().printTo(c, writerOut);
+                Printer.v().printTo(c, writerOut,
+                        printerOptions | Printer.USE_ABBREVIATIONS);
                 break;
             case Options.output_format_baf :
             case Options.output_format_jimple :
@@ -969,7 +1271,7 @@ public class PackManager {
                 writerOut =
                     new PrintWriter(
                         new EscapedWriter(new OutputStreamWriter(streamOut)));
-                Printer.v().printTo(c, writerOut);
+                Printer.v().printTo(c, writerOut, printerOptions);
                 break;
             case Options.output_format_xml :
                 writerOut =
@@ -989,9 +1291,15 @@ public class PackManager {
 
         try {
             writerOut.flush();
-            streamOut.close();
-            //close file output stream because there's a limited number of file handles on the OS
-            if(fileOutputStream!=null) fileOutputStream.close();
+            if(gzipOut != null) gzipOut.finish();
+            //the jar file is shared by all classes, so only its entry ends here
+            if(jarFile == null) {
+                streamOut.close();
+                //close file output stream because there's a limited number of file handles on the OS
+                fileOutputStream.close();
+            } else {
+                jarFile.closeEntry();
+            }
         } catch (IOException e) {
             throw new CompilationDeathException("Cannot close output file " + fileName);
         }
@@ -1036,26 +1344,57 @@ public class PackManager {
         }
     }
 
+    /** Returns true if method bodies may be built on several threads at
+     * once. Whole-Shimple installs Shimple method sources, which share one
+     * factory, and the interactive mode is inherently sequential. */
+    public boolean canBuildBodiesInParallel() {
+        return !Options.v().whole_shimple() && !Options.v().interactive_mode();
+    }
+
     private void retrieveAllBodies() {
         Iterator clIt = reachableClasses();
+        int numThreads = getNumThreads();
+        if( numThreads > 1 && canBuildBodiesInParallel() ) {
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            while( clIt.hasNext() ) {
+                final SootClass cl = (SootClass) clIt.next();
+                tasks.add( new Runnable() {
+                    public void run() {
+                        retrieveAllBodies( cl );
+                    }
+                } );
+            }
+            prepareForWorkers();
+            runInParallel( tasks, numThreads );
+            return;
+        }
         while( clIt.hasNext() ) {
             SootClass cl = (SootClass) clIt.next();
-            //note: the following is a snapshot iterator;
-            //this is necessary because it can happen that phantom methods
-            //are added during resolution
-            Iterator methodIt = cl.getMethods().iterator();
-            while (methodIt.hasNext()) {
-                SootMethod m = (SootMethod) methodIt.next();
-                if(DEBUG && cl.isApplicationClass()){                	
-                	if(m.getExceptions().size()!=0)
-                		System.out.println("PackManager printing out from within retrieveAllBodies exceptions for method "+m.toString()+" " + m.getExceptions().toString());
-                	else
-                		System.out.println("in retrieveAllBodies......Currently Method "+ m.toString() +" has no exceptions ");
-                }
+            retrieveAllBodies( cl );
+        }
+    }
 
-                if( m.isConcrete() ) {
-                    m.retrieveActiveBody();
-                }
+    /** Builds the bodies of all concrete methods of the given class. The
+     * methods of one class share their coffi structures, so they are
+     * always built on the same thread. */
+    private void retrieveAllBodies( SootClass cl ) {
+        //note: we iterate over a snapshot of the methods;
+        //this is necessary because it can happen that phantom methods
+        //are added during resolution, also by other threads
+        List<SootMethod> methods;
+        synchronized( Scene.v() ) {
+            methods = cl.getMethods();
+        }
+        for( SootMethod m : methods ) {
+            if(DEBUG && cl.isApplicationClass()){                	
+            	if(m.getExceptions().size()!=0)
+            		System.out.println("PackManager printing out from within retrieveAllBodies exceptions for method "+m.toString()+" " + m.getExceptions().toString());
+            	else
+            		System.out.println("in retrieveAllBodies......Currently Method "+ m.toString() +" has no exceptions ");
+            }
+
+            if( m.isConcrete() ) {
+                m.retrieveActiveBody();
             }
         }
     }
@@ -32,6 +32,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import soot.util.Chain;
+import soot.util.HashChain;
 
 /** An implementation of a Chain which can contain only Units,
  * and handles patching to deal with element insertions and removals.
@@ -284,4 +285,13 @@ public class PatchingChain<E extends Unit> extends AbstractCollection<E> impleme
 
     /** Returns the size of this Chain. */
     public int size(){return innerChain.size(); }
+
+    /** Returns the number of changes made to the inner chain so far, or 0
+     * if the inner chain does not count them. */
+    public long getModificationCount()
+    {
+        if(innerChain instanceof HashChain)
+            return ((HashChain<E>) innerChain).getModificationCount();
+        return 0;
+    }
 }
@@ -0,0 +1,242 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import soot.options.Options;
+
+/**
+ * Collects, with <code>-phase-telemetry</code>, how much each pack and
+ * transform costs: how often it was applied and to how many bodies, the
+ * wall-clock time, CPU time and bytes allocated by the thread applying it,
+ * and the number of units in the bodies before and after. The figures of a
+ * pack include those of its transforms. Time spent writing the output is
+ * recorded under the phase name <code>output</code>.
+ *
+ * <p>The figures are written as JSON when the output has been written.
+ * When the option is not given, {@link #begin} returns null and nothing
+ * else is done.
+ */
+public class PhaseTelemetry
+{
+    public PhaseTelemetry( Singletons.Global g ) {}
+    public static PhaseTelemetry v() { return G.v().soot_PhaseTelemetry(); }
+
+    /** Bump when the fields written change. */
+    private static final int FORMAT = 1;
+
+    /** What was measured at the start of one application of a phase. */
+    public static final class Sample {
+        final long wall;
+        final long cpu;
+        final long allocated;
+        final int units;
+        Sample( long wall, long cpu, long allocated, int units ) {
+            this.wall = wall;
+            this.cpu = cpu;
+            this.allocated = allocated;
+            this.units = units;
+        }
+    }
+
+    /** The totals for one phase. */
+    private static final class Totals {
+        final String phaseName;
+        final AtomicLong applications = new AtomicLong();
+        final AtomicLong bodies = new AtomicLong();
+        final AtomicLong wallNanos = new AtomicLong();
+        final AtomicLong cpuNanos = new AtomicLong();
+        final AtomicLong allocatedBytes = new AtomicLong();
+        final AtomicLong unitsBefore = new AtomicLong();
+        final AtomicLong unitsAfter = new AtomicLong();
+        Totals( String phaseName ) { this.phaseName = phaseName; }
+    }
+
+    private volatile boolean enabled;
+    private ThreadMXBean threads;
+    private boolean cpuSupported;
+    private boolean allocationSupported;
+    /** <code>getThreadAllocatedBytes(long)</code> of the HotSpot extension
+     * of {@link ThreadMXBean}, or null if the VM does not provide it. */
+    private Method threadAllocatedBytes;
+    private long startNanos;
+    private final ConcurrentHashMap<String, Totals> totals = new ConcurrentHashMap<String, Totals>();
+    /** The phases in the order in which they were first applied. */
+    private final List<Totals> order = new ArrayList<Totals>();
+
+    /** Returns true if phases are being measured. */
+    public boolean isEnabled() { return enabled; }
+
+    /** Starts measuring if <code>-phase-telemetry</code> was given. */
+    public void start() {
+        if( enabled || Options.v().phase_telemetry().length() == 0 ) return;
+        threads = ManagementFactory.getThreadMXBean();
+        cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+        if( cpuSupported && !threads.isThreadCpuTimeEnabled() ) {
+            threads.setThreadCpuTimeEnabled( true );
+        }
+        threadAllocatedBytes = allocatedBytesMethod( threads );
+        allocationSupported = threadAllocatedBytes != null;
+        totals.clear();
+        synchronized( order ) { order.clear(); }
+        startNanos = System.nanoTime();
+        enabled = true;
+    }
+
+    /** Returns what is needed to measure an application of a phase to b,
+     * which may be null for a phase applied to the whole scene, or null if
+     * phases are not being measured. */
+    public Sample begin( Body b ) {
+        if( !enabled ) return null;
+        return new Sample( System.nanoTime(), cpuTime(), allocatedBytes(),
+                b == null ? -1 : b.getUnits().size() );
+    }
+
+    /** Records the application of phaseName that began with s, which must
+     * not be null; b must be the body passed to {@link #begin}. */
+    public void end( String phaseName, Sample s, Body b ) {
+        long wall = System.nanoTime() - s.wall;
+        long cpu = cpuTime();
+        long allocated = allocatedBytes();
+        Totals t = totalsFor( phaseName );
+        t.applications.incrementAndGet();
+        t.wallNanos.addAndGet( wall );
+        if( cpu >= 0 ) t.cpuNanos.addAndGet( cpu - s.cpu );
+        if( allocated >= 0 ) t.allocatedBytes.addAndGet( allocated - s.allocated );
+        if( b != null ) {
+            t.bodies.incrementAndGet();
+            t.unitsBefore.addAndGet( s.units );
+            t.unitsAfter.addAndGet( b.getUnits().size() );
+        }
+    }
+
+    /** Stops measuring and writes what was measured to the file given to
+     * <code>-phase-telemetry</code>. */
+    public void finish() {
+        if( !enabled ) return;
+        enabled = false;
+        File file = new File( Options.v().phase_telemetry() );
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" ) );
+            write( out );
+            out.close();
+            out = null;
+            if( Options.v().verbose() ) {
+                G.v().out.println( "Wrote phase telemetry to "+file );
+            }
+        } catch( IOException e ) {
+            G.v().out.println( "Warning: could not write "+file+": "+e.getMessage() );
+        } finally {
+            if( out != null ) out.close();
+        }
+    }
+
+    private void write( PrintWriter out ) {
+        out.print( "{\n" );
+        out.print( "  \"format\": "+FORMAT+",\n" );
+        out.print( "  \"wallNanos\": "+(System.nanoTime() - startNanos)+",\n" );
+        out.print( "  \"cpuNanosMeasured\": "+cpuSupported+",\n" );
+        out.print( "  \"allocatedBytesMeasured\": "+allocationSupported+",\n" );
+        out.print( "  \"phases\": [" );
+        List<Totals> phases;
+        synchronized( order ) { phases = new ArrayList<Totals>( order ); }
+        for( Iterator<Totals> tIt = phases.iterator(); tIt.hasNext(); ) {
+            final Totals t = tIt.next();
+            out.print( "\n    { \"phase\": \""+t.phaseName+"\""
+                    +", \"applications\": "+t.applications
+                    +", \"bodies\": "+t.bodies
+                    +", \"wallNanos\": "+t.wallNanos
+                    +", \"cpuNanos\": "+t.cpuNanos
+                    +", \"allocatedBytes\": "+t.allocatedBytes
+                    +", \"unitsBefore\": "+t.unitsBefore
+                    +", \"unitsAfter\": "+t.unitsAfter+" }" );
+            if( tIt.hasNext() ) out.print( "," );
+        }
+        out.print( "\n  ]\n}\n" );
+    }
+
+    private Totals totalsFor( String phaseName ) {
+        Totals ret = totals.get( phaseName );
+        if( ret != null ) return ret;
+        Totals t = new Totals( phaseName );
+        ret = totals.putIfAbsent( phaseName, t );
+        if( ret != null ) return ret;
+        synchronized( order ) { order.add( t ); }
+        return t;
+    }
+
+    /** Returns the CPU time of the current thread, or -1 if it cannot be
+     * measured. */
+    private long cpuTime() {
+        if( !cpuSupported ) return -1;
+        return threads.getCurrentThreadCpuTime();
+    }
+
+    /** Returns the bytes allocated so far by the current thread, or -1 if
+     * they cannot be measured. */
+    private long allocatedBytes() {
+        if( !allocationSupported ) return -1;
+        try {
+            return ((Long) threadAllocatedBytes.invoke( threads,
+                    Long.valueOf( Thread.currentThread().getId() ) )).longValue();
+        } catch( Exception e ) {
+            return -1;
+        }
+    }
+
+    /** Returns the method giving the bytes allocated by a thread, enabling
+     * the measurement if needed, or null if threads does not implement
+     * <code>com.sun.management.ThreadMXBean</code>, which is not part of
+     * every VM, or cannot measure allocation. The extension is only
+     * reached through reflection so that Soot builds and runs without it. */
+    private static Method allocatedBytesMethod( ThreadMXBean threads ) {
+        try {
+            Class<?> sunThreads = Class.forName( "com.sun.management.ThreadMXBean" );
+            if( !sunThreads.isInstance( threads ) ) return null;
+            Boolean supported = (Boolean) sunThreads.getMethod(
+                    "isThreadAllocatedMemorySupported" ).invoke( threads );
+            if( !supported.booleanValue() ) return null;
+            Boolean isEnabled = (Boolean) sunThreads.getMethod(
+                    "isThreadAllocatedMemoryEnabled" ).invoke( threads );
+            if( !isEnabled.booleanValue() ) {
+                sunThreads.getMethod( "setThreadAllocatedMemoryEnabled", boolean.class )
+                    .invoke( threads, Boolean.TRUE );
+            }
+            return sunThreads.getMethod( "getThreadAllocatedBytes", long.class );
+        } catch( Exception e ) {
+            // no such class or method, or the VM refused to enable it
+            return null;
+        }
+    }
+}
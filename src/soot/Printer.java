@@ -56,12 +56,15 @@ public class Printer {
     }
 
     int options = 0;
-    public void setOption(int opt) {
+    public synchronized void setOption(int opt) {
         options |= opt;
     }
-    public void clearOption(int opt) {
+    public synchronized void clearOption(int opt) {
         options &= ~opt;
     }
+    public synchronized int getOptions() {
+        return options;
+    }
 
     int jimpleLnNum = 0; // actual line number
 
@@ -76,7 +79,11 @@ public class Printer {
 	//G.v().out.println("jimple Ln Num: "+jimpleLnNum);
     }
 
-    public void printTo(SootClass cl, PrintWriter out) {
+    /**
+     * Prints out the given class. Printing keeps track of the current
+     * jimple line number, so concurrent calls are serialized.
+     */
+    public synchronized void printTo(SootClass cl, PrintWriter out) {
         // add jimple line number tags
         setJimpleLnNum(1);
 
@@ -318,7 +325,7 @@ public class Printer {
      *
      *   @param out a PrintWriter instance to print to.
      */
-    public void printTo(Body b, PrintWriter out) {
+    public synchronized void printTo(Body b, PrintWriter out) {
 //        b.validate();
 
         boolean isPrecise = !useAbbreviations();
@@ -364,6 +371,45 @@ public class Printer {
 
     }
 
+    /**
+     *   Prints out the method corresponding to b Body in full, unabbreviated
+     *   syntax whatever options are set, so that the Jimple parser can read
+     *   it back.
+     */
+    public void printPreciselyTo(Body b, PrintWriter out) {
+        printTo(b, out, 0);
+    }
+
+    /**
+     *   Prints out the given class with the given options instead of the
+     *   ones set. Classes may be written on several threads at once (see
+     *   the -num-threads option), so the options one of them needs are
+     *   passed here rather than set for all.
+     */
+    public synchronized void printTo(SootClass cl, PrintWriter out, int opts) {
+        int oldOptions = options;
+        options = opts;
+        try {
+            printTo(cl, out);
+        } finally {
+            options = oldOptions;
+        }
+    }
+
+    /**
+     *   Prints out the method corresponding to b Body with the given
+     *   options instead of the ones set.
+     */
+    public synchronized void printTo(Body b, PrintWriter out, int opts) {
+        int oldOptions = options;
+        options = opts;
+        try {
+            printTo(b, out);
+        } finally {
+            options = oldOptions;
+        }
+    }
+
     /** Prints the given <code>JimpleBody</code> to the specified <code>PrintWriter</code>. */
     private void printStatementsInBody(Body body, java.io.PrintWriter out, LabeledUnitPrinter up, UnitGraph unitGraph ) {
     	Chain units = body.getUnits();
@@ -42,6 +42,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -59,6 +62,7 @@ import soot.util.ArrayNumberer;
 import soot.util.Chain;
 import soot.util.HashChain;
 import soot.util.MapNumberer;
+import soot.util.NumberedString;
 import soot.util.Numberer;
 import soot.util.SingletonList;
 import soot.util.StringNumberer;
@@ -120,7 +124,7 @@ public class Scene  //extends AbstractHost
     Chain<SootClass> libraryClasses = new HashChain<SootClass>();
     Chain<SootClass> phantomClasses = new HashChain<SootClass>();
     
-    private final Map<String,Type> nameToClass = new HashMap<String,Type>();
+    private final Map<String,Type> nameToClass = new ConcurrentHashMap<String,Type>();
 
     ArrayNumberer kindNumberer = new ArrayNumberer();
     ArrayNumberer typeNumberer = new ArrayNumberer();
@@ -133,7 +137,7 @@ public class Scene  //extends AbstractHost
     ArrayNumberer localNumberer = new ArrayNumberer();
 
     private Hierarchy activeHierarchy;
-    private FastHierarchy activeFastHierarchy;
+    private volatile FastHierarchy activeFastHierarchy;
     private CallGraph activeCallGraph;
     private ReachableMethods reachableMethods;
     private PointsToAnalysis activePointsToAnalysis;
@@ -433,6 +437,47 @@ public class Scene  //extends AbstractHost
 
     private int stateCount;
     public int getState() { return this.stateCount; }
+
+    // grown and incremented under its own lock, so that no increment is
+    // lost to a concurrent growth; read without it
+    private volatile AtomicIntegerArray methodStateCounts = new AtomicIntegerArray(0);
+    private final Object methodStateLock = new Object();
+    /** Returns a number that changes whenever a method with the given
+     * subsignature is added to or removed from a class in the Scene. Caches
+     * of method lookups compare it, along with {@link #getState()}, to tell
+     * whether they are stale. */
+    public int getMethodState( NumberedString subSig ) {
+        int n = subSig.getNumber();
+        AtomicIntegerArray counts = methodStateCounts;
+        return n < counts.length() ? counts.get( n ) : 0;
+    }
+    void modifyMethods( NumberedString subSig ) {
+        int n = subSig.getNumber();
+        synchronized( methodStateLock ) {
+            AtomicIntegerArray counts = methodStateCounts;
+            if( n >= counts.length() ) {
+                AtomicIntegerArray newCounts =
+                    new AtomicIntegerArray( Math.max( n+1, counts.length()*2 ) );
+                for( int i = 0; i < counts.length(); i++ ) {
+                    newCounts.set( i, counts.get( i ) );
+                }
+                // incremented before it is published, so that no reader
+                // sees the new array without the new count
+                newCounts.incrementAndGet( n );
+                methodStateCounts = newCounts;
+            } else {
+                counts.incrementAndGet( n );
+            }
+        }
+    }
+
+    private final AtomicInteger bodyStateCount = new AtomicInteger();
+    /** Returns a number that changes whenever a method in the Scene is
+     * given a new active body. Indexes over the bodies built so far compare
+     * it to tell whether there are new bodies to look at. */
+    public int getBodyState() { return bodyStateCount.get(); }
+    void modifyBodies() { bodyStateCount.incrementAndGet(); }
+
     private void modifyHierarchy() {
         stateCount++;
         activeHierarchy = null;
@@ -441,7 +486,7 @@ public class Scene  //extends AbstractHost
         activePointsToAnalysis = null;
     }
 
-    public void addClass(SootClass c) 
+    public synchronized void addClass(SootClass c) 
     {
         if(c.isInScene())
             throw new RuntimeException("already managed: "+c.getName());
@@ -458,7 +503,7 @@ public class Scene  //extends AbstractHost
         modifyHierarchy();
     }
 
-    public void removeClass(SootClass c)
+    public synchronized void removeClass(SootClass c)
     {
         if(!c.isInScene())
             throw new RuntimeException();
@@ -560,7 +605,7 @@ public class Scene  //extends AbstractHost
      * Returns the original class if it was loaded, or null otherwise.
      */
      
-    public SootClass tryLoadClass(String className, int desiredLevel) 
+    public synchronized SootClass tryLoadClass(String className, int desiredLevel) 
     {   
         /*
         if(Options.v().time())
@@ -596,7 +641,7 @@ public class Scene  //extends AbstractHost
         return ret;
     }
 
-    public SootClass loadClass(String className, int desiredLevel) 
+    public synchronized SootClass loadClass(String className, int desiredLevel) 
     {   
         /*
         if(Options.v().time())
@@ -661,10 +706,16 @@ public class Scene  //extends AbstractHost
 			return toReturn;
 		} else if (allowsPhantomRefs() ||
 				   className.equals(SootClass.INVOKEDYNAMIC_DUMMY_CLASS_NAME)) {
-			SootClass c = new SootClass(className);
-			c.setPhantom(true);
-			addClass(c);
-			return c;
+			synchronized (this) {
+				// another thread may have created the phantom in the meantime
+				type = (RefType) nameToClass.get(className);
+				if (type != null && type.hasSootClass())
+					return type.getSootClass();
+				SootClass c = new SootClass(className);
+				c.setPhantom(true);
+				addClass(c);
+				return c;
+			}
 		} else {
 			throw new RuntimeException(System.getProperty("line.separator")
 					+ "Aborting: can't find classfile " + className);
@@ -791,12 +842,18 @@ public class Scene  //extends AbstractHost
 
     /****************************************************************************/
     /** Makes a new fast hierarchy is none is active, and returns the active
-     * fast hierarchy. */
+     * fast hierarchy. An active hierarchy is returned without taking the lock
+     * of the Scene, so that threads building bodies, which may hold other
+     * locks, do not wait for the thread converting bytecode. */
     public FastHierarchy getOrMakeFastHierarchy() {
-	if(!hasFastHierarchy() ) {
-	    setFastHierarchy( new FastHierarchy() );
-	}
-	return getFastHierarchy();
+        FastHierarchy ret = activeFastHierarchy;
+        if( ret != null ) return ret;
+        synchronized( this ) {
+            if(!hasFastHierarchy() ) {
+                setFastHierarchy( new FastHierarchy() );
+            }
+            return getFastHierarchy();
+        }
     }
     /**
         Retrieves the active fast hierarchy
@@ -834,7 +891,7 @@ public class Scene  //extends AbstractHost
         Retrieves the active hierarchy
      */
 
-    public Hierarchy getActiveHierarchy() 
+    public synchronized Hierarchy getActiveHierarchy() 
     {
         if(!hasActiveHierarchy())
             //throw new RuntimeException("no active Hierarchy present for scene");
@@ -588,7 +588,7 @@ public class SootClass extends AbstractHost implements Numberable
         methodList.add(m);
         m.isDeclared = true;
         m.declaringClass = this;
-        
+        if(isInScene) Scene.v().modifyMethods(m.getNumberedSubSignature());
     }
 
     /**
@@ -608,6 +608,7 @@ public class SootClass extends AbstractHost implements Numberable
         subSigToMethods.put(m.getNumberedSubSignature(),null);
         methodList.remove(m);
         m.isDeclared = false;
+        if(isInScene) Scene.v().modifyMethods(m.getNumberedSubSignature());
     }
 
     /**
@@ -306,9 +306,12 @@ public class SootMethod
      * If you called Scene.v().loadClassAndSupport() for a class yourself, it will
      * not be an application class, so you cannot get retrieve its active body.
      * Please call setApplicationClass() on the relevant class.
+     *
+     * Synchronized, so that a body requested by several threads at once
+     * is only constructed once.
      */
 
-    public Body retrieveActiveBody() {
+    public synchronized Body retrieveActiveBody() {
         declaringClass.checkLevel(SootClass.BODIES);
         if (declaringClass.isPhantomClass())
             throw new RuntimeException(
@@ -342,6 +345,8 @@ public class SootMethod
             body.setMethod(this);
 
         activeBody = body;
+        if (body != null)
+            Scene.v().modifyBodies();
     }
 
     /** Returns true if this method has an active body. */
@@ -102,7 +102,11 @@ class SootMethodRefImpl implements SootMethodRef {
     }
 
     public SootMethod resolve() {
-        return resolve(null);
+        // resolution may add phantom methods to classes shared with
+        // other threads, so it is serialized on the scene
+        synchronized(Scene.v()) {
+            return resolve(null);
+        }
     }
     
     private SootMethod checkStatic(SootMethod ret) {
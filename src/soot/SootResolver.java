@@ -32,6 +32,11 @@ import soot.options.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import polyglot.util.StdErrorQueue;
 
@@ -54,6 +59,13 @@ public class SootResolver
     /** SootClasses waiting to be resolved. */
     private final LinkedList/*SootClass*/[] worklist = new LinkedList[4];
 
+    /** Sources of queued classes that were looked up ahead of time; class
+     * files among them are being parsed in the background. */
+    private final Map<SootClass, ClassSource> prefetched = new HashMap<SootClass, ClassSource>();
+
+    /** Threads parsing prefetched class files. */
+    private ThreadPoolExecutor prefetcher;
+
 	protected Program program;
 
     public SootResolver (Singletons.Global g) {
@@ -171,6 +183,35 @@ public class SootResolver
     private void addToResolveWorklist(SootClass sc, int desiredLevel) {
         if( sc.resolvingLevel() >= desiredLevel ) return;
         worklist[desiredLevel].add(sc);
+        if( sc.resolvingLevel() < SootClass.HIERARCHY ) prefetch(sc);
+    }
+
+    /** When running with several threads, finds the source of a newly
+     * queued class right away and lets a background thread parse its class
+     * file while this one resolves the classes ahead of it. */
+    private void prefetch(SootClass sc) {
+        if( PackManager.v().getNumThreads() <= 1 || prefetched.containsKey(sc) ) return;
+        ClassSource is = SourceLocator.v().getClassSource(sc.getName());
+        prefetched.put(sc, is);
+        if( is instanceof CoffiClassSource ) ((CoffiClassSource) is).prefetch(prefetcher());
+    }
+
+    private synchronized Executor prefetcher() {
+        if( prefetcher == null ) {
+            int numThreads = PackManager.v().getNumThreads();
+            prefetcher = new ThreadPoolExecutor(numThreads, numThreads,
+                    1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "soot-class-reader");
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            // let idle threads go away instead of outliving the run
+            prefetcher.allowCoreThreadTimeOut(true);
+        }
+        return prefetcher;
     }
 
     /** Hierarchy - we know the hierarchy of the class and that's it
@@ -183,7 +224,9 @@ public class SootResolver
         sc.setResolvingLevel(SootClass.HIERARCHY);
 
         String className = sc.getName();
-        ClassSource is = SourceLocator.v().getClassSource(className);
+        ClassSource is;
+        if( prefetched.containsKey(sc) ) is = prefetched.remove(sc);
+        else is = SourceLocator.v().getClassSource(className);
         boolean modelAsPhantomRef = is == null;
 //        || (
 //        		Options.v().no_jrl() &&
@@ -315,6 +358,18 @@ public class SootResolver
         }
     }
 
+    /** Returns the classes referenced by sc, as class names or Types, as
+     * recorded when sc was resolved; the list is empty if sc is phantom or
+     * has not been resolved. */
+    public List referencesOf(SootClass sc) {
+        List ret = new ArrayList();
+        Collection references = classToTypesHierarchy.get(sc);
+        if( references != null ) ret.addAll(references);
+        references = classToTypesSignature.get(sc);
+        if( references != null ) ret.addAll(references);
+        return ret;
+    }
+
     public void reResolve(SootClass cl) {
         int resolvingLevel = cl.resolvingLevel();
         if( resolvingLevel < SootClass.HIERARCHY ) return;
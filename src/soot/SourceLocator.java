@@ -23,6 +23,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -33,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -161,6 +167,9 @@ public class SourceLocator
     public List<String> classPath() { return classPath; }
     public void invalidateClassPath() {
         classPath = null;
+        dexFingerprint = null;
+        archiveIndex = null;
+        classPathKinds = null;
     }
 
     private List<String> sourcePath;
@@ -196,12 +205,10 @@ public class SourceLocator
 			inputExtensions.add(".java");
 
 			try {
-				ZipFile archive = new ZipFile(aPath);
+				List<String> entryNames = archiveEntries(aPath);
 
 				boolean hasClassesDotDex = false;
-				for (Enumeration entries = archive.entries(); entries.hasMoreElements();) {
-					ZipEntry entry = (ZipEntry) entries.nextElement();
-					String entryName = entry.getName();
+				for (String entryName : entryNames) {
 					// We are dealing with an apk file
 					if (entryName.equals("classes.dex")) {
 						hasClassesDotDex = true;
@@ -209,9 +216,8 @@ public class SourceLocator
 					}
 				}
 
-				for (Enumeration entries = archive.entries(); entries.hasMoreElements();) {
-					ZipEntry entry = (ZipEntry) entries.nextElement();
-					String entryName = entry.getName();
+				for (String entryName : entryNames) {
+					String originalName = entryName;
 					int extensionIndex = entryName.lastIndexOf('.');
 					if (extensionIndex >= 0) {
 						String entryExtension = entryName.substring(extensionIndex);
@@ -222,7 +228,7 @@ public class SourceLocator
 								classes.add(entryName);
 							} else {
 								G.v().out.println("Warning: Since archive contains 'classes.dex', the following entry is not loaded: "
-												+ entry.getName());
+												+ originalName);
 							}
 						}
 					}
@@ -479,17 +485,92 @@ public class SourceLocator
 
     /** Searches for a file with the given name in the exploded classPath. */
     public FoundFile lookupInClassPath( String fileName ) {
-        for (String dir : classPath) {
-            FoundFile ret;
-            if(isArchive(dir)) {
-                ret = lookupInArchive(dir, fileName);
-            } else {
-                ret = lookupInDir(dir, fileName);
-            }
+        Integer archive = archiveIndex().get(fileName);
+        // directories before the first archive holding the file still take precedence
+        int end = archive == null ? classPath.size() : archive.intValue();
+        for (int i = 0; i < end; i++) {
+            if (classPathKinds[i] != CP_DIR) continue;
+            FoundFile ret = lookupInDir(classPath.get(i), fileName);
             if( ret != null ) return ret;
         }
+        if( archive == null ) return null;
+        return lookupInArchive(classPath.get(end), fileName);
+    }
+    /** Returns a string identifying the contents of the file the class
+     * className would be read from, looking for the kinds of files in the
+     * order given by <code>-src-prec</code>: its extension, its length and
+     * the CRC-32 of its contents, which archives record for each entry.
+     * Classes read from dex files are identified by the dex and apk files on
+     * the class path as a whole. Returns null if there is no such file on
+     * the class path. */
+    public String fingerprintOf( String className ) {
+        if( classPath == null ) {
+            classPath = explodeClassPath(Scene.v().getSootClassPath());
+        }
+        String base = className.replace( '.', '/' );
+        for( String extension : sourceExtensions() ) {
+            if( extension.equals( ".dex" ) ) {
+                if( dexClassProvider().find( className ) == null ) continue;
+                return extension+" "+dexFingerprint();
+            }
+            FoundFile found = lookupInClassPath( base+extension );
+            if( found == null && extension.equals( ".java" ) ) {
+                // JavaClassProvider reads inner classes from the file of their outer class
+                found = lookupInClassPath( getSourceForClass( className ).replace( '.', '/' )+extension );
+            }
+            if( found == null ) continue;
+            if( found.entry != null ) {
+                return extension+" "+found.entry.getSize()+" "+Long.toHexString( found.entry.getCrc() );
+            }
+            return extension+" "+found.file.length()+" "+Long.toHexString( crc( found ) );
+        }
         return null;
     }
+    /** Returns the extensions of the files classes are read from, in the
+     * order setupClassProviders() looks for them. */
+    private static String[] sourceExtensions() {
+        switch( Options.v().src_prec() ) {
+            case Options.src_prec_only_class:
+                return new String[] { ".class" };
+            case Options.src_prec_java:
+                return new String[] { ".java", ".class", ".jimple" };
+            case Options.src_prec_jimple:
+                return new String[] { ".jimple", ".class", ".java" };
+            case Options.src_prec_apk:
+                return new String[] { ".dex", ".class", ".java", ".jimple" };
+            default:
+                return new String[] { ".class", ".jimple", ".java" };
+        }
+    }
+    private String dexFingerprint;
+    private String dexFingerprint() {
+        if( dexFingerprint == null ) {
+            StringBuffer b = new StringBuffer();
+            for( String entry : classPath ) {
+                String lower = entry.toLowerCase();
+                if( !lower.endsWith( ".apk" ) && !lower.endsWith( ".dex" ) ) continue;
+                FoundFile found = new FoundFile( new File( entry ) );
+                b.append( found.file.length() ).append( ' ' ).append( Long.toHexString( crc( found ) ) ).append( ' ' );
+            }
+            dexFingerprint = b.toString().trim();
+        }
+        return dexFingerprint;
+    }
+    private static long crc( FoundFile found ) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try {
+            InputStream in = found.inputStream();
+            try {
+                for( int n; ( n = in.read( buffer ) ) > 0; ) crc.update( buffer, 0, n );
+            } finally {
+                in.close();
+            }
+        } catch( IOException e ) {
+            throw new RuntimeException( "Couldn't read "+found.file+": "+e );
+        }
+        return crc.getValue();
+    }
     private FoundFile lookupInDir(String dir, String fileName) {
         File f = new File( dir+File.separatorChar+fileName );
         if( f.canRead() ) {
@@ -499,7 +580,7 @@ public class SourceLocator
     }
     private FoundFile lookupInArchive(String archivePath, String fileName) {
         try {
-            ZipFile archive = new ZipFile(archivePath);
+            ZipFile archive = openArchive(archivePath);
             ZipEntry entry = archive.getEntry(fileName);
             if( entry == null ) return null;
             return new FoundFile(archive, entry);
@@ -507,6 +588,143 @@ public class SourceLocator
             throw new RuntimeException("Caught IOException " + e + " looking in archive file " + archivePath + " for file " + fileName);
         }
     }
+
+    private static final byte CP_NONE = 0, CP_DIR = 1, CP_ARCHIVE = 2;
+
+    /** The kind of each entry of classPath, in the same order. */
+    private byte[] classPathKinds;
+
+    /** Maps the name of each file in an archive on the class path to the
+     * position in classPath of the first archive containing it. */
+    private Map<String, Integer> archiveIndex;
+
+    /** Entry names of the archives read so far, by path. */
+    private final Map<String, List<String>> archiveEntries = new HashMap<String, List<String>>();
+
+    private synchronized Map<String, Integer> archiveIndex() {
+        if( archiveIndex != null ) return archiveIndex;
+        if( classPath == null ) {
+            classPath = explodeClassPath(Scene.v().getSootClassPath());
+        }
+        byte[] kinds = new byte[classPath.size()];
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        for (int i = 0; i < kinds.length; i++) {
+            String entry = classPath.get(i);
+            if( isArchive(entry) ) {
+                kinds[i] = CP_ARCHIVE;
+                List<String> names;
+                try {
+                    names = archiveEntries(entry);
+                } catch( IOException e ) {
+                    throw new RuntimeException("Caught IOException " + e + " reading archive file " + entry);
+                }
+                Integer position = new Integer(i);
+                for (String name : names) {
+                    if( !index.containsKey(name) ) index.put(name, position);
+                }
+            } else if( new File(entry).isDirectory() ) {
+                kinds[i] = CP_DIR;
+            } else {
+                kinds[i] = CP_NONE;
+            }
+        }
+        classPathKinds = kinds;
+        archiveIndex = index;
+        return index;
+    }
+
+    /** Returns the archive at the given path, opening it only the first
+     * time; it is closed when Soot is reset. */
+    private ZipFile openArchive(String path) throws IOException {
+        Map<String, ZipFile> openArchives = G.v().SourceLocator_openArchives;
+        synchronized( openArchives ) {
+            ZipFile ret = openArchives.get(path);
+            if( ret == null ) {
+                ret = new ZipFile(path);
+                openArchives.put(path, ret);
+            }
+            return ret;
+        }
+    }
+
+    /** Returns the names of the entries of the given archive, reading them
+     * only the first time. */
+    private synchronized List<String> archiveEntries(String path) throws IOException {
+        List<String> ret = archiveEntries.get(path);
+        if( ret == null ) {
+            ret = readCentralDirectory(path);
+            if( ret == null ) {
+                // not something we can read directly, e.g. a zip64 archive
+                ret = new ArrayList<String>();
+                for (Enumeration<? extends ZipEntry> entries = openArchive(path).entries(); entries.hasMoreElements();) {
+                    ret.add(entries.nextElement().getName());
+                }
+            }
+            archiveEntries.put(path, ret);
+        }
+        return ret;
+    }
+
+    private static final int END_OF_CENTRAL_DIR = 0x06054b50;
+    private static final int CENTRAL_DIR_HEADER = 0x02014b50;
+
+    /** Reads the entry names of a zip archive straight from a memory-mapped
+     * copy of its central directory, without opening it as a ZipFile.
+     * Returns null if the archive has a layout this does not handle. */
+    private static List<String> readCentralDirectory(String path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            // the end record is 22 bytes followed by a comment of at most 64K
+            int tailLength = (int) Math.min(size, 22 + 0xffff);
+            if( tailLength < 22 ) return null;
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, size - tailLength, tailLength);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+            int end = -1;
+            for (int i = tailLength - 22; i >= 0; i--) {
+                if( tail.getInt(i) == END_OF_CENTRAL_DIR ) {
+                    end = i;
+                    break;
+                }
+            }
+            if( end < 0 ) return null;
+            int count = tail.getShort(end + 10) & 0xffff;
+            long dirSize = tail.getInt(end + 12) & 0xffffffffL;
+            long dirOffset = tail.getInt(end + 16) & 0xffffffffL;
+            if( count == 0xffff || dirOffset == 0xffffffffL || dirOffset + dirSize > size ) return null;
+
+            MappedByteBuffer dir = channel.map(FileChannel.MapMode.READ_ONLY, dirOffset, dirSize);
+            dir.order(ByteOrder.LITTLE_ENDIAN);
+            List<String> ret = new ArrayList<String>(count);
+            byte[] name = new byte[256];
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                if( pos + 46 > dirSize || dir.getInt(pos) != CENTRAL_DIR_HEADER ) return null;
+                int nameLength = dir.getShort(pos + 28) & 0xffff;
+                int extraLength = dir.getShort(pos + 30) & 0xffff;
+                int commentLength = dir.getShort(pos + 32) & 0xffff;
+                if( pos + 46 + nameLength > dirSize ) return null;
+                if( nameLength > name.length ) name = new byte[nameLength];
+                dir.position(pos + 46);
+                dir.get(name, 0, nameLength);
+                ret.add(utf8(name, nameLength));
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+            return ret;
+        } finally {
+            file.close();
+        }
+    }
+
+    private static String utf8(byte[] bytes, int length) {
+        try {
+            return new String(bytes, 0, length, "UTF-8");
+        } catch( UnsupportedEncodingException e ) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private HashMap<String, String> sourceToClassMap;
 
     public HashMap<String, String> getSourceToClassMap(){
@@ -30,12 +30,15 @@ import soot.options.*;
 import java.util.*;
 
 /** Utility class providing a timer.  Used for profiling various
- * phases of Sootification. */
+ * phases of Sootification.
+ *
+ * A timer may be running on several threads at once; each thread
+ * starts and ends it independently, and the time measured on all
+ * threads is added up. */
 public class Timer
 {
     private long duration;
-    private long startTime;
-    private boolean hasStarted;
+    private final Map<Thread, Long> startTimes = new HashMap<Thread, Long>();
 		
     private String name;
 		
@@ -53,63 +56,55 @@ public class Timer
         this("unnamed");
     }
     
-    /** Starts the given timer. */
+    /** Starts the given timer on the current thread. */
     public void start()
     {
-        // Subtract garbage collection time
-				if(!G.v().Timer_isGarbageCollecting && Options.v() != null && Options.v().subtract_gc() && ((G.v().Timer_count++ % 4) == 0))
+        final List<Timer> outstandingTimers = G.v().Timer_outstandingTimers;
+        synchronized(outstandingTimers) {
+            // Subtract garbage collection time
+            if(!G.v().Timer_isGarbageCollecting && Options.v() != null && Options.v().subtract_gc() && ((G.v().Timer_count++ % 4) == 0))
             {
                 // garbage collects only every 4 calls to avoid round off errors
                 
                 G.v().Timer_isGarbageCollecting = true;
             
                 G.v().Timer_forcedGarbageCollectionTimer.start();
-                
-                // Stop all outstanding timers
-                {
-                    Iterator<Timer> timerIt = G.v().Timer_outstandingTimers.iterator();
-                    
-                    while(timerIt.hasNext())
-                    {
-                        Timer t = timerIt.next();
-                        
-                        t.end();
-                    }
-                }
+                long gcStart = System.currentTimeMillis();
                 
                 System.gc();
         
-                // Start all outstanding timers
-                {
-                    Iterator<Timer> timerIt = G.v().Timer_outstandingTimers.iterator();
-                    
-                    while(timerIt.hasNext())
-                    {
-                        Timer t = timerIt.next();
-                        
-                        t.start();
-                    }
+                // Push the start of all outstanding timers past the
+                // collection, as if they had been stopped during it; a
+                // timer running on several threads is listed once per thread
+                long gcTime = System.currentTimeMillis() - gcStart;
+                for (Timer t : new HashSet<Timer>(outstandingTimers)) {
+                    t.postpone(gcTime);
                 }
                 
                 G.v().Timer_forcedGarbageCollectionTimer.end();
                 
                 G.v().Timer_isGarbageCollecting = false;
             }
-                        
-        
-        startTime = System.currentTimeMillis();
-        
-        if(hasStarted)
-            throw new RuntimeException("timer " + name + " has already been started!");
-        else
-            hasStarted = true;
-        
-        
-        if(!G.v().Timer_isGarbageCollecting) 
-        {
-            G.v().Timer_outstandingTimers.add(this);
-        }
             
+            Thread current = Thread.currentThread();
+            if(startTimes.containsKey(current))
+                throw new RuntimeException("timer " + name + " has already been started!");
+            startTimes.put(current, System.currentTimeMillis());
+            
+            if(!G.v().Timer_isGarbageCollecting) 
+            {
+                outstandingTimers.add(this);
+            }
+        }
+    }
+
+    /** Moves the start time of every thread running this timer
+     * <code>millis</code> milliseconds into the future. */
+    private void postpone(long millis)
+    {
+        for (Map.Entry<Thread, Long> e : startTimes.entrySet()) {
+            e.setValue(e.getValue() + millis);
+        }
     }
 
     /** Returns the name of the current timer. */
@@ -118,30 +113,29 @@ public class Timer
         return name;
     }
     
-    /** Stops the current timer. */
+    /** Stops the current timer on the current thread. */
     public void end()
     {   
-        if(!hasStarted)
-            throw new RuntimeException("timer " + name + " has not been started!");
-        else
-            hasStarted = false;
-        
-        duration += System.currentTimeMillis() - startTime;
-        
-        
-        if(!G.v().Timer_isGarbageCollecting)
-        {
-            G.v().Timer_outstandingTimers.remove(this);
+        final List<Timer> outstandingTimers = G.v().Timer_outstandingTimers;
+        synchronized(outstandingTimers) {
+            Long startTime = startTimes.remove(Thread.currentThread());
+            if(startTime == null)
+                throw new RuntimeException("timer " + name + " has not been started!");
+            
+            duration += System.currentTimeMillis() - startTime;
+            
+            if(!G.v().Timer_isGarbageCollecting)
+            {
+                outstandingTimers.remove(this);
+            }
         }
     }
 
     /** Returns the sum of the intervals start()-end() of the current timer. */
     public long getTime()
     {
-        return duration;
+        synchronized(G.v().Timer_outstandingTimers) {
+            return duration;
+        }
     }
 }
-
-
-
-
@@ -144,6 +144,20 @@ public class Timers
 	
 	public Timer orderComputation = new soot.Timer("orderComputation");
 
+    /** Adds the node and computation counts of a finished flow analysis
+     * to the totals; flow analyses may run on several threads. */
+    public synchronized void addFlowStatistics(int numNodes, int numComputations)
+    {
+        totalFlowNodes += numNodes;
+        totalFlowComputations += numComputations;
+    }
+
+    /** Adds the statement count of a newly created body to the total. */
+    public synchronized void addStmtCount(int count)
+    {
+        stmtCount += count;
+    }
+
     public void printProfilingInformation()
     {                                                   
         long totalTime = totalTimer.getTime();
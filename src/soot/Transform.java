@@ -86,7 +86,11 @@ public class Transform implements HasPhaseOptions
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(getPhaseName());
 
+        PhaseTelemetry.Sample sample = null;
+        if( PhaseTelemetry.v().isEnabled() && PhaseOptions.getBoolean( options, "enabled" ) )
+            sample = PhaseTelemetry.v().begin( null );
         ((SceneTransformer) t).transform( phaseName, options );
+        if( sample != null ) PhaseTelemetry.v().end( phaseName, sample, null );
 
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(getPhaseName());
@@ -101,7 +105,11 @@ public class Transform implements HasPhaseOptions
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(b, getPhaseName());
 
+        PhaseTelemetry.Sample sample = null;
+        if( PhaseTelemetry.v().isEnabled() && PhaseOptions.getBoolean( options, "enabled" ) )
+            sample = PhaseTelemetry.v().begin( b );
         ((BodyTransformer) t).transform( b, phaseName, options );
+        if( sample != null ) PhaseTelemetry.v().end( phaseName, sample, b );
 
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(b, getPhaseName());
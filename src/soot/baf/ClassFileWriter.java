@@ -0,0 +1,2348 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.baf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import soot.AbstractJasminClass;
+import soot.ArrayType;
+import soot.Body;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.LongType;
+import soot.Modifier;
+import soot.NullType;
+import soot.PackManager;
+import soot.RefType;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootFieldRef;
+import soot.SootMethod;
+import soot.SootMethodRef;
+import soot.StmtAddressType;
+import soot.Trap;
+import soot.Type;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.CaughtExceptionRef;
+import soot.jimple.ClassConstant;
+import soot.jimple.Constant;
+import soot.jimple.DoubleConstant;
+import soot.jimple.DynamicInvokeExpr;
+import soot.jimple.FloatConstant;
+import soot.jimple.IdentityRef;
+import soot.jimple.IntConstant;
+import soot.jimple.JimpleBody;
+import soot.jimple.LongConstant;
+import soot.jimple.NullConstant;
+import soot.jimple.ParameterRef;
+import soot.jimple.StaticInvokeExpr;
+import soot.jimple.Stmt;
+import soot.jimple.StringConstant;
+import soot.jimple.ThisRef;
+import soot.options.Options;
+import soot.tagkit.AnnotationAnnotationElem;
+import soot.tagkit.AnnotationArrayElem;
+import soot.tagkit.AnnotationBooleanElem;
+import soot.tagkit.AnnotationClassElem;
+import soot.tagkit.AnnotationConstants;
+import soot.tagkit.AnnotationDefaultTag;
+import soot.tagkit.AnnotationDoubleElem;
+import soot.tagkit.AnnotationElem;
+import soot.tagkit.AnnotationEnumElem;
+import soot.tagkit.AnnotationFloatElem;
+import soot.tagkit.AnnotationIntElem;
+import soot.tagkit.AnnotationLongElem;
+import soot.tagkit.AnnotationStringElem;
+import soot.tagkit.AnnotationTag;
+import soot.tagkit.Attribute;
+import soot.tagkit.DoubleConstantValueTag;
+import soot.tagkit.EnclosingMethodTag;
+import soot.tagkit.FloatConstantValueTag;
+import soot.tagkit.InnerClassAttribute;
+import soot.tagkit.InnerClassTag;
+import soot.tagkit.IntegerConstantValueTag;
+import soot.tagkit.JasminAttribute;
+import soot.tagkit.LineNumberTag;
+import soot.tagkit.LongConstantValueTag;
+import soot.tagkit.SignatureTag;
+import soot.tagkit.SourceFileTag;
+import soot.tagkit.StringConstantValueTag;
+import soot.tagkit.Tag;
+import soot.tagkit.VisibilityAnnotationTag;
+import soot.tagkit.VisibilityParameterAnnotationTag;
+import soot.toolkits.graph.Block;
+import soot.toolkits.graph.BriefBlockGraph;
+
+/**
+ * Writes a class in the class file format straight from its Baf bodies,
+ * without printing Jasmin assembler text and assembling it again.
+ * The output carries the same information as the {@link JasminClass} route:
+ * locals get the same slots, instructions are selected the same way and
+ * the same class, field, method and code attributes are emitted.
+ * Classes that use invokedynamic are written as version 51 with stack map
+ * frames, all others as version 49.
+ */
+public class ClassFileWriter
+{
+    private static final int ACCESS_MASK = Modifier.ABSTRACT | Modifier.STATIC | Modifier.FINAL
+        | Modifier.SYNCHRONIZED | Modifier.NATIVE | Modifier.TRANSIENT | Modifier.VOLATILE
+        | Modifier.STRICTFP | Modifier.ANNOTATION | Modifier.ENUM | Modifier.INTERFACE;
+
+    // Opcodes; see chapter 6 of the JVM specification.
+    private static final int NOP = 0, ACONST_NULL = 1, ICONST_0 = 3,
+        LCONST_0 = 9, FCONST_0 = 11, DCONST_0 = 14, BIPUSH = 16, SIPUSH = 17,
+        LDC = 18, LDC_W = 19, LDC2_W = 20, ILOAD = 21, ILOAD_0 = 26, IALOAD = 46,
+        ISTORE = 54, ISTORE_0 = 59, IASTORE = 79, POP = 87, POP2 = 88,
+        DUP = 89, DUP_X1 = 90, DUP_X2 = 91, DUP2 = 92, DUP2_X1 = 93, DUP2_X2 = 94,
+        SWAP = 95, IADD = 96, ISUB = 100, IMUL = 104, IDIV = 108, IREM = 112,
+        INEG = 116, ISHL = 120, ISHR = 122, IUSHR = 124, IAND = 126, IOR = 128,
+        IXOR = 130, IINC = 132, I2L = 133, LCMP = 148, FCMPL = 149, FCMPG = 150,
+        DCMPL = 151, DCMPG = 152, IFEQ = 153, IFNE = 154, IFLT = 155, IFGE = 156,
+        IFGT = 157, IFLE = 158, IF_ICMPEQ = 159, IF_ICMPNE = 160, IF_ICMPLT = 161,
+        IF_ICMPGE = 162, IF_ICMPGT = 163, IF_ICMPLE = 164, IF_ACMPEQ = 165,
+        IF_ACMPNE = 166, GOTO = 167, JSR = 168, TABLESWITCH = 170,
+        LOOKUPSWITCH = 171, IRETURN = 172, RETURN = 177, GETSTATIC = 178,
+        PUTSTATIC = 179, GETFIELD = 180, PUTFIELD = 181, INVOKEVIRTUAL = 182,
+        INVOKESPECIAL = 183, INVOKESTATIC = 184, INVOKEINTERFACE = 185,
+        INVOKEDYNAMIC = 186, NEW = 187, NEWARRAY = 188, ANEWARRAY = 189,
+        ARRAYLENGTH = 190, ATHROW = 191, CHECKCAST = 192, INSTANCEOF = 193,
+        MONITORENTER = 194, MONITOREXIT = 195, WIDE = 196, MULTIANEWARRAY = 197,
+        IFNULL = 198, IFNONNULL = 199, GOTO_W = 200, JSR_W = 201;
+
+    /** Primitive casts in opcode order, starting at i2l. */
+    private static final String[] CAST_NAMES = {
+        "i2l", "i2f", "i2d", "l2i", "l2f", "l2d", "f2i", "f2l", "f2d",
+        "d2i", "d2l", "d2f", "i2b", "i2c", "i2s" };
+
+    private static final int ACC_SUPER = 0x20;
+    private static final int REF_INVOKE_STATIC = 6;
+
+    private final SootClass sootClass;
+    private final boolean computeFrames;
+    private final ConstantPool pool = new ConstantPool();
+    private final List<int[]> bootstrapMethods = new ArrayList<int[]>();
+    private final Map<String, Integer> bootstrapMethodToIndex = new HashMap<String, Integer>();
+
+    public ClassFileWriter(SootClass sootClass)
+    {
+        this(sootClass, usesInvokeDynamic(sootClass));
+    }
+
+    /**
+     * With <code>computeFrames</code> set, the class is written as version 51
+     * and every method gets a StackMapTable; otherwise it is written as version 49.
+     */
+    ClassFileWriter(SootClass sootClass, boolean computeFrames)
+    {
+        this.sootClass = sootClass;
+        this.computeFrames = computeFrames;
+    }
+
+    /** invokedynamic needs a version 51 class file, and version 51 needs stack maps. */
+    private static boolean usesInvokeDynamic(SootClass c)
+    {
+        for(Iterator<SootMethod> it = c.methodIterator(); it.hasNext(); ) {
+            SootMethod m = it.next();
+            if(!m.isConcrete() || !m.hasActiveBody())
+                continue;
+            for(Iterator<Unit> uIt = m.getActiveBody().getUnits().iterator(); uIt.hasNext(); ) {
+                Unit u = uIt.next();
+                if(u instanceof DynamicInvokeInst)
+                    return true;
+                if(u instanceof Stmt && ((Stmt) u).containsInvokeExpr()
+                   && ((Stmt) u).getInvokeExpr() instanceof DynamicInvokeExpr)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** Writes the complete class file to <code>out</code>. */
+    public void write(OutputStream out) throws IOException
+    {
+        if(Options.v().verbose())
+            G.v().out.println("[" + sootClass.getName() + "] Writing class file directly...");
+
+        Buffer body = new Buffer();
+
+        int modifiers = accessFlags(sootClass.getModifiers());
+        // Jasmin marks every class ACC_SUPER; Soot keeps no modifier for it.
+        if(!Modifier.isInterface(modifiers))
+            modifiers |= ACC_SUPER;
+        body.u2(modifiers);
+        body.u2(pool.classRef(AbstractJasminClass.slashify(sootClass.getName())));
+        if(sootClass.hasSuperclass())
+            body.u2(pool.classRef(AbstractJasminClass.slashify(sootClass.getSuperclass().getName())));
+        else
+            body.u2(0);
+
+        body.u2(sootClass.getInterfaceCount());
+        for(Iterator<SootClass> it = sootClass.getInterfaces().iterator(); it.hasNext(); )
+            body.u2(pool.classRef(AbstractJasminClass.slashify(it.next().getName())));
+
+        body.u2(sootClass.getFieldCount());
+        for(Iterator<SootField> it = sootClass.getFields().iterator(); it.hasNext(); )
+            writeField(body, it.next());
+
+        List<SootMethod> methods = new ArrayList<SootMethod>();
+        for(Iterator<SootMethod> it = sootClass.methodIterator(); it.hasNext(); ) {
+            SootMethod m = it.next();
+            if(!m.isPhantom())
+                methods.add(m);
+        }
+        body.u2(methods.size());
+        for(Iterator<SootMethod> it = methods.iterator(); it.hasNext(); )
+            writeMethod(body, it.next());
+
+        // Class attributes come last, once all bootstrap methods are known.
+        List<byte[]> attributes = new ArrayList<byte[]>();
+        if(sootClass.hasTag("SourceFileTag") && !Options.v().no_output_source_file_attribute()) {
+            String srcName = ((SourceFileTag) sootClass.getTag("SourceFileTag")).getSourceFile();
+            attributes.add(attribute("SourceFile", u2(pool.utf8(srcName))));
+        }
+        addGenericAttributes(attributes, sootClass.getTags());
+        addCommonAttributes(attributes, sootClass.getTags());
+        if(sootClass.hasTag("InnerClassAttribute") && !Options.v().no_output_inner_classes_attribute())
+            attributes.add(innerClassesAttribute((InnerClassAttribute) sootClass.getTag("InnerClassAttribute")));
+        if(sootClass.hasTag("EnclosingMethodTag"))
+            attributes.add(enclosingMethodAttribute((EnclosingMethodTag) sootClass.getTag("EnclosingMethodTag")));
+        if(!bootstrapMethods.isEmpty())
+            attributes.add(bootstrapMethodsAttribute());
+        writeAttributes(body, attributes);
+
+        DataOutputStream d = new DataOutputStream(out);
+        d.writeInt(0xCAFEBABE);
+        d.writeShort(0);
+        d.writeShort(computeFrames ? 51 : 49);
+        pool.writeTo(d);
+        d.write(body.toByteArray());
+        d.flush();
+    }
+
+    /** Keeps the access bits the Jasmin syntax can express, with at most one visibility. */
+    private static int accessFlags(int modifiers)
+    {
+        int flags = modifiers & ACCESS_MASK;
+        if(Modifier.isPublic(modifiers))
+            flags |= Modifier.PUBLIC;
+        else if(Modifier.isPrivate(modifiers))
+            flags |= Modifier.PRIVATE;
+        else if(Modifier.isProtected(modifiers))
+            flags |= Modifier.PROTECTED;
+        return flags;
+    }
+
+    private void writeField(Buffer out, SootField field)
+    {
+        out.u2(accessFlags(field.getModifiers()));
+        out.u2(pool.utf8(field.getName()));
+        out.u2(pool.utf8(AbstractJasminClass.jasminDescriptorOf(field.getType())));
+
+        List<byte[]> attributes = new ArrayList<byte[]>();
+        int constant = 0;
+        if(field.hasTag("StringConstantValueTag"))
+            constant = pool.string(((StringConstantValueTag) field.getTag("StringConstantValueTag")).getStringValue());
+        else if(field.hasTag("IntegerConstantValueTag"))
+            constant = pool.integer(((IntegerConstantValueTag) field.getTag("IntegerConstantValueTag")).getIntValue());
+        else if(field.hasTag("LongConstantValueTag"))
+            constant = pool.longConstant(((LongConstantValueTag) field.getTag("LongConstantValueTag")).getLongValue());
+        else if(field.hasTag("FloatConstantValueTag"))
+            constant = pool.floatConstant(((FloatConstantValueTag) field.getTag("FloatConstantValueTag")).getFloatValue());
+        else if(field.hasTag("DoubleConstantValueTag"))
+            constant = pool.doubleConstant(((DoubleConstantValueTag) field.getTag("DoubleConstantValueTag")).getDoubleValue());
+        if(constant != 0)
+            attributes.add(attribute("ConstantValue", u2(constant)));
+        addCommonAttributes(attributes, field.getTags());
+        addGenericAttributes(attributes, field.getTags());
+        writeAttributes(out, attributes);
+    }
+
+    private void writeMethod(Buffer out, SootMethod method)
+    {
+        out.u2(accessFlags(method.getModifiers()));
+        out.u2(pool.utf8(method.getName()));
+        out.u2(pool.utf8(AbstractJasminClass.jasminDescriptorOf(method.makeRef())));
+
+        List<byte[]> attributes = new ArrayList<byte[]>();
+        if(method.isConcrete()) {
+            if(!method.hasActiveBody())
+                throw new RuntimeException("method: " + method.getName() + " has no active body!");
+            attributes.add(attribute("Code", new CodeWriter(method).write()));
+        }
+
+        List<SootClass> exceptions = method.getExceptions();
+        if(!exceptions.isEmpty()) {
+            Buffer b = new Buffer();
+            b.u2(exceptions.size());
+            for(Iterator<SootClass> it = exceptions.iterator(); it.hasNext(); )
+                b.u2(pool.classRef(AbstractJasminClass.slashify(it.next().getName())));
+            attributes.add(attribute("Exceptions", b.toByteArray()));
+        }
+        addCommonAttributes(attributes, method.getTags());
+        if(method.hasTag("AnnotationDefaultTag")) {
+            Buffer b = new Buffer();
+            writeElementValue(b, ((AnnotationDefaultTag) method.getTag("AnnotationDefaultTag")).getDefaultVal());
+            attributes.add(attribute("AnnotationDefault", b.toByteArray()));
+        }
+        for(Iterator<Tag> it = method.getTags().iterator(); it.hasNext(); ) {
+            Tag t = it.next();
+            if(t instanceof VisibilityParameterAnnotationTag)
+                attributes.add(parameterAnnotationsAttribute((VisibilityParameterAnnotationTag) t));
+        }
+        addGenericAttributes(attributes, method.getTags());
+        writeAttributes(out, attributes);
+    }
+
+    /** Synthetic, Deprecated, Signature and annotation attributes, shared by classes, fields and methods. */
+    private void addCommonAttributes(List<byte[]> attributes, List<Tag> tags)
+    {
+        for(Iterator<Tag> it = tags.iterator(); it.hasNext(); ) {
+            Tag t = it.next();
+            String name = t.getName();
+            if(name.equals("SyntheticTag"))
+                attributes.add(attribute("Synthetic", new byte[0]));
+            else if(name.equals("DeprecatedTag"))
+                attributes.add(attribute("Deprecated", new byte[0]));
+            else if(name.equals("SignatureTag"))
+                attributes.add(attribute("Signature", u2(pool.utf8(((SignatureTag) t).getSignature()))));
+            else if(name.equals("VisibilityAnnotationTag")) {
+                byte[] a = annotationsAttribute((VisibilityAnnotationTag) t);
+                if(a != null)
+                    attributes.add(a);
+            }
+        }
+    }
+
+    private void addGenericAttributes(List<byte[]> attributes, List<Tag> tags)
+    {
+        for(Iterator<Tag> it = tags.iterator(); it.hasNext(); ) {
+            Tag t = it.next();
+            if(t instanceof Attribute)
+                attributes.add(attribute(t.getName(), t.getValue()));
+        }
+    }
+
+    private byte[] innerClassesAttribute(InnerClassAttribute attr)
+    {
+        List<Tag> specs = attr.getSpecs();
+        Buffer b = new Buffer();
+        b.u2(specs.size());
+        for(Iterator<Tag> it = specs.iterator(); it.hasNext(); ) {
+            InnerClassTag ict = (InnerClassTag) it.next();
+            b.u2(ict.getInnerClass() == null ? 0 : pool.classRef(ict.getInnerClass()));
+            b.u2(ict.getOuterClass() == null ? 0 : pool.classRef(ict.getOuterClass()));
+            b.u2(ict.getShortName() == null ? 0 : pool.utf8(ict.getShortName()));
+            b.u2(accessFlags(ict.getAccessFlags()));
+        }
+        return attribute("InnerClasses", b.toByteArray());
+    }
+
+    private byte[] enclosingMethodAttribute(EnclosingMethodTag tag)
+    {
+        Buffer b = new Buffer();
+        b.u2(pool.classRef(tag.getEnclosingClass()));
+        if(tag.getEnclosingMethod() == null || tag.getEnclosingMethodSig() == null)
+            b.u2(0);
+        else
+            b.u2(pool.nameAndType(tag.getEnclosingMethod(), tag.getEnclosingMethodSig()));
+        return attribute("EnclosingMethod", b.toByteArray());
+    }
+
+    private byte[] bootstrapMethodsAttribute()
+    {
+        Buffer b = new Buffer();
+        b.u2(bootstrapMethods.size());
+        for(Iterator<int[]> it = bootstrapMethods.iterator(); it.hasNext(); ) {
+            int[] bsm = it.next();
+            b.u2(bsm[0]);
+            b.u2(bsm.length - 1);
+            for(int i = 1; i < bsm.length; i++)
+                b.u2(bsm[i]);
+        }
+        return attribute("BootstrapMethods", b.toByteArray());
+    }
+
+    /** Returns <code>null</code> for source-level annotations, which are not kept in class files. */
+    private byte[] annotationsAttribute(VisibilityAnnotationTag tag)
+    {
+        String name;
+        if(tag.getVisibility() == AnnotationConstants.RUNTIME_VISIBLE)
+            name = "RuntimeVisibleAnnotations";
+        else if(tag.getVisibility() == AnnotationConstants.RUNTIME_INVISIBLE)
+            name = "RuntimeInvisibleAnnotations";
+        else
+            return null;
+
+        Buffer b = new Buffer();
+        writeAnnotations(b, tag);
+        return attribute(name, b.toByteArray());
+    }
+
+    private byte[] parameterAnnotationsAttribute(VisibilityParameterAnnotationTag tag)
+    {
+        String name = tag.getKind() == AnnotationConstants.RUNTIME_VISIBLE
+            ? "RuntimeVisibleParameterAnnotations" : "RuntimeInvisibleParameterAnnotations";
+        List<VisibilityAnnotationTag> params = tag.getVisibilityAnnotations();
+
+        Buffer b = new Buffer();
+        if(params == null)
+            b.u1(0);
+        else {
+            b.u1(params.size());
+            for(Iterator<VisibilityAnnotationTag> it = params.iterator(); it.hasNext(); )
+                writeAnnotations(b, it.next());
+        }
+        return attribute(name, b.toByteArray());
+    }
+
+    private void writeAnnotations(Buffer b, VisibilityAnnotationTag tag)
+    {
+        if(!tag.hasAnnotations()) {
+            b.u2(0);
+            return;
+        }
+        List<AnnotationTag> annotations = tag.getAnnotations();
+        b.u2(annotations.size());
+        for(Iterator<AnnotationTag> it = annotations.iterator(); it.hasNext(); )
+            writeAnnotation(b, it.next());
+    }
+
+    private void writeAnnotation(Buffer b, AnnotationTag annot)
+    {
+        b.u2(pool.utf8(annot.getType()));
+        b.u2(annot.getNumElems());
+        for(int i = 0; i < annot.getNumElems(); i++) {
+            AnnotationElem elem = annot.getElemAt(i);
+            b.u2(pool.utf8(elem.getName()));
+            writeElementValue(b, elem);
+        }
+    }
+
+    private void writeElementValue(Buffer b, AnnotationElem elem)
+    {
+        b.u1(elem.getKind());
+        switch(elem.getKind()) {
+            case 'Z':
+                if(elem instanceof AnnotationIntElem)
+                    b.u2(pool.integer(((AnnotationIntElem) elem).getValue()));
+                else
+                    b.u2(pool.integer(((AnnotationBooleanElem) elem).getValue() ? 1 : 0));
+                break;
+            case 'S':
+            case 'B':
+            case 'C':
+            case 'I':
+                b.u2(pool.integer(((AnnotationIntElem) elem).getValue()));
+                break;
+            case 'J':
+                b.u2(pool.longConstant(((AnnotationLongElem) elem).getValue()));
+                break;
+            case 'F':
+                b.u2(pool.floatConstant(((AnnotationFloatElem) elem).getValue()));
+                break;
+            case 'D':
+                b.u2(pool.doubleConstant(((AnnotationDoubleElem) elem).getValue()));
+                break;
+            case 's':
+                b.u2(pool.utf8(((AnnotationStringElem) elem).getValue()));
+                break;
+            case 'e':
+                b.u2(pool.utf8(((AnnotationEnumElem) elem).getTypeName()));
+                b.u2(pool.utf8(((AnnotationEnumElem) elem).getConstantName()));
+                break;
+            case 'c':
+                b.u2(pool.utf8(((AnnotationClassElem) elem).getDesc()));
+                break;
+            case '[': {
+                AnnotationArrayElem arrayElem = (AnnotationArrayElem) elem;
+                b.u2(arrayElem.getNumValues());
+                for(int i = 0; i < arrayElem.getNumValues(); i++)
+                    writeElementValue(b, arrayElem.getValueAt(i));
+                break;
+            }
+            case '@':
+                writeAnnotation(b, ((AnnotationAnnotationElem) elem).getValue());
+                break;
+            default:
+                throw new RuntimeException("Unknown Elem Attr Kind: " + elem.getKind());
+        }
+    }
+
+    private byte[] attribute(String name, byte[] info)
+    {
+        Buffer b = new Buffer();
+        b.u2(pool.utf8(name));
+        b.u4(info.length);
+        b.bytes(info);
+        return b.toByteArray();
+    }
+
+    private static void writeAttributes(Buffer out, List<byte[]> attributes)
+    {
+        out.u2(attributes.size());
+        for(Iterator<byte[]> it = attributes.iterator(); it.hasNext(); )
+            out.bytes(it.next());
+    }
+
+    private static byte[] u2(int value)
+    {
+        return new byte[] { (byte) (value >>> 8), (byte) value };
+    }
+
+    private int bootstrapMethod(DynamicInvokeInst i)
+    {
+        SootMethodRef bsm = i.getBootstrapMethodRef();
+        List<Value> args = i.getBootstrapArgs();
+        int[] entry = new int[args.size() + 1];
+        entry[0] = pool.methodHandle(REF_INVOKE_STATIC, methodRef(bsm, false));
+        int k = 1;
+        for(Iterator<Value> it = args.iterator(); it.hasNext(); ) {
+            Value arg = it.next();
+            if(arg instanceof StaticInvokeExpr)
+                entry[k++] = pool.methodHandle(REF_INVOKE_STATIC,
+                                               methodRef(((StaticInvokeExpr) arg).getMethodRef(), false));
+            else if(arg instanceof Constant)
+                entry[k++] = loadableConstant((Constant) arg);
+            else
+                throw new RuntimeException("unsupported bootstrap argument: " + arg);
+        }
+
+        StringBuffer key = new StringBuffer();
+        for(int j = 0; j < entry.length; j++)
+            key.append(entry[j]).append(' ');
+        Integer index = bootstrapMethodToIndex.get(key.toString());
+        if(index == null) {
+            index = new Integer(bootstrapMethods.size());
+            bootstrapMethods.add(entry);
+            bootstrapMethodToIndex.put(key.toString(), index);
+        }
+        return index.intValue();
+    }
+
+    private int loadableConstant(Constant c)
+    {
+        if(c instanceof IntConstant)
+            return pool.integer(((IntConstant) c).value);
+        if(c instanceof LongConstant)
+            return pool.longConstant(((LongConstant) c).value);
+        if(c instanceof FloatConstant)
+            return pool.floatConstant(((FloatConstant) c).value);
+        if(c instanceof DoubleConstant)
+            return pool.doubleConstant(((DoubleConstant) c).value);
+        if(c instanceof StringConstant)
+            return pool.string(((StringConstant) c).value);
+        if(c instanceof ClassConstant)
+            return pool.classRef(((ClassConstant) c).getValue());
+        throw new RuntimeException("unsupported constant: " + c);
+    }
+
+    private int methodRef(SootMethodRef m, boolean isInterface)
+    {
+        return pool.memberRef(isInterface ? 11 : 10,
+                              AbstractJasminClass.slashify(m.declaringClass().getName()),
+                              m.name(), AbstractJasminClass.jasminDescriptorOf(m));
+    }
+
+    private int fieldRef(SootFieldRef f)
+    {
+        return pool.memberRef(9, AbstractJasminClass.slashify(f.declaringClass().getName()),
+                              f.name(), AbstractJasminClass.jasminDescriptorOf(f.type()));
+    }
+
+    private int typeRef(Type t)
+    {
+        if(t instanceof RefType)
+            return pool.classRef(AbstractJasminClass.slashify(((RefType) t).getClassName()));
+        if(t instanceof ArrayType)
+            return pool.classRef(AbstractJasminClass.jasminDescriptorOf(t));
+        throw new RuntimeException("invalid reference type: " + t);
+    }
+
+    /** 0 for int-like types, then long, float, double and reference, as in the opcode tables. */
+    private static int typeIndex(Type t)
+    {
+        if(t instanceof IntType || t instanceof BooleanType || t instanceof ByteType
+           || t instanceof CharType || t instanceof ShortType)
+            return 0;
+        if(t instanceof LongType)
+            return 1;
+        if(t instanceof FloatType)
+            return 2;
+        if(t instanceof DoubleType)
+            return 3;
+        if(t instanceof RefType || t instanceof ArrayType || t instanceof NullType)
+            return 4;
+        throw new RuntimeException("invalid type: " + t);
+    }
+
+    private static boolean isDwordType(Type t)
+    {
+        return t instanceof LongType || t instanceof DoubleType || t instanceof DoubleWordType;
+    }
+
+    /** Encodes the Code attribute of one method. */
+    private class CodeWriter
+    {
+        private final SootMethod method;
+        private Buffer code;
+        private final Map<Unit, Integer> unitToPc = new HashMap<Unit, Integer>();
+        private final List<Fixup> fixups = new ArrayList<Fixup>();
+        private final List<int[]> lineNumbers = new ArrayList<int[]>();
+        private Map<Local, Integer> localToSlot;
+        private int maxLocals;
+        private boolean wideBranches;
+
+        CodeWriter(SootMethod method)
+        {
+            this.method = method;
+        }
+
+        byte[] write()
+        {
+            Body activeBody = method.getActiveBody();
+            if(!(activeBody instanceof BafBody)) {
+                if(activeBody instanceof JimpleBody) {
+                    if(Options.v().verbose())
+                        G.v().out.println("Was expecting Baf body for " + method + " but found a Jimple body. Will convert body to Baf on the fly.");
+                    activeBody = PackManager.v().convertJimpleBodyToBaf(method);
+                } else
+                    throw new RuntimeException("method: " + method.getName() + " has an invalid active body!");
+            }
+            BafBody body = (BafBody) activeBody;
+
+            assignSlots(body);
+
+            emitCode(body);
+            // Only code longer than the reach of a 16-bit offset can need wide branches.
+            if(code.size() > Short.MAX_VALUE) {
+                wideBranches = true;
+                emitCode(body);
+            }
+            if(code.size() > 65535)
+                throw new RuntimeException(method.getSignature() + ": code too large (" + code.size() + " bytes)");
+
+            byte[] bytecode = code.toByteArray();
+            for(Iterator<Fixup> it = fixups.iterator(); it.hasNext(); ) {
+                Fixup f = it.next();
+                f.apply(bytecode, pcOf(f.target));
+            }
+
+            Set<Unit> handlerUnits = new HashSet<Unit>();
+            List<int[]> handlers = new ArrayList<int[]>();
+            for(Iterator<Trap> it = body.getTraps().iterator(); it.hasNext(); ) {
+                Trap trap = it.next();
+                handlerUnits.add(trap.getHandlerUnit());
+                if(trap.getBeginUnit() != trap.getEndUnit())
+                    handlers.add(new int[] { pcOf(trap.getBeginUnit()), pcOf(trap.getEndUnit()), pcOf(trap.getHandlerUnit()),
+                                             pool.classRef(AbstractJasminClass.slashify(trap.getException().getName())) });
+            }
+            int maxStack = maxStackHeight(body, handlerUnits);
+
+            byte[] stackMap = null;
+            if(computeFrames) {
+                FrameBuilder frames = new FrameBuilder(method, bytecode, handlers, maxLocals);
+                stackMap = frames.build();
+                handlers = frames.handlers();
+                // Unreachable code is replaced by a throw of the Throwable its frame puts on the stack.
+                if(frames.hasDeadCode() && maxStack < 1)
+                    maxStack = 1;
+            }
+
+            List<byte[]> attributes = new ArrayList<byte[]>();
+            // The tag aggregator may already have built the table as a code attribute.
+            if(!lineNumbers.isEmpty() && body.getTag("LineNumberTable") == null) {
+                Buffer b = new Buffer();
+                b.u2(lineNumbers.size());
+                for(Iterator<int[]> it = lineNumbers.iterator(); it.hasNext(); ) {
+                    int[] entry = it.next();
+                    b.u2(entry[0]);
+                    b.u2(entry[1]);
+                }
+                attributes.add(attribute("LineNumberTable", b.toByteArray()));
+            }
+            addCodeAttributes(attributes, body);
+            if(stackMap != null)
+                attributes.add(attribute("StackMapTable", stackMap));
+
+            Buffer b = new Buffer();
+            b.u2(maxStack);
+            b.u2(maxLocals);
+            b.u4(bytecode.length);
+            b.bytes(bytecode);
+            b.u2(handlers.size());
+            for(Iterator<int[]> it = handlers.iterator(); it.hasNext(); ) {
+                int[] handler = it.next();
+                for(int k = 0; k < handler.length; k++)
+                    b.u2(handler[k]);
+            }
+            writeAttributes(b, attributes);
+            return b.toByteArray();
+        }
+
+        private void emitCode(BafBody body)
+        {
+            code = new Buffer();
+            unitToPc.clear();
+            fixups.clear();
+            lineNumbers.clear();
+            for(Iterator<Unit> it = body.getUnits().iterator(); it.hasNext(); ) {
+                Inst inst = (Inst) it.next();
+                unitToPc.put(inst, new Integer(code.size()));
+                LineNumberTag lnTag = (LineNumberTag) inst.getTag("LineNumberTag");
+                if(lnTag != null)
+                    lineNumbers.add(new int[] { code.size(), lnTag.getLineNumber() });
+                emitInst(inst);
+            }
+        }
+
+        /** Same slot layout as {@link JasminClass}: this, parameters, then the remaining locals in order. */
+        private void assignSlots(BafBody body)
+        {
+            int localCount = 0;
+            int[] paramSlots = new int[method.getParameterCount()];
+            Set<Local> assignedLocals = new HashSet<Local>();
+
+            localToSlot = new HashMap<Local, Integer>(body.getLocalCount() * 2 + 1, 0.7f);
+
+            if(!method.isStatic())
+                localCount++;
+            List<Type> paramTypes = method.getParameterTypes();
+            for(int i = 0; i < paramTypes.size(); i++) {
+                paramSlots[i] = localCount;
+                localCount += AbstractJasminClass.sizeOfType(paramTypes.get(i));
+            }
+
+            for(Iterator<Unit> it = body.getUnits().iterator(); it.hasNext(); ) {
+                Unit s = it.next();
+                if(s instanceof IdentityInst && ((IdentityInst) s).getLeftOp() instanceof Local) {
+                    Local l = (Local) ((IdentityInst) s).getLeftOp();
+                    IdentityRef identity = (IdentityRef) ((IdentityInst) s).getRightOp();
+                    int slot;
+                    if(identity instanceof ThisRef) {
+                        if(method.isStatic())
+                            throw new RuntimeException("Attempting to use 'this' in static method");
+                        slot = 0;
+                    } else if(identity instanceof ParameterRef)
+                        slot = paramSlots[((ParameterRef) identity).getIndex()];
+                    else
+                        continue;
+                    localToSlot.put(l, new Integer(slot));
+                    assignedLocals.add(l);
+                }
+            }
+
+            for(Iterator<Local> it = body.getLocals().iterator(); it.hasNext(); ) {
+                Local local = it.next();
+                if(assignedLocals.add(local)) {
+                    localToSlot.put(local, new Integer(localCount));
+                    localCount += AbstractJasminClass.sizeOfType(local.getType());
+                }
+            }
+            maxLocals = localCount;
+        }
+
+        private void addCodeAttributes(List<byte[]> attributes, BafBody body)
+        {
+            Map<Unit, String> unitToLabel = new HashMap<Unit, String>();
+            Hashtable<String, Integer> labelToPc = new Hashtable<String, Integer>();
+            for(Iterator<Map.Entry<Unit, Integer>> it = unitToPc.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Unit, Integer> e = it.next();
+                String label = "label" + unitToLabel.size();
+                unitToLabel.put(e.getKey(), label);
+                labelToPc.put(label, e.getValue());
+            }
+            for(Iterator<Tag> it = body.getTags().iterator(); it.hasNext(); ) {
+                Tag t = it.next();
+                if(t instanceof JasminAttribute) {
+                    JasminAttribute attr = (JasminAttribute) t;
+                    attributes.add(attribute(t.getName(), attr.decode(attr.getJasminValue(unitToLabel), labelToPc)));
+                }
+            }
+        }
+
+        /** Walks the block graph from its heads, as {@link JasminClass} does, without recursion. */
+        private int maxStackHeight(BafBody body, Set<Unit> handlerUnits)
+        {
+            if(body.getUnits().size() == 0)
+                return 0;
+
+            int maxStackHeight = 0;
+            Map<Block, Integer> blockToStackHeight = new HashMap<Block, Integer>();
+            LinkedList<Block> worklist = new LinkedList<Block>();
+            BriefBlockGraph blockGraph = new BriefBlockGraph(body);
+            for(Iterator<Block> it = blockGraph.getHeads().iterator(); it.hasNext(); ) {
+                Block head = it.next();
+                blockToStackHeight.put(head, new Integer(handlerUnits.contains(head.getHead()) ? 1 : 0));
+                worklist.add(head);
+            }
+
+            while(!worklist.isEmpty()) {
+                Block block = worklist.removeFirst();
+                int blockHeight = blockToStackHeight.get(block).intValue();
+                if(blockHeight > maxStackHeight)
+                    maxStackHeight = blockHeight;
+
+                for(Iterator<Unit> it = block.iterator(); it.hasNext(); ) {
+                    Inst nInst = (Inst) it.next();
+                    blockHeight -= nInst.getInMachineCount();
+                    if(blockHeight < 0)
+                        throw new RuntimeException("Negative Stack height has been attained in :" + method.getSignature()
+                                                   + " \nStackHeight: " + blockHeight + "\nAt instruction:" + nInst
+                                                   + "\nBlock:\n" + block);
+                    blockHeight += nInst.getOutMachineCount();
+                    if(blockHeight > maxStackHeight)
+                        maxStackHeight = blockHeight;
+                }
+
+                for(Iterator<Block> it = block.getSuccs().iterator(); it.hasNext(); ) {
+                    Block succ = it.next();
+                    Integer recorded = blockToStackHeight.get(succ);
+                    if(recorded == null) {
+                        blockToStackHeight.put(succ, new Integer(blockHeight));
+                        worklist.add(succ);
+                    } else if(recorded.intValue() != blockHeight)
+                        throw new RuntimeException(method.getSignature() + ": incoherent stack height at block merge point " + succ + block
+                                                   + "\ncomputed blockHeight == " + blockHeight + " recorded blockHeight = " + recorded.intValue());
+                }
+            }
+            return maxStackHeight;
+        }
+
+        private int pcOf(Unit u)
+        {
+            Integer pc = unitToPc.get(u);
+            if(pc == null)
+                throw new RuntimeException(method.getSignature() + ": unit is not in the body: " + u);
+            return pc.intValue();
+        }
+
+        private void op(int opcode)
+        {
+            code.u1(opcode);
+        }
+
+        private void branch(int opcode, Unit target)
+        {
+            int pc = code.size();
+            if(!wideBranches) {
+                code.u1(opcode);
+                fixups.add(new Fixup(code.size(), pc, target, false));
+                code.u2(0);
+                return;
+            }
+            if(opcode != GOTO && opcode != JSR) {
+                // Conditional branches have no wide form: skip a goto_w on the opposite condition.
+                code.u1(opcode >= IFNULL ? opcode ^ 1 : ((opcode + 1) ^ 1) - 1);
+                code.u2(8);
+                pc = code.size();
+                opcode = GOTO;
+            }
+            code.u1(opcode == GOTO ? GOTO_W : JSR_W);
+            fixups.add(new Fixup(code.size(), pc, target, true));
+            code.u4(0);
+        }
+
+        private void switchTarget(int switchPc, Unit target)
+        {
+            fixups.add(new Fixup(code.size(), switchPc, target, true));
+            code.u4(0);
+        }
+
+        private void local(int opcode, int shortOpcode, int slot)
+        {
+            if(slot <= 3)
+                code.u1(shortOpcode + slot);
+            else if(slot <= 255) {
+                code.u1(opcode);
+                code.u1(slot);
+            } else {
+                code.u1(WIDE);
+                code.u1(opcode);
+                code.u2(slot);
+            }
+        }
+
+        private void ldc(int index)
+        {
+            if(index <= 255) {
+                code.u1(LDC);
+                code.u1(index);
+            } else {
+                code.u1(LDC_W);
+                code.u2(index);
+            }
+        }
+
+        private void ldc2(int index)
+        {
+            code.u1(LDC2_W);
+            code.u2(index);
+        }
+
+        private int slotOf(Local l)
+        {
+            return localToSlot.get(l).intValue();
+        }
+
+        private void arithmetic(int intOpcode, OpTypeArgInst i, boolean integralOnly)
+        {
+            int t = typeIndex(i.getOpType());
+            if(t == 4 || (integralOnly && t > 1))
+                throw new RuntimeException("invalid operand type " + i.getOpType() + " for " + i);
+            code.u1(intOpcode + t);
+        }
+
+        /** Integer and reference compares branch directly; long, float and double compare first. */
+        private void compareBranch(int intOpcode, int zeroOpcode, int refOpcode, OpTypeArgInst i, Unit target)
+        {
+            switch(typeIndex(i.getOpType())) {
+                case 0:
+                    branch(intOpcode, target);
+                    break;
+                case 1:
+                    op(LCMP);
+                    branch(zeroOpcode, target);
+                    break;
+                case 2:
+                    op(FCMPG);
+                    branch(zeroOpcode, target);
+                    break;
+                case 3:
+                    op(DCMPG);
+                    branch(zeroOpcode, target);
+                    break;
+                default:
+                    if(refOpcode < 0)
+                        throw new RuntimeException("invalid reference comparison: " + i);
+                    branch(refOpcode, target);
+            }
+        }
+
+        private void emitInst(Inst inst)
+        {
+            inst.apply(new InstSwitch()
+            {
+                public void caseReturnVoidInst(ReturnVoidInst i) { emit(RETURN); }
+                public void caseNopInst(NopInst i) { emit(NOP); }
+                public void caseThrowInst(ThrowInst i) { emit(ATHROW); }
+                public void caseEnterMonitorInst(EnterMonitorInst i) { emit(MONITORENTER); }
+                public void caseExitMonitorInst(ExitMonitorInst i) { emit(MONITOREXIT); }
+                public void caseArrayLengthInst(ArrayLengthInst i) { emit(ARRAYLENGTH); }
+                public void caseSwapInst(SwapInst i) { emit(SWAP); }
+                public void caseCmpInst(CmpInst i) { emit(LCMP); }
+                public void caseCmplInst(CmplInst i) { emit(i.getOpType().equals(FloatType.v()) ? FCMPL : DCMPL); }
+                public void caseCmpgInst(CmpgInst i) { emit(i.getOpType().equals(FloatType.v()) ? FCMPG : DCMPG); }
+                public void casePopInst(PopInst i) { emit(i.getWordCount() == 2 ? POP2 : POP); }
+
+                public void caseReturnInst(ReturnInst i) { emit(IRETURN + typeIndex(i.getOpType())); }
+
+                public void caseGotoInst(GotoInst i) { branch(GOTO, i.getTarget()); }
+                public void caseJSRInst(JSRInst i) { branch(JSR, i.getTarget()); }
+                public void caseIfNullInst(IfNullInst i) { branch(IFNULL, i.getTarget()); }
+                public void caseIfNonNullInst(IfNonNullInst i) { branch(IFNONNULL, i.getTarget()); }
+                public void caseIfEqInst(IfEqInst i) { branch(IFEQ, i.getTarget()); }
+                public void caseIfNeInst(IfNeInst i) { branch(IFNE, i.getTarget()); }
+                public void caseIfLtInst(IfLtInst i) { branch(IFLT, i.getTarget()); }
+                public void caseIfGeInst(IfGeInst i) { branch(IFGE, i.getTarget()); }
+                public void caseIfGtInst(IfGtInst i) { branch(IFGT, i.getTarget()); }
+                public void caseIfLeInst(IfLeInst i) { branch(IFLE, i.getTarget()); }
+
+                public void caseIfCmpEqInst(IfCmpEqInst i) { compareBranch(IF_ICMPEQ, IFEQ, IF_ACMPEQ, i, i.getTarget()); }
+                public void caseIfCmpNeInst(IfCmpNeInst i) { compareBranch(IF_ICMPNE, IFNE, IF_ACMPNE, i, i.getTarget()); }
+                public void caseIfCmpLtInst(IfCmpLtInst i) { compareBranch(IF_ICMPLT, IFLT, -1, i, i.getTarget()); }
+                public void caseIfCmpGeInst(IfCmpGeInst i) { compareBranch(IF_ICMPGE, IFGE, -1, i, i.getTarget()); }
+                public void caseIfCmpGtInst(IfCmpGtInst i) { compareBranch(IF_ICMPGT, IFGT, -1, i, i.getTarget()); }
+                public void caseIfCmpLeInst(IfCmpLeInst i) { compareBranch(IF_ICMPLE, IFLE, -1, i, i.getTarget()); }
+
+                public void caseAddInst(AddInst i) { arithmetic(IADD, i, false); }
+                public void caseSubInst(SubInst i) { arithmetic(ISUB, i, false); }
+                public void caseMulInst(MulInst i) { arithmetic(IMUL, i, false); }
+                public void caseDivInst(DivInst i) { arithmetic(IDIV, i, false); }
+                public void caseRemInst(RemInst i) { arithmetic(IREM, i, false); }
+                public void caseNegInst(NegInst i) { arithmetic(INEG, i, false); }
+                public void caseShlInst(ShlInst i) { arithmetic(ISHL, i, true); }
+                public void caseShrInst(ShrInst i) { arithmetic(ISHR, i, true); }
+                public void caseUshrInst(UshrInst i) { arithmetic(IUSHR, i, true); }
+                public void caseAndInst(AndInst i) { arithmetic(IAND, i, true); }
+                public void caseOrInst(OrInst i) { arithmetic(IOR, i, true); }
+                public void caseXorInst(XorInst i) { arithmetic(IXOR, i, true); }
+
+                public void casePushInst(PushInst i)
+                {
+                    push(i.getConstant());
+                }
+
+                public void caseIdentityInst(IdentityInst i)
+                {
+                    if(i.getRightOp() instanceof CaughtExceptionRef && i.getLeftOp() instanceof Local)
+                        local(ISTORE + 4, ISTORE_0 + 16, slotOf((Local) i.getLeftOp()));
+                }
+
+                public void caseStoreInst(StoreInst i)
+                {
+                    // Return addresses are only ever consumed by the jsr that follows.
+                    if(i.getOpType() instanceof StmtAddressType)
+                        return;
+                    int t = typeIndex(i.getOpType());
+                    local(ISTORE + t, ISTORE_0 + 4 * t, slotOf(i.getLocal()));
+                }
+
+                public void caseLoadInst(LoadInst i)
+                {
+                    int t = typeIndex(i.getOpType());
+                    local(ILOAD + t, ILOAD_0 + 4 * t, slotOf(i.getLocal()));
+                }
+
+                public void caseArrayReadInst(ArrayReadInst i) { emit(IALOAD + arrayIndex(i.getOpType())); }
+                public void caseArrayWriteInst(ArrayWriteInst i) { emit(IASTORE + arrayIndex(i.getOpType())); }
+
+                private int arrayIndex(Type t)
+                {
+                    if(t instanceof BooleanType || t instanceof ByteType)
+                        return 5;
+                    if(t instanceof CharType)
+                        return 6;
+                    if(t instanceof ShortType)
+                        return 7;
+                    return typeIndex(t);
+                }
+
+                public void caseIncInst(IncInst i)
+                {
+                    int slot = slotOf(i.getLocal());
+                    int value = ((IntConstant) i.getConstant()).value;
+                    if(slot <= 255 && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                        code.u1(IINC);
+                        code.u1(slot);
+                        code.u1(value);
+                    } else {
+                        code.u1(WIDE);
+                        code.u1(IINC);
+                        code.u2(slot);
+                        code.u2(value);
+                    }
+                }
+
+                public void caseStaticGetInst(StaticGetInst i) { emitRef(GETSTATIC, fieldRef(i.getFieldRef())); }
+                public void caseStaticPutInst(StaticPutInst i) { emitRef(PUTSTATIC, fieldRef(i.getFieldRef())); }
+                public void caseFieldGetInst(FieldGetInst i) { emitRef(GETFIELD, fieldRef(i.getFieldRef())); }
+                public void caseFieldPutInst(FieldPutInst i) { emitRef(PUTFIELD, fieldRef(i.getFieldRef())); }
+
+                public void caseStaticInvokeInst(StaticInvokeInst i) { emitRef(INVOKESTATIC, methodRef(i.getMethodRef(), false)); }
+                public void caseVirtualInvokeInst(VirtualInvokeInst i) { emitRef(INVOKEVIRTUAL, methodRef(i.getMethodRef(), false)); }
+                public void caseSpecialInvokeInst(SpecialInvokeInst i) { emitRef(INVOKESPECIAL, methodRef(i.getMethodRef(), false)); }
+
+                public void caseInterfaceInvokeInst(InterfaceInvokeInst i)
+                {
+                    emitRef(INVOKEINTERFACE, methodRef(i.getMethodRef(), true));
+                    emit(AbstractJasminClass.argCountOf(i.getMethodRef()) + 1);
+                    emit(0);
+                }
+
+                public void caseDynamicInvokeInst(DynamicInvokeInst i)
+                {
+                    SootMethodRef m = i.getMethodRef();
+                    int index = pool.invokeDynamic(bootstrapMethod(i), m.name(),
+                                                   AbstractJasminClass.jasminDescriptorOf(m));
+                    code.u1(INVOKEDYNAMIC);
+                    code.u2(index);
+                    code.u2(0);
+                }
+
+                public void caseInstanceCastInst(InstanceCastInst i) { emitRef(CHECKCAST, typeRef(i.getCastType())); }
+                public void caseInstanceOfInst(InstanceOfInst i) { emitRef(INSTANCEOF, typeRef(i.getCheckType())); }
+                public void caseNewInst(NewInst i) { emitRef(NEW, typeRef(i.getBaseType())); }
+
+                public void caseNewArrayInst(NewArrayInst i)
+                {
+                    Type t = i.getBaseType();
+                    if(t instanceof RefType || t instanceof ArrayType)
+                        emitRef(ANEWARRAY, typeRef(t));
+                    else {
+                        emit(NEWARRAY);
+                        emit(newArrayCode(t));
+                    }
+                }
+
+                private int newArrayCode(Type t)
+                {
+                    if(t instanceof BooleanType) return 4;
+                    if(t instanceof CharType) return 5;
+                    if(t instanceof FloatType) return 6;
+                    if(t instanceof DoubleType) return 7;
+                    if(t instanceof ByteType) return 8;
+                    if(t instanceof ShortType) return 9;
+                    if(t instanceof IntType) return 10;
+                    if(t instanceof LongType) return 11;
+                    throw new RuntimeException("invalid array element type: " + t);
+                }
+
+                public void caseNewMultiArrayInst(NewMultiArrayInst i)
+                {
+                    emitRef(MULTIANEWARRAY, typeRef(i.getBaseType()));
+                    emit(i.getDimensionCount());
+                }
+
+                public void casePrimitiveCastInst(PrimitiveCastInst i)
+                {
+                    String name = i.toString().trim();
+                    // Casts between int-like types need no instruction.
+                    if(name.length() == 0)
+                        return;
+                    for(int k = 0; k < CAST_NAMES.length; k++) {
+                        if(CAST_NAMES[k].equals(name)) {
+                            emit(I2L + k);
+                            return;
+                        }
+                    }
+                    throw new RuntimeException("invalid primitive cast: " + name);
+                }
+
+                public void caseLookupSwitchInst(LookupSwitchInst i)
+                {
+                    int pc = code.size();
+                    code.u1(LOOKUPSWITCH);
+                    while(code.size() % 4 != 0)
+                        code.u1(0);
+                    switchTarget(pc, i.getDefaultTarget());
+
+                    // Pairs must be sorted by key.
+                    TreeMap<Integer, Unit> pairs = new TreeMap<Integer, Unit>();
+                    List lookupValues = i.getLookupValues();
+                    for(int j = 0; j < lookupValues.size(); j++)
+                        pairs.put(new Integer(((IntConstant) lookupValues.get(j)).value), i.getTarget(j));
+                    code.u4(pairs.size());
+                    for(Iterator<Map.Entry<Integer, Unit>> it = pairs.entrySet().iterator(); it.hasNext(); ) {
+                        Map.Entry<Integer, Unit> e = it.next();
+                        code.u4(e.getKey().intValue());
+                        switchTarget(pc, e.getValue());
+                    }
+                }
+
+                public void caseTableSwitchInst(TableSwitchInst i)
+                {
+                    int pc = code.size();
+                    code.u1(TABLESWITCH);
+                    while(code.size() % 4 != 0)
+                        code.u1(0);
+                    switchTarget(pc, i.getDefaultTarget());
+                    code.u4(i.getLowIndex());
+                    code.u4(i.getHighIndex());
+                    List targets = i.getTargets();
+                    for(int j = 0; j < targets.size(); j++)
+                        switchTarget(pc, (Unit) targets.get(j));
+                }
+
+                public void caseDup1Inst(Dup1Inst i)
+                {
+                    emit(isDwordType(i.getOp1Type()) ? DUP2 : DUP);
+                }
+
+                public void caseDup2Inst(Dup2Inst i)
+                {
+                    Type firstOpType = i.getOp1Type();
+                    Type secondOpType = i.getOp2Type();
+                    // The first two cases have no real bytecode equivalents.
+                    // Use a pair of insts to simulate them.
+                    if(isDwordType(firstOpType)) {
+                        emit(DUP2);
+                        emit(isDwordType(secondOpType) ? DUP2 : DUP);
+                    } else if(isDwordType(secondOpType)) {
+                        emit(DUP);
+                        emit(DUP2);
+                    } else
+                        emit(DUP2);
+                }
+
+                public void caseDup1_x1Inst(Dup1_x1Inst i)
+                {
+                    if(isDwordType(i.getOp1Type()))
+                        emit(isDwordType(i.getUnder1Type()) ? DUP2_X2 : DUP2_X1);
+                    else
+                        emit(isDwordType(i.getUnder1Type()) ? DUP_X2 : DUP_X1);
+                }
+
+                public void caseDup1_x2Inst(Dup1_x2Inst i)
+                {
+                    boolean dwordUnder = isDwordType(i.getUnder1Type()) || isDwordType(i.getUnder2Type());
+                    if(dwordUnder)
+                        throw new RuntimeException("magic not implemented yet");
+                    emit(isDwordType(i.getOp1Type()) ? DUP2_X2 : DUP_X2);
+                }
+
+                public void caseDup2_x1Inst(Dup2_x1Inst i)
+                {
+                    Type op1Type = i.getOp1Type();
+                    Type op2Type = i.getOp2Type();
+                    if(isDwordType(i.getUnder1Type())) {
+                        if(!isDwordType(op1Type) && !isDwordType(op2Type))
+                            throw new RuntimeException("magic not implemented yet");
+                        emit(DUP2_X2);
+                    } else {
+                        if((isDwordType(op1Type) && op2Type != null) || isDwordType(op2Type))
+                            throw new RuntimeException("magic not implemented yet");
+                        emit(DUP2_X1);
+                    }
+                }
+
+                public void caseDup2_x2Inst(Dup2_x2Inst i)
+                {
+                    Type op1Type = i.getOp1Type();
+                    Type op2Type = i.getOp2Type();
+                    Type under1Type = i.getUnder1Type();
+                    Type under2Type = i.getUnder2Type();
+
+                    boolean malformed = true;
+                    if(isDwordType(op1Type)) {
+                        if(op2Type == null && under1Type != null)
+                            if((under2Type == null && isDwordType(under1Type))
+                               || (!isDwordType(under1Type) && under2Type != null && !isDwordType(under2Type)))
+                                malformed = false;
+                    } else if(op1Type != null && op2Type != null && !isDwordType(op2Type)) {
+                        if((under2Type == null && isDwordType(under1Type))
+                           || (under1Type != null && !isDwordType(under1Type) && under2Type != null && !isDwordType(under2Type)))
+                            malformed = false;
+                    }
+                    if(malformed)
+                        throw new RuntimeException("magic not implemented yet");
+                    emit(DUP2_X2);
+                }
+
+                private void emit(int b)
+                {
+                    code.u1(b);
+                }
+
+                private void emitRef(int opcode, int index)
+                {
+                    code.u1(opcode);
+                    code.u2(index);
+                }
+            });
+        }
+
+        private void push(Constant c)
+        {
+            if(c instanceof IntConstant) {
+                int v = ((IntConstant) c).value;
+                if(v >= -1 && v <= 5)
+                    op(ICONST_0 + v);
+                else if(v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+                    op(BIPUSH);
+                    code.u1(v);
+                } else if(v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+                    op(SIPUSH);
+                    code.u2(v);
+                } else
+                    ldc(pool.integer(v));
+            } else if(c instanceof StringConstant)
+                ldc(pool.string(((StringConstant) c).value));
+            else if(c instanceof ClassConstant)
+                ldc(pool.classRef(((ClassConstant) c).getValue()));
+            else if(c instanceof DoubleConstant) {
+                double v = ((DoubleConstant) c).value;
+                if(Double.doubleToRawLongBits(v) == 0L)
+                    op(DCONST_0);
+                else if(v == 1)
+                    op(DCONST_0 + 1);
+                else
+                    ldc2(pool.doubleConstant(v));
+            } else if(c instanceof FloatConstant) {
+                float v = ((FloatConstant) c).value;
+                if(Float.floatToRawIntBits(v) == 0)
+                    op(FCONST_0);
+                else if(v == 1 || v == 2)
+                    op(FCONST_0 + (int) v);
+                else
+                    ldc(pool.floatConstant(v));
+            } else if(c instanceof LongConstant) {
+                long v = ((LongConstant) c).value;
+                if(v == 0 || v == 1)
+                    op(LCONST_0 + (int) v);
+                else
+                    ldc2(pool.longConstant(v));
+            } else if(c instanceof NullConstant)
+                op(ACONST_NULL);
+            else
+                throw new RuntimeException("unsupported opcode");
+        }
+    }
+
+    /**
+     * Computes the StackMapTable of one method by simulating its bytecode.
+     * Types are kept per slot, a long or double being followed by a top as
+     * in the verifier. References are "L" and their internal name, objects
+     * awaiting their constructor "u" and the pc of their new, and the
+     * uninitialized this "U"; merged references take their closest common
+     * superclass. Unreachable blocks are replaced by a throw, as they have
+     * no type state to describe.
+     */
+    private class FrameBuilder
+    {
+        private static final String TOP = "T", INT = "I", FLOAT = "F", LONG = "J", DOUBLE = "D",
+            NULL = "N", UNINITIALIZED_THIS = "U";
+
+        private final SootMethod method;
+        private final byte[] code;
+        private final List<int[]> handlers;
+        private final int maxLocals;
+        private final BitSet framePcs = new BitSet();
+        private final Map<Integer, Frame> frames = new HashMap<Integer, Frame>();
+        private final LinkedList<Integer> worklist = new LinkedList<Integer>();
+        private final BitSet queued = new BitSet();
+        private final List<int[]> deadRanges = new ArrayList<int[]>();
+        private String[] locals;
+        private List<String> stack;
+        private int pc;
+
+        FrameBuilder(SootMethod method, byte[] code, List<int[]> handlers, int maxLocals)
+        {
+            this.method = method;
+            this.code = code;
+            this.handlers = handlers;
+            this.maxLocals = maxLocals;
+        }
+
+        /** Returns the contents of the StackMapTable attribute. */
+        byte[] build()
+        {
+            findBlocks();
+            mergeInto(0, initialLocals(), new ArrayList<String>());
+            while(!worklist.isEmpty()) {
+                Integer pc = worklist.removeFirst();
+                queued.clear(pc.intValue());
+                simulate(pc.intValue());
+            }
+
+            for(int pc = framePcs.nextSetBit(0); pc >= 0; pc = framePcs.nextSetBit(pc + 1)) {
+                if(frames.containsKey(new Integer(pc)))
+                    continue;
+                int end = framePcs.nextSetBit(pc + 1);
+                if(end < 0)
+                    end = code.length;
+                for(int k = pc; k < end - 1; k++)
+                    code[k] = NOP;
+                code[end - 1] = (byte) ATHROW;
+                String[] noLocals = new String[maxLocals];
+                Arrays.fill(noLocals, TOP);
+                List<String> throwable = new ArrayList<String>();
+                throwable.add("Ljava/lang/Throwable");
+                frames.put(new Integer(pc), new Frame(noLocals, throwable));
+                deadRanges.add(new int[] { pc, end });
+            }
+
+            Buffer entries = new Buffer();
+            int count = 0;
+            int last = -1;
+            for(int pc = framePcs.nextSetBit(0); pc >= 0; pc = framePcs.nextSetBit(pc + 1)) {
+                Frame f = frames.get(new Integer(pc));
+                int n = f.locals.length;
+                while(n > 0 && f.locals[n - 1].equals(TOP) && !(n > 1 && isWide(f.locals[n - 2])))
+                    n--;
+                entries.u1(255);
+                entries.u2(pc - last - 1);
+                writeTypes(entries, Arrays.asList(f.locals).subList(0, n));
+                writeTypes(entries, f.stack);
+                last = pc;
+                count++;
+            }
+            Buffer b = new Buffer();
+            b.u2(count);
+            b.bytes(entries.toByteArray());
+            return b.toByteArray();
+        }
+
+        boolean hasDeadCode()
+        {
+            return !deadRanges.isEmpty();
+        }
+
+        /** The exception table entries, less the code replaced as unreachable. */
+        List<int[]> handlers()
+        {
+            List<int[]> live = new ArrayList<int[]>();
+            for(Iterator<int[]> it = handlers.iterator(); it.hasNext(); ) {
+                int[] h = it.next();
+                int start = h[0];
+                for(Iterator<int[]> dIt = deadRanges.iterator(); dIt.hasNext(); ) {
+                    int[] dead = dIt.next();
+                    if(dead[1] <= start || dead[0] >= h[1])
+                        continue;
+                    if(dead[0] > start)
+                        live.add(new int[] { start, dead[0], h[2], h[3] });
+                    start = dead[1];
+                }
+                if(start < h[1])
+                    live.add(new int[] { start, h[1], h[2], h[3] });
+            }
+            return live;
+        }
+
+        /** Marks the pcs that start a basic block other than the first. */
+        private void findBlocks()
+        {
+            for(Iterator<int[]> it = handlers.iterator(); it.hasNext(); )
+                framePcs.set(it.next()[2]);
+            for(int pc = 0; pc < code.length; pc += length(pc)) {
+                int op = u1(pc);
+                boolean ends = false;
+                if((op >= IFEQ && op <= JSR) || op == IFNULL || op == IFNONNULL) {
+                    framePcs.set(pc + s2(pc + 1));
+                    ends = op == GOTO;
+                } else if(op == GOTO_W) {
+                    framePcs.set(pc + s4(pc + 1));
+                    ends = true;
+                } else if(op == TABLESWITCH || op == LOOKUPSWITCH) {
+                    int p = (pc + 4) & ~3;
+                    framePcs.set(pc + s4(p));
+                    if(op == TABLESWITCH) {
+                        int n = s4(p + 8) - s4(p + 4) + 1;
+                        for(int k = 0; k < n; k++)
+                            framePcs.set(pc + s4(p + 12 + 4 * k));
+                    } else {
+                        int n = s4(p + 4);
+                        for(int k = 0; k < n; k++)
+                            framePcs.set(pc + s4(p + 12 + 8 * k));
+                    }
+                    ends = true;
+                } else
+                    ends = (op >= IRETURN && op <= RETURN) || op == ATHROW;
+                if(ends && pc + length(pc) < code.length)
+                    framePcs.set(pc + length(pc));
+            }
+        }
+
+        private String[] initialLocals()
+        {
+            String[] initial = new String[maxLocals];
+            Arrays.fill(initial, TOP);
+            int slot = 0;
+            if(!method.isStatic()) {
+                if(method.getName().equals("<init>") && !sootClass.getName().equals("java.lang.Object"))
+                    initial[slot++] = UNINITIALIZED_THIS;
+                else
+                    initial[slot++] = "L" + AbstractJasminClass.slashify(sootClass.getName());
+            }
+            for(Iterator<Type> it = method.getParameterTypes().iterator(); it.hasNext(); ) {
+                String t = fromDescriptor(AbstractJasminClass.jasminDescriptorOf(it.next()));
+                initial[slot++] = t;
+                if(isWide(t))
+                    initial[slot++] = TOP;
+            }
+            return initial;
+        }
+
+        /** Runs the block starting at <code>start</code>, merging its results into its successors. */
+        private void simulate(int start)
+        {
+            Frame f = frames.get(new Integer(start));
+            locals = f.locals.clone();
+            stack = new ArrayList<String>(f.stack);
+            pc = start;
+            while(true) {
+                mergeIntoHandlers(pc);
+                boolean fallsThrough = execute(pc);
+                if(!isStore(pc))
+                    mergeIntoHandlers(pc);
+                if(!fallsThrough)
+                    return;
+                pc += length(pc);
+                if(pc >= code.length)
+                    throw new RuntimeException(method.getSignature() + ": execution falls off the end of the code");
+                if(framePcs.get(pc)) {
+                    mergeInto(pc, locals, stack);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Handlers must accept the locals before each instruction they cover,
+         * and after it unless it is a store, as the verifier checks both.
+         */
+        private void mergeIntoHandlers(int pc)
+        {
+            for(Iterator<int[]> it = handlers.iterator(); it.hasNext(); ) {
+                int[] h = it.next();
+                if(pc >= h[0] && pc < h[1]) {
+                    List<String> exception = new ArrayList<String>();
+                    exception.add("L" + pool.classNameAt(h[3]));
+                    mergeInto(h[2], locals, exception);
+                }
+            }
+        }
+
+        private boolean isStore(int pc)
+        {
+            int op = u1(pc) == WIDE ? u1(pc + 1) : u1(pc);
+            return op >= ISTORE && op < IASTORE;
+        }
+
+        private void mergeInto(int pc, String[] l, List<String> s)
+        {
+            Integer key = new Integer(pc);
+            Frame old = frames.get(key);
+            boolean changed = false;
+            if(old == null) {
+                frames.put(key, new Frame(l.clone(), new ArrayList<String>(s)));
+                changed = true;
+            } else {
+                if(old.stack.size() != s.size())
+                    throw new RuntimeException(method.getSignature() + ": incoherent stack height at pc " + pc);
+                for(int i = 0; i < l.length; i++) {
+                    String t = merge(old.locals[i], l[i]);
+                    if(!t.equals(old.locals[i])) {
+                        old.locals[i] = t;
+                        changed = true;
+                    }
+                }
+                for(int i = 0; i < s.size(); i++) {
+                    String t = merge(old.stack.get(i), s.get(i));
+                    if(!t.equals(old.stack.get(i))) {
+                        old.stack.set(i, t);
+                        changed = true;
+                    }
+                }
+            }
+            if(changed && !queued.get(pc)) {
+                queued.set(pc);
+                worklist.add(key);
+            }
+        }
+
+        private String merge(String a, String b)
+        {
+            if(a.equals(b))
+                return a;
+            if(!isReference(a) || !isReference(b))
+                return TOP;
+            if(a.equals(NULL))
+                return b;
+            if(b.equals(NULL))
+                return a;
+            return "L" + commonSuperclass(a.substring(1), b.substring(1));
+        }
+
+        private String commonSuperclass(String a, String b)
+        {
+            if(a.equals(b))
+                return a;
+            if(a.charAt(0) == '[' || b.charAt(0) == '[') {
+                if(a.charAt(0) == '[' && b.charAt(0) == '[' && isReferenceDescriptor(a.substring(1))
+                   && isReferenceDescriptor(b.substring(1)))
+                    return arrayOf(commonSuperclass(internalNameOf(a.substring(1)), internalNameOf(b.substring(1))));
+                return "java/lang/Object";
+            }
+            List<String> superclasses = superclassesOf(a);
+            for(Iterator<String> it = superclassesOf(b).iterator(); it.hasNext(); ) {
+                String c = it.next();
+                if(superclasses.contains(c))
+                    return c;
+            }
+            return "java/lang/Object";
+        }
+
+        /** The class and its superclasses; interfaces only have java.lang.Object in common with other types. */
+        private List<String> superclassesOf(String internalName)
+        {
+            List<String> superclasses = new ArrayList<String>();
+            String name = internalName.replace('/', '.');
+            while(Scene.v().containsClass(name)) {
+                SootClass c = Scene.v().getSootClass(name);
+                if(c.isInterface())
+                    break;
+                superclasses.add(AbstractJasminClass.slashify(name));
+                if(!c.hasSuperclass())
+                    break;
+                name = c.getSuperclass().getName();
+            }
+            superclasses.add("java/lang/Object");
+            return superclasses;
+        }
+
+        /** Simulates the instruction at <code>pc</code>; returns whether control can reach the next one. */
+        private boolean execute(int pc)
+        {
+            int op = u1(pc);
+            if(op == NOP || op == IINC)
+                return true;
+            if(op == ACONST_NULL)
+                push(NULL);
+            else if(op < LCONST_0)
+                push(INT);
+            else if(op < FCONST_0)
+                pushType(LONG);
+            else if(op < DCONST_0)
+                push(FLOAT);
+            else if(op < BIPUSH)
+                pushType(DOUBLE);
+            else if(op == BIPUSH || op == SIPUSH)
+                push(INT);
+            else if(op == LDC)
+                ldc(u1(pc + 1));
+            else if(op == LDC_W || op == LDC2_W)
+                ldc(u2(pc + 1));
+            else if(op < ILOAD_0)
+                load(op - ILOAD, u1(pc + 1));
+            else if(op < IALOAD)
+                load((op - ILOAD_0) / 4, (op - ILOAD_0) % 4);
+            else if(op < ISTORE)
+                arrayLoad(op - IALOAD);
+            else if(op < ISTORE_0)
+                store(op - ISTORE, u1(pc + 1));
+            else if(op < IASTORE)
+                store((op - ISTORE_0) / 4, (op - ISTORE_0) % 4);
+            else if(op < POP)
+                pop(op == IASTORE + 1 || op == IASTORE + 3 ? 4 : 3);
+            else if(op <= SWAP)
+                stackOp(op);
+            else if(op < INEG)
+                binary(KINDS[(op - IADD) % 4]);
+            else if(op < ISHL) {
+                String t = KINDS[op - INEG];
+                popType(t);
+                pushType(t);
+            } else if(op < IAND) {
+                String t = KINDS[(op - ISHL) % 2];
+                pop(1);
+                popType(t);
+                pushType(t);
+            } else if(op < IINC)
+                binary(KINDS[(op - IAND) % 2]);
+            else if(op < LCMP) {
+                popType(CAST_FROM.substring(op - I2L, op - I2L + 1));
+                pushType(CAST_TO.substring(op - I2L, op - I2L + 1));
+            } else if(op <= DCMPG) {
+                pop(op == FCMPL || op == FCMPG ? 2 : 4);
+                push(INT);
+            } else if(op <= IF_ACMPNE) {
+                pop(op < IF_ICMPEQ ? 1 : 2);
+                mergeInto(pc + s2(pc + 1), locals, stack);
+            } else if(op == GOTO) {
+                mergeInto(pc + s2(pc + 1), locals, stack);
+                return false;
+            } else if(op == TABLESWITCH || op == LOOKUPSWITCH) {
+                pop(1);
+                int p = (pc + 4) & ~3;
+                mergeInto(pc + s4(p), locals, stack);
+                if(op == TABLESWITCH) {
+                    int n = s4(p + 8) - s4(p + 4) + 1;
+                    for(int k = 0; k < n; k++)
+                        mergeInto(pc + s4(p + 12 + 4 * k), locals, stack);
+                } else {
+                    int n = s4(p + 4);
+                    for(int k = 0; k < n; k++)
+                        mergeInto(pc + s4(p + 12 + 8 * k), locals, stack);
+                }
+                return false;
+            } else if(op >= IRETURN && op <= RETURN)
+                return false;
+            else if(op >= GETSTATIC && op <= PUTFIELD)
+                field(op, u2(pc + 1));
+            else if(op >= INVOKEVIRTUAL && op <= INVOKEDYNAMIC)
+                invoke(op, u2(pc + 1));
+            else if(op == NEW)
+                push("u" + pc);
+            else if(op == NEWARRAY) {
+                pop(1);
+                push("L[" + "ZCFDBSIJ".charAt(u1(pc + 1) - 4));
+            } else if(op == ANEWARRAY) {
+                pop(1);
+                push("L" + arrayOf(pool.classNameAt(u2(pc + 1))));
+            } else if(op == ARRAYLENGTH || op == INSTANCEOF) {
+                pop(1);
+                push(INT);
+            } else if(op == ATHROW)
+                return false;
+            else if(op == CHECKCAST) {
+                pop(1);
+                push("L" + pool.classNameAt(u2(pc + 1)));
+            } else if(op == MONITORENTER || op == MONITOREXIT)
+                pop(1);
+            else if(op == WIDE) {
+                int wideOp = u1(pc + 1);
+                if(wideOp < ISTORE)
+                    load(wideOp - ILOAD, u2(pc + 2));
+                else if(wideOp < IINC)
+                    store(wideOp - ISTORE, u2(pc + 2));
+            } else if(op == MULTIANEWARRAY) {
+                pop(u1(pc + 3));
+                push("L" + pool.classNameAt(u2(pc + 1)));
+            } else if(op == IFNULL || op == IFNONNULL) {
+                pop(1);
+                mergeInto(pc + s2(pc + 1), locals, stack);
+            } else if(op == GOTO_W) {
+                mergeInto(pc + s4(pc + 1), locals, stack);
+                return false;
+            } else
+                throw new RuntimeException(method.getSignature() + ": cannot compute stack map frames for opcode " + op
+                                           + (op == JSR || op == JSR_W ? " (subroutines need a version 49 class file)" : ""));
+            return true;
+        }
+
+        private void ldc(int index)
+        {
+            switch(pool.keyAt(index).charAt(0)) {
+                case 'I':
+                    push(INT);
+                    break;
+                case 'F':
+                    push(FLOAT);
+                    break;
+                case 'J':
+                    pushType(LONG);
+                    break;
+                case 'D':
+                    pushType(DOUBLE);
+                    break;
+                case 'S':
+                    push("Ljava/lang/String");
+                    break;
+                case 'C':
+                    push("Ljava/lang/Class");
+                    break;
+                default:
+                    push("Ljava/lang/invoke/MethodHandle");
+            }
+        }
+
+        private void load(int kind, int slot)
+        {
+            if(kind == 4)
+                push(locals[slot]);
+            else
+                pushType(KINDS[kind]);
+        }
+
+        private void store(int kind, int slot)
+        {
+            String value;
+            if(kind == 4)
+                value = pop();
+            else {
+                value = KINDS[kind];
+                popType(value);
+            }
+            if(slot > 0 && isWide(locals[slot - 1]))
+                locals[slot - 1] = TOP;
+            locals[slot] = value;
+            if(isWide(value))
+                locals[slot + 1] = TOP;
+        }
+
+        /** <code>kind</code> counts from iaload: int, long, float, double, reference, byte, char, short. */
+        private void arrayLoad(int kind)
+        {
+            pop(1);
+            String array = pop();
+            if(kind == 4)
+                push(array.startsWith("L[") ? fromDescriptor(array.substring(2)) : NULL);
+            else
+                pushType(kind < 4 ? KINDS[kind] : INT);
+        }
+
+        private void binary(String t)
+        {
+            popType(t);
+            popType(t);
+            pushType(t);
+        }
+
+        private void stackOp(int op)
+        {
+            String a = pop();
+            if(op == POP)
+                return;
+            if(op == DUP) {
+                push(a);
+                push(a);
+                return;
+            }
+            String b = pop();
+            if(op == POP2)
+                return;
+            if(op == DUP_X1) {
+                push(a);
+                push(b);
+                push(a);
+            } else if(op == DUP2) {
+                push(b);
+                push(a);
+                push(b);
+                push(a);
+            } else if(op == SWAP) {
+                push(a);
+                push(b);
+            } else {
+                String c = pop();
+                if(op == DUP_X2) {
+                    push(a);
+                    push(c);
+                    push(b);
+                    push(a);
+                } else if(op == DUP2_X1) {
+                    push(b);
+                    push(a);
+                    push(c);
+                    push(b);
+                    push(a);
+                } else {
+                    String d = pop();
+                    push(b);
+                    push(a);
+                    push(d);
+                    push(c);
+                    push(b);
+                    push(a);
+                }
+            }
+        }
+
+        private void field(int op, int index)
+        {
+            String t = fromDescriptor(pool.nameAndTypeAt(index)[1]);
+            if(op == GETSTATIC)
+                pushType(t);
+            else if(op == PUTSTATIC)
+                popType(t);
+            else if(op == GETFIELD) {
+                pop(1);
+                pushType(t);
+            } else {
+                popType(t);
+                pop(1);
+            }
+        }
+
+        private void invoke(int op, int index)
+        {
+            String[] nameAndType = pool.nameAndTypeAt(index);
+            String descriptor = nameAndType[1];
+            int i = 1;
+            while(descriptor.charAt(i) != ')') {
+                int end = i;
+                while(descriptor.charAt(end) == '[')
+                    end++;
+                end = descriptor.charAt(end) == 'L' ? descriptor.indexOf(';', end) + 1 : end + 1;
+                popType(fromDescriptor(descriptor.substring(i, end)));
+                i = end;
+            }
+            if(op != INVOKESTATIC && op != INVOKEDYNAMIC) {
+                String receiver = pop();
+                if(op == INVOKESPECIAL && nameAndType[0].equals("<init>"))
+                    initialize(receiver);
+            }
+            if(descriptor.charAt(i + 1) != 'V')
+                pushType(fromDescriptor(descriptor.substring(i + 1)));
+        }
+
+        /** A constructor call turns every copy of the uninitialized object into an instance of its class. */
+        private void initialize(String receiver)
+        {
+            String type;
+            if(receiver.equals(UNINITIALIZED_THIS))
+                type = "L" + AbstractJasminClass.slashify(sootClass.getName());
+            else if(receiver.charAt(0) == 'u')
+                type = "L" + pool.classNameAt(u2(Integer.parseInt(receiver.substring(1)) + 1));
+            else
+                return;
+            for(int i = 0; i < locals.length; i++)
+                if(locals[i].equals(receiver))
+                    locals[i] = type;
+            for(int i = 0; i < stack.size(); i++)
+                if(stack.get(i).equals(receiver))
+                    stack.set(i, type);
+        }
+
+        private void writeTypes(Buffer b, List<String> types)
+        {
+            int count = 0;
+            for(int i = 0; i < types.size(); i += isWide(types.get(i)) ? 2 : 1)
+                count++;
+            b.u2(count);
+            for(int i = 0; i < types.size(); i += isWide(types.get(i)) ? 2 : 1) {
+                String t = types.get(i);
+                switch(t.charAt(0)) {
+                    case 'T': b.u1(0); break;
+                    case 'I': b.u1(1); break;
+                    case 'F': b.u1(2); break;
+                    case 'D': b.u1(3); break;
+                    case 'J': b.u1(4); break;
+                    case 'N': b.u1(5); break;
+                    case 'U': b.u1(6); break;
+                    case 'L':
+                        b.u1(7);
+                        b.u2(pool.classRef(t.substring(1)));
+                        break;
+                    default:
+                        b.u1(8);
+                        b.u2(Integer.parseInt(t.substring(1)));
+                }
+            }
+        }
+
+        private void push(String t)
+        {
+            stack.add(t);
+        }
+
+        private void pushType(String t)
+        {
+            stack.add(t);
+            if(isWide(t))
+                stack.add(TOP);
+        }
+
+        private String pop()
+        {
+            if(stack.isEmpty())
+                throw new RuntimeException(method.getSignature() + ": stack underflow at pc " + pc + " while computing stack map frames");
+            return stack.remove(stack.size() - 1);
+        }
+
+        private void pop(int slots)
+        {
+            for(int i = 0; i < slots; i++)
+                pop();
+        }
+
+        private void popType(String t)
+        {
+            pop(isWide(t) ? 2 : 1);
+        }
+
+        private int length(int pc)
+        {
+            int op = u1(pc);
+            if(op == TABLESWITCH) {
+                int p = (pc + 4) & ~3;
+                return p + 12 + 4 * (s4(p + 8) - s4(p + 4) + 1) - pc;
+            }
+            if(op == LOOKUPSWITCH) {
+                int p = (pc + 4) & ~3;
+                return p + 8 + 8 * s4(p + 4) - pc;
+            }
+            if(op == WIDE)
+                return u1(pc + 1) == IINC ? 6 : 4;
+            if(op == BIPUSH || op == LDC || op == NEWARRAY || (op >= ILOAD && op < ILOAD_0)
+               || (op >= ISTORE && op < ISTORE_0) || op == JSR + 1)
+                return 2;
+            if(op == MULTIANEWARRAY)
+                return 4;
+            if(op == INVOKEINTERFACE || op == INVOKEDYNAMIC || op == GOTO_W || op == JSR_W)
+                return 5;
+            if(op == SIPUSH || op == LDC_W || op == LDC2_W || op == IINC || (op >= IFEQ && op <= JSR)
+               || (op >= GETSTATIC && op <= INVOKESTATIC) || op == NEW || op == ANEWARRAY
+               || op == CHECKCAST || op == INSTANCEOF || op == IFNULL || op == IFNONNULL)
+                return 3;
+            return 1;
+        }
+
+        private int u1(int pc)
+        {
+            return code[pc] & 0xff;
+        }
+
+        private int u2(int pc)
+        {
+            return (u1(pc) << 8) | u1(pc + 1);
+        }
+
+        private int s2(int pc)
+        {
+            return (short) u2(pc);
+        }
+
+        private int s4(int pc)
+        {
+            return (u2(pc) << 16) | u2(pc + 2);
+        }
+    }
+
+    /** Verification types of the locals and the stack at the start of a basic block. */
+    private static class Frame
+    {
+        final String[] locals;
+        final List<String> stack;
+
+        Frame(String[] locals, List<String> stack)
+        {
+            this.locals = locals;
+            this.stack = stack;
+        }
+    }
+
+    /** Types the verifier tracks for int, long, float and double values, in opcode order. */
+    private static final String[] KINDS = { "I", "J", "F", "D" };
+    private static final String CAST_FROM = "IIIJJJFFFDDDIII", CAST_TO = "JFDIFDIJDIJFIII";
+
+    private static boolean isWide(String t)
+    {
+        return t.equals("J") || t.equals("D");
+    }
+
+    private static boolean isReference(String t)
+    {
+        return t.charAt(0) == 'L' || t.equals("N");
+    }
+
+    private static boolean isReferenceDescriptor(String d)
+    {
+        return d.charAt(0) == 'L' || d.charAt(0) == '[';
+    }
+
+    /** Verification type of a value with the given field descriptor. */
+    private static String fromDescriptor(String d)
+    {
+        switch(d.charAt(0)) {
+            case 'Z': case 'B': case 'C': case 'S': case 'I':
+                return "I";
+            case 'F':
+                return "F";
+            case 'J':
+                return "J";
+            case 'D':
+                return "D";
+            case 'L':
+                return "L" + d.substring(1, d.length() - 1);
+            default:
+                return "L" + d;
+        }
+    }
+
+    private static String internalNameOf(String d)
+    {
+        return d.charAt(0) == 'L' ? d.substring(1, d.length() - 1) : d;
+    }
+
+    private static String arrayOf(String internalName)
+    {
+        return internalName.charAt(0) == '[' ? "[" + internalName : "[L" + internalName + ";";
+    }
+
+    /** A branch offset to patch once the target's pc is known. */
+    private static class Fixup
+    {
+        final int position;
+        final int instPc;
+        final Unit target;
+        final boolean wide;
+
+        Fixup(int position, int instPc, Unit target, boolean wide)
+        {
+            this.position = position;
+            this.instPc = instPc;
+            this.target = target;
+            this.wide = wide;
+        }
+
+        void apply(byte[] code, int targetPc)
+        {
+            int offset = targetPc - instPc;
+            if(wide) {
+                code[position] = (byte) (offset >>> 24);
+                code[position + 1] = (byte) (offset >>> 16);
+                code[position + 2] = (byte) (offset >>> 8);
+                code[position + 3] = (byte) offset;
+            } else {
+                if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                    throw new RuntimeException("branch offset " + offset + " does not fit in 16 bits");
+                code[position] = (byte) (offset >>> 8);
+                code[position + 1] = (byte) offset;
+            }
+        }
+    }
+
+    /** Growable big-endian byte buffer; writes to memory cannot fail. */
+    private static class Buffer
+    {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        void u1(int v)
+        {
+            bytes.write(v);
+        }
+
+        void u2(int v)
+        {
+            bytes.write(v >>> 8);
+            bytes.write(v);
+        }
+
+        void u4(int v)
+        {
+            u2(v >>> 16);
+            u2(v);
+        }
+
+        void u8(long v)
+        {
+            u4((int) (v >>> 32));
+            u4((int) v);
+        }
+
+        void bytes(byte[] b)
+        {
+            bytes.write(b, 0, b.length);
+        }
+
+        /** Modified UTF-8, as used by CONSTANT_Utf8 entries. */
+        void utf(String s)
+        {
+            try {
+                out.writeUTF(s);
+                out.flush();
+            } catch(IOException e) {
+                throw new RuntimeException("cannot encode constant: " + e.getMessage(), e);
+            }
+        }
+
+        int size()
+        {
+            return bytes.size();
+        }
+
+        byte[] toByteArray()
+        {
+            return bytes.toByteArray();
+        }
+    }
+
+    /** Interns constant pool entries and records their encoding in order. */
+    private static class ConstantPool
+    {
+        private final Map<String, Integer> keyToIndex = new HashMap<String, Integer>();
+        private final List<String> indexToKey = new ArrayList<String>();
+        private final Buffer entries = new Buffer();
+        private int count = 1;
+
+        ConstantPool()
+        {
+            indexToKey.add(null);
+        }
+
+        private int lookup(String key)
+        {
+            Integer index = keyToIndex.get(key);
+            return index == null ? 0 : index.intValue();
+        }
+
+        private int add(String key, int slots)
+        {
+            int index = count;
+            count += slots;
+            if(count > 65535)
+                throw new RuntimeException("too many constants in constant pool");
+            keyToIndex.put(key, new Integer(index));
+            indexToKey.add(key);
+            if(slots == 2)
+                indexToKey.add(null);
+            return index;
+        }
+
+        /** The first character tells the kind of entry, as in the keys built below. */
+        String keyAt(int index)
+        {
+            return indexToKey.get(index);
+        }
+
+        /** Internal name of a class entry. */
+        String classNameAt(int index)
+        {
+            return keyAt(index).substring(1);
+        }
+
+        /** Name and descriptor of a field, method or invokedynamic entry. */
+        String[] nameAndTypeAt(int index)
+        {
+            String key = keyAt(index);
+            String nat = keyAt(Integer.parseInt(key.substring(key.lastIndexOf(' ') + 1)));
+            int space = nat.indexOf(' ');
+            return new String[] { keyAt(Integer.parseInt(nat.substring(1, space))).substring(1),
+                                  keyAt(Integer.parseInt(nat.substring(space + 1))).substring(1) };
+        }
+
+        int utf8(String s)
+        {
+            String key = "U" + s;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(1);
+            entries.utf(s);
+            return add(key, 1);
+        }
+
+        int integer(int v)
+        {
+            String key = "I" + v;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(3);
+            entries.u4(v);
+            return add(key, 1);
+        }
+
+        int floatConstant(float v)
+        {
+            int bits = Float.floatToRawIntBits(v);
+            String key = "F" + bits;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(4);
+            entries.u4(bits);
+            return add(key, 1);
+        }
+
+        int longConstant(long v)
+        {
+            String key = "J" + v;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(5);
+            entries.u8(v);
+            return add(key, 2);
+        }
+
+        int doubleConstant(double v)
+        {
+            long bits = Double.doubleToRawLongBits(v);
+            String key = "D" + bits;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(6);
+            entries.u8(bits);
+            return add(key, 2);
+        }
+
+        int classRef(String internalName)
+        {
+            String key = "C" + internalName;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            int name = utf8(internalName);
+            entries.u1(7);
+            entries.u2(name);
+            return add(key, 1);
+        }
+
+        int string(String s)
+        {
+            String key = "S" + s;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            int value = utf8(s);
+            entries.u1(8);
+            entries.u2(value);
+            return add(key, 1);
+        }
+
+        int nameAndType(String name, String descriptor)
+        {
+            int nameIndex = utf8(name);
+            int descIndex = utf8(descriptor);
+            String key = "N" + nameIndex + " " + descIndex;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(12);
+            entries.u2(nameIndex);
+            entries.u2(descIndex);
+            return add(key, 1);
+        }
+
+        /** <code>tag</code> is 9 for fields, 10 for methods and 11 for interface methods. */
+        int memberRef(int tag, String owner, String name, String descriptor)
+        {
+            int classIndex = classRef(owner);
+            int natIndex = nameAndType(name, descriptor);
+            String key = "M" + tag + " " + classIndex + " " + natIndex;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(tag);
+            entries.u2(classIndex);
+            entries.u2(natIndex);
+            return add(key, 1);
+        }
+
+        int methodHandle(int kind, int reference)
+        {
+            String key = "H" + kind + " " + reference;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(15);
+            entries.u1(kind);
+            entries.u2(reference);
+            return add(key, 1);
+        }
+
+        int invokeDynamic(int bootstrapIndex, String name, String descriptor)
+        {
+            int natIndex = nameAndType(name, descriptor);
+            String key = "Y" + bootstrapIndex + " " + natIndex;
+            int index = lookup(key);
+            if(index != 0)
+                return index;
+            entries.u1(18);
+            entries.u2(bootstrapIndex);
+            entries.u2(natIndex);
+            return add(key, 1);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException
+        {
+            out.writeShort(count);
+            out.write(entries.toByteArray());
+        }
+    }
+}
@@ -27,6 +27,7 @@
 package soot.baf.toolkits.base;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.*;
 
 import soot.*;
@@ -46,10 +47,9 @@ public class PeepholeOptimizer extends BodyTransformer
     public PeepholeOptimizer( Singletons.Global g ) {}
     public static PeepholeOptimizer v() { return G.v().soot_baf_toolkits_base_PeepholeOptimizer(); }
 
-    private InputStream peepholeListingStream = null;
     private final String packageName = "soot.baf.toolkits.base";
 
-    private final Map<String, Class> peepholeMap = new HashMap<String, Class>();
+    private final Map<String, Class> peepholeMap = new ConcurrentHashMap<String, Class>();
 
     /** The method that drives the optimizations. */
     /* This is the public interface to PeepholeOptimizer */
@@ -59,7 +59,7 @@ public class PeepholeOptimizer extends BodyTransformer
         boolean changed = true;
         BufferedReader reader = null;
         
-        peepholeListingStream = PeepholeOptimizer.class.getResourceAsStream("peephole.dat");
+        InputStream peepholeListingStream = PeepholeOptimizer.class.getResourceAsStream("peephole.dat");
 	if (peepholeListingStream == null)
 	    throw new RuntimeException("could not open file peephole.dat!");
         reader = new BufferedReader(new InputStreamReader(peepholeListingStream));        
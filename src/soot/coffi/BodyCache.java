@@ -0,0 +1,298 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.coffi;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import soot.G;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.Singletons;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Transform;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+
+/**
+ * An on-disk cache of what coffi and the jb pack build from class files.
+ * Entries are addressed by a digest of the class file contents and of the
+ * jb options. For each class, the cache keeps the members and tags coffi
+ * gave it, and the Jimple bodies of its methods once they have been
+ * through jb, all in the binary form of {@link BodyCacheWriter}. A class
+ * whose members are in the cache is resolved without parsing its class
+ * file; the class file is parsed only if one of its bodies is missing.
+ * The cache is off unless <code>-body-cache</code> names a directory.
+ */
+public class BodyCache
+{
+    public BodyCache( Singletons.Global g ) {}
+    public static BodyCache v() { return G.v().soot_coffi_BodyCache(); }
+
+    /** Bump when the stored form changes, to orphan older entries. */
+    private static final String FORMAT = "2";
+
+    private static final String CLASS_ENTRY = "class";
+
+    private String optionsDigest;
+    private boolean warned;
+
+    /** Returns true if bodies should be looked up in and added to the cache. */
+    public boolean isEnabled() {
+        String dir = Options.v().body_cache();
+        // entries do not carry the line number and offset tags
+        return dir != null && dir.length() > 0
+            && !Options.v().keep_line_number() && !Options.v().keep_offset();
+    }
+
+    /** Returns the cache key for a class file with the given contents. */
+    public String keyFor( byte[] classFile ) {
+        return hex( digest( classFile ) ) + "-" + optionsDigest();
+    }
+
+    /** Returns true if the members of the class with the given key are
+     * in the cache. */
+    public boolean hasClass( String classKey ) {
+        return classFile( classKey ).isFile();
+    }
+
+    /** Fills in c from the cache, adding what its class file references
+     * to references, and has its methods read their bodies from the cache.
+     * Returns false, leaving c untouched, if the entry cannot be read. */
+    public boolean loadClass( ClassFile coffiClass, SootClass c, List references ) {
+        File f = classFile( coffiClass.bodyCacheKey );
+        byte[] entry = read( f );
+        if( entry == null ) return false;
+        try {
+            new BodyCacheReader( entry ).readClass( c, references );
+        } catch( IOException e ) {
+            return corrupt( f, e );
+        } catch( RuntimeException e ) {
+            return corrupt( f, e );
+        }
+        for( Iterator mIt = c.getMethods().iterator(); mIt.hasNext(); ) {
+            final SootMethod m = (SootMethod) mIt.next();
+            m.setSource( new CachedMethodSource( coffiClass ) );
+        }
+        return true;
+    }
+
+    /** Stores the members of c, which coffi has just resolved, and what its
+     * class file references. */
+    public void storeClass( String classKey, SootClass c, Collection references ) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        try {
+            BodyCacheWriter w = new BodyCacheWriter( entry );
+            w.writeClass( c, new LinkedHashSet( references ) );
+            w.flush();
+        } catch( IOException e ) {
+            throw new RuntimeException( e );
+        } catch( IllegalArgumentException e ) {
+            // something coffi made that entries cannot hold; parse it every time
+            return;
+        }
+        write( classFile( classKey ), entry.toByteArray() );
+    }
+
+    /** Returns the cached body of m, or null if there is none. */
+    public JimpleBody load( String classKey, SootMethod m ) {
+        File f = bodyFile( classKey, m );
+        byte[] entry = read( f );
+        if( entry == null ) return null;
+        if( Options.v().verbose() )
+            G.v().out.println( "[" + m.getName() + "] Retrieving JimpleBody from body cache..." );
+        JimpleBody body = Jimple.v().newBody( m );
+        // the entry names classes and members, which are found through the
+        // scene as coffi finds them, making phantoms of missing ones
+        synchronized( Scene.v() ) {
+            boolean oldPhantomValue = Scene.v().getPhantomRefs();
+            Scene.v().setPhantomRefs( true );
+            try {
+                new BodyCacheReader( entry ).readBody( body );
+            } catch( IOException e ) {
+                corrupt( f, e );
+                return null;
+            } catch( RuntimeException e ) {
+                corrupt( f, e );
+                return null;
+            } finally {
+                Scene.v().setPhantomRefs( oldPhantomValue );
+            }
+        }
+        return body;
+    }
+
+    /** Stores the body of m, which must just have come out of the jb pack. */
+    public void store( String classKey, SootMethod m, JimpleBody body ) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        try {
+            BodyCacheWriter w = new BodyCacheWriter( entry );
+            w.writeBody( body );
+            w.flush();
+        } catch( IOException e ) {
+            throw new RuntimeException( e );
+        } catch( IllegalArgumentException e ) {
+            // something jb made that entries cannot hold; build it every time
+            return;
+        }
+        write( bodyFile( classKey, m ), entry.toByteArray() );
+    }
+
+    private byte[] read( File f ) {
+        if( !f.isFile() ) return null;
+        InputStream in = null;
+        try {
+            in = new FileInputStream( f );
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream( (int) f.length() );
+            byte[] buf = new byte[8192];
+            for( int n; ( n = in.read( buf ) ) > 0; ) bytes.write( buf, 0, n );
+            return bytes.toByteArray();
+        } catch( IOException e ) {
+            return null;
+        } finally {
+            close( in );
+        }
+    }
+
+    private void write( File f, byte[] entry ) {
+        File dir = f.getParentFile();
+        File tmp = null;
+        OutputStream out = null;
+        try {
+            dir.mkdirs();
+            tmp = File.createTempFile( "entry", ".tmp", dir );
+            out = new BufferedOutputStream( new FileOutputStream( tmp ) );
+            out.write( entry );
+            out.close();
+            out = null;
+            // concurrent runs may race to create the same entry; either copy is fine
+            if( !tmp.renameTo( f ) ) tmp.delete();
+        } catch( IOException e ) {
+            warn( "could not write body cache entry " + f + ": " + e.getMessage() );
+            if( tmp != null ) tmp.delete();
+        } finally {
+            if( out != null ) {
+                try {
+                    out.close();
+                } catch( IOException e ) {
+                }
+            }
+        }
+    }
+
+    private boolean corrupt( File f, Exception e ) {
+        warn( "could not read body cache entry " + f + ": " + e );
+        f.delete();
+        return false;
+    }
+
+    private File classDir( String classKey ) {
+        return new File( new File( Options.v().body_cache(), classKey.substring( 0, 2 ) ), classKey );
+    }
+
+    private File classFile( String classKey ) {
+        return new File( classDir( classKey ), CLASS_ENTRY );
+    }
+
+    private File bodyFile( String classKey, SootMethod m ) {
+        return new File( classDir( classKey ), hex( digest( utf8( m.getSubSignature() ) ) ) );
+    }
+
+    /** Digest of everything besides the class file that decides what jb produces. */
+    private synchronized String optionsDigest() {
+        if( optionsDigest == null ) {
+            StringBuffer b = new StringBuffer();
+            b.append( FORMAT ).append( '\n' );
+            b.append( "j2me=" ).append( Options.v().j2me() ).append( '\n' );
+            // jb.tt and the local splitter build exceptional unit graphs
+            b.append( "throw-analysis=" ).append( Options.v().throw_analysis() ).append( '\n' );
+            b.append( "omit-excepting-unit-edges=" ).append( Options.v().omit_excepting_unit_edges() ).append( '\n' );
+            appendOptions( b, "jb" );
+            for( Iterator tIt = PackManager.v().getPack( "jb" ).iterator(); tIt.hasNext(); ) {
+                final Transform t = (Transform) tIt.next();
+                appendOptions( b, t.getPhaseName() );
+            }
+            optionsDigest = hex( digest( utf8( b.toString() ) ) ).substring( 0, 16 );
+        }
+        return optionsDigest;
+    }
+
+    private static void appendOptions( StringBuffer b, String phaseName ) {
+        Map sorted = new TreeMap( PhaseOptions.v().getPhaseOptions( phaseName ) );
+        b.append( phaseName ).append( sorted ).append( '\n' );
+    }
+
+    private synchronized void warn( String msg ) {
+        if( warned ) return;
+        warned = true;
+        G.v().out.println( "Warning: " + msg );
+    }
+
+    private static byte[] digest( byte[] data ) {
+        try {
+            return MessageDigest.getInstance( "SHA-1" ).digest( data );
+        } catch( NoSuchAlgorithmException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static byte[] utf8( String s ) {
+        try {
+            return s.getBytes( "UTF-8" );
+        } catch( UnsupportedEncodingException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static String hex( byte[] bytes ) {
+        StringBuffer b = new StringBuffer( bytes.length * 2 );
+        for( int i = 0; i < bytes.length; i++ ) {
+            b.append( Character.forDigit( ( bytes[i] >> 4 ) & 0xf, 16 ) );
+            b.append( Character.forDigit( bytes[i] & 0xf, 16 ) );
+        }
+        return b.toString();
+    }
+
+    private static void close( InputStream in ) {
+        if( in == null ) return;
+        try {
+            in.close();
+        } catch( IOException e ) {
+        }
+    }
+}
@@ -0,0 +1,539 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.coffi;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import soot.*;
+import soot.jimple.*;
+import soot.tagkit.*;
+
+/**
+ * Reads the entries written by {@link BodyCacheWriter}. Classes and
+ * members that entries refer to are looked up in the {@link Scene}, which
+ * the caller must hold the lock of.
+ */
+class BodyCacheReader
+{
+    // tags
+    static final int SYNTHETIC = 1, DEPRECATED = 2, SIGNATURE = 3,
+        SOURCE_FILE = 4, INNER_CLASS = 5, ENCLOSING_METHOD = 6,
+        INT_CONSTANT = 7, LONG_CONSTANT = 8, FLOAT_CONSTANT = 9,
+        DOUBLE_CONSTANT = 10, STRING_CONSTANT = 11, GENERIC_ATTRIBUTE = 12,
+        ANNOTATIONS = 13, PARAMETER_ANNOTATIONS = 14, ANNOTATION_DEFAULT = 15;
+
+    // annotation elements
+    static final int INT_ELEM = 1, BOOLEAN_ELEM = 2, LONG_ELEM = 3,
+        FLOAT_ELEM = 4, DOUBLE_ELEM = 5, STRING_ELEM = 6, ENUM_ELEM = 7,
+        CLASS_ELEM = 8, ARRAY_ELEM = 9, ANNOTATION_ELEM = 10;
+
+    // statements
+    static final int BREAKPOINT = 1, INVOKE = 2, ASSIGN = 3, IDENTITY = 4,
+        ENTER_MONITOR = 5, EXIT_MONITOR = 6, GOTO = 7, IF = 8,
+        LOOKUP_SWITCH = 9, NOP = 10, RET = 11, RETURN = 12,
+        RETURN_VOID = 13, TABLE_SWITCH = 14, THROW = 15;
+
+    // values
+    static final int LOCAL = 1, DOUBLE = 2, FLOAT = 3, INT = 4, LONG = 5,
+        NULL = 6, STRING = 7, CLASS = 8,
+        ADD = 9, AND = 10, CMP = 11, CMPG = 12, CMPL = 13, DIV = 14, EQ = 15,
+        NE = 16, GE = 17, GT = 18, LE = 19, LT = 20, MUL = 21, OR = 22,
+        REM = 23, SHL = 24, SHR = 25, USHR = 26, SUB = 27, XOR = 28,
+        INTERFACE_INVOKE = 29, SPECIAL_INVOKE = 30, VIRTUAL_INVOKE = 31,
+        STATIC_INVOKE = 32, DYNAMIC_INVOKE = 33, CAST = 34, INSTANCE_OF = 35,
+        NEW_ARRAY = 36, NEW_MULTI_ARRAY = 37, NEW = 38, LENGTH = 39, NEG = 40,
+        ARRAY_REF = 41, STATIC_FIELD_REF = 42, INSTANCE_FIELD_REF = 43,
+        PARAMETER_REF = 44, CAUGHT_EXCEPTION_REF = 45, THIS_REF = 46;
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<String>();
+    private Local[] locals;
+    private Unit[] units;
+    /** Boxes of branch targets, and the indices of the units they hold
+     * once all units have been read. */
+    private final List<UnitBox> targetBoxes = new ArrayList<UnitBox>();
+    private final List<Integer> targetIndices = new ArrayList<Integer>();
+
+    BodyCacheReader( byte[] entry ) {
+        in = new DataInputStream( new ByteArrayInputStream( entry ) );
+    }
+
+    /** Fills in c, which has nothing but its name yet, and adds the
+     * classes and types its class file references to references. The
+     * whole entry is read before c is changed. */
+    void readClass( SootClass c, List references ) throws IOException {
+        int modifiers = readInt();
+        String superName = readString();
+        List<String> interfaceNames = new ArrayList<String>();
+        for( int i = readInt(); i > 0; i-- ) interfaceNames.add( readString() );
+        List<SootField> fields = new ArrayList<SootField>();
+        for( int i = readInt(); i > 0; i-- ) {
+            String name = readString();
+            Type type = readType();
+            SootField f = new SootField( name, type, readInt() );
+            readTags( f );
+            fields.add( f );
+        }
+        List<SootMethod> methods = new ArrayList<SootMethod>();
+        List<List<String>> exceptionNames = new ArrayList<List<String>>();
+        for( int i = readInt(); i > 0; i-- ) {
+            String name = readString();
+            List parameterTypes = readTypes();
+            Type returnType = readType();
+            SootMethod m = new SootMethod( name, parameterTypes, returnType, readInt() );
+            List<String> exceptions = new ArrayList<String>();
+            for( int j = readInt(); j > 0; j-- ) exceptions.add( readString() );
+            readTags( m );
+            methods.add( m );
+            exceptionNames.add( exceptions );
+        }
+        List<Tag> tags = new ArrayList<Tag>();
+        for( int i = readInt(); i > 0; i-- ) tags.add( readTag() );
+        List<Object> classReferences = new ArrayList<Object>();
+        for( int i = readInt(); i > 0; i-- ) {
+            classReferences.add( in.readByte() == 0 ? (Object) readString() : readType() );
+        }
+
+        c.setModifiers( modifiers );
+        if( superName != null ) {
+            c.setSuperclass( SootResolver.v().makeClassRef( superName ) );
+        }
+        for( String name : interfaceNames ) {
+            c.addInterface( SootResolver.v().makeClassRef( name ) );
+        }
+        for( SootField f : fields ) c.addField( f );
+        for( int i = 0; i < methods.size(); i++ ) {
+            SootMethod m = methods.get( i );
+            c.addMethod( m );
+            for( String name : exceptionNames.get( i ) ) {
+                m.addExceptionIfAbsent( SootResolver.v().makeClassRef( name ) );
+            }
+        }
+        for( Tag t : tags ) c.addTag( t );
+        references.addAll( classReferences );
+    }
+
+    /** Fills in the locals, units and traps of the empty body b. */
+    void readBody( Body b ) throws IOException {
+        locals = new Local[readInt()];
+        for( int i = 0; i < locals.length; i++ ) {
+            String name = readString();
+            locals[i] = Jimple.v().newLocal( name, readType() );
+            b.getLocals().add( locals[i] );
+        }
+        units = new Unit[readInt()];
+        for( int i = 0; i < units.length; i++ ) {
+            units[i] = readStmt();
+            b.getUnits().add( units[i] );
+        }
+        for( int i = 0; i < targetBoxes.size(); i++ ) {
+            targetBoxes.get( i ).setUnit( units[targetIndices.get( i ).intValue()] );
+        }
+        for( int i = readInt(); i > 0; i-- ) {
+            SootClass exception = Scene.v().getSootClass( readString() );
+            Unit begin = readUnit();
+            Unit end = readUnit();
+            b.getTraps().add( Jimple.v().newTrap( exception, begin, end, readUnit() ) );
+        }
+    }
+
+    /* Tags */
+
+    private void readTags( Host h ) throws IOException {
+        for( int i = readInt(); i > 0; i-- ) h.addTag( readTag() );
+    }
+
+    private Tag readTag() throws IOException {
+        int kind = in.readByte();
+        switch( kind ) {
+        case SYNTHETIC:
+            return new SyntheticTag();
+        case DEPRECATED:
+            return new DeprecatedTag();
+        case SIGNATURE:
+            return new SignatureTag( readString() );
+        case SOURCE_FILE:
+            return new SourceFileTag( readString() );
+        case INNER_CLASS: {
+            String inner = readString();
+            String outer = readString();
+            String name = readString();
+            return new InnerClassTag( inner, outer, name, readInt() );
+        }
+        case ENCLOSING_METHOD: {
+            String c = readString();
+            String m = readString();
+            return new EnclosingMethodTag( c, m, readString() );
+        }
+        case INT_CONSTANT:
+            return new IntegerConstantValueTag( in.readInt() );
+        case LONG_CONSTANT:
+            return new LongConstantValueTag( in.readLong() );
+        case FLOAT_CONSTANT:
+            return new FloatConstantValueTag( Float.intBitsToFloat( in.readInt() ) );
+        case DOUBLE_CONSTANT:
+            return new DoubleConstantValueTag( Double.longBitsToDouble( in.readLong() ) );
+        case STRING_CONSTANT:
+            return new StringConstantValueTag( readString() );
+        case GENERIC_ATTRIBUTE: {
+            String name = readString();
+            return new GenericAttribute( name, readBytes() );
+        }
+        case ANNOTATIONS:
+            return readAnnotations();
+        case PARAMETER_ANNOTATIONS: {
+            int visibility = readInt();
+            int count = readInt();
+            VisibilityParameterAnnotationTag t = new VisibilityParameterAnnotationTag( count, visibility );
+            for( int i = 0; i < count; i++ ) t.addVisibilityAnnotation( readAnnotations() );
+            return t;
+        }
+        case ANNOTATION_DEFAULT:
+            return new AnnotationDefaultTag( readElem() );
+        default:
+            throw new IOException( "unknown tag " + kind );
+        }
+    }
+
+    private VisibilityAnnotationTag readAnnotations() throws IOException {
+        VisibilityAnnotationTag t = new VisibilityAnnotationTag( readInt() );
+        for( int i = readInt(); i > 0; i-- ) t.addAnnotation( readAnnotation() );
+        return t;
+    }
+
+    private AnnotationTag readAnnotation() throws IOException {
+        String type = readString();
+        int count = readInt();
+        AnnotationTag a = new AnnotationTag( type, count );
+        a.setElems( readElems( count ) );
+        return a;
+    }
+
+    private ArrayList<AnnotationElem> readElems( int count ) throws IOException {
+        ArrayList<AnnotationElem> elems = new ArrayList<AnnotationElem>( count );
+        for( int i = 0; i < count; i++ ) elems.add( readElem() );
+        return elems;
+    }
+
+    private AnnotationElem readElem() throws IOException {
+        char kind = in.readChar();
+        String name = readString();
+        int elem = in.readByte();
+        switch( elem ) {
+        case INT_ELEM:
+            return new AnnotationIntElem( in.readInt(), kind, name );
+        case BOOLEAN_ELEM:
+            return new AnnotationBooleanElem( in.readBoolean(), kind, name );
+        case LONG_ELEM:
+            return new AnnotationLongElem( in.readLong(), kind, name );
+        case FLOAT_ELEM:
+            return new AnnotationFloatElem( Float.intBitsToFloat( in.readInt() ), kind, name );
+        case DOUBLE_ELEM:
+            return new AnnotationDoubleElem( Double.longBitsToDouble( in.readLong() ), kind, name );
+        case STRING_ELEM:
+            return new AnnotationStringElem( readString(), kind, name );
+        case ENUM_ELEM: {
+            String typeName = readString();
+            return new AnnotationEnumElem( typeName, readString(), kind, name );
+        }
+        case CLASS_ELEM:
+            return new AnnotationClassElem( readString(), kind, name );
+        case ARRAY_ELEM:
+            return new AnnotationArrayElem( readElems( readInt() ), kind, name );
+        case ANNOTATION_ELEM:
+            return new AnnotationAnnotationElem( readAnnotation(), kind, name );
+        default:
+            throw new IOException( "unknown annotation element " + elem );
+        }
+    }
+
+    /* Statements */
+
+    private Stmt readStmt() throws IOException {
+        int op = in.readByte();
+        switch( op ) {
+        case BREAKPOINT:
+            return Jimple.v().newBreakpointStmt();
+        case INVOKE:
+            return Jimple.v().newInvokeStmt( readValue() );
+        case ASSIGN: {
+            Value left = readValue();
+            return Jimple.v().newAssignStmt( left, readValue() );
+        }
+        case IDENTITY: {
+            Value left = readValue();
+            return Jimple.v().newIdentityStmt( left, readValue() );
+        }
+        case ENTER_MONITOR:
+            return Jimple.v().newEnterMonitorStmt( readValue() );
+        case EXIT_MONITOR:
+            return Jimple.v().newExitMonitorStmt( readValue() );
+        case GOTO:
+            return Jimple.v().newGotoStmt( readTargetBox() );
+        case IF: {
+            Value condition = readValue();
+            return Jimple.v().newIfStmt( condition, readTargetBox() );
+        }
+        case LOOKUP_SWITCH: {
+            Value key = readValue();
+            int count = readInt();
+            List<Object> values = new ArrayList<Object>( count );
+            List<Object> targets = new ArrayList<Object>( count );
+            for( int i = 0; i < count; i++ ) {
+                values.add( IntConstant.v( readInt() ) );
+                targets.add( readTargetBox() );
+            }
+            return Jimple.v().newLookupSwitchStmt( key, values, targets, readTargetBox() );
+        }
+        case NOP:
+            return Jimple.v().newNopStmt();
+        case RET:
+            return Jimple.v().newRetStmt( readValue() );
+        case RETURN:
+            return Jimple.v().newReturnStmt( readValue() );
+        case RETURN_VOID:
+            return Jimple.v().newReturnVoidStmt();
+        case TABLE_SWITCH: {
+            Value key = readValue();
+            int low = readInt();
+            int high = readInt();
+            List<Object> targets = new ArrayList<Object>();
+            for( int i = low; i <= high; i++ ) targets.add( readTargetBox() );
+            return Jimple.v().newTableSwitchStmt( key, low, high, targets, readTargetBox() );
+        }
+        case THROW:
+            return Jimple.v().newThrowStmt( readValue() );
+        default:
+            throw new IOException( "unknown statement " + op );
+        }
+    }
+
+    /* Values */
+
+    private Value readValue() throws IOException {
+        int op = in.readByte();
+        switch( op ) {
+        case LOCAL:
+            return locals[readInt()];
+        case DOUBLE:
+            return DoubleConstant.v( Double.longBitsToDouble( in.readLong() ) );
+        case FLOAT:
+            return FloatConstant.v( Float.intBitsToFloat( in.readInt() ) );
+        case INT:
+            return IntConstant.v( readInt() );
+        case LONG:
+            return LongConstant.v( in.readLong() );
+        case NULL:
+            return NullConstant.v();
+        case STRING:
+            return StringConstant.v( readString() );
+        case CLASS:
+            return ClassConstant.v( readString() );
+        case INTERFACE_INVOKE: {
+            Local base = (Local) readValue();
+            SootMethodRef ref = readMethodRef();
+            return Jimple.v().newInterfaceInvokeExpr( base, ref, readValues() );
+        }
+        case SPECIAL_INVOKE: {
+            Local base = (Local) readValue();
+            SootMethodRef ref = readMethodRef();
+            return Jimple.v().newSpecialInvokeExpr( base, ref, readValues() );
+        }
+        case VIRTUAL_INVOKE: {
+            Local base = (Local) readValue();
+            SootMethodRef ref = readMethodRef();
+            return Jimple.v().newVirtualInvokeExpr( base, ref, readValues() );
+        }
+        case STATIC_INVOKE: {
+            SootMethodRef ref = readMethodRef();
+            return Jimple.v().newStaticInvokeExpr( ref, readValues() );
+        }
+        case DYNAMIC_INVOKE: {
+            SootMethodRef bootstrap = readMethodRef();
+            List bootstrapArgs = readValues();
+            SootMethodRef ref = readMethodRef();
+            return Jimple.v().newDynamicInvokeExpr( bootstrap, bootstrapArgs, ref, readValues() );
+        }
+        case CAST: {
+            Value op1 = readValue();
+            return Jimple.v().newCastExpr( op1, readType() );
+        }
+        case INSTANCE_OF: {
+            Value op1 = readValue();
+            return Jimple.v().newInstanceOfExpr( op1, readType() );
+        }
+        case NEW_ARRAY: {
+            Type type = readType();
+            return Jimple.v().newNewArrayExpr( type, readValue() );
+        }
+        case NEW_MULTI_ARRAY: {
+            ArrayType type = (ArrayType) readType();
+            return Jimple.v().newNewMultiArrayExpr( type, readValues() );
+        }
+        case NEW:
+            return Jimple.v().newNewExpr( (RefType) readType() );
+        case LENGTH:
+            return Jimple.v().newLengthExpr( readValue() );
+        case NEG:
+            return Jimple.v().newNegExpr( readValue() );
+        case ARRAY_REF: {
+            Value base = readValue();
+            return Jimple.v().newArrayRef( base, readValue() );
+        }
+        case STATIC_FIELD_REF:
+            return Jimple.v().newStaticFieldRef( readFieldRef( true ) );
+        case INSTANCE_FIELD_REF: {
+            Value base = readValue();
+            return Jimple.v().newInstanceFieldRef( base, readFieldRef( false ) );
+        }
+        case PARAMETER_REF: {
+            Type type = readType();
+            return Jimple.v().newParameterRef( type, readInt() );
+        }
+        case CAUGHT_EXCEPTION_REF:
+            return Jimple.v().newCaughtExceptionRef();
+        case THIS_REF:
+            return Jimple.v().newThisRef( (RefType) readType() );
+        default:
+            return readBinop( op );
+        }
+    }
+
+    private Value readBinop( int op ) throws IOException {
+        Value op1 = readValue();
+        Value op2 = readValue();
+        switch( op ) {
+        case ADD: return Jimple.v().newAddExpr( op1, op2 );
+        case AND: return Jimple.v().newAndExpr( op1, op2 );
+        case CMP: return Jimple.v().newCmpExpr( op1, op2 );
+        case CMPG: return Jimple.v().newCmpgExpr( op1, op2 );
+        case CMPL: return Jimple.v().newCmplExpr( op1, op2 );
+        case DIV: return Jimple.v().newDivExpr( op1, op2 );
+        case EQ: return Jimple.v().newEqExpr( op1, op2 );
+        case NE: return Jimple.v().newNeExpr( op1, op2 );
+        case GE: return Jimple.v().newGeExpr( op1, op2 );
+        case GT: return Jimple.v().newGtExpr( op1, op2 );
+        case LE: return Jimple.v().newLeExpr( op1, op2 );
+        case LT: return Jimple.v().newLtExpr( op1, op2 );
+        case MUL: return Jimple.v().newMulExpr( op1, op2 );
+        case OR: return Jimple.v().newOrExpr( op1, op2 );
+        case REM: return Jimple.v().newRemExpr( op1, op2 );
+        case SHL: return Jimple.v().newShlExpr( op1, op2 );
+        case SHR: return Jimple.v().newShrExpr( op1, op2 );
+        case USHR: return Jimple.v().newUshrExpr( op1, op2 );
+        case SUB: return Jimple.v().newSubExpr( op1, op2 );
+        case XOR: return Jimple.v().newXorExpr( op1, op2 );
+        default:
+            throw new IOException( "unknown value " + op );
+        }
+    }
+
+    private List readValues() throws IOException {
+        int count = readInt();
+        List<Value> values = new ArrayList<Value>( count );
+        for( int i = 0; i < count; i++ ) values.add( readValue() );
+        return values;
+    }
+
+    private SootMethodRef readMethodRef() throws IOException {
+        SootClass c = Scene.v().getSootClass( readString() );
+        String name = readString();
+        List parameterTypes = readTypes();
+        Type returnType = readType();
+        return Scene.v().makeMethodRef( c, name, parameterTypes, returnType, in.readBoolean() );
+    }
+
+    private SootFieldRef readFieldRef( boolean isStatic ) throws IOException {
+        SootClass c = Scene.v().getSootClass( readString() );
+        String name = readString();
+        return Scene.v().makeFieldRef( c, name, readType(), isStatic );
+    }
+
+    /* Primitives */
+
+    private UnitBox readTargetBox() throws IOException {
+        UnitBox box = Jimple.v().newStmtBox( null );
+        targetBoxes.add( box );
+        targetIndices.add( new Integer( readInt() ) );
+        return box;
+    }
+
+    private Unit readUnit() throws IOException {
+        return units[readInt()];
+    }
+
+    private List readTypes() throws IOException {
+        int count = readInt();
+        List<Type> types = new ArrayList<Type>( count );
+        for( int i = 0; i < count; i++ ) types.add( readType() );
+        return types;
+    }
+
+    private Type readType() throws IOException {
+        int kind = in.readByte();
+        switch( kind ) {
+        case 'L': return RefType.v( readString() );
+        case '[': {
+            int dimensions = readInt();
+            return ArrayType.v( readType(), dimensions );
+        }
+        case 'I': return IntType.v();
+        case 'Z': return BooleanType.v();
+        case 'B': return ByteType.v();
+        case 'C': return CharType.v();
+        case 'S': return ShortType.v();
+        case 'J': return LongType.v();
+        case 'F': return FloatType.v();
+        case 'D': return DoubleType.v();
+        case 'V': return VoidType.v();
+        case 'N': return NullType.v();
+        default:
+            throw new IOException( "unknown type " + kind );
+        }
+    }
+
+    private String readString() throws IOException {
+        int index = readInt();
+        if( index == 1 ) return null;
+        if( index > 1 ) return strings.get( index - 2 );
+        String s = new String( readBytes(), "UTF-8" );
+        strings.add( s );
+        return s;
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[readInt()];
+        in.readFully( bytes );
+        return bytes;
+    }
+
+    private int readInt() throws IOException {
+        int i = 0;
+        for( int shift = 0; ; shift += 7 ) {
+            int b = in.readByte();
+            i |= ( b & 0x7f ) << shift;
+            if( ( b & 0x80 ) == 0 ) return i;
+        }
+    }
+}
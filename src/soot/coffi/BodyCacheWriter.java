@@ -0,0 +1,674 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.coffi;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import soot.*;
+import soot.jimple.*;
+import soot.tagkit.*;
+
+/**
+ * Writes the entries of the {@link BodyCache}: the members and tags of a
+ * class as coffi resolved it, and Jimple bodies as jb left them. Strings
+ * are written once per entry and then referred to by their index, and
+ * numbers are written in as few bytes as they need.
+ * {@link BodyCacheReader} reads them back.
+ *
+ * <p>Anything this cannot represent throws an
+ * {@link IllegalArgumentException}, and the entry is then not stored.
+ */
+class BodyCacheWriter implements StmtSwitch, JimpleValueSwitch
+{
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private final Map<Object, Integer> indices = new HashMap<Object, Integer>();
+    private IOException error;
+
+    BodyCacheWriter( OutputStream out ) {
+        this.out = new DataOutputStream( out );
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    /** Writes what coffi.Util filled in from the class file, and the
+     * classes and types the class file references. */
+    void writeClass( SootClass c, Collection references ) throws IOException {
+        writeInt( c.getModifiers() );
+        writeString( c.hasSuperclass() ? c.getSuperclass().getName() : null );
+        writeInt( c.getInterfaceCount() );
+        for( Iterator iIt = c.getInterfaces().iterator(); iIt.hasNext(); ) {
+            writeString( ((SootClass) iIt.next()).getName() );
+        }
+        writeInt( c.getFieldCount() );
+        for( Iterator fIt = c.getFields().iterator(); fIt.hasNext(); ) {
+            final SootField f = (SootField) fIt.next();
+            writeString( f.getName() );
+            writeType( f.getType() );
+            writeInt( f.getModifiers() );
+            writeTags( f );
+        }
+        writeInt( c.getMethodCount() );
+        for( Iterator mIt = c.getMethods().iterator(); mIt.hasNext(); ) {
+            final SootMethod m = (SootMethod) mIt.next();
+            writeString( m.getName() );
+            writeTypes( m.getParameterTypes() );
+            writeType( m.getReturnType() );
+            writeInt( m.getModifiers() );
+            List exceptions = m.getExceptions();
+            writeInt( exceptions.size() );
+            for( Iterator eIt = exceptions.iterator(); eIt.hasNext(); ) {
+                writeString( ((SootClass) eIt.next()).getName() );
+            }
+            writeTags( m );
+        }
+        writeTags( c );
+        writeInt( references.size() );
+        for( Iterator rIt = references.iterator(); rIt.hasNext(); ) {
+            final Object ref = rIt.next();
+            if( ref instanceof String ) {
+                out.writeByte( 0 );
+                writeString( (String) ref );
+            } else {
+                out.writeByte( 1 );
+                writeType( (Type) ref );
+            }
+        }
+    }
+
+    /** Writes the locals, units and traps of a body. */
+    void writeBody( Body b ) throws IOException {
+        writeInt( b.getLocalCount() );
+        for( Iterator lIt = b.getLocals().iterator(); lIt.hasNext(); ) {
+            final Local l = (Local) lIt.next();
+            indices.put( l, new Integer( indices.size() ) );
+            writeString( l.getName() );
+            writeType( l.getType() );
+        }
+        // units are numbered first, since branches may jump forward
+        int unitIndex = 0;
+        for( Iterator uIt = b.getUnits().iterator(); uIt.hasNext(); ) {
+            indices.put( uIt.next(), new Integer( unitIndex++ ) );
+        }
+        writeInt( unitIndex );
+        for( Iterator uIt = b.getUnits().iterator(); uIt.hasNext(); ) {
+            final Unit u = (Unit) uIt.next();
+            if( !u.getTags().isEmpty() ) {
+                throw new IllegalArgumentException( "unit tags" );
+            }
+            u.apply( this );
+            checkError();
+        }
+        writeInt( b.getTraps().size() );
+        for( Iterator tIt = b.getTraps().iterator(); tIt.hasNext(); ) {
+            final Trap t = (Trap) tIt.next();
+            writeString( t.getException().getName() );
+            writeUnit( t.getBeginUnit() );
+            writeUnit( t.getEndUnit() );
+            writeUnit( t.getHandlerUnit() );
+        }
+    }
+
+    /* Tags */
+
+    private void writeTags( Host h ) throws IOException {
+        List tags = h.getTags();
+        writeInt( tags.size() );
+        for( Iterator tIt = tags.iterator(); tIt.hasNext(); ) {
+            writeTag( (Tag) tIt.next() );
+        }
+    }
+
+    private void writeTag( Tag t ) throws IOException {
+        if( t instanceof SyntheticTag ) {
+            out.writeByte( BodyCacheReader.SYNTHETIC );
+        } else if( t instanceof DeprecatedTag ) {
+            out.writeByte( BodyCacheReader.DEPRECATED );
+        } else if( t instanceof SignatureTag ) {
+            out.writeByte( BodyCacheReader.SIGNATURE );
+            writeString( ((SignatureTag) t).getSignature() );
+        } else if( t instanceof SourceFileTag ) {
+            SourceFileTag sf = (SourceFileTag) t;
+            if( sf.getAbsolutePath() != null ) {
+                throw new IllegalArgumentException( "source file path" );
+            }
+            out.writeByte( BodyCacheReader.SOURCE_FILE );
+            writeString( sf.getSourceFile() );
+        } else if( t instanceof InnerClassTag ) {
+            InnerClassTag ic = (InnerClassTag) t;
+            out.writeByte( BodyCacheReader.INNER_CLASS );
+            writeString( ic.getInnerClass() );
+            writeString( ic.getOuterClass() );
+            writeString( ic.getShortName() );
+            writeInt( ic.getAccessFlags() );
+        } else if( t instanceof EnclosingMethodTag ) {
+            EnclosingMethodTag em = (EnclosingMethodTag) t;
+            out.writeByte( BodyCacheReader.ENCLOSING_METHOD );
+            writeString( em.getEnclosingClass() );
+            writeString( em.getEnclosingMethod() );
+            writeString( em.getEnclosingMethodSig() );
+        } else if( t instanceof IntegerConstantValueTag ) {
+            out.writeByte( BodyCacheReader.INT_CONSTANT );
+            out.writeInt( ((IntegerConstantValueTag) t).getIntValue() );
+        } else if( t instanceof LongConstantValueTag ) {
+            out.writeByte( BodyCacheReader.LONG_CONSTANT );
+            out.writeLong( ((LongConstantValueTag) t).getLongValue() );
+        } else if( t instanceof FloatConstantValueTag ) {
+            out.writeByte( BodyCacheReader.FLOAT_CONSTANT );
+            out.writeInt( Float.floatToRawIntBits( ((FloatConstantValueTag) t).getFloatValue() ) );
+        } else if( t instanceof DoubleConstantValueTag ) {
+            out.writeByte( BodyCacheReader.DOUBLE_CONSTANT );
+            out.writeLong( Double.doubleToRawLongBits( ((DoubleConstantValueTag) t).getDoubleValue() ) );
+        } else if( t instanceof StringConstantValueTag ) {
+            out.writeByte( BodyCacheReader.STRING_CONSTANT );
+            writeString( ((StringConstantValueTag) t).getStringValue() );
+        } else if( t instanceof GenericAttribute ) {
+            GenericAttribute ga = (GenericAttribute) t;
+            out.writeByte( BodyCacheReader.GENERIC_ATTRIBUTE );
+            writeString( ga.getName() );
+            writeBytes( ga.getValue() );
+        } else if( t instanceof VisibilityAnnotationTag ) {
+            out.writeByte( BodyCacheReader.ANNOTATIONS );
+            writeAnnotations( (VisibilityAnnotationTag) t );
+        } else if( t instanceof VisibilityParameterAnnotationTag ) {
+            VisibilityParameterAnnotationTag vpa = (VisibilityParameterAnnotationTag) t;
+            out.writeByte( BodyCacheReader.PARAMETER_ANNOTATIONS );
+            List<VisibilityAnnotationTag> params = vpa.getVisibilityAnnotations();
+            writeInt( vpa.getKind() );
+            writeInt( params == null ? 0 : params.size() );
+            if( params != null ) {
+                for( VisibilityAnnotationTag va : params ) writeAnnotations( va );
+            }
+        } else if( t instanceof AnnotationDefaultTag ) {
+            out.writeByte( BodyCacheReader.ANNOTATION_DEFAULT );
+            writeElem( ((AnnotationDefaultTag) t).getDefaultVal() );
+        } else {
+            throw new IllegalArgumentException( t.getClass().getName() );
+        }
+    }
+
+    private void writeAnnotations( VisibilityAnnotationTag va ) throws IOException {
+        List<AnnotationTag> annotations = va.getAnnotations();
+        writeInt( va.getVisibility() );
+        writeInt( annotations == null ? 0 : annotations.size() );
+        if( annotations != null ) {
+            for( AnnotationTag a : annotations ) writeAnnotation( a );
+        }
+    }
+
+    private void writeAnnotation( AnnotationTag a ) throws IOException {
+        writeString( a.getType() );
+        writeInt( a.getNumElems() );
+        for( int i = 0; i < a.getNumElems(); i++ ) writeElem( a.getElemAt( i ) );
+    }
+
+    private void writeElem( AnnotationElem e ) throws IOException {
+        out.writeChar( e.getKind() );
+        writeString( e.getName() );
+        if( e instanceof AnnotationIntElem ) {
+            out.writeByte( BodyCacheReader.INT_ELEM );
+            out.writeInt( ((AnnotationIntElem) e).getValue() );
+        } else if( e instanceof AnnotationBooleanElem ) {
+            out.writeByte( BodyCacheReader.BOOLEAN_ELEM );
+            out.writeBoolean( ((AnnotationBooleanElem) e).getValue() );
+        } else if( e instanceof AnnotationLongElem ) {
+            out.writeByte( BodyCacheReader.LONG_ELEM );
+            out.writeLong( ((AnnotationLongElem) e).getValue() );
+        } else if( e instanceof AnnotationFloatElem ) {
+            out.writeByte( BodyCacheReader.FLOAT_ELEM );
+            out.writeInt( Float.floatToRawIntBits( ((AnnotationFloatElem) e).getValue() ) );
+        } else if( e instanceof AnnotationDoubleElem ) {
+            out.writeByte( BodyCacheReader.DOUBLE_ELEM );
+            out.writeLong( Double.doubleToRawLongBits( ((AnnotationDoubleElem) e).getValue() ) );
+        } else if( e instanceof AnnotationStringElem ) {
+            out.writeByte( BodyCacheReader.STRING_ELEM );
+            writeString( ((AnnotationStringElem) e).getValue() );
+        } else if( e instanceof AnnotationEnumElem ) {
+            AnnotationEnumElem ee = (AnnotationEnumElem) e;
+            out.writeByte( BodyCacheReader.ENUM_ELEM );
+            writeString( ee.getTypeName() );
+            writeString( ee.getConstantName() );
+        } else if( e instanceof AnnotationClassElem ) {
+            out.writeByte( BodyCacheReader.CLASS_ELEM );
+            writeString( ((AnnotationClassElem) e).getDesc() );
+        } else if( e instanceof AnnotationArrayElem ) {
+            AnnotationArrayElem ae = (AnnotationArrayElem) e;
+            out.writeByte( BodyCacheReader.ARRAY_ELEM );
+            writeInt( ae.getNumValues() );
+            for( int i = 0; i < ae.getNumValues(); i++ ) writeElem( ae.getValueAt( i ) );
+        } else if( e instanceof AnnotationAnnotationElem ) {
+            out.writeByte( BodyCacheReader.ANNOTATION_ELEM );
+            writeAnnotation( ((AnnotationAnnotationElem) e).getValue() );
+        } else {
+            throw new IllegalArgumentException( e.getClass().getName() );
+        }
+    }
+
+    /* Statements */
+
+    public void caseBreakpointStmt( BreakpointStmt s ) {
+        writeOp( BodyCacheReader.BREAKPOINT );
+    }
+    public void caseInvokeStmt( InvokeStmt s ) {
+        writeOp( BodyCacheReader.INVOKE );
+        s.getInvokeExpr().apply( this );
+    }
+    public void caseAssignStmt( AssignStmt s ) {
+        writeOp( BodyCacheReader.ASSIGN );
+        s.getLeftOp().apply( this );
+        s.getRightOp().apply( this );
+    }
+    public void caseIdentityStmt( IdentityStmt s ) {
+        writeOp( BodyCacheReader.IDENTITY );
+        s.getLeftOp().apply( this );
+        s.getRightOp().apply( this );
+    }
+    public void caseEnterMonitorStmt( EnterMonitorStmt s ) {
+        writeOp( BodyCacheReader.ENTER_MONITOR );
+        s.getOp().apply( this );
+    }
+    public void caseExitMonitorStmt( ExitMonitorStmt s ) {
+        writeOp( BodyCacheReader.EXIT_MONITOR );
+        s.getOp().apply( this );
+    }
+    public void caseGotoStmt( GotoStmt s ) {
+        writeOp( BodyCacheReader.GOTO );
+        writeUnitSafely( s.getTarget() );
+    }
+    public void caseIfStmt( IfStmt s ) {
+        writeOp( BodyCacheReader.IF );
+        s.getCondition().apply( this );
+        writeUnitSafely( s.getTarget() );
+    }
+    public void caseLookupSwitchStmt( LookupSwitchStmt s ) {
+        writeOp( BodyCacheReader.LOOKUP_SWITCH );
+        s.getKey().apply( this );
+        int count = s.getTargetCount();
+        writeIntSafely( count );
+        for( int i = 0; i < count; i++ ) {
+            writeIntSafely( s.getLookupValue( i ) );
+            writeUnitSafely( s.getTarget( i ) );
+        }
+        writeUnitSafely( s.getDefaultTarget() );
+    }
+    public void caseNopStmt( NopStmt s ) {
+        writeOp( BodyCacheReader.NOP );
+    }
+    public void caseRetStmt( RetStmt s ) {
+        writeOp( BodyCacheReader.RET );
+        s.getStmtAddress().apply( this );
+    }
+    public void caseReturnStmt( ReturnStmt s ) {
+        writeOp( BodyCacheReader.RETURN );
+        s.getOp().apply( this );
+    }
+    public void caseReturnVoidStmt( ReturnVoidStmt s ) {
+        writeOp( BodyCacheReader.RETURN_VOID );
+    }
+    public void caseTableSwitchStmt( TableSwitchStmt s ) {
+        writeOp( BodyCacheReader.TABLE_SWITCH );
+        s.getKey().apply( this );
+        writeIntSafely( s.getLowIndex() );
+        writeIntSafely( s.getHighIndex() );
+        for( int i = 0; i <= s.getHighIndex() - s.getLowIndex(); i++ ) {
+            writeUnitSafely( s.getTarget( i ) );
+        }
+        writeUnitSafely( s.getDefaultTarget() );
+    }
+    public void caseThrowStmt( ThrowStmt s ) {
+        writeOp( BodyCacheReader.THROW );
+        s.getOp().apply( this );
+    }
+
+    /* Values */
+
+    public void caseLocal( Local l ) {
+        writeOp( BodyCacheReader.LOCAL );
+        Integer index = (Integer) indices.get( l );
+        if( index == null ) throw new IllegalArgumentException( "local " + l + " not in body" );
+        writeIntSafely( index.intValue() );
+    }
+
+    public void caseDoubleConstant( DoubleConstant v ) {
+        writeOp( BodyCacheReader.DOUBLE );
+        try {
+            out.writeLong( Double.doubleToRawLongBits( v.value ) );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+    public void caseFloatConstant( FloatConstant v ) {
+        writeOp( BodyCacheReader.FLOAT );
+        try {
+            out.writeInt( Float.floatToRawIntBits( v.value ) );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+    public void caseIntConstant( IntConstant v ) {
+        writeOp( BodyCacheReader.INT );
+        writeIntSafely( v.value );
+    }
+    public void caseLongConstant( LongConstant v ) {
+        writeOp( BodyCacheReader.LONG );
+        try {
+            out.writeLong( v.value );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+    public void caseNullConstant( NullConstant v ) {
+        writeOp( BodyCacheReader.NULL );
+    }
+    public void caseStringConstant( StringConstant v ) {
+        writeOp( BodyCacheReader.STRING );
+        writeStringSafely( v.value );
+    }
+    public void caseClassConstant( ClassConstant v ) {
+        writeOp( BodyCacheReader.CLASS );
+        writeStringSafely( v.value );
+    }
+
+    public void caseAddExpr( AddExpr v ) { writeBinop( BodyCacheReader.ADD, v ); }
+    public void caseAndExpr( AndExpr v ) { writeBinop( BodyCacheReader.AND, v ); }
+    public void caseCmpExpr( CmpExpr v ) { writeBinop( BodyCacheReader.CMP, v ); }
+    public void caseCmpgExpr( CmpgExpr v ) { writeBinop( BodyCacheReader.CMPG, v ); }
+    public void caseCmplExpr( CmplExpr v ) { writeBinop( BodyCacheReader.CMPL, v ); }
+    public void caseDivExpr( DivExpr v ) { writeBinop( BodyCacheReader.DIV, v ); }
+    public void caseEqExpr( EqExpr v ) { writeBinop( BodyCacheReader.EQ, v ); }
+    public void caseNeExpr( NeExpr v ) { writeBinop( BodyCacheReader.NE, v ); }
+    public void caseGeExpr( GeExpr v ) { writeBinop( BodyCacheReader.GE, v ); }
+    public void caseGtExpr( GtExpr v ) { writeBinop( BodyCacheReader.GT, v ); }
+    public void caseLeExpr( LeExpr v ) { writeBinop( BodyCacheReader.LE, v ); }
+    public void caseLtExpr( LtExpr v ) { writeBinop( BodyCacheReader.LT, v ); }
+    public void caseMulExpr( MulExpr v ) { writeBinop( BodyCacheReader.MUL, v ); }
+    public void caseOrExpr( OrExpr v ) { writeBinop( BodyCacheReader.OR, v ); }
+    public void caseRemExpr( RemExpr v ) { writeBinop( BodyCacheReader.REM, v ); }
+    public void caseShlExpr( ShlExpr v ) { writeBinop( BodyCacheReader.SHL, v ); }
+    public void caseShrExpr( ShrExpr v ) { writeBinop( BodyCacheReader.SHR, v ); }
+    public void caseUshrExpr( UshrExpr v ) { writeBinop( BodyCacheReader.USHR, v ); }
+    public void caseSubExpr( SubExpr v ) { writeBinop( BodyCacheReader.SUB, v ); }
+    public void caseXorExpr( XorExpr v ) { writeBinop( BodyCacheReader.XOR, v ); }
+
+    public void caseInterfaceInvokeExpr( InterfaceInvokeExpr v ) {
+        writeInstanceInvoke( BodyCacheReader.INTERFACE_INVOKE, v );
+    }
+    public void caseSpecialInvokeExpr( SpecialInvokeExpr v ) {
+        writeInstanceInvoke( BodyCacheReader.SPECIAL_INVOKE, v );
+    }
+    public void caseVirtualInvokeExpr( VirtualInvokeExpr v ) {
+        writeInstanceInvoke( BodyCacheReader.VIRTUAL_INVOKE, v );
+    }
+    public void caseStaticInvokeExpr( StaticInvokeExpr v ) {
+        writeOp( BodyCacheReader.STATIC_INVOKE );
+        writeMethodRef( v.getMethodRef() );
+        writeValues( v.getArgs() );
+    }
+    public void caseDynamicInvokeExpr( DynamicInvokeExpr v ) {
+        writeOp( BodyCacheReader.DYNAMIC_INVOKE );
+        writeMethodRef( v.getBootstrapMethodRef() );
+        writeValues( v.getBootstrapArgs() );
+        writeMethodRef( v.getMethodRef() );
+        writeValues( v.getArgs() );
+    }
+
+    public void caseCastExpr( CastExpr v ) {
+        writeOp( BodyCacheReader.CAST );
+        v.getOp().apply( this );
+        writeTypeSafely( v.getCastType() );
+    }
+    public void caseInstanceOfExpr( InstanceOfExpr v ) {
+        writeOp( BodyCacheReader.INSTANCE_OF );
+        v.getOp().apply( this );
+        writeTypeSafely( v.getCheckType() );
+    }
+    public void caseNewArrayExpr( NewArrayExpr v ) {
+        writeOp( BodyCacheReader.NEW_ARRAY );
+        writeTypeSafely( v.getBaseType() );
+        v.getSize().apply( this );
+    }
+    public void caseNewMultiArrayExpr( NewMultiArrayExpr v ) {
+        writeOp( BodyCacheReader.NEW_MULTI_ARRAY );
+        writeTypeSafely( v.getBaseType() );
+        writeValues( v.getSizes() );
+    }
+    public void caseNewExpr( NewExpr v ) {
+        writeOp( BodyCacheReader.NEW );
+        writeTypeSafely( v.getBaseType() );
+    }
+    public void caseLengthExpr( LengthExpr v ) {
+        writeOp( BodyCacheReader.LENGTH );
+        v.getOp().apply( this );
+    }
+    public void caseNegExpr( NegExpr v ) {
+        writeOp( BodyCacheReader.NEG );
+        v.getOp().apply( this );
+    }
+
+    public void caseArrayRef( ArrayRef v ) {
+        writeOp( BodyCacheReader.ARRAY_REF );
+        v.getBase().apply( this );
+        v.getIndex().apply( this );
+    }
+    public void caseStaticFieldRef( StaticFieldRef v ) {
+        writeOp( BodyCacheReader.STATIC_FIELD_REF );
+        writeFieldRef( v.getFieldRef() );
+    }
+    public void caseInstanceFieldRef( InstanceFieldRef v ) {
+        writeOp( BodyCacheReader.INSTANCE_FIELD_REF );
+        v.getBase().apply( this );
+        writeFieldRef( v.getFieldRef() );
+    }
+    public void caseParameterRef( ParameterRef v ) {
+        writeOp( BodyCacheReader.PARAMETER_REF );
+        writeTypeSafely( v.getType() );
+        writeIntSafely( v.getIndex() );
+    }
+    public void caseCaughtExceptionRef( CaughtExceptionRef v ) {
+        writeOp( BodyCacheReader.CAUGHT_EXCEPTION_REF );
+    }
+    public void caseThisRef( ThisRef v ) {
+        writeOp( BodyCacheReader.THIS_REF );
+        writeTypeSafely( v.getType() );
+    }
+
+    public void defaultCase( Object o ) {
+        throw new IllegalArgumentException( o.getClass().getName() );
+    }
+
+    /* The switches cannot throw IOException, so the cases keep the first
+     * one in error, and writeBody throws it once the unit is done. */
+
+    private void checkError() throws IOException {
+        if( error != null ) throw error;
+    }
+
+    private void writeOp( int op ) {
+        try {
+            out.writeByte( op );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeIntSafely( int i ) {
+        try {
+            writeInt( i );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeStringSafely( String s ) {
+        try {
+            writeString( s );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeTypeSafely( Type t ) {
+        try {
+            writeType( t );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeUnitSafely( Unit u ) {
+        try {
+            writeUnit( u );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeBinop( int op, BinopExpr v ) {
+        writeOp( op );
+        v.getOp1().apply( this );
+        v.getOp2().apply( this );
+    }
+
+    private void writeInstanceInvoke( int op, InstanceInvokeExpr v ) {
+        writeOp( op );
+        v.getBase().apply( this );
+        writeMethodRef( v.getMethodRef() );
+        writeValues( v.getArgs() );
+    }
+
+    private void writeValues( List values ) {
+        writeIntSafely( values.size() );
+        for( Iterator vIt = values.iterator(); vIt.hasNext(); ) {
+            ((Value) vIt.next()).apply( this );
+        }
+    }
+
+    private void writeMethodRef( SootMethodRef ref ) {
+        try {
+            writeString( ref.declaringClass().getName() );
+            writeString( ref.name() );
+            writeTypes( ref.parameterTypes() );
+            writeType( ref.returnType() );
+            out.writeBoolean( ref.isStatic() );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    private void writeFieldRef( SootFieldRef ref ) {
+        try {
+            writeString( ref.declaringClass().getName() );
+            writeString( ref.name() );
+            writeType( ref.type() );
+        } catch( IOException e ) {
+            error = e;
+        }
+    }
+
+    /* Primitives */
+
+    private void writeUnit( Unit u ) throws IOException {
+        Integer index = (Integer) indices.get( u );
+        if( index == null ) throw new IllegalArgumentException( "unit " + u + " not in body" );
+        writeInt( index.intValue() );
+    }
+
+    private void writeTypes( List types ) throws IOException {
+        writeInt( types.size() );
+        for( Iterator tIt = types.iterator(); tIt.hasNext(); ) {
+            writeType( (Type) tIt.next() );
+        }
+    }
+
+    private void writeType( Type t ) throws IOException {
+        if( t instanceof RefType ) {
+            out.writeByte( 'L' );
+            writeString( ((RefType) t).getClassName() );
+        } else if( t instanceof ArrayType ) {
+            ArrayType at = (ArrayType) t;
+            out.writeByte( '[' );
+            writeInt( at.numDimensions );
+            writeType( at.baseType );
+        } else if( t instanceof IntType ) {
+            out.writeByte( 'I' );
+        } else if( t instanceof BooleanType ) {
+            out.writeByte( 'Z' );
+        } else if( t instanceof ByteType ) {
+            out.writeByte( 'B' );
+        } else if( t instanceof CharType ) {
+            out.writeByte( 'C' );
+        } else if( t instanceof ShortType ) {
+            out.writeByte( 'S' );
+        } else if( t instanceof LongType ) {
+            out.writeByte( 'J' );
+        } else if( t instanceof FloatType ) {
+            out.writeByte( 'F' );
+        } else if( t instanceof DoubleType ) {
+            out.writeByte( 'D' );
+        } else if( t instanceof VoidType ) {
+            out.writeByte( 'V' );
+        } else if( t instanceof NullType ) {
+            out.writeByte( 'N' );
+        } else {
+            throw new IllegalArgumentException( "type " + t );
+        }
+    }
+
+    /** Writes null as 1, a string seen before as its index plus 2, and a
+     * new one as 0 followed by its length and UTF-8 bytes. */
+    private void writeString( String s ) throws IOException {
+        if( s == null ) {
+            writeInt( 1 );
+            return;
+        }
+        Integer index = strings.get( s );
+        if( index != null ) {
+            writeInt( index.intValue() + 2 );
+            return;
+        }
+        strings.put( s, new Integer( strings.size() ) );
+        writeInt( 0 );
+        writeBytes( s.getBytes( "UTF-8" ) );
+    }
+
+    private void writeBytes( byte[] bytes ) throws IOException {
+        writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    /** Writes i in 7-bit groups, least significant first, with the high
+     * bit set on all but the last; negative numbers take five bytes. */
+    private void writeInt( int i ) throws IOException {
+        while( ( i & ~0x7f ) != 0 ) {
+            out.writeByte( ( i & 0x7f ) | 0x80 );
+            i >>>= 7;
+        }
+        out.writeByte( i );
+    }
+}
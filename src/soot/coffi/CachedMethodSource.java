@@ -0,0 +1,84 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.coffi;
+
+import java.util.List;
+
+import soot.*;
+import soot.jimple.*;
+
+/**
+ * The source of a method of a class resolved from the {@link BodyCache}.
+ * The body is read from the cache; if it is not there, the class file is
+ * parsed after all, and the body is built by coffi and jb.
+ */
+public class CachedMethodSource implements MethodSource
+{
+    private ClassFile coffiClass;
+
+    CachedMethodSource( ClassFile coffiClass )
+    {
+        this.coffiClass = coffiClass;
+    }
+
+    public Body getBody( SootMethod m, String phaseName )
+    {
+        if( m.isAbstract() || m.isNative() || m.isPhantom() )
+            return Jimple.v().newBody( m );
+
+        JimpleBody cached = BodyCache.v().load( coffiClass.bodyCacheKey, m );
+        if( cached != null ) {
+            coffiClass = null;
+            return cached;
+        }
+
+        MethodSource source;
+        // coffi converts descriptors through shared singletons
+        synchronized( Scene.v() ) {
+            if( !coffiClass.parseCached() )
+                throw new RuntimeException( "Could not load classfile: " + m.getDeclaringClass().getName() );
+            method_info methodInfo = findMethod( m );
+            methodInfo.jmethod = m;
+            source = new CoffiMethodSource( coffiClass, methodInfo );
+        }
+        coffiClass = null;
+        return source.getBody( m, phaseName );
+    }
+
+    private method_info findMethod( SootMethod m )
+    {
+        for( int i = 0; i < coffiClass.methods_count; i++ ) {
+            method_info methodInfo = coffiClass.methods[i];
+            String name = ((CONSTANT_Utf8_info) coffiClass.constant_pool[methodInfo.name_index]).convert();
+            if( !name.equals( m.getName() ) ) continue;
+            String descriptor = ((CONSTANT_Utf8_info) coffiClass.constant_pool[methodInfo.descriptor_index]).convert();
+            Type[] types = Util.v().jimpleTypesOfFieldOrMethodDescriptor( descriptor );
+            List parameterTypes = m.getParameterTypes();
+            if( types.length - 1 != parameterTypes.size() ) continue;
+            if( !types[types.length - 1].equals( m.getReturnType() ) ) continue;
+            boolean same = true;
+            for( int j = 0; same && j < parameterTypes.size(); j++ ) {
+                same = types[j].equals( parameterTypes.get( j ) );
+            }
+            if( same ) return methodInfo;
+        }
+        throw new RuntimeException( "No method " + m.getSubSignature() + " in class file of " + m.getDeclaringClass().getName() );
+    }
+}
@@ -162,6 +162,15 @@ public class ClassFile {
     /** bootstrap-methods attribute (if any) */
     public BootstrapMethods_attribute bootstrap_methods_attribute;
 
+    /** Key of this class file in the body cache, or null if the cache is off.
+     * @see BodyCache
+     */
+    public String bodyCacheKey;
+
+    /** Contents of the class file, kept unparsed while the body cache
+     * has the members of this class. */
+    private byte[] cachedData;
+
    /** Creates a new ClassFile object given the name of the file.
     * @param nfn file name which this ClassFile will represent.
     */
@@ -173,6 +182,38 @@ public class ClassFile {
     }
 
     public boolean loadClassFile(InputStream is) 
+    {
+      return loadClassFile(is, false);
+    }
+
+   /** Like loadClassFile, but if the body cache has the members of this
+    * class, only the contents of the class file are kept, and they are
+    * parsed only if {@link #parseCached()} is called.
+    * @see BodyCache
+    */
+    public boolean loadClassFileUnlessCached(InputStream is)
+    {
+      return loadClassFile(is, true);
+    }
+
+   /** Returns true if the contents of this class file were kept unparsed
+    * because the body cache has the members of this class. */
+    public synchronized boolean isCached()
+    {
+      return cachedData != null;
+    }
+
+   /** Parses the contents of the class file kept by
+    * loadClassFileUnlessCached, if not done already. */
+    public synchronized boolean parseCached()
+    {
+      if (cachedData == null) return true;
+      byte[] data = cachedData;
+      cachedData = null;
+      return readClass(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private boolean loadClassFile(InputStream is, boolean unlessCached)
     {
       InputStream f = null;
       InputStream classFileStream;
@@ -181,7 +222,7 @@ public class ClassFile {
 
       classFileStream = is;
      
-      byte[]  data;
+      byte[]  data = null;
       
       
       Timers.v().readTimer.start();
@@ -191,12 +232,23 @@ public class ClassFile {
         data = new byte[classFileStream.available()];
         classFileStream.read(data);
         f = new ByteArrayInputStream(data);
+        if(BodyCache.v().isEnabled())
+            bodyCacheKey = BodyCache.v().keyFor(data);
          
       } catch(IOException e)
       {
       }
       
       Timers.v().readTimer.end();
+
+      if (unlessCached && bodyCacheKey != null && BodyCache.v().hasClass(bodyCacheKey)) {
+        cachedData = data;
+        try {
+          classFileStream.close();
+        } catch(IOException e) {
+        }
+        return true;
+      }
       
       d = new DataInputStream(f);
       b = readClass(d);
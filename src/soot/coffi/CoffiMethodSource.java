@@ -63,7 +63,36 @@ public class CoffiMethodSource implements MethodSource
 
         if(m.isAbstract() || m.isNative() || m.isPhantom())
             return jb;
+
+        // bodies in the cache have already been through jb
+        String cacheKey = coffiClass.bodyCacheKey;
+        if(cacheKey != null) {
+            JimpleBody cached = BodyCache.v().load(cacheKey, m);
+            if(cached != null) {
+                coffiMethod = null;
+                coffiClass = null;
+                return cached;
+            }
+        }
             
+        // coffi keeps the state of a conversion in shared singletons such
+        // as coffi.Util, so bodies are converted one at a time; the jb pack
+        // may then run concurrently on different bodies
+        synchronized(Scene.v()) {
+            if(!jimplify(m, jb))
+                return null;
+        }
+
+         PackManager.v().getPack("jb").apply(jb);
+         if(cacheKey != null)
+             BodyCache.v().store(cacheKey, m, jb);
+         return jb;
+    }
+
+    /** Converts the coffi representation of the method to naive Jimple.
+     * Returns false if only coffi metrics are computed. */
+    private boolean jimplify(SootMethod m, JimpleBody jb)
+    {
         if(Options.v().time())
             Timers.v().conversionTimer.start();
 
@@ -87,7 +116,7 @@ public class CoffiMethodSource implements MethodSource
              new soot.coffi.CFG(coffiMethod);
              
              // if just computing metrics, we don't need to actually return body
-             if (soot.jbco.Main.metrics) return null;
+             if (soot.jbco.Main.metrics) return false;
          }
 
          if(Options.v().verbose())
@@ -113,8 +142,6 @@ public class CoffiMethodSource implements MethodSource
 
          coffiMethod = null;
          coffiClass = null;
-         
-         PackManager.v().getPack("jb").apply(jb);
-         return jb;
+         return true;
     }
 }
@@ -60,16 +60,31 @@ public class Util
     }    
 
     public void resolveFromClassFile(SootClass aClass, InputStream is, List references)
+    {
+        ClassFile coffiClass = new ClassFile(aClass.getName());
+        boolean success = coffiClass.loadClassFileUnlessCached(is);
+        resolveFromClassFile(aClass, success ? coffiClass : null, references);
+    }
+
+    /** Fills in aClass from a class file that has already been read, or
+     * null if reading it failed. */
+    public void resolveFromClassFile(SootClass aClass, ClassFile coffiClass, List references)
     {
         SootClass bclass = aClass;                
         String className = bclass.getName();
-        ClassFile coffiClass = new ClassFile(className);
+
+        // the body cache may have what the class file would give
+        if(coffiClass != null && coffiClass.isCached())
+            {
+                if(BodyCache.v().loadClass(coffiClass, bclass, references))
+                    return;
+                if(!coffiClass.parseCached())
+                    coffiClass = null;
+            }
         
         // Load up class file, and retrieve bclass from class manager.
         {
-            boolean success = coffiClass.loadClassFile(is);
-
-            if(!success)
+            if(coffiClass == null)
                 {
                     if(!Scene.v().allowsPhantomRefs())
                         throw new RuntimeException("Could not load classfile: " + bclass.getName());
@@ -421,6 +436,9 @@ public class Util
         }
    
     }
+
+        if(coffiClass.bodyCacheKey != null)
+            BodyCache.v().storeClass(coffiClass.bodyCacheKey, bclass, references);
     }
 
 
@@ -50,11 +50,15 @@ public class PolyglotMethodSource implements MethodSource {
     }
 
     public soot.Body getBody(soot.SootMethod sm, String phaseName) {
-        //JimpleBodyBuilder jbb = new JimpleBodyBuilder();
-        soot.jimple.JimpleBody jb = ajbb.createJimpleBody(block, formals, sm);
-       
-        PackManager.v().getPack("jj").apply(jb);
-        return jb;
+        // the Java front end and the jj pack keep global state, so bodies
+        // are built one at a time even when they are retrieved concurrently
+        synchronized(Scene.v()) {
+            //JimpleBodyBuilder jbb = new JimpleBodyBuilder();
+            soot.jimple.JimpleBody jb = ajbb.createJimpleBody(block, formals, sm);
+           
+            PackManager.v().getPack("jj").apply(jb);
+            return jb;
+        }
     }
 
     public void setJBB(AbstractJimpleBodyBuilder ajbb){
@@ -40,7 +40,12 @@ public class JimpleMethodSource implements MethodSource
 
     public Body getBody(SootMethod m, String phaseName)
     {  
-        JimpleBody jb = (JimpleBody)mJimpleAST.getBody(m);
+        JimpleBody jb;
+        // the AST is shared by all methods of the class and resolves
+        // references through the scene while extracting bodies
+        synchronized(Scene.v()) {
+            jb = (JimpleBody)mJimpleAST.getBody(m);
+        }
 
         if(Options.v().verbose())
             G.v().out.println("[" + m.getName() + "] Retrieving JimpleBody from AST...");
@@ -135,11 +135,9 @@ public class JTableSwitchStmt extends AbstractStmt
                           " " + getTarget(i - lowIndex) + ";" + endOfLine);
         }
         // in the for loop above, we cannot use "<=" since 'i' would wrap around
-        if (highIndex == Integer.MAX_VALUE) {
-        	buffer.append(
-                    "    " + Jimple.CASE + " " + highIndex + ": " + Jimple.GOTO + 
-                    " " + getTarget(highIndex - lowIndex) + ";" + endOfLine);
-        }
+        buffer.append(
+                      "    " + Jimple.CASE + " " + highIndex + ": " + Jimple.GOTO + 
+                      " " + getTarget(highIndex - lowIndex) + ";" + endOfLine);
 
         buffer.append("    " +  Jimple.DEFAULT + 
                       ": " +  Jimple.GOTO + " " 
@@ -163,9 +161,7 @@ public class JTableSwitchStmt extends AbstractStmt
             printCaseTarget(up, i);
         }
         // in the for loop above, we cannot use "<=" since 'i' would wrap around
-        if (highIndex == Integer.MAX_VALUE) {
-        	printCaseTarget(up, highIndex);
-        }
+        printCaseTarget(up, highIndex);
         
         up.literal("    ");
         up.literal(Jimple.DEFAULT);
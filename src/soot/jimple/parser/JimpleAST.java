@@ -49,11 +49,19 @@ public class JimpleAST
      * @param aInputStream The InputStream to parse.
      */
     public JimpleAST(InputStream aJIS)
+    {
+        this(new InputStreamReader(aJIS));
+    }
+
+    /** Constructs a JimpleAST and generates its parse tree from the given Reader.
+     *
+     * @param aReader The Reader to parse.
+     */
+    public JimpleAST(Reader aReader)
     {
         Parser p =
             new Parser(new Lexer(
-                    new PushbackReader(new BufferedReader(
-                    new InputStreamReader(aJIS)), 1024)));
+                    new PushbackReader(new BufferedReader(aReader), 1024)));
         try {
             mTree = p.parse();
         } catch(ParserException e) {
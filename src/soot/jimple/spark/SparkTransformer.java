@@ -18,6 +18,7 @@
  */
 
 package soot.jimple.spark;
+import java.io.File;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
@@ -46,16 +47,20 @@ import soot.jimple.spark.pag.PAG;
 import soot.jimple.spark.pag.PAG2HTML;
 import soot.jimple.spark.pag.PAGDumper;
 import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.FrozenPointsToSet;
 import soot.jimple.spark.sets.P2SetVisitor;
 import soot.jimple.spark.sets.PointsToSetInternal;
 import soot.jimple.spark.solver.EBBCollapser;
 import soot.jimple.spark.solver.PropAlias;
 import soot.jimple.spark.solver.PropCycle;
+import soot.jimple.spark.solver.PropLazyCycle;
 import soot.jimple.spark.solver.PropIter;
 import soot.jimple.spark.solver.PropMerge;
+import soot.jimple.spark.solver.PropParallel;
 import soot.jimple.spark.solver.PropWorklist;
 import soot.jimple.spark.solver.Propagator;
 import soot.jimple.spark.solver.SCCCollapser;
+import soot.jimple.spark.snapshot.SparkSnapshot;
 import soot.jimple.toolkits.callgraph.CallGraphBuilder;
 import soot.options.SparkOptions;
 import soot.tagkit.Host;
@@ -75,6 +80,20 @@ public class SparkTransformer extends SceneTransformer
         SparkOptions opts = new SparkOptions( options );
         final String output_dir = SourceLocator.v().getOutputDir();
 
+        byte[] snapshotKey = null;
+        if( opts.save_snapshot().length() > 0 || opts.load_snapshot().length() > 0 ) {
+            String unsupported = SparkSnapshot.unsupported( opts );
+            if( unsupported != null ) {
+                G.v().out.println( "[Spark] Snapshots are not supported with "+unsupported );
+            } else {
+                snapshotKey = SparkSnapshot.sceneKey( options );
+                if( opts.load_snapshot().length() > 0
+                && SparkSnapshot.load( new File( opts.load_snapshot() ), snapshotKey, opts ) ) {
+                    return;
+                }
+            }
+        }
+
         // Build pointer assignment graph
         ContextInsensitiveBuilder b = new ContextInsensitiveBuilder();
         if( opts.pre_jimplify() ) b.preJimplify();
@@ -114,6 +133,7 @@ public class SparkTransformer extends SceneTransformer
         if( true || opts.simplify_sccs() || opts.vta() || opts.simplify_offline() ) {
             pag.cleanUpMerges();
         }
+        pag.freezeEdges();
         Date endSimplify = new Date();
         reportTime( "Pointer Graph simplified", startSimplify, endSimplify );
         if( opts.force_gc() ) doGC();
@@ -135,9 +155,15 @@ public class SparkTransformer extends SceneTransformer
             case SparkOptions.propagator_worklist:
                 propagator[0] = new PropWorklist( pag );
                 break;
+            case SparkOptions.propagator_parallel:
+                propagator[0] = new PropParallel( pag );
+                break;
             case SparkOptions.propagator_cycle:
                 propagator[0] = new PropCycle( pag );
                 break;
+            case SparkOptions.propagator_lazycycle:
+                propagator[0] = new PropLazyCycle( pag );
+                break;
             case SparkOptions.propagator_merge:
                 propagator[0] = new PropMerge( pag );
                 break;
@@ -171,7 +197,23 @@ public class SparkTransformer extends SceneTransformer
         if( opts.dump_answer() ) new ReachingTypeDumper( pag, output_dir ).dump();
         if( opts.dump_solution() ) dumper.dumpPointsToSets();
         if( opts.dump_html() ) new PAG2HTML( pag, output_dir ).dump();
+        if( opts.freeze_sets() ) {
+            if( opts.geom_pta() ) {
+                G.v().out.println( "[Spark] Not freezing points-to sets, since the geometric points-to analysis refines them" );
+            } else {
+                Date startFreeze = new Date();
+                int distinct = FrozenPointsToSet.freeze( pag );
+                reportTime( "Froze points-to sets", startFreeze, new Date() );
+                if( opts.verbose() ) {
+                    G.v().out.println( "[Spark] Number of distinct points-to sets: "+distinct );
+                }
+                if( opts.force_gc() ) doGC();
+            }
+        }
         Scene.v().setPointsToAnalysis( pag );
+        if( snapshotKey != null && opts.save_snapshot().length() > 0 ) {
+            SparkSnapshot.save( pag, new File( opts.save_snapshot() ), snapshotKey );
+        }
         if( opts.add_tags() ) {
             addTags( pag );
         }
@@ -82,10 +82,20 @@ public class ContextInsensitiveBuilder {
             cgb.build();
             reachables = cgb.reachables();
         }
-        for( Iterator cIt = Scene.v().getClasses().iterator(); cIt.hasNext(); ) {
-            final SootClass c = (SootClass) cIt.next();
-	    handleClass( c );
-	}
+        int numThreads = PackManager.v().getNumThreads();
+        if( numThreads > 1 ) {
+            List<SootMethod> methods = new ArrayList<SootMethod>();
+            for( Iterator cIt = Scene.v().getClasses().iterator(); cIt.hasNext(); ) {
+                final SootClass c = (SootClass) cIt.next();
+                addReachableMethods( c, methods );
+            }
+            pag.buildMethodPAGs( methods, numThreads );
+        } else {
+            for( Iterator cIt = Scene.v().getClasses().iterator(); cIt.hasNext(); ) {
+                final SootClass c = (SootClass) cIt.next();
+                handleClass( c );
+            }
+        }
         while(callEdges.hasNext()) {
             Edge e = (Edge) callEdges.next();
             MethodPAG.v( pag, e.tgt() ).addToPAG(null);
@@ -102,6 +112,16 @@ public class ContextInsensitiveBuilder {
     /* End of public methods. */
     /* End of package methods. */
     protected void handleClass( SootClass c ) {
+        List<SootMethod> methods = new ArrayList<SootMethod>();
+        addReachableMethods( c, methods );
+        for( SootMethod m : methods ) {
+            MethodPAG mpag = MethodPAG.v( pag, m );
+            mpag.build();
+            mpag.addToPAG(null);
+        }
+    }
+    /** Adds the reachable methods of c that have a MethodPAG to methods. */
+    protected void addReachableMethods( SootClass c, List<SootMethod> methods ) {
         boolean incedClasses = false;
 	Iterator methodsIt = c.methodIterator();
 	while( methodsIt.hasNext() ) 
@@ -110,9 +130,7 @@ public class ContextInsensitiveBuilder {
 	    if( !m.isConcrete() && !m.isNative() ) continue;
             totalMethods++;
             if( reachables.contains( m ) ) {
-                MethodPAG mpag = MethodPAG.v( pag, m );
-                mpag.build();
-                mpag.addToPAG(null);
+                methods.add( m );
                 analyzedMethods++;
                 if( !incedClasses ) {
                     incedClasses = true;
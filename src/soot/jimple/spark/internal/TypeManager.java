@@ -60,6 +60,16 @@ public final class TypeManager {
     }
     final public BitVector get( Type type ) {
         if( type == null ) return null;
+        update();
+        BitVector ret = (BitVector) typeMask.get( type );
+        if( ret == null && fh != null ) throw new RuntimeException( "oops"+type );
+        return ret;
+    }
+    /** Adds the allocation nodes created since the last call to the type
+     * masks. Until more allocation nodes are created, get() then only
+     * reads the masks. */
+    final public void update() {
+        if( allocNodeListener == null ) return;
         while(allocNodeListener.hasNext()) {
             AllocNode n = (AllocNode) allocNodeListener.next();
             for( Iterator tIt = Scene.v().getTypeNumberer().iterator(); tIt.hasNext(); ) {
@@ -83,9 +93,6 @@ public final class TypeManager {
                 }
             }
         }
-        BitVector ret = (BitVector) typeMask.get( type );
-        if( ret == null && fh != null ) throw new RuntimeException( "oops"+type );
-        return ret;
     }
     final public void clearTypeMask() {
         typeMask = null;
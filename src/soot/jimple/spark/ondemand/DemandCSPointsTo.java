@@ -24,15 +24,20 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import soot.AnySubType;
 import soot.ArrayType;
 import soot.Context;
 import soot.G;
 import soot.Local;
+import soot.PackManager;
 import soot.PointsToAnalysis;
 import soot.PointsToSet;
 import soot.RefType;
@@ -41,6 +46,7 @@ import soot.SootField;
 import soot.SootMethod;
 import soot.Type;
 import soot.jimple.spark.ondemand.genericutil.ArraySet;
+import soot.jimple.spark.ondemand.genericutil.BoundedCache;
 import soot.jimple.spark.ondemand.genericutil.HashSetMultiMap;
 import soot.jimple.spark.ondemand.genericutil.ImmutableStack;
 import soot.jimple.spark.ondemand.genericutil.Predicate;
@@ -197,6 +203,8 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 
 	protected static final boolean DEFAULT_LAZY = true;
 
+	protected static final int DEFAULT_MAX_CACHED_QUERIES = 100000;
+
 	/**
 	 * if <code>true</code>, refine the pre-computed call graph
 	 */
@@ -274,7 +282,7 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 
 	protected ValidMatches vMatches;
 	
-	protected Map<Local,PointsToSet> reachingObjectsCache, reachingObjectsCacheNoCGRefinement;
+	protected BoundedCache<Local,PointsToSet> reachingObjectsCache, reachingObjectsCacheNoCGRefinement;
 
     protected boolean useCache;
 
@@ -292,11 +300,33 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 		this.lazy = lazy;
 		this.maxNodesPerPass = maxTraversal / maxPasses;
 		this.heuristicType = HeuristicType.INCR;
-		this.reachingObjectsCache = new HashMap<Local, PointsToSet>();
-		this.reachingObjectsCacheNoCGRefinement = new HashMap<Local, PointsToSet>();
+		this.reachingObjectsCache = new BoundedCache<Local, PointsToSet>(DEFAULT_MAX_CACHED_QUERIES);
+		this.reachingObjectsCacheNoCGRefinement = new BoundedCache<Local, PointsToSet>(DEFAULT_MAX_CACHED_QUERIES);
         this.useCache = true;
 	}
 
+	/**
+	 * Makes a worker answering queries for a batch of
+	 * {@link #doReachingObjects(Collection)}. It shares the settings, the
+	 * caches of results and the pre-computed PAG information of parent, but
+	 * has its own state for the query being answered.
+	 */
+	private DemandCSPointsTo(DemandCSPointsTo parent) {
+		this.csInfo = parent.csInfo;
+		this.pag = parent.pag;
+		this.maxPasses = parent.maxPasses;
+		this.lazy = parent.lazy;
+		this.maxNodesPerPass = parent.maxNodesPerPass;
+		this.heuristicType = parent.heuristicType;
+		this.refineCallGraph = parent.refineCallGraph;
+		this.reachingObjectsCache = parent.reachingObjectsCache;
+		this.reachingObjectsCacheNoCGRefinement = parent.reachingObjectsCacheNoCGRefinement;
+		this.useCache = parent.useCache;
+		this.fieldToStores = parent.fieldToStores;
+		this.fieldToLoads = parent.fieldToLoads;
+		this.vMatches = parent.vMatches;
+	}
+
 	private void init() {
 		this.fieldToStores = SootUtil.storesOnField(pag);
         this.fieldToLoads = SootUtil.loadsOnField(pag);
@@ -321,7 +351,7 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 	        init();
 		}
 		PointsToSet result;
-        Map<Local, PointsToSet> cache;
+        BoundedCache<Local, PointsToSet> cache;
 	    if(refineCallGraph) {  //we use different caches for different settings  
             cache = reachingObjectsCache;
 	    } else {
@@ -338,6 +368,79 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 	    return result;
 	}
 
+    /**
+     * Computes the possibly refined sets of reaching objects of all the given
+     * locals, as {@link #doReachingObjects(Local)} does for each of them. The
+     * queries are answered concurrently on the number of threads given with
+     * <code>-num-threads</code>, each by its own worker sharing the PAG and
+     * the caches of this analysis.
+     * 
+     * @return a map from each local to its set of reaching objects, in the
+     *         order of locals
+     */
+    public Map<Local, PointsToSet> doReachingObjects(Collection<Local> locals) {
+		if(fieldToStores==null) {
+	        init();
+		}
+		final Local[] queries = locals.toArray(new Local[locals.size()]);
+		final PointsToSet[] results = new PointsToSet[queries.length];
+		final int numThreads = Math.min(PackManager.v().getNumThreads(), queries.length);
+		if (numThreads <= 1) {
+			for (int i = 0; i < queries.length; i++) {
+				results[i] = doReachingObjects(queries[i]);
+			}
+		} else {
+			prepareForConcurrentQueries();
+			List<Runnable> tasks = new ArrayList<Runnable>();
+			for (int t = 0; t < numThreads; t++) {
+				final int first = t;
+				final DemandCSPointsTo worker = new DemandCSPointsTo(this);
+				tasks.add(new Runnable() {
+					public void run() {
+						for (int i = first; i < queries.length; i += numThreads)
+							results[i] = worker.doReachingObjects(queries[i]);
+					}
+				});
+			}
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			try {
+				PackManager.runInParallel(tasks, executor);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		Map<Local, PointsToSet> ret = new LinkedHashMap<Local, PointsToSet>();
+		for (int i = 0; i < queries.length; i++) {
+			ret.put(queries[i], results[i]);
+		}
+		return ret;
+    }
+
+    /**
+     * The PAG converts its edge sets to arrays and the type manager builds
+     * its type masks when they are first asked for; this does both up front,
+     * so that concurrent queries only read them.
+     */
+    private void prepareForConcurrentQueries() {
+        pag.getTypeManager().update();
+        for (Iterator vIt = pag.getVarNodeNumberer().iterator(); vIt.hasNext();) {
+            final VarNode v = (VarNode) vIt.next();
+            pag.simpleLookup(v);
+            pag.simpleInvLookup(v);
+            pag.loadInvLookup(v);
+            pag.storeLookup(v);
+            pag.allocInvLookup(v);
+        }
+        for (Iterator frIt = pag.getFieldRefNodeNumberer().iterator(); frIt.hasNext();) {
+            final FieldRefNode fr = (FieldRefNode) frIt.next();
+            pag.loadLookup(fr);
+            pag.storeInvLookup(fr);
+        }
+        for (Iterator anIt = pag.getAllocNodeNumberer().iterator(); anIt.hasNext();) {
+            pag.allocLookup((AllocNode) anIt.next());
+        }
+    }
+
     /**
      * Returns <code>false</code> if an inconsistent computation occurred, i.e. if result
      * differs from the result computed by {@link #computeReachingObjects(Local)} on l.
@@ -1304,7 +1407,11 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 		}
 		RefType refType = (RefType) type;
 		SootMethod targetMethod = null;
-		targetMethod = VirtualCalls.v().resolveNonSpecial(refType, methodStr);
+		// VirtualCalls caches what it resolves, so concurrent queries
+		// must take turns
+		synchronized (VirtualCalls.v()) {
+			targetMethod = VirtualCalls.v().resolveNonSpecial(refType, methodStr);
+		}
 		return Collections.<SootMethod> singleton(targetMethod);
 
 	}
@@ -2181,6 +2288,25 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
         reachingObjectsCacheNoCGRefinement.clear();
 	}
 
+	/**
+	 * Lets each cache hold the results of at most maxCachedQueries queries;
+	 * if it holds more, the least recently used results are evicted, and
+	 * the others, and the statistics, are kept.
+	 */
+	public void setMaxCachedQueries(int maxCachedQueries) {
+	    reachingObjectsCache.setMaxSize(maxCachedQueries);
+	    reachingObjectsCacheNoCGRefinement.setMaxSize(maxCachedQueries);
+	}
+
+	/**
+	 * @return the cache used with the current setting of
+	 *         {@link #isRefineCallGraph()}, for its hit and eviction
+	 *         statistics
+	 */
+	public BoundedCache<Local, PointsToSet> getReachingObjectsCache() {
+	    return refineCallGraph ? reachingObjectsCache : reachingObjectsCacheNoCGRefinement;
+	}
+
     public boolean isRefineCallGraph() {
         return refineCallGraph;
     }
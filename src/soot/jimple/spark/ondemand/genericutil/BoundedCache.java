@@ -0,0 +1,133 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.jimple.spark.ondemand.genericutil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe cache holding at most a given number of entries. When it is
+ * full, the least recently used entry is evicted. It counts hits, misses and
+ * evictions.
+ */
+public class BoundedCache<K, V> {
+
+  private int maxSize;
+
+  private final LinkedHashMap<K, V> map;
+
+  private long hits;
+
+  private long misses;
+
+  private long evictions;
+
+  public BoundedCache(int maxSize) {
+    checkSize(maxSize);
+    this.maxSize = maxSize;
+    this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        if (size() > BoundedCache.this.maxSize) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return the value cached for key, or <code>null</code> if there is none
+   */
+  public synchronized V get(K key) {
+    V ret = map.get(key);
+    if (ret == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return ret;
+  }
+
+  public synchronized void put(K key, V value) {
+    map.put(key, value);
+  }
+
+  /**
+   * removes all entries; the statistics are kept
+   */
+  public synchronized void clear() {
+    map.clear();
+  }
+
+  public synchronized int size() {
+    return map.size();
+  }
+
+  public synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * changes the number of entries the cache may hold; if it holds more, the
+   * least recently used ones are evicted, and the others are kept
+   */
+  public synchronized void setMaxSize(int maxSize) {
+    checkSize(maxSize);
+    this.maxSize = maxSize;
+    Iterator<K> it = map.keySet().iterator();
+    while (map.size() > maxSize) {
+      it.next();
+      it.remove();
+      evictions++;
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return the fraction of lookups that were hits, or 0 if there were none
+   */
+  public synchronized double getHitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  public synchronized String toString() {
+    return map.size() + "/" + maxSize + " entries, " + hits + " hits, "
+        + misses + " misses, " + evictions + " evictions";
+  }
+
+  private static void checkSize(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("cache size must be positive: " + maxSize);
+    }
+  }
+}
@@ -40,7 +40,7 @@ public class AllocDotField extends Node {
 	this.base = base;
 	this.field = field;
 	base.addField( this, field );
-        pag.getAllocDotFieldNodeNumberer().add( this );
+        pag.numberNode( this );
     }
 
     /* End of package methods. */
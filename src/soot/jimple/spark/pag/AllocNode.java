@@ -67,7 +67,7 @@ public class AllocNode extends Node implements Context {
         }
 	this.newExpr = newExpr;
         if( newExpr instanceof ContextVarNode ) throw new RuntimeException();
-        pag.getAllocNodeNumberer().add( this );
+        pag.numberNode( this );
     }
     /** Registers a AllocDotField as having this node as its base. */
     void addField( AllocDotField adf, SparkField field ) {
@@ -0,0 +1,64 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.pag;
+
+import soot.util.ArrayNumberer;
+
+/** The targets of one node along one kind of pointer assignment graph
+ * edge, as filled in by the <code>*Row</code> methods of {@link PAG}.
+ *
+ * A propagator keeps one instance and refills it for each node, so that
+ * walking the edges allocates nothing. With the compact-pag option the
+ * row points straight into the int array of the edge map; otherwise it
+ * wraps the node array of the hash map. A row stays valid while edges
+ * are added, but only until it is refilled.
+ */
+public final class EdgeRow {
+    private int[] numbers;
+    private int offset;
+    private int size;
+    private ArrayNumberer targets;
+    private Node[] nodes;
+
+    /** Returns the number of targets in this row. */
+    public int size() { return size; }
+
+    /** Returns the i-th target of this row. */
+    public Node get( int i ) {
+        if( nodes != null ) return nodes[i];
+        return (Node) targets.get( numbers[offset+i] );
+    }
+
+    void set( int[] numbers, int offset, int size, ArrayNumberer targets ) {
+        this.numbers = numbers;
+        this.offset = offset;
+        this.size = size;
+        this.targets = targets;
+        this.nodes = null;
+    }
+
+    void set( Node[] nodes ) {
+        this.numbers = null;
+        this.offset = 0;
+        this.size = nodes.length;
+        this.targets = null;
+        this.nodes = nodes;
+    }
+}
@@ -130,7 +130,8 @@ public final class MethodPAG {
         MethodPAG ret = G.v().MethodPAG_methodToPag.get( m );
         if( ret == null ) { 
             ret = new MethodPAG( pag, m );
-            G.v().MethodPAG_methodToPag.put( m, ret );
+            MethodPAG old = G.v().MethodPAG_methodToPag.putIfAbsent( m, ret );
+            if( old != null ) ret = old;
         }
         return ret;
     }
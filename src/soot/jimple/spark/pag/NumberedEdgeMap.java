@@ -0,0 +1,310 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.pag;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import soot.util.ArrayNumberer;
+
+/** Stores one kind of pointer assignment graph edge as int arrays indexed
+ * by node number, instead of a map from nodes to sets of nodes.
+ *
+ * While the graph is being built, each source node has its own growable
+ * row of target numbers. {@link #freeze()} packs all rows into a single
+ * compressed-sparse-row array; a row that changes after that is copied
+ * back out into a row of its own. Propagators read rows in place
+ * through {@link EdgeRow}.
+ */
+final class NumberedEdgeMap {
+    private static final int[] EMPTY_ROW = new int[0];
+    /** Rows longer than this get a hash index to find duplicates. */
+    private static final int INDEX_THRESHOLD = 16;
+
+    private final ArrayNumberer sources;
+    private final ArrayNumberer targets;
+
+    /** The source numbers that are keys of this map. */
+    private final BitSet present = new BitSet();
+
+    /** Packed rows: the targets of source k are
+     * packed[packedStart[k]] to packed[packedStart[k+1]-1]. */
+    private int[] packedStart = EMPTY_ROW;
+    private int[] packed = EMPTY_ROW;
+
+    /** Rows that have been changed since the last freeze; where non-null,
+     * the first rowSize[k] entries of rows[k] override the packed row. */
+    private int[][] rows = new int[16][];
+    private int[] rowSize = new int[16];
+    /** Open-addressing sets of the targets in long rows, or null. */
+    private int[][] rowIndex = new int[16][];
+
+    NumberedEdgeMap( ArrayNumberer sources, ArrayNumberer targets ) {
+        this.sources = sources;
+        this.targets = targets;
+    }
+
+    /** Adds an edge from key to value; returns true if it was not there. */
+    boolean add( Node key, Node value ) {
+        int k = key.getNumber();
+        present.set( k );
+        return addNumber( k, value.getNumber() );
+    }
+
+    /** Returns the targets of key, first replacing any that have been
+     * merged into other nodes if somethingMerged is set. */
+    Node[] lookup( Node key, boolean somethingMerged ) {
+        int k = key.getNumber();
+        if( !present.get( k ) ) return PAG.EMPTY_NODE_ARRAY;
+        int[] row = row( k );
+        int size = size( k );
+        int offset = offset( k );
+        Node[] ret = new Node[size];
+        for( int i = 0; i < size; i++ ) {
+            ret[i] = (Node) targets.get( row[offset+i] );
+        }
+        if( !somethingMerged ) return ret;
+        for( int i = 0; i < size; i++ ) {
+            Node rep = ret[i].getReplacement();
+            if( rep != ret[i] || rep == key ) {
+                ret = withReplacements( key, ret, i );
+                int[] newRow = new int[ret.length];
+                for( int j = 0; j < ret.length; j++ ) newRow[j] = ret[j].getNumber();
+                setRow( k, newRow );
+                break;
+            }
+        }
+        return ret;
+    }
+
+    /** Points row at the targets of key without copying them, first
+     * replacing any that have been merged, as lookup does. */
+    void fill( Node key, boolean somethingMerged, EdgeRow row ) {
+        int k = key.getNumber();
+        if( !present.get( k ) ) {
+            row.set( EMPTY_ROW, 0, 0, targets );
+            return;
+        }
+        // lookup stores the replaced row, so this happens once per merge
+        if( somethingMerged && hasReplacements( key ) ) lookup( key, true );
+        row.set( row( k ), offset( k ), size( k ), targets );
+    }
+
+    /** Returns true if a target of key has been merged into another node
+     * or into key itself. */
+    private boolean hasReplacements( Node key ) {
+        int k = key.getNumber();
+        int[] row = row( k );
+        int size = size( k );
+        int offset = offset( k );
+        for( int i = 0; i < size; i++ ) {
+            Node n = (Node) targets.get( row[offset+i] );
+            Node rep = n.getReplacement();
+            if( rep != n || rep == key ) return true;
+        }
+        return false;
+    }
+
+    /** Replaces the nodes from position i on by their representatives,
+     * dropping duplicates and key itself. */
+    private static Node[] withReplacements( Node key, Node[] nodes, int i ) {
+        Set<Node> seen = nodes.length > 75 ? new HashSet<Node>( nodes.length * 2 ) : null;
+        int j = i;
+        if( seen != null ) for( int k = 0; k < i; k++ ) seen.add( nodes[k] );
+        outer: for( ; i < nodes.length; i++ ) {
+            Node rep = nodes[i].getReplacement();
+            if( rep == key ) continue;
+            if( seen != null ) {
+                if( !seen.add( rep ) ) continue;
+            } else {
+                for( int k = 0; k < j; k++ )
+                    if( rep == nodes[k] ) continue outer;
+            }
+            nodes[j++] = rep;
+        }
+        Node[] ret = new Node[j];
+        System.arraycopy( nodes, 0, ret, 0, j );
+        return ret;
+    }
+
+    /** Moves all edges out of n2 into n1, after n2 has been merged into n1. */
+    void merge( Node n1, Node n2 ) {
+        int k2 = n2.getNumber();
+        if( !contains( n2 ) ) return;
+        int k1 = n1.getNumber();
+        present.set( k1 );
+        int[] row = row( k2 );
+        int size = size( k2 );
+        int offset = offset( k2 );
+        for( int i = 0; i < size; i++ ) addNumber( k1, row[offset+i] );
+        setRow( k2, EMPTY_ROW );
+        present.clear( k2 );
+    }
+
+    /** Returns true if n is a key of this map. */
+    boolean contains( Object o ) {
+        if( !( o instanceof Node ) ) return false;
+        int k = ( (Node) o ).getNumber();
+        // nodes of another kind may have the same number
+        return k > 0 && present.get( k ) && sources.get( k ) == o;
+    }
+
+    /** Returns a live view of the source nodes of this map. */
+    Set<Object> keySet() {
+        return new AbstractSet<Object>() {
+            public Iterator<Object> iterator() {
+                return new Iterator<Object>() {
+                    int next = present.nextSetBit( 0 );
+                    public boolean hasNext() { return next >= 0; }
+                    public Object next() {
+                        if( next < 0 ) throw new NoSuchElementException();
+                        Object ret = sources.get( next );
+                        next = present.nextSetBit( next + 1 );
+                        return ret;
+                    }
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+            public int size() { return present.cardinality(); }
+            public boolean contains( Object o ) { return NumberedEdgeMap.this.contains( o ); }
+        };
+    }
+
+    /** Packs all rows into a single array. */
+    void freeze() {
+        int numKeys = present.length();
+        int[] newStart = new int[numKeys + 1];
+        int total = 0;
+        for( int k = 0; k < numKeys; k++ ) {
+            newStart[k] = total;
+            if( present.get( k ) ) total += size( k );
+        }
+        newStart[numKeys] = total;
+        int[] newPacked = new int[total];
+        for( int k = present.nextSetBit( 0 ); k >= 0; k = present.nextSetBit( k + 1 ) ) {
+            System.arraycopy( row( k ), offset( k ), newPacked, newStart[k], size( k ) );
+        }
+        packedStart = newStart;
+        packed = newPacked;
+        rows = new int[16][];
+        rowSize = new int[16];
+        rowIndex = new int[16][];
+    }
+
+    void clear() {
+        present.clear();
+        freeze();
+    }
+
+    private int[] row( int k ) {
+        if( k < rows.length && rows[k] != null ) return rows[k];
+        return packed;
+    }
+    private int offset( int k ) {
+        if( k < rows.length && rows[k] != null ) return 0;
+        return k + 1 < packedStart.length ? packedStart[k] : 0;
+    }
+    private int size( int k ) {
+        if( k < rows.length && rows[k] != null ) return rowSize[k];
+        return k + 1 < packedStart.length ? packedStart[k+1] - packedStart[k] : 0;
+    }
+
+    private void setRow( int k, int[] row ) {
+        setRow( k, row, row.length );
+    }
+    /** Makes the first size entries of row the targets of source k. */
+    private void setRow( int k, int[] row, int size ) {
+        ensureCapacity( k );
+        rows[k] = row;
+        rowSize[k] = size;
+        rowIndex[k] = null;
+        if( size > INDEX_THRESHOLD ) buildIndex( k );
+    }
+
+    private boolean addNumber( int k, int v ) {
+        ensureCapacity( k );
+        if( rows[k] == null ) {
+            // first change since the last freeze: copy the packed row out
+            int size = size( k );
+            int[] row = new int[Math.max( 4, size + 1 )];
+            System.arraycopy( packed, offset( k ), row, 0, size );
+            setRow( k, row, size );
+        }
+        int[] row = rows[k];
+        int size = rowSize[k];
+        if( rowIndex[k] != null ) {
+            if( size * 2 >= rowIndex[k].length ) buildIndex( k );
+            if( !insert( rowIndex[k], v ) ) return false;
+        } else {
+            for( int i = 0; i < size; i++ ) if( row[i] == v ) return false;
+        }
+        if( size == row.length ) {
+            int[] newRow = new int[size * 2];
+            System.arraycopy( row, 0, newRow, 0, size );
+            rows[k] = row = newRow;
+        }
+        row[size++] = v;
+        rowSize[k] = size;
+        if( size == INDEX_THRESHOLD + 1 && rowIndex[k] == null ) buildIndex( k );
+        return true;
+    }
+
+    /** (Re)builds the hash index of row k, with room for it to double. */
+    private void buildIndex( int k ) {
+        int size = rowSize[k];
+        int[] index = new int[Integer.highestOneBit( size * 4 ) * 2];
+        int[] row = rows[k];
+        for( int i = 0; i < size; i++ ) insert( index, row[i] );
+        rowIndex[k] = index;
+    }
+
+    /** Inserts v (never 0, the empty slot) into an open-addressing set;
+     * returns false if it was already there. */
+    private static boolean insert( int[] index, int v ) {
+        int mask = index.length - 1;
+        int i = ( v * 0x9E3779B9 ) >>> 7 & mask;
+        while( index[i] != 0 ) {
+            if( index[i] == v ) return false;
+            i = ( i + 1 ) & mask;
+        }
+        index[i] = v;
+        return true;
+    }
+
+    private void ensureCapacity( int k ) {
+        if( k < rows.length ) return;
+        int newLength = Math.max( rows.length * 2, k + 1 );
+        int[][] newRows = new int[newLength][];
+        System.arraycopy( rows, 0, newRows, 0, rows.length );
+        rows = newRows;
+        int[] newSize = new int[newLength];
+        System.arraycopy( rowSize, 0, newSize, 0, rowSize.length );
+        rowSize = newSize;
+        int[][] newIndex = new int[newLength][];
+        System.arraycopy( rowIndex, 0, newIndex, 0, rowIndex.length );
+        rowIndex = newIndex;
+    }
+}
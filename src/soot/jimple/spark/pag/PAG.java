@@ -21,16 +21,23 @@ package soot.jimple.spark.pag;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import soot.Body;
 import soot.Context;
 import soot.FastHierarchy;
 import soot.G;
 import soot.Kind;
 import soot.Local;
+import soot.PackManager;
 import soot.PointsToAnalysis;
 import soot.PointsToSet;
 import soot.RefLikeType;
@@ -81,6 +88,16 @@ import soot.util.queue.QueueReader;
 public class PAG implements PointsToAnalysis {
     public PAG( final SparkOptions opts ) {
         this.opts = opts;
+        if( opts.compact_pag() ) {
+            simpleEdges = new NumberedEdgeMap( varNodeNumberer, varNodeNumberer );
+            loadEdges = new NumberedEdgeMap( fieldRefNodeNumberer, varNodeNumberer );
+            storeEdges = new NumberedEdgeMap( varNodeNumberer, fieldRefNodeNumberer );
+            allocEdges = new NumberedEdgeMap( allocNodeNumberer, varNodeNumberer );
+            simpleInvEdges = new NumberedEdgeMap( varNodeNumberer, varNodeNumberer );
+            loadInvEdges = new NumberedEdgeMap( varNodeNumberer, fieldRefNodeNumberer );
+            storeInvEdges = new NumberedEdgeMap( fieldRefNodeNumberer, varNodeNumberer );
+            allocInvEdges = new NumberedEdgeMap( varNodeNumberer, allocNodeNumberer );
+        }
         if( opts.add_tags() ) {
             nodeToTag = new HashMap<Node, Tag>();
         }
@@ -236,11 +253,19 @@ public class PAG implements PointsToAnalysis {
         if( opts.verbose() ) {
             G.v().out.println( "Cleaning up graph for merged nodes" );
         }
-        Map[] maps = { simple, alloc, store, load,
-            simpleInv, allocInv, storeInv, loadInv };
-        for (Map<Object, Object> m : maps) {
-            for (Object object : m.keySet()) {
-                lookup( m, object );
+        if( simpleEdges != null ) {
+            for (NumberedEdgeMap m : numberedEdgeMaps()) {
+                for (Object object : m.keySet()) {
+                    m.lookup( (Node) object, somethingMerged );
+                }
+            }
+        } else {
+            Map[] maps = { simple, alloc, store, load,
+                simpleInv, allocInv, storeInv, loadInv };
+            for (Map<Object, Object> m : maps) {
+                for (Object object : m.keySet()) {
+                    lookup( m, object );
+                }
             }
         }
         somethingMerged = false;
@@ -249,18 +274,26 @@ public class PAG implements PointsToAnalysis {
         }
     }
     public boolean doAddSimpleEdge( VarNode from, VarNode to ) {
+        if( simpleEdges != null )
+            return simpleEdges.add( from, to ) | simpleInvEdges.add( to, from );
         return addToMap( simple, from, to ) | addToMap( simpleInv, to, from );
     }
 
     public boolean doAddStoreEdge( VarNode from, FieldRefNode to ) {
+        if( storeEdges != null )
+            return storeEdges.add( from, to ) | storeInvEdges.add( to, from );
         return addToMap( store, from, to ) | addToMap( storeInv, to, from );
     }
 
     public boolean doAddLoadEdge( FieldRefNode from, VarNode to ) {
+        if( loadEdges != null )
+            return loadEdges.add( from, to ) | loadInvEdges.add( to, from );
         return addToMap( load, from, to ) | addToMap( loadInv, to, from );
     }
 
     public boolean doAddAllocEdge( AllocNode from, VarNode to ) {
+        if( allocEdges != null )
+            return allocEdges.add( from, to ) | allocInvEdges.add( to, from );
         return addToMap( alloc, from, to ) | addToMap( allocInv, to, from );
     }
 
@@ -271,6 +304,13 @@ public class PAG implements PointsToAnalysis {
         somethingMerged = true;
         if( ofcg() != null ) ofcg().mergedWith( n1, n2 );
 
+        if( simpleEdges != null ) {
+            for (NumberedEdgeMap m : numberedEdgeMaps()) {
+                m.merge( n1, n2 );
+            }
+            return;
+        }
+
         Map[] maps = { simple, alloc, store, load,
             simpleInv, allocInv, storeInv, loadInv };
         for (Map<Node, Object> m : maps) {
@@ -385,38 +425,80 @@ public class PAG implements PointsToAnalysis {
     }
 
     public Node[] simpleLookup( VarNode key ) 
-    { return lookup( simple, key ); }
+    { return simpleEdges != null ? simpleEdges.lookup( key, somethingMerged ) : lookup( simple, key ); }
     public Node[] simpleInvLookup( VarNode key ) 
-    { return lookup( simpleInv, key ); }
+    { return simpleInvEdges != null ? simpleInvEdges.lookup( key, somethingMerged ) : lookup( simpleInv, key ); }
     public Node[] loadLookup( FieldRefNode key ) 
-    { return lookup( load, key ); }
+    { return loadEdges != null ? loadEdges.lookup( key, somethingMerged ) : lookup( load, key ); }
     public Node[] loadInvLookup( VarNode key ) 
-    { return lookup( loadInv, key ); }
+    { return loadInvEdges != null ? loadInvEdges.lookup( key, somethingMerged ) : lookup( loadInv, key ); }
     public Node[] storeLookup( VarNode key ) 
-    { return lookup( store, key ); }
+    { return storeEdges != null ? storeEdges.lookup( key, somethingMerged ) : lookup( store, key ); }
     public Node[] storeInvLookup( FieldRefNode key ) 
-    { return lookup( storeInv, key ); }
+    { return storeInvEdges != null ? storeInvEdges.lookup( key, somethingMerged ) : lookup( storeInv, key ); }
     public Node[] allocLookup( AllocNode key ) 
-    { return lookup( alloc, key ); }
+    { return allocEdges != null ? allocEdges.lookup( key, somethingMerged ) : lookup( alloc, key ); }
     public Node[] allocInvLookup( VarNode key ) 
-    { return lookup( allocInv, key ); }
-    public Set<Object> simpleSources() { return simple.keySet(); }
-    public Set<Object> allocSources() { return alloc.keySet(); }
-    public Set<Object> storeSources() { return store.keySet(); }
-    public Set<Object> loadSources() { return load.keySet(); }
-    public Set<Object> simpleInvSources() { return simpleInv.keySet(); }
-    public Set<Object> allocInvSources() { return allocInv.keySet(); }
-    public Set<Object> storeInvSources() { return storeInv.keySet(); }
-    public Set<Object> loadInvSources() { return loadInv.keySet(); }
-
-    public Iterator<Object> simpleSourcesIterator() { return simple.keySet().iterator(); }
-    public Iterator<Object> allocSourcesIterator() { return alloc.keySet().iterator(); }
-    public Iterator<Object> storeSourcesIterator() { return store.keySet().iterator(); }
-    public Iterator<Object> loadSourcesIterator() { return load.keySet().iterator(); }
-    public Iterator<Object> simpleInvSourcesIterator() { return simpleInv.keySet().iterator(); }
-    public Iterator<Object> allocInvSourcesIterator() { return allocInv.keySet().iterator(); }
-    public Iterator<Object> storeInvSourcesIterator() { return storeInv.keySet().iterator(); }
-    public Iterator<Object> loadInvSourcesIterator() { return loadInv.keySet().iterator(); }
+    { return allocInvEdges != null ? allocInvEdges.lookup( key, somethingMerged ) : lookup( allocInv, key ); }
+    /** Fills row with the targets of key, like simpleLookup, but without
+     * copying them out of the compact edge maps; returns row. */
+    public EdgeRow simpleRow( VarNode key, EdgeRow row ) {
+        if( simpleEdges != null ) simpleEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( simple, key ) );
+        return row;
+    }
+    public EdgeRow simpleInvRow( VarNode key, EdgeRow row ) {
+        if( simpleInvEdges != null ) simpleInvEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( simpleInv, key ) );
+        return row;
+    }
+    public EdgeRow loadRow( FieldRefNode key, EdgeRow row ) {
+        if( loadEdges != null ) loadEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( load, key ) );
+        return row;
+    }
+    public EdgeRow loadInvRow( VarNode key, EdgeRow row ) {
+        if( loadInvEdges != null ) loadInvEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( loadInv, key ) );
+        return row;
+    }
+    public EdgeRow storeRow( VarNode key, EdgeRow row ) {
+        if( storeEdges != null ) storeEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( store, key ) );
+        return row;
+    }
+    public EdgeRow storeInvRow( FieldRefNode key, EdgeRow row ) {
+        if( storeInvEdges != null ) storeInvEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( storeInv, key ) );
+        return row;
+    }
+    public EdgeRow allocRow( AllocNode key, EdgeRow row ) {
+        if( allocEdges != null ) allocEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( alloc, key ) );
+        return row;
+    }
+    public EdgeRow allocInvRow( VarNode key, EdgeRow row ) {
+        if( allocInvEdges != null ) allocInvEdges.fill( key, somethingMerged, row );
+        else row.set( lookup( allocInv, key ) );
+        return row;
+    }
+    public Set<Object> simpleSources() { return simpleEdges != null ? simpleEdges.keySet() : simple.keySet(); }
+    public Set<Object> allocSources() { return allocEdges != null ? allocEdges.keySet() : alloc.keySet(); }
+    public Set<Object> storeSources() { return storeEdges != null ? storeEdges.keySet() : store.keySet(); }
+    public Set<Object> loadSources() { return loadEdges != null ? loadEdges.keySet() : load.keySet(); }
+    public Set<Object> simpleInvSources() { return simpleInvEdges != null ? simpleInvEdges.keySet() : simpleInv.keySet(); }
+    public Set<Object> allocInvSources() { return allocInvEdges != null ? allocInvEdges.keySet() : allocInv.keySet(); }
+    public Set<Object> storeInvSources() { return storeInvEdges != null ? storeInvEdges.keySet() : storeInv.keySet(); }
+    public Set<Object> loadInvSources() { return loadInvEdges != null ? loadInvEdges.keySet() : loadInv.keySet(); }
+
+    public Iterator<Object> simpleSourcesIterator() { return simpleSources().iterator(); }
+    public Iterator<Object> allocSourcesIterator() { return allocSources().iterator(); }
+    public Iterator<Object> storeSourcesIterator() { return storeSources().iterator(); }
+    public Iterator<Object> loadSourcesIterator() { return loadSources().iterator(); }
+    public Iterator<Object> simpleInvSourcesIterator() { return simpleInvSources().iterator(); }
+    public Iterator<Object> allocInvSourcesIterator() { return allocInvSources().iterator(); }
+    public Iterator<Object> storeInvSourcesIterator() { return storeInvSources().iterator(); }
+    public Iterator<Object> loadInvSourcesIterator() { return loadInvSources().iterator(); }
 
     static private int getSize( Object set ) {
         if( set instanceof Set ) return ((Set) set).size();
@@ -441,6 +523,10 @@ public class PAG implements PointsToAnalysis {
     }
 
     private void addNodeTag( Node node, SootMethod m ) {
+        if( buildLog != null ) {
+            buildLog.get().add( new NodeTag( node, m ) );
+            return;
+        }
         if( nodeToTag != null ) {
             Tag tag;
             if( m == null ) {
@@ -452,41 +538,65 @@ public class PAG implements PointsToAnalysis {
         }
     }
     public AllocNode makeAllocNode( Object newExpr, Type type, SootMethod m ) {
-        if( opts.types_for_sites() || opts.vta() ) newExpr = type;
-	AllocNode ret = valToAllocNode.get( newExpr );
-	if( ret == null ) {
-	    valToAllocNode.put( newExpr, ret = new AllocNode( this, newExpr, type, m ) );
-            newAllocNodes.add( ret );
+        if( opts.types_for_sites() || opts.vta() ) {
+            newExpr = type;
+        } else if( m != null ) {
+            NodeTable table = nodeTable();
+            if( table != null ) return makeAllocNode( table.allocNodes, newExpr, type, m );
+        }
+        Lock lock = lockWhileBuilding( valToAllocNode );
+        try {
+            return makeAllocNode( valToAllocNode, newExpr, type, m );
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
+    }
+    private AllocNode makeAllocNode( Map<Object, AllocNode> allocNodes,
+            Object newExpr, Type type, SootMethod m ) {
+        AllocNode ret = allocNodes.get( newExpr );
+        if( ret == null ) {
+            allocNodes.put( newExpr, ret = new AllocNode( this, newExpr, type, m ) );
+            addAllocNode( ret );
             addNodeTag( ret, m );
-	} else if( !( ret.getType().equals( type ) ) ) {
-	    throw new RuntimeException( "NewExpr "+newExpr+" of type "+type+
-		    " previously had type "+ret.getType() );
-	}
-	return ret;
+        } else if( !( ret.getType().equals( type ) ) ) {
+            throw new RuntimeException( "NewExpr "+newExpr+" of type "+type+
+                    " previously had type "+ret.getType() );
+        }
+        return ret;
     }
     public AllocNode makeStringConstantNode( String s ) {
         if( opts.types_for_sites() || opts.vta() )
             return makeAllocNode( RefType.v( "java.lang.String" ),
                     RefType.v( "java.lang.String" ), null );
-        StringConstantNode ret = (StringConstantNode) valToAllocNode.get( s );
-	if( ret == null ) {
-	    valToAllocNode.put( s, ret = new StringConstantNode( this, s ) );
-            newAllocNodes.add( ret );
-            addNodeTag( ret, null );
-	}
-	return ret;
+        Lock lock = lockWhileBuilding( valToAllocNode );
+        try {
+            StringConstantNode ret = (StringConstantNode) valToAllocNode.get( s );
+            if( ret == null ) {
+                valToAllocNode.put( s, ret = new StringConstantNode( this, s ) );
+                addAllocNode( ret );
+                addNodeTag( ret, null );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
     }
     public AllocNode makeClassConstantNode( ClassConstant cc ) {
         if( opts.types_for_sites() || opts.vta() )
             return makeAllocNode( RefType.v( "java.lang.Class" ),
                     RefType.v( "java.lang.Class" ), null );
-        ClassConstantNode ret = (ClassConstantNode) valToAllocNode.get(cc);
-	if( ret == null ) {
-	    valToAllocNode.put(cc, ret = new ClassConstantNode(this, cc));
-            newAllocNodes.add( ret );
-            addNodeTag( ret, null );
-	}
-	return ret;
+        Lock lock = lockWhileBuilding( valToAllocNode );
+        try {
+            ClassConstantNode ret = (ClassConstantNode) valToAllocNode.get(cc);
+            if( ret == null ) {
+                valToAllocNode.put(cc, ret = new ClassConstantNode(this, cc));
+                addAllocNode( ret );
+                addNodeTag( ret, null );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
     }
 
     ChunkedQueue newAllocNodes = new ChunkedQueue();
@@ -503,8 +613,16 @@ public class PAG implements PointsToAnalysis {
     public LocalVarNode findLocalVarNode( Object value ) {
         if( opts.rta() ) {
             value = null;
-        } else if( value instanceof Local ) {
-            return (LocalVarNode) localToNodeMap.get( (Local) value );
+        } else {
+            NodeTable table = nodeTable();
+            if( table != null ) {
+                LocalVarNode ret = value instanceof Local ?
+                    table.locals.get( value ) : table.localVarNodes.get( value );
+                if( ret != null ) return ret;
+            }
+            if( value instanceof Local ) {
+                return (LocalVarNode) localToNodeMap.get( (Local) value );
+            }
         }
 	return valToLocalVarNode.get( value );
     }
@@ -514,16 +632,21 @@ public class PAG implements PointsToAnalysis {
             value = null;
             type = RefType.v("java.lang.Object");
         }
-        GlobalVarNode ret = valToGlobalVarNode.get( value );
-        if( ret == null ) {
-            valToGlobalVarNode.put( value, 
-                    ret = new GlobalVarNode( this, value, type ) );
-            addNodeTag( ret, null );
-        } else if( !( ret.getType().equals( type ) ) ) {
-            throw new RuntimeException( "Value "+value+" of type "+type+
-                    " previously had type "+ret.getType() );
+        Lock lock = lockWhileBuilding( valToGlobalVarNode );
+        try {
+            GlobalVarNode ret = valToGlobalVarNode.get( value );
+            if( ret == null ) {
+                valToGlobalVarNode.put( value, 
+                        ret = new GlobalVarNode( this, value, type ) );
+                addNodeTag( ret, null );
+            } else if( !( ret.getType().equals( type ) ) ) {
+                throw new RuntimeException( "Value "+value+" of type "+type+
+                        " previously had type "+ret.getType() );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
         }
-	return ret;
     }
     /** Finds or creates the LocalVarNode for the variable value, of type type. */
     public LocalVarNode makeLocalVarNode( Object value, Type type, SootMethod method ) {
@@ -534,10 +657,13 @@ public class PAG implements PointsToAnalysis {
         } else if( value instanceof Local ) {
             Local val = (Local) value;
             if( val.getNumber() == 0 ) Scene.v().getLocalNumberer().add(val);
-            LocalVarNode ret = (LocalVarNode) localToNodeMap.get( val );
+            NodeTable table = nodeTable();
+            LocalVarNode ret = table == null ?
+                (LocalVarNode) localToNodeMap.get( val ) : table.locals.get( val );
             if( ret == null ) {
-                localToNodeMap.put( (Local) value,
-                    ret = new LocalVarNode( this, value, type, method ) );
+                ret = new LocalVarNode( this, value, type, method );
+                if( table == null ) localToNodeMap.put( val, ret );
+                else table.locals.put( val, ret );
                 addNodeTag( ret, method );
             } else if( !( ret.getType().equals( type ) ) ) {
                 throw new RuntimeException( "Value "+value+" of type "+type+
@@ -545,16 +671,24 @@ public class PAG implements PointsToAnalysis {
             }
             return ret;
         }
-        LocalVarNode ret = valToLocalVarNode.get( value );
-        if( ret == null ) {
-            valToLocalVarNode.put( value, 
-                    ret = new LocalVarNode( this, value, type, method ) );
-            addNodeTag( ret, method );
-        } else if( !( ret.getType().equals( type ) ) ) {
-            throw new RuntimeException( "Value "+value+" of type "+type+
-                    " previously had type "+ret.getType() );
+        NodeTable table = method == null ? null : nodeTable();
+        Lock lock = table == null ? lockWhileBuilding( valToLocalVarNode ) : null;
+        try {
+            Map<Object, LocalVarNode> localVarNodes =
+                table == null ? valToLocalVarNode : table.localVarNodes;
+            LocalVarNode ret = localVarNodes.get( value );
+            if( ret == null ) {
+                localVarNodes.put( value, 
+                        ret = new LocalVarNode( this, value, type, method ) );
+                addNodeTag( ret, method );
+            } else if( !( ret.getType().equals( type ) ) ) {
+                throw new RuntimeException( "Value "+value+" of type "+type+
+                        " previously had type "+ret.getType() );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
         }
-	return ret;
     }
     /** Finds the ContextVarNode for base variable value and context
      * context, or returns null. */
@@ -573,12 +707,17 @@ public class PAG implements PointsToAnalysis {
     /** Finds or creates the ContextVarNode for base variable base and context
      * context, of type type. */
     public ContextVarNode makeContextVarNode( LocalVarNode base, Context context ) {
-	ContextVarNode ret = base.context( context );
-	if( ret == null ) {
-	    ret = new ContextVarNode( this, base, context );
-            addNodeTag( ret, base.getMethod() );
-	}
-	return ret;
+        Lock lock = lockWhileBuilding( base );
+        try {
+            ContextVarNode ret = base.context( context );
+            if( ret == null ) {
+                ret = new ContextVarNode( this, base, context );
+                addNodeTag( ret, base.getMethod() );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
     }
     /** Finds the FieldRefNode for base variable value and field
      * field, or returns null. */
@@ -611,16 +750,21 @@ public class PAG implements PointsToAnalysis {
     /** Finds or creates the FieldRefNode for base variable base and field
      * field, of type type. */
     public FieldRefNode makeFieldRefNode( VarNode base, SparkField field ) {
-	FieldRefNode ret = base.dot( field );
-	if( ret == null ) {
-	    ret = new FieldRefNode( this, base, field );
-	    if( base instanceof LocalVarNode ) {
-	    	addNodeTag( ret, ((LocalVarNode) base).getMethod() );
-	    } else {
-	    	addNodeTag( ret, null );
-	    }
-	}
-	return ret;
+        Lock lock = lockWhileBuilding( base );
+        try {
+            FieldRefNode ret = base.dot( field );
+            if( ret == null ) {
+                ret = new FieldRefNode( this, base, field );
+                if( base instanceof LocalVarNode ) {
+                    addNodeTag( ret, ((LocalVarNode) base).getMethod() );
+                } else {
+                    addNodeTag( ret, null );
+                }
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
     }
     /** Finds the AllocDotField for base AllocNode an and field
      * field, or returns null. */
@@ -630,11 +774,16 @@ public class PAG implements PointsToAnalysis {
     /** Finds or creates the AllocDotField for base variable baseValue and field
      * field, of type t. */
     public AllocDotField makeAllocDotField( AllocNode an, SparkField field ) {
-	AllocDotField ret = an.dot( field );
-	if( ret == null ) {
-	    ret = new AllocDotField( this, an, field );
-	}
-	return ret;
+        Lock lock = lockWhileBuilding( an );
+        try {
+            AllocDotField ret = an.dot( field );
+            if( ret == null ) {
+                ret = new AllocDotField( this, an, field );
+            }
+            return ret;
+        } finally {
+            if( lock != null ) lock.unlock();
+        }
     }
 
     public boolean addSimpleEdge( VarNode from, VarNode to ) {
@@ -689,8 +838,14 @@ public class PAG implements PointsToAnalysis {
         return false;
     }
 
-    /** Adds an edge to the graph, returning false if it was already there. */
+    /** Adds an edge to the graph, returning false if it was already there.
+     * While method PAGs are built concurrently, the edge is only added when
+     * they are merged, and true is returned. */
     public final boolean addEdge( Node from, Node to ) {
+        if( buildLog != null ) {
+            buildLog.get().add( new Pair( from, to ) );
+            return true;
+        }
         from = from.getReplacement();
         to = to.getReplacement();
 	if( from instanceof VarNode ) {
@@ -723,6 +878,10 @@ public class PAG implements PointsToAnalysis {
     /** Adds the base of a dereference to the list of dereferenced 
      * variables. */
     public void addDereference( VarNode base ) {
+        if( buildLog != null ) {
+            buildLog.get().add( new Dereference( base ) );
+            return;
+        }
         dereferences.add( base );
     }
 
@@ -1074,6 +1233,11 @@ public class PAG implements PointsToAnalysis {
      */
     public void cleanPAG()
     {
+        if( simpleEdges != null ) {
+            for (NumberedEdgeMap m : numberedEdgeMaps()) {
+                m.clear();
+            }
+        }
     	simple.clear();
     	load.clear();
     	store.clear();
@@ -1083,9 +1247,180 @@ public class PAG implements PointsToAnalysis {
     	storeInv.clear();
     	allocInv.clear();
     }
+
+    /** Builds the MethodPAGs of methods and adds them to this PAG, adding the
+     * edges in the same order as building and adding them one after the
+     * other would. Except for native methods, the MethodPAGs are built on
+     * numThreads worker threads. Each worker keeps the nodes only the
+     * method it builds can make in a table of its own, and logs the edges
+     * it adds; the tables are then merged into this PAG, and the logs are
+     * replayed in the order of methods. The nodes are numbered as they are
+     * made, so their numbers, unlike the edges, depend on the timing of
+     * the workers. */
+    public void buildMethodPAGs( List<SootMethod> methods, final int numThreads ) {
+        // made here so that workers only look them up
+        ArrayElement.v();
+        for( SootMethod m : methods ) {
+            if( m.getReturnType() instanceof RefLikeType ) {
+                Parm.v( m, PointsToAnalysis.RETURN_NODE );
+            }
+            if( m.isConcrete() && !m.isPhantom() ) {
+                Body b = m.retrieveActiveBody();
+                for( Local l : b.getLocals() ) {
+                    if( l.getNumber() == 0 ) Scene.v().getLocalNumberer().add( l );
+                }
+            }
+        }
+        final SootMethod[] ms = methods.toArray( new SootMethod[methods.size()] );
+        @SuppressWarnings("unchecked")
+        final List<Object>[] logs = new List[ms.length];
+        final NodeTable[] tables = new NodeTable[numThreads];
+        final ThreadLocal<List<Object>> log = new ThreadLocal<List<Object>>();
+        final ThreadLocal<NodeTable> table = new ThreadLocal<NodeTable>();
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for( int t = 0; t < numThreads; t++ ) {
+            final int first = t;
+            tasks.add( new Runnable() {
+                public void run() {
+                    tables[first] = new NodeTable();
+                    table.set( tables[first] );
+                    for( int i = first; i < ms.length; i += numThreads ) {
+                        // native methods may be simulated by a helper
+                        // that is not thread-safe
+                        if( ms[i].isNative() ) continue;
+                        logs[i] = new ArrayList<Object>();
+                        log.set( logs[i] );
+                        MethodPAG.v( PAG.this, ms[i] ).build();
+                    }
+                    log.remove();
+                    table.remove();
+                }
+            } );
+        }
+        Lock[] locks = new Lock[BUILD_LOCKS];
+        for( int i = 0; i < locks.length; i++ ) locks[i] = new ReentrantLock();
+        buildLocks = locks;
+        buildTables = table;
+        buildLog = log;
+        ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+        try {
+            PackManager.runInParallel( tasks, executor );
+        } finally {
+            executor.shutdownNow();
+            buildLog = null;
+            buildTables = null;
+            buildLocks = null;
+        }
+        for( NodeTable t : tables ) {
+            for( Map.Entry<Local, LocalVarNode> e : t.locals.entrySet() ) {
+                localToNodeMap.put( e.getKey(), e.getValue() );
+            }
+            valToLocalVarNode.putAll( t.localVarNodes );
+            valToAllocNode.putAll( t.allocNodes );
+        }
+        for( int i = 0; i < ms.length; i++ ) {
+            MethodPAG mpag = MethodPAG.v( this, ms[i] );
+            if( logs[i] == null ) {
+                mpag.build();
+            } else {
+                replay( logs[i] );
+                logs[i] = null;
+            }
+            mpag.addToPAG( null );
+        }
+    }
     
+    /** Numbers the new node n. Called by the constructors of nodes. */
+    void numberNode( Node n ) {
+        if( n instanceof VarNode ) {
+            // the finishing number is taken with the number, so that
+            // nodes made concurrently get distinct ones
+            synchronized( varNodeNumberer ) {
+                varNodeNumberer.add( n );
+                ((VarNode) n).setFinishingNumber( ++maxFinishNumber );
+            }
+        } else if( n instanceof FieldRefNode ) {
+            fieldRefNodeNumberer.add( n );
+        } else if( n instanceof AllocDotField ) {
+            allocDotFieldNodeNumberer.add( n );
+        } else {
+            allocNodeNumberer.add( n );
+        }
+    }
+
     /* End of package methods. */
 
+    /** Returns the node table of the current worker if method PAGs are
+     * being built concurrently, or null. */
+    private NodeTable nodeTable() {
+        ThreadLocal<NodeTable> tables = buildTables;
+        return tables == null ? null : tables.get();
+    }
+
+    /** Takes the lock that guards key, a map from values to nodes or a
+     * node whose fields or contexts are made, if method PAGs are being
+     * built concurrently; returns the lock to release, or null. */
+    private Lock lockWhileBuilding( Object key ) {
+        Lock[] locks = buildLocks;
+        if( locks == null ) return null;
+        Lock ret = locks[( System.identityHashCode( key ) & 0x7fffffff ) % locks.length];
+        ret.lock();
+        return ret;
+    }
+
+    /** Adds the new AllocNode n to the queue of new AllocNodes, or logs it
+     * to be added when method PAGs built concurrently are merged. */
+    private void addAllocNode( AllocNode n ) {
+        if( buildLog != null ) buildLog.get().add( n );
+        else newAllocNodes.add( n );
+    }
+
+    /** Does what the worker that wrote log left undone: adds the
+     * AllocNodes, tags, edges and dereferences it logged. */
+    private void replay( List<Object> log ) {
+        for( Object o : log ) {
+            if( o instanceof AllocNode ) {
+                newAllocNodes.add( o );
+            } else if( o instanceof NodeTag ) {
+                NodeTag t = (NodeTag) o;
+                addNodeTag( t.node, t.method );
+            } else if( o instanceof Dereference ) {
+                dereferences.add( ((Dereference) o).base );
+            } else {
+                Pair edge = (Pair) o;
+                addEdge( (Node) edge.getO1(), (Node) edge.getO2() );
+            }
+        }
+    }
+
+    /** The nodes made by a worker while method PAGs are built concurrently
+     * that only the method being built can make: the nodes of its locals
+     * and allocation sites. Nodes that other methods may make too are kept
+     * in the maps of the PAG, behind the locks of the workers. */
+    private static class NodeTable {
+        // locals hash by name and type, which many methods share
+        final Map<Local, LocalVarNode> locals = new IdentityHashMap<Local, LocalVarNode>();
+        final Map<Object, LocalVarNode> localVarNodes = new HashMap<Object, LocalVarNode>();
+        final Map<Object, AllocNode> allocNodes = new HashMap<Object, AllocNode>();
+    }
+
+    /** A tag to be added to a node made concurrently. */
+    private static class NodeTag {
+        final Node node;
+        final SootMethod method;
+        NodeTag( Node node, SootMethod method ) {
+            this.node = node;
+            this.method = method;
+        }
+    }
+
+    /** A dereference to be added when method PAGs built concurrently are
+     * merged. */
+    private static class Dereference {
+        final VarNode base;
+        Dereference( VarNode base ) { this.base = base; }
+    }
+
     protected SparkOptions opts;
 
     protected Map<Object, Object> simple = new HashMap<Object, Object>();
@@ -1098,6 +1433,25 @@ public class PAG implements PointsToAnalysis {
     protected Map<Object, Object> storeInv = new HashMap<Object, Object>();
     protected Map<Object, Object> allocInv = new HashMap<Object, Object>();
 
+    /** With the compact-pag option, the edges are kept in these instead of
+     * in the maps above. */
+    private NumberedEdgeMap simpleEdges, loadEdges, storeEdges, allocEdges;
+    private NumberedEdgeMap simpleInvEdges, loadInvEdges, storeInvEdges, allocInvEdges;
+
+    private NumberedEdgeMap[] numberedEdgeMaps() {
+        return new NumberedEdgeMap[] { simpleEdges, allocEdges, storeEdges, loadEdges,
+            simpleInvEdges, allocInvEdges, storeInvEdges, loadInvEdges };
+    }
+
+    /** Packs the edges into compact arrays, if they are stored by node
+     * number. Edges can still be added afterwards. */
+    public void freezeEdges() {
+        if( simpleEdges == null ) return;
+        for (NumberedEdgeMap m : numberedEdgeMaps()) {
+            m.freeze();
+        }
+    }
+
     protected boolean addToMap( Map<Object, Object> m, Node key, Node value ) {
 	Object valueList = m.get( key );
 
@@ -1136,6 +1490,18 @@ public class PAG implements PointsToAnalysis {
     protected TypeManager typeManager;
     private final LargeNumberedMap localToNodeMap = new LargeNumberedMap( Scene.v().getLocalNumberer() );
     public int maxFinishNumber = 0;
+    /** While method PAGs are built concurrently, the log of the method being
+     * built by each worker thread; null otherwise. */
+    private volatile ThreadLocal<List<Object>> buildLog;
+    /** While method PAGs are built concurrently, the node table of each
+     * worker thread; null otherwise. */
+    private volatile ThreadLocal<NodeTable> buildTables;
+    /** While method PAGs are built concurrently, the locks the workers hold
+     * to make nodes that more than one method may make; null otherwise, so
+     * that nodes are made without locking when the PAG is built by one
+     * thread. */
+    private volatile Lock[] buildLocks;
+    private static final int BUILD_LOCKS = 64;
     private Map<Node, Tag> nodeToTag;
     private final GlobalNodeFactory nodeFactory = new GlobalNodeFactory(this);
     public GlobalNodeFactory nodeFactory() { return nodeFactory; }
@@ -0,0 +1,316 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.pag;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import soot.Body;
+import soot.Local;
+import soot.RefLikeType;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.ValueBox;
+import soot.jimple.AnyNewExpr;
+import soot.jimple.ClassConstant;
+import soot.jimple.NewMultiArrayExpr;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.spark.snapshot.SnapshotReader;
+import soot.jimple.spark.snapshot.SparkSnapshot;
+import soot.options.SparkOptions;
+import soot.toolkits.scalar.Pair;
+
+/** A pointer assignment graph holding the points-to sets saved in a
+ * snapshot by {@link SparkSnapshot}. It has no edges; its nodes are only
+ * made, and their points-to sets read from the snapshot, the first time
+ * they are looked up. Allocation sites only look for their new expression
+ * in the body of their method once it is asked for.
+ *
+ * <p>Locals do not know the method they belong to, so looking up a local
+ * that has not been looked up before goes through the locals of the
+ * bodies that have been built since the last such lookup, if any have,
+ * checking each body against the snapshot on the way.
+ */
+public class SnapshotPAG extends PAG {
+    private final SnapshotReader snapshot;
+    private final AllocNode[] allocNodes;
+    private final boolean[] sitesFound;
+    private final Map<Local, Integer> localToRecord = new IdentityHashMap<Local, Integer>();
+    /** The methods with locals in the snapshot whose bodies had not been
+     * built when last looked at. */
+    private int[] unindexed;
+    private int numUnindexed;
+    /** The value of Scene.getBodyState() when the bodies were last
+     * indexed. */
+    private int indexedBodyState = -1;
+    private Map<Object, Integer> globalToRecord;
+
+    public SnapshotPAG( SparkOptions opts, SnapshotReader snapshot ) {
+        super( opts );
+        this.snapshot = snapshot;
+        allocNodes = new AllocNode[snapshot.allocCount()];
+        sitesFound = new boolean[snapshot.methodCount()];
+        unindexed = new int[snapshot.methodCount()];
+        for( int i = 0; i < unindexed.length; i++ ) {
+            if( snapshot.localsStart( i ) != snapshot.localsStart( i+1 ) ) unindexed[numUnindexed++] = i;
+        }
+        getTypeManager().makeTypeMask();
+    }
+
+    public LocalVarNode findLocalVarNode( Object value ) {
+        LocalVarNode ret = super.findLocalVarNode( value );
+        if( ret != null || !( value instanceof Local ) ) return ret;
+        Local l = (Local) value;
+        if( !( l.getType() instanceof RefLikeType ) ) return null;
+        Integer record = localToRecord.remove( l );
+        if( record == null ) {
+            if( Scene.v().getBodyState() == indexedBodyState ) return null;
+            indexBodies();
+            record = localToRecord.remove( l );
+            if( record == null ) return null;
+        }
+        int r = record.intValue();
+        ret = super.makeLocalVarNode( l, snapshot.localType( r ),
+                snapshot.method( methodOfLocal( r ) ) );
+        readSet( snapshot.localSet( r ), ret.makeP2Set() );
+        return ret;
+    }
+
+    public LocalVarNode makeLocalVarNode( Object value, Type type, SootMethod method ) {
+        findLocalVarNode( value );
+        return super.makeLocalVarNode( value, type, method );
+    }
+
+    public GlobalVarNode findGlobalVarNode( Object value ) {
+        GlobalVarNode ret = super.findGlobalVarNode( value );
+        if( ret != null || !( value instanceof SparkField ) ) return ret;
+        if( globalToRecord == null ) {
+            globalToRecord = new HashMap<Object, Integer>();
+            for( int g = 0; g < snapshot.globalCount(); g++ ) {
+                Object field = snapshot.globalIsArrayElement( g )
+                    ? ArrayElement.v() : snapshot.globalField( g );
+                if( field != null ) globalToRecord.put( field, new Integer( g ) );
+            }
+        }
+        Integer record = globalToRecord.remove( value );
+        if( record == null ) return null;
+        int g = record.intValue();
+        ret = super.makeGlobalVarNode( value, snapshot.globalType( g ) );
+        readSet( snapshot.globalSet( g ), ret.makeP2Set() );
+        return ret;
+    }
+
+    public GlobalVarNode makeGlobalVarNode( Object value, Type type ) {
+        findGlobalVarNode( value );
+        return super.makeGlobalVarNode( value, type );
+    }
+
+    /** Returns the allocation site of the snapshot for newExpr, if there is
+     * one, rather than making a new one. */
+    public AllocNode makeAllocNode( Object newExpr, Type type, SootMethod m ) {
+        if( m != null && ( newExpr instanceof AnyNewExpr || newExpr instanceof Pair ) ) {
+            int id = snapshot.methodId( m );
+            if( id >= 0 ) {
+                AllocNode ret = findSites( id ).get( newExpr );
+                if( ret != null ) return ret;
+            }
+        }
+        return super.makeAllocNode( newExpr, type, m );
+    }
+
+    /** Adds the allocation sites numbered in the set at offset set to p2set. */
+    private void readSet( int set, PointsToSetInternal p2set ) {
+        for( int a : snapshot.set( set ) ) p2set.add( allocNode( a ) );
+    }
+
+    private AllocNode allocNode( int a ) {
+        AllocNode ret = allocNodes[a];
+        if( ret != null ) return ret;
+        Type type = snapshot.allocType( a );
+        int method = snapshot.allocMethod( a );
+        SootMethod m = method < 0 ? null : snapshot.method( method );
+        switch( snapshot.allocKind( a ) ) {
+            case SparkSnapshot.SITE_EXPR:
+            case SparkSnapshot.SITE_MULTI_ARRAY:
+                if( m != null ) {
+                    ret = new SnapshotAllocNode( this, type, m );
+                    newAllocNodes.add( ret );
+                    break;
+                }
+                ret = super.makeAllocNode( new Site( "new "+type ), type, m );
+                break;
+            case SparkSnapshot.SITE_STRING:
+                ret = makeStringConstantNode( snapshot.allocString( a ) );
+                break;
+            case SparkSnapshot.SITE_CLASS:
+                ret = makeClassConstantNode( ClassConstant.v( snapshot.allocString( a ) ) );
+                break;
+            case SparkSnapshot.SITE_TYPE:
+                ret = super.makeAllocNode( type, type, m );
+                break;
+            case SparkSnapshot.SITE_NAMED:
+                ret = super.makeAllocNode( snapshot.allocString( a ), type, m );
+                break;
+            default:
+                ret = super.makeAllocNode( new Site( snapshot.allocString( a ) ), type, m );
+        }
+        allocNodes[a] = ret;
+        for( int i = 0; i < snapshot.allocFieldCount( a ); i++ ) {
+            SparkField field = snapshot.allocFieldIsArrayElement( a, i )
+                ? (SparkField) ArrayElement.v() : snapshot.allocField( a, i );
+            if( field == null ) continue;
+            new SnapshotAllocDotField( this, ret, field, snapshot.allocFieldSet( a, i ) );
+        }
+        return ret;
+    }
+
+    /** Finds the new expressions of the allocation sites in the body of the
+     * method numbered id, and returns the map from new expressions, or
+     * pairs of a NewMultiArrayExpr and a dimension, to allocation sites. */
+    private Map<Object, AllocNode> findSites( int id ) {
+        if( sitesFound[id] ) return sites;
+        sitesFound[id] = true;
+        int[] ids = snapshot.sites( id );
+        if( ids.length == 0 ) return sites;
+        Unit[] units = snapshot.units( id );
+        for( int a : ids ) {
+            AllocNode an = allocNode( a );
+            if( !( an instanceof SnapshotAllocNode ) ) continue;
+            Object newExpr = null;
+            for( Iterator bIt = units[snapshot.allocIndex( a )].getUseBoxes().iterator(); bIt.hasNext(); ) {
+                Object v = ((ValueBox) bIt.next()).getValue();
+                if( v instanceof AnyNewExpr
+                && ( v instanceof NewMultiArrayExpr ) == ( snapshot.allocKind( a ) == SparkSnapshot.SITE_MULTI_ARRAY ) ) {
+                    newExpr = v;
+                    break;
+                }
+            }
+            if( newExpr == null ) {
+                throw new RuntimeException( "The body of "+an.getMethod()+" has changed since the snapshot was taken" );
+            }
+            if( newExpr instanceof NewMultiArrayExpr ) {
+                newExpr = new Pair( newExpr, new Integer( snapshot.allocDimension( a ) ) );
+            }
+            an.newExpr = newExpr;
+            sites.put( newExpr, an );
+        }
+        return sites;
+    }
+    private final Map<Object, AllocNode> sites = new HashMap<Object, AllocNode>();
+
+    /** Finds the locals of the snapshot among those of the bodies that have
+     * been built since the last call. */
+    private void indexBodies() {
+        indexedBodyState = Scene.v().getBodyState();
+        int n = 0;
+        for( int i = 0; i < numUnindexed; i++ ) {
+            int id = unindexed[i];
+            SootMethod m = snapshot.method( id );
+            if( m == null ) continue;
+            if( !m.hasActiveBody() ) {
+                unindexed[n++] = id;
+                continue;
+            }
+            Body b = m.getActiveBody();
+            snapshot.checkBody( id, b );
+            Local[] locals = (Local[]) b.getLocals().toArray( new Local[0] );
+            for( int r = snapshot.localsStart( id ); r < snapshot.localsStart( id+1 ); r++ ) {
+                int position = snapshot.localPosition( r );
+                String name = snapshot.localName( r );
+                Local l = null;
+                if( position >= 0 && position < locals.length
+                && locals[position].getName().equals( name ) ) {
+                    l = locals[position];
+                } else {
+                    for( Local other : locals ) {
+                        if( other.getName().equals( name ) ) l = other;
+                    }
+                }
+                if( l != null ) localToRecord.put( l, new Integer( r ) );
+            }
+        }
+        numUnindexed = n;
+    }
+
+    /** Returns the number of the method whose locals include record r. */
+    private int methodOfLocal( int r ) {
+        int lo = 0;
+        int hi = snapshot.methodCount();
+        while( hi-lo > 1 ) {
+            int mid = ( lo+hi ) >>> 1;
+            if( snapshot.localsStart( mid ) <= r ) lo = mid;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Stands for an allocation site the snapshot only holds a description
+     * of. */
+    private static class Site {
+        private final String description;
+        Site( String description ) { this.description = description; }
+        public String toString() { return description; }
+    }
+
+    /** An allocation site at a new expression, which is only found in the
+     * body of its method once asked for. */
+    private static class SnapshotAllocNode extends AllocNode {
+        SnapshotAllocNode( SnapshotPAG pag, Type t, SootMethod m ) {
+            super( pag, null, t, m );
+        }
+        public Object getNewExpr() {
+            if( newExpr == null ) {
+                SnapshotPAG pag = (SnapshotPAG) this.pag;
+                pag.findSites( pag.snapshot.methodId( getMethod() ) );
+            }
+            return newExpr;
+        }
+        public String toString() {
+            return "AllocNode "+getNumber()+" "+getNewExpr()+" in method "+getMethod();
+        }
+    }
+
+    /** A field of an allocation site, whose points-to set is only read
+     * once asked for. */
+    private static class SnapshotAllocDotField extends AllocDotField {
+        private int set;
+        SnapshotAllocDotField( SnapshotPAG pag, AllocNode base, SparkField field, int set ) {
+            super( pag, base, field );
+            this.set = set;
+        }
+        public PointsToSetInternal getP2Set() {
+            read();
+            return super.getP2Set();
+        }
+        public PointsToSetInternal makeP2Set() {
+            read();
+            return super.makeP2Set();
+        }
+        private void read() {
+            if( set < 0 ) return;
+            int s = set;
+            set = -1;
+            ((SnapshotPAG) pag).readSet( s, super.makeP2Set() );
+        }
+    }
+}
@@ -66,6 +66,11 @@ public class DoublePointsToSet extends PointsToSetInternal {
         newSet.forall( v );
         return v.getReturnValue();
     }
+    /** Returns the number of nodes in this set; the old and new sets
+     * never have a node in common. */
+    public int size() {
+        return oldSet.size() + newSet.size();
+    }
     /** Adds n to this set, returns true if n was not already in this set. */
     public boolean add( Node n ) {
         if( oldSet.contains( n ) ) return false;
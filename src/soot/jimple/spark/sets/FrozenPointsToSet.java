@@ -0,0 +1,167 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.sets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import soot.PointsToSet;
+import soot.Type;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.util.ArrayNumberer;
+
+/** Immutable points-to set that keeps the numbers of its alloc nodes in a
+ * sorted array. Once Spark has finished, {@link #freeze} replaces the sets of
+ * all nodes by frozen sets, one for each distinct type and set of alloc
+ * nodes.
+ */
+public final class FrozenPointsToSet extends PointsToSetInternal {
+    private FrozenPointsToSet( Type type, PAG pag, int[] nodes ) {
+        super( type );
+        this.pag = pag;
+        this.nodes = nodes;
+    }
+
+    /** Replaces the points-to set of every variable node and every field of
+     * an alloc node in pag by a frozen set of the same type, discarding empty
+     * sets. Nodes whose sets have the same type and hold the same alloc nodes
+     * share one frozen set; sets of different types that hold the same alloc
+     * nodes share their array. Returns the number of distinct frozen sets. */
+    public static int freeze( PAG pag ) {
+        Map<Key, FrozenPointsToSet> sets = new HashMap<Key, FrozenPointsToSet>();
+        Map<Key, int[]> arrays = new HashMap<Key, int[]>();
+        for( Iterator vIt = pag.getVarNodeNumberer().iterator(); vIt.hasNext(); ) {
+            freeze( (Node) vIt.next(), pag, sets, arrays );
+        }
+        for( Iterator anIt = pag.getAllocNodeNumberer().iterator(); anIt.hasNext(); ) {
+            final AllocNode an = (AllocNode) anIt.next();
+            for( Iterator adfIt = an.getFields().iterator(); adfIt.hasNext(); ) {
+                freeze( (AllocDotField) adfIt.next(), pag, sets, arrays );
+            }
+        }
+        return sets.size();
+    }
+
+    /** Returns true if this set contains no run-time objects. */
+    public final boolean isEmpty() {
+        return nodes.length == 0;
+    }
+    /** Frozen sets cannot change. */
+    public final boolean addAll( PointsToSetInternal other,
+            PointsToSetInternal exclude ) {
+        throw new RuntimeException( "Cannot add to a frozen points-to set" );
+    }
+    /** Calls v's visit method on all nodes in this set. */
+    public final boolean forall( P2SetVisitor v ) {
+        ArrayNumberer numberer = pag.getAllocNodeNumberer();
+        for( int i = 0; i < nodes.length; i++ ) {
+            v.visit( (Node) numberer.get( nodes[i] ) );
+        }
+        return v.getReturnValue();
+    }
+    /** Frozen sets cannot change. */
+    public final boolean add( Node n ) {
+        throw new RuntimeException( "Cannot add to a frozen points-to set" );
+    }
+    /** Frozen sets cannot change. */
+    public final void mergeWith( PointsToSetInternal other ) {
+        throw new RuntimeException( "Cannot merge into a frozen points-to set" );
+    }
+    /** Returns true iff the set contains n. */
+    public final boolean contains( Node n ) {
+        return Arrays.binarySearch( nodes, n.getNumber() ) >= 0;
+    }
+    public final int size() {
+        return nodes.length;
+    }
+    /** Returns true if this set shares some objects with other. */
+    public final boolean hasNonEmptyIntersection( PointsToSet other ) {
+        if( !( other instanceof FrozenPointsToSet ) ) {
+            return super.hasNonEmptyIntersection( other );
+        }
+        int[] onodes = ((FrozenPointsToSet) other).nodes;
+        int i = 0;
+        int j = 0;
+        while( i < nodes.length && j < onodes.length ) {
+            if( nodes[i] < onodes[j] ) i++;
+            else if( nodes[i] > onodes[j] ) j++;
+            else return true;
+        }
+        return false;
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    private static void freeze( Node n, PAG pag, Map<Key, FrozenPointsToSet> sets,
+            Map<Key, int[]> arrays ) {
+        if( n.getReplacement() != n ) return;
+        PointsToSetInternal set = n.getP2Set();
+        if( set instanceof FrozenPointsToSet ) return;
+        if( set.isEmpty() ) {
+            n.discardP2Set();
+            return;
+        }
+        final int[] nodes = new int[set.size()];
+        set.forall( new P2SetVisitor() {
+            int i = 0;
+            public final void visit( Node o ) {
+                nodes[i++] = o.getNumber();
+            }
+        } );
+        Arrays.sort( nodes );
+        Key key = new Key( set.getType(), nodes );
+        FrozenPointsToSet ret = sets.get( key );
+        if( ret == null ) {
+            Key arrayKey = new Key( null, nodes );
+            int[] shared = arrays.get( arrayKey );
+            if( shared == null ) arrays.put( arrayKey, shared = nodes );
+            sets.put( key, ret = new FrozenPointsToSet( set.getType(), pag, shared ) );
+        }
+        n.setP2Set( ret );
+    }
+
+    /** The type, which may be null, and contents of a frozen set, compared
+     * by value. */
+    private static final class Key {
+        private final Type type;
+        private final int[] nodes;
+        private final int hashCode;
+        Key( Type type, int[] nodes ) {
+            this.type = type;
+            this.nodes = nodes;
+            this.hashCode = Arrays.hashCode( nodes ) * 31 + ( type == null ? 0 : type.hashCode() );
+        }
+        public int hashCode() { return hashCode; }
+        public boolean equals( Object o ) {
+            if( !( o instanceof Key ) ) return false;
+            Key other = (Key) o;
+            if( type == null ? other.type != null : !type.equals( other.type ) ) return false;
+            return Arrays.equals( nodes, other.nodes );
+        }
+    }
+
+    private final PAG pag;
+    private final int[] nodes;
+}
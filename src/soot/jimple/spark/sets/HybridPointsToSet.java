@@ -169,6 +169,29 @@ public final class HybridPointsToSet extends PointsToSetInternal {
         }
         return v.getReturnValue();
     }
+    /** Returns the number of nodes in this set. */
+    public final int size() {
+        if( bits == null ) {
+            if( n1 == null ) return 0;
+            if( n2 == null ) return 1;
+            if( n3 == null ) return 2;
+            if( n4 == null ) return 3;
+            if( n5 == null ) return 4;
+            if( n6 == null ) return 5;
+            if( n7 == null ) return 6;
+            if( n8 == null ) return 7;
+            if( n9 == null ) return 8;
+            if( n10 == null ) return 9;
+            if( n11 == null ) return 10;
+            if( n12 == null ) return 11;
+            if( n13 == null ) return 12;
+            if( n14 == null ) return 13;
+            if( n15 == null ) return 14;
+            if( n16 == null ) return 15;
+            return 16;
+        }
+        return bits.cardinality();
+    }
     /** Adds n to this set, returns true if n was not already in this set. */
     public final boolean add( Node n ) {
         if( pag.getTypeManager().castNeverFails( n.getType(), type ) ) {
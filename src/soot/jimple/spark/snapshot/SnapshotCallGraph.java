@@ -0,0 +1,182 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.snapshot;
+import java.util.BitSet;
+import java.util.Iterator;
+
+import soot.MethodOrMethodContext;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.NewExpr;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.util.queue.QueueReader;
+
+/** The call graph saved in a snapshot. The edges out of and into a method
+ * are only read from the snapshot the first time they are asked for, and
+ * those out of a unit once the body holding the unit has been built.
+ * Asking for all edges, through listener(), newListener(), sourceMethods()
+ * or size(), reads the whole call graph. The edges are therefore not
+ * listed in the order Spark added them.
+ */
+public class SnapshotCallGraph extends CallGraph
+{
+    private final SnapshotReader snapshot;
+    private final BitSet outRead = new BitSet();
+    private final BitSet inRead = new BitSet();
+    /** The methods whose edges out may still have to be read to answer
+     * edgesOutOf(Unit), as they had no body when last looked at. */
+    private int[] unread;
+    private int numUnread;
+    private boolean allRead = false;
+    /** The edges added after the snapshot was loaded. */
+    private final CallGraph addedEdges = new CallGraph();
+
+    public SnapshotCallGraph( SnapshotReader snapshot ) {
+        this.snapshot = snapshot;
+        unread = new int[snapshot.methodCount()];
+        for( int i = 0; i < unread.length; i++ ) {
+            if( snapshot.edgesStart( i ) != snapshot.edgesStart( i+1 ) ) unread[numUnread++] = i;
+        }
+    }
+
+    /** Returns a call graph holding only the edges added to this one since
+     * it was loaded. The reachable methods of the snapshot are kept up to
+     * date with it, as the edges of the snapshot cannot make any more
+     * methods reachable. */
+    public CallGraph addedEdges() {
+        return addedEdges;
+    }
+
+    public boolean addEdge( Edge e ) {
+        readOut( e.getSrc() );
+        readIn( e.getTgt() );
+        if( !super.addEdge( e ) ) return false;
+        addedEdges.addEdge( e );
+        return true;
+    }
+    public boolean removeEdge( Edge e ) {
+        readOut( e.getSrc() );
+        readIn( e.getTgt() );
+        addedEdges.removeEdge( e );
+        return super.removeEdge( e );
+    }
+    public boolean isEntryMethod( SootMethod method ) {
+        readIn( method );
+        return super.isEntryMethod( method );
+    }
+    public Edge findEdge( Unit u, SootMethod callee ) {
+        readOut( u );
+        return super.findEdge( u, callee );
+    }
+    public Iterator<MethodOrMethodContext> sourceMethods() {
+        readAll();
+        return super.sourceMethods();
+    }
+    public Iterator<Edge> edgesOutOf( Unit u ) {
+        readOut( u );
+        return super.edgesOutOf( u );
+    }
+    public Iterator<Edge> edgesOutOf( MethodOrMethodContext m ) {
+        readOut( m );
+        return super.edgesOutOf( m );
+    }
+    public Iterator<Edge> edgesInto( MethodOrMethodContext m ) {
+        readIn( m );
+        return super.edgesInto( m );
+    }
+    public QueueReader<Edge> listener() {
+        readAll();
+        return super.listener();
+    }
+    public QueueReader<Edge> newListener() {
+        readAll();
+        return super.newListener();
+    }
+    public int size() {
+        readAll();
+        return super.size();
+    }
+
+    private void readOut( MethodOrMethodContext m ) {
+        int id = snapshot.methodId( m );
+        if( id < 0 || outRead.get( id ) ) return;
+        outRead.set( id );
+        for( int e = snapshot.edgesStart( id ); e < snapshot.edgesStart( id+1 ); e++ ) {
+            read( id, e );
+        }
+    }
+
+    private void readIn( MethodOrMethodContext m ) {
+        int id = snapshot.methodId( m );
+        if( id < 0 || inRead.get( id ) ) return;
+        inRead.set( id );
+        for( int i = snapshot.inStart( id ); i < snapshot.inStart( id+1 ); i++ ) {
+            if( !outRead.get( snapshot.inSource( i ) ) ) read( snapshot.inSource( i ), snapshot.inEdge( i ) );
+        }
+    }
+
+    /** Reads the edges out of u, which are those out of the method whose
+     * body holds u. As units do not know their method, this reads the
+     * edges out of all methods whose bodies have been built. */
+    private void readOut( Unit u ) {
+        if( allRead || numUnread == 0 || !mayHaveEdges( u ) ) return;
+        int n = 0;
+        for( int i = 0; i < numUnread; i++ ) {
+            int id = unread[i];
+            SootMethod m = snapshot.method( id );
+            if( m == null ) continue;
+            if( m.hasActiveBody() ) readOut( m );
+            else unread[n++] = id;
+        }
+        numUnread = n;
+    }
+
+    private void readAll() {
+        if( allRead ) return;
+        allRead = true;
+        for( int id = 0; id < snapshot.methodCount(); id++ ) {
+            SootMethod m = snapshot.method( id );
+            if( m != null ) readOut( m );
+        }
+    }
+
+    private void read( int src, int e ) {
+        SootMethod srcMethod = snapshot.method( src );
+        SootMethod tgtMethod = snapshot.method( snapshot.edgeTarget( e ) );
+        if( srcMethod == null || tgtMethod == null ) return;
+        int unit = snapshot.edgeUnit( e );
+        Unit srcUnit = unit < 0 ? null : snapshot.units( src )[unit];
+        super.addEdge( new Edge( srcMethod, srcUnit, tgtMethod, snapshot.edgeKind( e ) ) );
+    }
+
+    /** Returns whether u might be the source of an edge: whether it holds
+     * an invoke, a static field reference or a new expression. */
+    private static boolean mayHaveEdges( Unit u ) {
+        if( !( u instanceof Stmt ) ) return true;
+        Stmt s = (Stmt) u;
+        if( s.containsInvokeExpr() ) return true;
+        if( s.containsFieldRef() && s.getFieldRef() instanceof StaticFieldRef ) return true;
+        return s instanceof AssignStmt && ((AssignStmt) s).getRightOp() instanceof NewExpr;
+    }
+}
@@ -0,0 +1,400 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.snapshot;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.Body;
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+
+/** A snapshot file written by {@link SparkSnapshot#save}, mapped into
+ * memory. The methods, fields, types and strings it refers to by number
+ * are only looked up in the Scene once asked for, and then remembered.
+ * Like the rest of Soot, a reader must not be used by several threads at
+ * once.
+ */
+public class SnapshotReader
+{
+    /** Maps file into memory and returns a reader for it, or null if it is
+     * not a snapshot saved under key. */
+    public static SnapshotReader open( File file, byte[] key ) throws IOException {
+        RandomAccessFile f = new RandomAccessFile( file, "r" );
+        try {
+            FileChannel channel = f.getChannel();
+            if( channel.size() > Integer.MAX_VALUE ) {
+                throw new IOException( "Snapshot "+file+" is too large" );
+            }
+            ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            if( buffer.capacity() < 8+SparkSnapshot.KEY_LENGTH+4*SparkSnapshot.SECTIONS ) return null;
+            if( buffer.getInt( 0 ) != SparkSnapshot.MAGIC ) return null;
+            if( buffer.getInt( 4 ) != SparkSnapshot.VERSION ) return null;
+            byte[] fileKey = new byte[SparkSnapshot.KEY_LENGTH];
+            buffer.position( 8 );
+            buffer.get( fileKey );
+            if( !Arrays.equals( key, fileKey ) ) return null;
+            return new SnapshotReader( buffer );
+        } finally {
+            // the mapping stays valid after the channel is closed
+            f.close();
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int[] sections = new int[SparkSnapshot.SECTIONS];
+
+    private final String[] strings;
+    private final Type[] types;
+    private final SootMethod[] methods;
+    private final boolean[] methodResolved;
+    private final Unit[][] units;
+    private final Body[] checkedBodies;
+    private Map<String, Integer> signatureToMethod;
+    private final Map<SootMethod, Integer> methodToId = new HashMap<SootMethod, Integer>();
+    private final SootField[] fields;
+    private final boolean[] fieldResolved;
+
+    private final int numMethods;
+    private final int numStrings;
+    private final int stringData;
+    private final int methodRecords;
+    private final int edgeRecords;
+    private final int inRecords;
+    private final int allocRecords;
+    private final int siteRecords;
+    private final int localRecords;
+
+    private SnapshotReader( ByteBuffer buffer ) {
+        this.buffer = buffer;
+        for( int i = 0; i < SparkSnapshot.SECTIONS; i++ ) {
+            sections[i] = buffer.getInt( 8+SparkSnapshot.KEY_LENGTH+4*i );
+        }
+        numStrings = buffer.getInt( sections[SparkSnapshot.STRINGS] );
+        stringData = sections[SparkSnapshot.STRINGS]+4+4*(numStrings+1);
+        strings = new String[numStrings];
+        types = new Type[numStrings];
+        numMethods = buffer.getInt( sections[SparkSnapshot.METHODS] );
+        methodRecords = sections[SparkSnapshot.METHODS]+4+4*(numMethods+1);
+        methods = new SootMethod[numMethods];
+        methodResolved = new boolean[numMethods];
+        units = new Unit[numMethods][];
+        checkedBodies = new Body[numMethods];
+        int numFields = buffer.getInt( sections[SparkSnapshot.FIELDS] );
+        fields = new SootField[numFields];
+        fieldResolved = new boolean[numFields];
+        edgeRecords = sections[SparkSnapshot.EDGES]+4*(numMethods+1);
+        inRecords = sections[SparkSnapshot.EDGES_IN]+4*(numMethods+1);
+        allocRecords = sections[SparkSnapshot.ALLOCS]+4+4*(allocCount()+1);
+        siteRecords = sections[SparkSnapshot.SITES]+4*(numMethods+1);
+        localRecords = sections[SparkSnapshot.LOCALS]+4*(numMethods+1);
+    }
+
+    /* Strings and types. */
+
+    String string( int id ) {
+        String ret = strings[id];
+        if( ret == null ) {
+            int start = buffer.getInt( sections[SparkSnapshot.STRINGS]+4+4*id );
+            int end = buffer.getInt( sections[SparkSnapshot.STRINGS]+4+4*(id+1) );
+            byte[] bytes = new byte[end-start];
+            for( int i = 0; i < bytes.length; i++ ) bytes[i] = buffer.get( stringData+start+i );
+            try {
+                strings[id] = ret = new String( bytes, "UTF-8" );
+            } catch( UnsupportedEncodingException e ) {
+                throw new RuntimeException( e );
+            }
+        }
+        return ret;
+    }
+
+    Type type( int id ) {
+        if( id < 0 ) return null;
+        Type ret = types[id];
+        if( ret == null ) types[id] = ret = SparkSnapshot.typeOf( string( id ) );
+        return ret;
+    }
+
+    /* Methods. */
+
+    public int methodCount() {
+        return numMethods;
+    }
+
+    /** Returns the method numbered id, or null if it cannot be found in the
+     * Scene. */
+    public SootMethod method( int id ) {
+        if( !methodResolved[id] ) {
+            methodResolved[id] = true;
+            methods[id] = resolveMethod( id );
+            if( methods[id] != null ) methodToId.put( methods[id], new Integer( id ) );
+        }
+        return methods[id];
+    }
+
+    /** Returns the number of m, or -1 if the snapshot does not mention m. */
+    public int methodId( MethodOrMethodContext m ) {
+        if( !( m instanceof SootMethod ) ) return -1;
+        Integer ret = methodToId.get( m );
+        if( ret != null ) return ret.intValue();
+        if( signatureToMethod == null ) {
+            signatureToMethod = new HashMap<String, Integer>( numMethods*2 );
+            for( int i = 0; i < numMethods; i++ ) {
+                signatureToMethod.put( string( methodInt( i, 0 ) ), new Integer( i ) );
+            }
+        }
+        ret = signatureToMethod.get( ((SootMethod) m).getSignature() );
+        if( ret == null || method( ret.intValue() ) != m ) return -1;
+        return ret.intValue();
+    }
+
+    /** Returns the units of the body of the method numbered id, which must
+     * be the body the snapshot was taken of. */
+    public Unit[] units( int id ) {
+        Body b = method( id ).retrieveActiveBody();
+        if( checkedBodies[id] != b ) {
+            checkBody( id, b );
+            units[id] = b.getUnits().toArray( new Unit[b.getUnits().size()] );
+        }
+        return units[id];
+    }
+
+    /** Throws a RuntimeException unless b, a body of the method numbered
+     * id, is the same as the body the snapshot was taken of. */
+    public void checkBody( int id, Body b ) {
+        if( checkedBodies[id] == b ) return;
+        long digest = ( (long) methodInt( id, 6 ) << 32 ) | ( methodInt( id, 7 ) & 0xffffffffL );
+        if( methodInt( id, 5 ) != b.getUnits().size() || SparkSnapshot.bodyDigest( b ) != digest ) {
+            throw new RuntimeException( "The body of "+b.getMethod()+" has changed since the snapshot was taken" );
+        }
+        checkedBodies[id] = b;
+    }
+
+    private int methodInt( int id, int i ) {
+        int record = buffer.getInt( sections[SparkSnapshot.METHODS]+4+4*id );
+        return buffer.getInt( methodRecords+record+4*i );
+    }
+
+    private SootMethod resolveMethod( int id ) {
+        String className = string( methodInt( id, 1 ) );
+        if( !Scene.v().containsClass( className ) ) return null;
+        SootClass c = Scene.v().getSootClass( className );
+        String name = string( methodInt( id, 2 ) );
+        Type returnType = type( methodInt( id, 3 ) );
+        List<Type> parameterTypes = new ArrayList<Type>();
+        int numParameters = methodInt( id, 8 );
+        for( int i = 0; i < numParameters; i++ ) parameterTypes.add( type( methodInt( id, 9+i ) ) );
+        if( c.declaresMethod( name, parameterTypes, returnType ) ) {
+            return c.getMethod( name, parameterTypes, returnType );
+        }
+        // a phantom method, created while Spark ran
+        try {
+            return Scene.v().makeMethodRef( c, name, parameterTypes, returnType,
+                    methodInt( id, 4 ) != 0 ).resolve();
+        } catch( RuntimeException e ) {
+            return null;
+        }
+    }
+
+    /* Fields. */
+
+    /** Returns the field numbered id, or null if it cannot be found in the
+     * Scene. */
+    SootField field( int id ) {
+        if( !fieldResolved[id] ) {
+            fieldResolved[id] = true;
+            int record = sections[SparkSnapshot.FIELDS]+4+16*id;
+            String className = string( buffer.getInt( record ) );
+            if( !Scene.v().containsClass( className ) ) return null;
+            SootClass c = Scene.v().getSootClass( className );
+            String name = string( buffer.getInt( record+4 ) );
+            Type type = type( buffer.getInt( record+8 ) );
+            if( c.declaresField( name, type ) ) {
+                fields[id] = c.getField( name, type );
+            } else {
+                try {
+                    fields[id] = Scene.v().makeFieldRef( c, name, type,
+                            buffer.getInt( record+12 ) != 0 ).resolve();
+                } catch( RuntimeException e ) {
+                    fields[id] = null;
+                }
+            }
+        }
+        return fields[id];
+    }
+
+    /* Call graph. */
+
+    /** The edges out of method src are numbered edgesStart(src) up to
+     * edgesStart(src+1). */
+    int edgesStart( int src ) {
+        return buffer.getInt( sections[SparkSnapshot.EDGES]+4*src );
+    }
+    /** The index of the source unit of edge e in the body of its source
+     * method, or -1. */
+    int edgeUnit( int e ) {
+        return buffer.getInt( edgeRecords+SparkSnapshot.EDGE_SIZE*e );
+    }
+    int edgeTarget( int e ) {
+        return buffer.getInt( edgeRecords+SparkSnapshot.EDGE_SIZE*e+4 );
+    }
+    Kind edgeKind( int e ) {
+        return SparkSnapshot.KINDS[buffer.get( edgeRecords+SparkSnapshot.EDGE_SIZE*e+8 )];
+    }
+    /** The edges into method tgt are numbered inStart(tgt) up to
+     * inStart(tgt+1) among the edges into methods. */
+    int inStart( int tgt ) {
+        return buffer.getInt( sections[SparkSnapshot.EDGES_IN]+4*tgt );
+    }
+    int inSource( int i ) {
+        return buffer.getInt( inRecords+8*i );
+    }
+    int inEdge( int i ) {
+        return buffer.getInt( inRecords+8*i+4 );
+    }
+
+    /** Returns the numbers of the reachable methods. */
+    int[] reachableMethods() {
+        int base = sections[SparkSnapshot.REACHABLE];
+        int[] ret = new int[buffer.getInt( base )];
+        for( int i = 0; i < ret.length; i++ ) ret[i] = buffer.getInt( base+4+4*i );
+        return ret;
+    }
+
+    /* Points-to sets. */
+
+    public int allocCount() {
+        return buffer.getInt( sections[SparkSnapshot.ALLOCS] );
+    }
+    private int allocRecord( int a ) {
+        return allocRecords+buffer.getInt( sections[SparkSnapshot.ALLOCS]+4+4*a );
+    }
+    public byte allocKind( int a ) {
+        return buffer.get( allocRecord( a ) );
+    }
+    public Type allocType( int a ) {
+        return type( buffer.getInt( allocRecord( a )+1 ) );
+    }
+    /** The number of the method of allocation site a, or -1. */
+    public int allocMethod( int a ) {
+        return buffer.getInt( allocRecord( a )+5 );
+    }
+    public int allocIndex( int a ) {
+        return buffer.getInt( allocRecord( a )+9 );
+    }
+    public int allocDimension( int a ) {
+        return buffer.getInt( allocRecord( a )+13 );
+    }
+    public String allocString( int a ) {
+        return string( allocIndex( a ) );
+    }
+    public int allocFieldCount( int a ) {
+        return buffer.getInt( allocRecord( a )+17 );
+    }
+    /** The field, or null for array elements, of the i-th field of a. */
+    public SootField allocField( int a, int i ) {
+        int field = buffer.getInt( allocRecord( a )+21+8*i );
+        return field < 0 ? null : field( field );
+    }
+    public boolean allocFieldIsArrayElement( int a, int i ) {
+        return buffer.getInt( allocRecord( a )+21+8*i ) < 0;
+    }
+    public int allocFieldSet( int a, int i ) {
+        return buffer.getInt( allocRecord( a )+21+8*i+4 );
+    }
+
+    /** Returns the allocation sites in the body of the method numbered m
+     * that are new expressions. */
+    public int[] sites( int m ) {
+        int start = buffer.getInt( sections[SparkSnapshot.SITES]+4*m );
+        int[] ret = new int[buffer.getInt( sections[SparkSnapshot.SITES]+4*(m+1) )-start];
+        for( int i = 0; i < ret.length; i++ ) ret[i] = buffer.getInt( siteRecords+4*(start+i) );
+        return ret;
+    }
+
+    /** The locals of method m are numbered localsStart(m) up to
+     * localsStart(m+1). */
+    public int localsStart( int m ) {
+        return buffer.getInt( sections[SparkSnapshot.LOCALS]+4*m );
+    }
+    public int localPosition( int l ) {
+        return buffer.getInt( localRecords+16*l );
+    }
+    public String localName( int l ) {
+        return string( buffer.getInt( localRecords+16*l+4 ) );
+    }
+    public Type localType( int l ) {
+        return type( buffer.getInt( localRecords+16*l+8 ) );
+    }
+    public int localSet( int l ) {
+        return buffer.getInt( localRecords+16*l+12 );
+    }
+
+    public int globalCount() {
+        return buffer.getInt( sections[SparkSnapshot.GLOBALS] );
+    }
+    /** The static field of global g, or null if it is the array element
+     * of the field-based analysis or cannot be found. */
+    public SootField globalField( int g ) {
+        int field = buffer.getInt( sections[SparkSnapshot.GLOBALS]+4+12*g );
+        return field < 0 ? null : field( field );
+    }
+    public boolean globalIsArrayElement( int g ) {
+        return buffer.getInt( sections[SparkSnapshot.GLOBALS]+4+12*g ) < 0;
+    }
+    public Type globalType( int g ) {
+        return type( buffer.getInt( sections[SparkSnapshot.GLOBALS]+4+12*g+4 ) );
+    }
+    public int globalSet( int g ) {
+        return buffer.getInt( sections[SparkSnapshot.GLOBALS]+4+12*g+8 );
+    }
+
+    /** Returns the allocation sites in the points-to set at offset set. */
+    public int[] set( int set ) {
+        int[] position = { sections[SparkSnapshot.SETS]+set };
+        int[] ret = new int[readVarInt( position )];
+        int last = 0;
+        for( int i = 0; i < ret.length; i++ ) ret[i] = last += readVarInt( position );
+        return ret;
+    }
+
+    private int readVarInt( int[] position ) {
+        int ret = 0;
+        for( int shift = 0; ; shift += 7 ) {
+            byte b = buffer.get( position[0]++ );
+            ret |= ( b & 0x7f ) << shift;
+            if( b >= 0 ) return ret;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.snapshot;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import soot.Body;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.ValueBox;
+import soot.jimple.AnyNewExpr;
+import soot.jimple.NewMultiArrayExpr;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.ArrayElement;
+import soot.jimple.spark.pag.ClassConstantNode;
+import soot.jimple.spark.pag.GlobalVarNode;
+import soot.jimple.spark.pag.LocalVarNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.StringConstantNode;
+import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.toolkits.scalar.Pair;
+import soot.util.queue.QueueReader;
+
+/** Writes the results of Spark to a snapshot file, in the layout described
+ * in {@link SparkSnapshot}. Each section is put together in memory and
+ * then written out through a FileChannel.
+ */
+class SnapshotWriter
+{
+    private final PAG pag;
+    private final CallGraph cg;
+    private final ReachableMethods reachables;
+
+    private final Map<String, Integer> stringToId = new HashMap<String, Integer>();
+    private final List<String> strings = new ArrayList<String>();
+    private final Map<SootMethod, Integer> methodToId = new HashMap<SootMethod, Integer>();
+    private final List<SootMethod> methods = new ArrayList<SootMethod>();
+    private final Map<SootField, Integer> fieldToId = new HashMap<SootField, Integer>();
+    private final List<SootField> fields = new ArrayList<SootField>();
+    private final Map<ByteBuffer, Integer> setToOffset = new HashMap<ByteBuffer, Integer>();
+    private final Section sets = new Section();
+    private final Map<SootMethod, Map<Object, Integer>> siteIndices =
+        new HashMap<SootMethod, Map<Object, Integer>>();
+
+    SnapshotWriter( PAG pag, CallGraph cg, ReachableMethods reachables ) {
+        this.pag = pag;
+        this.cg = cg;
+        this.reachables = reachables;
+    }
+
+    void write( File file, byte[] key ) throws IOException {
+        List<SootMethod> reachableMethods = new ArrayList<SootMethod>();
+        for( QueueReader<MethodOrMethodContext> r = reachables.listener(); r.hasNext(); ) {
+            MethodOrMethodContext m = r.next();
+            if( m instanceof SootMethod ) reachableMethods.add( (SootMethod) m );
+        }
+        for( SootMethod m : reachableMethods ) methodId( m );
+        List<Edge> edges = new ArrayList<Edge>();
+        for( Iterator<Edge> eIt = cg.listener(); eIt.hasNext(); ) {
+            final Edge e = eIt.next();
+            if( !( e.getSrc() instanceof SootMethod ) ) continue;
+            if( !( e.getTgt() instanceof SootMethod ) ) continue;
+            methodId( e.src() );
+            methodId( e.tgt() );
+            edges.add( e );
+        }
+        for( Iterator anIt = pag.getAllocNodeNumberer().iterator(); anIt.hasNext(); ) {
+            final AllocNode an = (AllocNode) anIt.next();
+            if( an.getMethod() != null ) methodId( an.getMethod() );
+        }
+        for( Iterator vnIt = pag.getVarNodeNumberer().iterator(); vnIt.hasNext(); ) {
+            final VarNode vn = (VarNode) vnIt.next();
+            if( isLocal( vn ) ) methodId( ((LocalVarNode) vn).getMethod() );
+        }
+
+        Section[] sections = new Section[SparkSnapshot.SECTIONS];
+        setOffset( null );
+        sections[SparkSnapshot.EDGES] = new Section();
+        sections[SparkSnapshot.EDGES_IN] = new Section();
+        writeEdges( edges, sections[SparkSnapshot.EDGES], sections[SparkSnapshot.EDGES_IN] );
+        sections[SparkSnapshot.REACHABLE] = new Section();
+        sections[SparkSnapshot.REACHABLE].putInt( reachableMethods.size() );
+        for( SootMethod m : reachableMethods ) sections[SparkSnapshot.REACHABLE].putInt( methodId( m ) );
+        sections[SparkSnapshot.ALLOCS] = new Section();
+        sections[SparkSnapshot.SITES] = new Section();
+        writeAllocs( sections[SparkSnapshot.ALLOCS], sections[SparkSnapshot.SITES] );
+        sections[SparkSnapshot.LOCALS] = new Section();
+        sections[SparkSnapshot.GLOBALS] = new Section();
+        writeVars( sections[SparkSnapshot.LOCALS], sections[SparkSnapshot.GLOBALS] );
+        sections[SparkSnapshot.METHODS] = new Section();
+        writeMethods( sections[SparkSnapshot.METHODS] );
+        sections[SparkSnapshot.FIELDS] = new Section();
+        writeFields( sections[SparkSnapshot.FIELDS] );
+        sections[SparkSnapshot.SETS] = sets;
+        sections[SparkSnapshot.STRINGS] = new Section();
+        writeStrings( sections[SparkSnapshot.STRINGS] );
+
+        FileOutputStream out = new FileOutputStream( file );
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate( 8+SparkSnapshot.KEY_LENGTH+4*SparkSnapshot.SECTIONS );
+            header.putInt( SparkSnapshot.MAGIC );
+            header.putInt( SparkSnapshot.VERSION );
+            header.put( key );
+            channel.position( header.capacity() );
+            for( Section section : sections ) {
+                header.putInt( (int) channel.position() );
+                section.writeTo( channel );
+            }
+            header.flip();
+            while( header.hasRemaining() ) channel.write( header, header.position() );
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeEdges( List<Edge> edges, Section out, Section in ) {
+        int numMethods = methods.size();
+        int[] bySrc = sortBy( edges, true );
+        int[] byTgt = sortBy( edges, false );
+        int[] edgeIndex = new int[edges.size()];
+        int[] start = new int[numMethods+1];
+        for( Edge e : edges ) start[methodId( e.src() )+1]++;
+        for( int i = 0; i < numMethods; i++ ) start[i+1] += start[i];
+        for( int i = 0; i <= numMethods; i++ ) out.putInt( start[i] );
+        SootMethod src = null;
+        Map<Object, Integer> units = null;
+        for( int i = 0; i < bySrc.length; i++ ) {
+            Edge e = edges.get( bySrc[i] );
+            edgeIndex[bySrc[i]] = i;
+            if( e.src() != src ) {
+                src = e.src();
+                units = unitIndices( src );
+            }
+            Integer unit = e.srcUnit() == null || units == null ? null : units.get( e.srcUnit() );
+            out.putInt( unit == null ? -1 : unit.intValue() );
+            out.putInt( methodId( e.tgt() ) );
+            out.write( SparkSnapshot.kindIndex( e.kind() ) );
+        }
+
+        Arrays.fill( start, 0 );
+        for( Edge e : edges ) start[methodId( e.tgt() )+1]++;
+        for( int i = 0; i < numMethods; i++ ) start[i+1] += start[i];
+        for( int i = 0; i <= numMethods; i++ ) in.putInt( start[i] );
+        for( int i = 0; i < byTgt.length; i++ ) {
+            in.putInt( methodId( edges.get( byTgt[i] ).src() ) );
+            in.putInt( edgeIndex[byTgt[i]] );
+        }
+    }
+
+    /** Returns the indices of edges, stably sorted by the number of their
+     * source or target method. */
+    private int[] sortBy( List<Edge> edges, boolean bySrc ) {
+        int[] count = new int[methods.size()+1];
+        for( Edge e : edges ) count[methodId( bySrc ? e.src() : e.tgt() )+1]++;
+        for( int i = 1; i < count.length; i++ ) count[i] += count[i-1];
+        int[] ret = new int[edges.size()];
+        for( int i = 0; i < ret.length; i++ ) {
+            Edge e = edges.get( i );
+            ret[count[methodId( bySrc ? e.src() : e.tgt() )]++] = i;
+        }
+        return ret;
+    }
+
+    private void writeAllocs( Section allocs, Section sites ) {
+        int numAllocs = pag.getAllocNodeNumberer().size();
+        Section records = new Section();
+        List<List<Integer>> methodSites = new ArrayList<List<Integer>>();
+        for( int i = 0; i < methods.size(); i++ ) methodSites.add( null );
+        allocs.putInt( numAllocs );
+        for( Iterator anIt = pag.getAllocNodeNumberer().iterator(); anIt.hasNext(); ) {
+            final AllocNode an = (AllocNode) anIt.next();
+            allocs.putInt( records.size() );
+            Object newExpr = an.getNewExpr();
+            SootMethod m = an.getMethod();
+            byte kind = SparkSnapshot.SITE_OTHER;
+            int a = -1;
+            int b = -1;
+            if( an instanceof StringConstantNode ) {
+                kind = SparkSnapshot.SITE_STRING;
+                a = stringId( ((StringConstantNode) an).getString() );
+            } else if( an instanceof ClassConstantNode ) {
+                kind = SparkSnapshot.SITE_CLASS;
+                a = stringId( ((ClassConstantNode) an).getClassConstant().value );
+            } else if( newExpr instanceof Type ) {
+                kind = SparkSnapshot.SITE_TYPE;
+            } else if( newExpr instanceof String ) {
+                kind = SparkSnapshot.SITE_NAMED;
+                a = stringId( (String) newExpr );
+            } else if( m != null && newExpr instanceof AnyNewExpr
+                    && !( newExpr instanceof NewMultiArrayExpr ) ) {
+                Integer unit = siteIndices( m ).get( newExpr );
+                if( unit != null ) {
+                    kind = SparkSnapshot.SITE_EXPR;
+                    a = unit.intValue();
+                }
+            } else if( m != null && newExpr instanceof Pair
+                    && ((Pair) newExpr).getO1() instanceof NewMultiArrayExpr
+                    && ((Pair) newExpr).getO2() instanceof Integer ) {
+                Integer unit = siteIndices( m ).get( ((Pair) newExpr).getO1() );
+                if( unit != null ) {
+                    kind = SparkSnapshot.SITE_MULTI_ARRAY;
+                    a = unit.intValue();
+                    b = ((Integer) ((Pair) newExpr).getO2()).intValue();
+                }
+            }
+            if( kind == SparkSnapshot.SITE_OTHER ) a = stringId( String.valueOf( newExpr ) );
+            int method = m == null ? -1 : methodId( m );
+            if( kind == SparkSnapshot.SITE_EXPR || kind == SparkSnapshot.SITE_MULTI_ARRAY ) {
+                List<Integer> l = methodSites.get( method );
+                if( l == null ) methodSites.set( method, l = new ArrayList<Integer>() );
+                l.add( new Integer( an.getNumber()-1 ) );
+            }
+            records.write( kind );
+            records.putInt( typeId( an.getType() ) );
+            records.putInt( method );
+            records.putInt( a );
+            records.putInt( b );
+            List<AllocDotField> adfs = new ArrayList<AllocDotField>( an.getFields() );
+            records.putInt( adfs.size() );
+            for( AllocDotField adf : adfs ) {
+                records.putInt( fieldId( adf.getField() ) );
+                records.putInt( setOffset( adf.getP2Set() ) );
+            }
+        }
+        allocs.putInt( records.size() );
+        records.appendTo( allocs );
+
+        int total = 0;
+        for( List<Integer> l : methodSites ) {
+            sites.putInt( total );
+            if( l != null ) total += l.size();
+        }
+        sites.putInt( total );
+        for( List<Integer> l : methodSites ) {
+            if( l == null ) continue;
+            for( Integer site : l ) sites.putInt( site.intValue() );
+        }
+    }
+
+    private void writeVars( Section locals, Section globals ) {
+        List<List<LocalVarNode>> methodLocals = new ArrayList<List<LocalVarNode>>();
+        for( int i = 0; i < methods.size(); i++ ) methodLocals.add( null );
+        List<GlobalVarNode> globalNodes = new ArrayList<GlobalVarNode>();
+        for( Iterator vnIt = pag.getVarNodeNumberer().iterator(); vnIt.hasNext(); ) {
+            final VarNode vn = (VarNode) vnIt.next();
+            if( isLocal( vn ) ) {
+                LocalVarNode lvn = (LocalVarNode) vn;
+                if( !lvn.getMethod().hasActiveBody() ) continue;
+                int method = methodId( lvn.getMethod() );
+                List<LocalVarNode> l = methodLocals.get( method );
+                if( l == null ) methodLocals.set( method, l = new ArrayList<LocalVarNode>() );
+                l.add( lvn );
+            } else if( vn instanceof GlobalVarNode ) {
+                Object v = vn.getVariable();
+                if( v instanceof SootField || v instanceof ArrayElement ) {
+                    globalNodes.add( (GlobalVarNode) vn );
+                }
+            }
+        }
+
+        int total = 0;
+        for( List<LocalVarNode> l : methodLocals ) {
+            locals.putInt( total );
+            if( l != null ) total += l.size();
+        }
+        locals.putInt( total );
+        for( List<LocalVarNode> l : methodLocals ) {
+            if( l == null ) continue;
+            Map<Local, Integer> positions = new IdentityHashMap<Local, Integer>();
+            for( Iterator lIt = l.get( 0 ).getMethod().getActiveBody().getLocals().iterator(); lIt.hasNext(); ) {
+                positions.put( (Local) lIt.next(), new Integer( positions.size() ) );
+            }
+            for( LocalVarNode lvn : l ) {
+                Local local = (Local) lvn.getVariable();
+                Integer position = positions.get( local );
+                locals.putInt( position == null ? -1 : position.intValue() );
+                locals.putInt( stringId( local.getName() ) );
+                locals.putInt( typeId( lvn.getType() ) );
+                locals.putInt( setOffset( lvn.getP2Set() ) );
+            }
+        }
+
+        globals.putInt( globalNodes.size() );
+        for( GlobalVarNode gvn : globalNodes ) {
+            Object v = gvn.getVariable();
+            globals.putInt( v instanceof SootField ? fieldId( (SootField) v ) : -1 );
+            globals.putInt( typeId( gvn.getType() ) );
+            globals.putInt( setOffset( gvn.getP2Set() ) );
+        }
+    }
+
+    private void writeMethods( Section out ) {
+        Section records = new Section();
+        out.putInt( methods.size() );
+        for( SootMethod m : methods ) {
+            out.putInt( records.size() );
+            records.putInt( stringId( m.getSignature() ) );
+            records.putInt( stringId( m.getDeclaringClass().getName() ) );
+            records.putInt( stringId( m.getName() ) );
+            records.putInt( typeId( m.getReturnType() ) );
+            records.putInt( m.isStatic() ? 1 : 0 );
+            if( m.hasActiveBody() ) {
+                Body b = m.getActiveBody();
+                long digest = SparkSnapshot.bodyDigest( b );
+                records.putInt( b.getUnits().size() );
+                records.putInt( (int) ( digest >>> 32 ) );
+                records.putInt( (int) digest );
+            } else {
+                records.putInt( -1 );
+                records.putInt( 0 );
+                records.putInt( 0 );
+            }
+            records.putInt( m.getParameterCount() );
+            for( Iterator tIt = m.getParameterTypes().iterator(); tIt.hasNext(); ) {
+                records.putInt( typeId( (Type) tIt.next() ) );
+            }
+        }
+        out.putInt( records.size() );
+        records.appendTo( out );
+    }
+
+    private void writeFields( Section out ) {
+        out.putInt( fields.size() );
+        for( SootField f : fields ) {
+            out.putInt( stringId( f.getDeclaringClass().getName() ) );
+            out.putInt( stringId( f.getName() ) );
+            out.putInt( typeId( f.getType() ) );
+            out.putInt( f.isStatic() ? 1 : 0 );
+        }
+    }
+
+    private void writeStrings( Section out ) {
+        Section data = new Section();
+        out.putInt( strings.size() );
+        for( String s : strings ) {
+            out.putInt( data.size() );
+            byte[] bytes = SparkSnapshot.utf8( s );
+            data.write( bytes, 0, bytes.length );
+        }
+        out.putInt( data.size() );
+        data.appendTo( out );
+    }
+
+    private static boolean isLocal( VarNode vn ) {
+        return vn instanceof LocalVarNode && vn.getVariable() instanceof Local
+            && ((LocalVarNode) vn).getMethod() != null;
+    }
+
+    /** Returns the index of each unit in the body of m, or null if m has
+     * no body. */
+    private Map<Object, Integer> unitIndices( SootMethod m ) {
+        if( !m.hasActiveBody() ) return null;
+        Map<Object, Integer> ret = new IdentityHashMap<Object, Integer>();
+        for( Iterator<Unit> uIt = m.getActiveBody().getUnits().iterator(); uIt.hasNext(); ) {
+            ret.put( uIt.next(), new Integer( ret.size() ) );
+        }
+        return ret;
+    }
+
+    /** Returns the index of the unit holding each new expression in the
+     * body of m. */
+    private Map<Object, Integer> siteIndices( SootMethod m ) {
+        Map<Object, Integer> ret = siteIndices.get( m );
+        if( ret != null ) return ret;
+        ret = new IdentityHashMap<Object, Integer>();
+        siteIndices.put( m, ret );
+        if( !m.hasActiveBody() ) return ret;
+        int i = 0;
+        for( Iterator<Unit> uIt = m.getActiveBody().getUnits().iterator(); uIt.hasNext(); i++ ) {
+            final Unit u = uIt.next();
+            for( Iterator bIt = u.getUseBoxes().iterator(); bIt.hasNext(); ) {
+                Object v = ((ValueBox) bIt.next()).getValue();
+                if( v instanceof AnyNewExpr ) ret.put( v, new Integer( i ) );
+            }
+        }
+        return ret;
+    }
+
+    private int methodId( SootMethod m ) {
+        Integer ret = methodToId.get( m );
+        if( ret == null ) {
+            methodToId.put( m, ret = new Integer( methods.size() ) );
+            methods.add( m );
+        }
+        return ret.intValue();
+    }
+
+    private int fieldId( Object field ) {
+        if( !( field instanceof SootField ) ) return -1;
+        Integer ret = fieldToId.get( field );
+        if( ret == null ) {
+            fieldToId.put( (SootField) field, ret = new Integer( fields.size() ) );
+            fields.add( (SootField) field );
+        }
+        return ret.intValue();
+    }
+
+    private int stringId( String s ) {
+        Integer ret = stringToId.get( s );
+        if( ret == null ) {
+            stringToId.put( s, ret = new Integer( strings.size() ) );
+            strings.add( s );
+        }
+        return ret.intValue();
+    }
+
+    private int typeId( Type t ) {
+        if( t == null ) return -1;
+        return stringId( SparkSnapshot.typeString( t ) );
+    }
+
+    /** Returns the offset in the SETS section of the encoding of set, null
+     * standing for the empty set, adding it if it is not there yet. */
+    private int setOffset( PointsToSetInternal set ) {
+        final int[][] ids = { new int[8] };
+        final int[] size = { 0 };
+        if( set != null ) {
+            set.forall( new P2SetVisitor() {
+            public final void visit( Node n ) {
+                if( size[0] == ids[0].length ) ids[0] = Arrays.copyOf( ids[0], size[0]*2 );
+                ids[0][size[0]++] = n.getNumber()-1;
+            }} );
+        }
+        Arrays.sort( ids[0], 0, size[0] );
+        Section encoding = new Section();
+        encoding.putVarInt( size[0] );
+        int last = 0;
+        for( int i = 0; i < size[0]; i++ ) {
+            encoding.putVarInt( ids[0][i]-last );
+            last = ids[0][i];
+        }
+        ByteBuffer key = ByteBuffer.wrap( encoding.toByteArray() );
+        Integer ret = setToOffset.get( key );
+        if( ret == null ) {
+            setToOffset.put( key, ret = new Integer( sets.size() ) );
+            encoding.appendTo( sets );
+        }
+        return ret.intValue();
+    }
+
+    /** A section of the file being put together. */
+    private static class Section extends ByteArrayOutputStream {
+        void putInt( int i ) {
+            write( i >>> 24 );
+            write( i >>> 16 );
+            write( i >>> 8 );
+            write( i );
+        }
+        void putVarInt( int i ) {
+            while( ( i & ~0x7f ) != 0 ) {
+                write( ( i & 0x7f ) | 0x80 );
+                i >>>= 7;
+            }
+            write( i );
+        }
+        void writeTo( FileChannel channel ) throws IOException {
+            ByteBuffer b = ByteBuffer.wrap( buf, 0, count );
+            while( b.hasRemaining() ) channel.write( b );
+        }
+        void appendTo( Section other ) {
+            other.write( buf, 0, count );
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.snapshot;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import soot.AnySubType;
+import soot.ArrayType;
+import soot.Body;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.G;
+import soot.IntType;
+import soot.Kind;
+import soot.Local;
+import soot.LongType;
+import soot.MethodOrMethodContext;
+import soot.NullType;
+import soot.Pack;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.PrimType;
+import soot.RefType;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.SourceLocator;
+import soot.Transform;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.SnapshotPAG;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.options.Options;
+import soot.options.SparkOptions;
+
+/** Saves the results of Spark, that is the call graph, the reachable
+ * methods and the points-to sets of the pointer assignment graph, to a
+ * binary snapshot file, and loads them back in a later run on the same
+ * program instead of running Spark again.
+ *
+ * <p>A snapshot is keyed by a digest of the classes in the Scene, of the
+ * files they were read from, of the entry points, of the options that
+ * decide how bodies are built and of the options of the cg and cg.spark
+ * phases; it is only loaded if the digest computed by the loading run is
+ * the same, and Spark runs as usual otherwise. The snapshot also holds a
+ * digest of each body it refers to, which is checked the first time the
+ * body is used, so a body that was built differently is reported rather
+ * than read wrongly. The snapshot is mapped into memory rather than read,
+ * and the parts of it are only decoded once asked for, by the
+ * {@link SnapshotCallGraph} and {@link SnapshotPAG} installed in the
+ * Scene.
+ */
+public class SparkSnapshot
+{
+    /** Returns the digest under which the results of Spark for the current
+     * Scene, run with the given options of the cg.spark phase, are saved. */
+    public static byte[] sceneKey( Map sparkOptions ) {
+        MessageDigest digest = sha1();
+        List<SootClass> classes = new ArrayList<SootClass>( Scene.v().getClasses() );
+        Collections.sort( classes, new Comparator<SootClass>() {
+            public int compare( SootClass c1, SootClass c2 ) {
+                return c1.getName().compareTo( c2.getName() );
+            }
+        } );
+        for( SootClass c : classes ) {
+            update( digest, c.getName() );
+            update( digest, c.isPhantom() ? "phantom" : "" );
+            String fingerprint = SourceLocator.v().fingerprintOf( c.getName() );
+            update( digest, fingerprint == null ? "no source" : fingerprint );
+        }
+        for( SootMethod m : Scene.v().getEntryPoints() ) {
+            update( digest, m.getSignature() );
+        }
+        update( digest, Options.v().src_prec()+" "+Options.v().throw_analysis()
+                +" "+Options.v().omit_excepting_unit_edges() );
+        for( String packName : BODY_PACKS ) {
+            Pack pack = PackManager.v().getPack( packName );
+            update( digest, options( PhaseOptions.v().getPhaseOptions( pack ) ) );
+            for( Iterator tIt = pack.iterator(); tIt.hasNext(); ) {
+                Transform t = (Transform) tIt.next();
+                update( digest, t.getPhaseName() );
+                update( digest, options( PhaseOptions.v().getPhaseOptions( t ) ) );
+            }
+        }
+        update( digest, options( PhaseOptions.v().getPhaseOptions( "cg" ) ) );
+        update( digest, options( sparkOptions ) );
+        return digest.digest();
+    }
+
+    /** The packs whose options change the bodies Spark is run on. */
+    private static final String[] BODY_PACKS = { "jb", "jj", "wjpp" };
+
+    /** Returns a digest of the locals and units of b, by which a loading
+     * run checks that it built the same body as the run that saved the
+     * snapshot. */
+    static long bodyDigest( Body b ) {
+        MessageDigest digest = sha1();
+        for( Local l : b.getLocals() ) {
+            update( digest, l.getName() );
+            update( digest, l.getType().toString() );
+        }
+        for( Unit u : b.getUnits() ) update( digest, u.toString() );
+        byte[] bytes = digest.digest();
+        long ret = 0;
+        for( int i = 0; i < 8; i++ ) ret = ( ret << 8 ) | ( bytes[i] & 0xff );
+        return ret;
+    }
+
+    /** Writes the results of Spark held by pag and by the call graph and
+     * reachable methods of the Scene to file, under the given key. */
+    public static void save( PAG pag, File file, byte[] key ) {
+        Date start = new Date();
+        try {
+            new SnapshotWriter( pag, Scene.v().getCallGraph(),
+                    Scene.v().getReachableMethods() ).write( file, key );
+        } catch( IOException e ) {
+            throw new RuntimeException( "Couldn't write snapshot "+file+": "+e );
+        }
+        reportTime( "Snapshot written to "+file, start, new Date() );
+    }
+
+    /** Installs the call graph, reachable methods and points-to analysis
+     * saved in file into the Scene, and returns true, if file holds a
+     * snapshot saved under the given key. Returns false, leaving the Scene
+     * alone, if it does not. */
+    public static boolean load( File file, byte[] key, SparkOptions opts ) {
+        if( !file.exists() ) {
+            G.v().out.println( "[Spark] No snapshot in "+file );
+            return false;
+        }
+        Date start = new Date();
+        SnapshotReader snapshot;
+        try {
+            snapshot = SnapshotReader.open( file, key );
+        } catch( IOException e ) {
+            throw new RuntimeException( "Couldn't read snapshot "+file+": "+e );
+        }
+        if( snapshot == null ) {
+            G.v().out.println( "[Spark] Snapshot in "+file+" is out of date" );
+            return false;
+        }
+        SnapshotCallGraph cg = new SnapshotCallGraph( snapshot );
+        List<MethodOrMethodContext> reachables = new ArrayList<MethodOrMethodContext>();
+        for( int id : snapshot.reachableMethods() ) {
+            SootMethod m = snapshot.method( id );
+            if( m != null ) reachables.add( m );
+        }
+        Scene.v().setCallGraph( cg );
+        Scene.v().setReachableMethods( new ReachableMethods( cg.addedEdges(), reachables ) );
+        Scene.v().setPointsToAnalysis( new SnapshotPAG( opts, snapshot ) );
+        reportTime( "Snapshot loaded from "+file, start, new Date() );
+        return true;
+    }
+
+    /** Returns the reason Spark cannot save or load snapshots when run with
+     * opts, or null if it can. */
+    public static String unsupported( SparkOptions opts ) {
+        if( opts.rta() ) return "rta";
+        if( opts.geom_pta() ) return "geom-pta";
+        if( opts.cs_demand() ) return "cs-demand";
+        return null;
+    }
+
+    private static String options( Map options ) {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for( Iterator it = options.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry e = (Map.Entry) it.next();
+            String name = (String) e.getKey();
+            if( name.equals( "save-snapshot" ) || name.equals( "load-snapshot" ) ) continue;
+            sorted.put( name, String.valueOf( e.getValue() ) );
+        }
+        return sorted.toString();
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance( "SHA-1" );
+        } catch( NoSuchAlgorithmException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static void update( MessageDigest digest, String s ) {
+        digest.update( utf8( s ) );
+        digest.update( (byte) 0 );
+    }
+
+    static byte[] utf8( String s ) {
+        try {
+            return s.getBytes( "UTF-8" );
+        } catch( UnsupportedEncodingException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static void reportTime( String desc, Date start, Date end ) {
+        long time = end.getTime()-start.getTime();
+        G.v().out.println( "[Spark] "+desc+" in "+time/1000+"."+(time/100)%10+" seconds." );
+    }
+
+    /* The layout of a snapshot file. All numbers are big-endian. The file
+     * starts with MAGIC, VERSION, the key and the offsets in the file of
+     * the sections, in the order below. */
+
+    static final int MAGIC = 0x53504b53;
+    static final int VERSION = 2;
+    static final int KEY_LENGTH = 20;
+
+    /** n, the offsets of n+1 strings from the end of the offsets, then the
+     * strings in UTF-8. */
+    static final int STRINGS = 0;
+    /** n, the offsets of n+1 methods from the end of the offsets, then for
+     * each method its signature, class, name and return type as strings,
+     * whether it is static, the number of units of its body, or -1, the
+     * bodyDigest() of its body as two ints, or zeros, and its parameter
+     * types as a count followed by strings. */
+    static final int METHODS = 1;
+    /** n, then for each field its class, name and type as strings and
+     * whether it is static. */
+    static final int FIELDS = 2;
+    /** The index of the first edge out of each of the n methods and the
+     * total number of edges, then for each edge the index of its source
+     * unit in the body of the source method, or -1, its target method and
+     * its kind as a byte. */
+    static final int EDGES = 3;
+    static final int EDGE_SIZE = 9;
+    /** The index of the first edge into each of the n methods and the
+     * total, then for each edge into a method its source method and the
+     * index of the edge in EDGES. */
+    static final int EDGES_IN = 4;
+    /** n, then the reachable methods in the order they were found. */
+    static final int REACHABLE = 5;
+    /** n, the offsets of n+1 allocation sites from the end of the offsets,
+     * then for each site its kind as a byte, its type, method and two
+     * more numbers depending on the kind, and the number of its fields
+     * followed by the field and points-to set of each. */
+    static final int ALLOCS = 6;
+    /** The index of the first allocation site in the body of each of the
+     * n methods and the total, then the allocation sites. */
+    static final int SITES = 7;
+    /** The index of the first local of each of the n methods and the
+     * total, then for each local its position in the locals of its body,
+     * its name, its type and its points-to set. */
+    static final int LOCALS = 8;
+    /** n, then for each static field, or array element, its field, or -1,
+     * its type and its points-to set. */
+    static final int GLOBALS = 9;
+    /** The points-to sets, each as its size followed by the differences
+     * between its sorted allocation sites, all in variable-length
+     * encoding. */
+    static final int SETS = 10;
+    static final int SECTIONS = 11;
+
+    /* Kinds of allocation sites, with what their two numbers hold. */
+
+    /** A NewExpr or NewArrayExpr: the index of its unit. */
+    public static final byte SITE_EXPR = 0;
+    /** A NewMultiArrayExpr: the index of its unit and the dimension. */
+    public static final byte SITE_MULTI_ARRAY = 1;
+    /** A string constant: the string. */
+    public static final byte SITE_STRING = 2;
+    /** A class constant: the string. */
+    public static final byte SITE_CLASS = 3;
+    /** All objects of a type. */
+    public static final byte SITE_TYPE = 4;
+    /** An object named by a string, such as PointsToAnalysis.MAIN_THREAD_NODE: the string. */
+    public static final byte SITE_NAMED = 5;
+    /** Any other site: a description of it. */
+    public static final byte SITE_OTHER = 6;
+
+    static final Kind[] KINDS = {
+        Kind.INVALID, Kind.STATIC, Kind.VIRTUAL, Kind.INTERFACE, Kind.SPECIAL,
+        Kind.CLINIT, Kind.THREAD, Kind.FINALIZE, Kind.INVOKE_FINALIZE,
+        Kind.PRIVILEGED, Kind.NEWINSTANCE, Kind.REFL_INVOKE,
+        Kind.REFL_CONSTR_NEWINSTANCE, Kind.REFL_CLASS_NEWINSTANCE };
+
+    static int kindIndex( Kind kind ) {
+        for( int i = 0; i < KINDS.length; i++ ) {
+            if( KINDS[i] == kind ) return i;
+        }
+        throw new RuntimeException( "Unknown edge kind "+kind );
+    }
+
+    /** Returns the string from which typeOf() makes t again. */
+    static String typeString( Type t ) {
+        if( t instanceof RefType ) return ((RefType) t).getClassName();
+        if( t instanceof ArrayType ) {
+            ArrayType at = (ArrayType) t;
+            StringBuffer ret = new StringBuffer( typeString( at.baseType ) );
+            for( int i = 0; i < at.numDimensions; i++ ) ret.append( "[]" );
+            return ret.toString();
+        }
+        if( t instanceof AnySubType ) return "+"+((AnySubType) t).getBase().getClassName();
+        if( t instanceof NullType ) return "null_type";
+        if( t instanceof PrimType || t instanceof VoidType ) return t.toString();
+        throw new RuntimeException( "Unexpected type "+t );
+    }
+
+    static Type typeOf( String s ) {
+        if( s.endsWith( "[]" ) ) {
+            int dims = 0;
+            int end = s.length();
+            while( s.startsWith( "[]", end-2 ) ) {
+                end -= 2;
+                dims++;
+            }
+            return ArrayType.v( typeOf( s.substring( 0, end ) ), dims );
+        }
+        if( s.startsWith( "+" ) ) return AnySubType.v( RefType.v( s.substring( 1 ) ) );
+        if( s.equals( "null_type" ) ) return NullType.v();
+        if( s.equals( "boolean" ) ) return BooleanType.v();
+        if( s.equals( "byte" ) ) return ByteType.v();
+        if( s.equals( "char" ) ) return CharType.v();
+        if( s.equals( "short" ) ) return ShortType.v();
+        if( s.equals( "int" ) ) return IntType.v();
+        if( s.equals( "long" ) ) return LongType.v();
+        if( s.equals( "float" ) ) return FloatType.v();
+        if( s.equals( "double" ) ) return DoubleType.v();
+        if( s.equals( "void" ) ) return VoidType.v();
+        return RefType.v( s );
+    }
+}
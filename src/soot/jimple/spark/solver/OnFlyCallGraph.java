@@ -43,7 +43,7 @@ public class OnFlyCallGraph {
 
     public OnFlyCallGraph( PAG pag ) {
         this.pag = pag;
-        callGraph = new CallGraph();
+        callGraph = CallGraphBuilder.makeCallGraph();
         Scene.v().setCallGraph( callGraph );
         ContextManager cm = CallGraphBuilder.makeContextManager(callGraph);
         reachableMethods = Scene.v().getReachableMethods();
@@ -113,8 +113,9 @@ public final class PropAlias extends Propagator {
             for (FieldRefNode src : outFieldRefWorkList) {
                 PointsToSetInternal set = getP2Set( src ).getNewSet();
                 if( set.isEmpty() ) continue;
-                Node[] targets = pag.loadLookup( src );
-                for (Node element0 : targets) {
+                EdgeRow targets = pag.loadRow( src, row );
+                for( int i = 0; i < targets.size(); i++ ) {
+                    Node element0 = targets.get( i );
                     VarNode target = (VarNode) element0;
                     if( target.makeP2Set().addAll( set, null ) ) {
                         addToWorklist( target );
@@ -133,8 +134,9 @@ public final class PropAlias extends Propagator {
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
 	    if( element.makeP2Set().add( src ) ) {
                 addToWorklist( (VarNode) element );
                 ret = true;
@@ -189,16 +191,18 @@ public final class PropAlias extends Propagator {
             }
         }
 
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
+	EdgeRow simpleTargets = pag.simpleRow( src, row );
+	for( int i = 0; i < simpleTargets.size(); i++ ) {
+	    Node element = simpleTargets.get( i );
 	    if( element.makeP2Set().addAll( newP2Set, null ) ) {
                 addToWorklist( (VarNode) element );
                 ret = true;
             }
 	}
 
-        Node[] storeTargets = pag.storeLookup( src );
-        for (Node element : storeTargets) {
+        EdgeRow storeTargets = pag.storeRow( src, row );
+        for( int i = 0; i < storeTargets.size(); i++ ) {
+            Node element = storeTargets.get( i );
             final FieldRefNode fr = (FieldRefNode) element;
             if( fr.makeP2Set().addAll( newP2Set, null ) ) {
                 fieldRefWorkList.add( fr );
@@ -234,6 +238,8 @@ public final class PropAlias extends Propagator {
     }
 
     protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
     protected MultiMap fieldToBase = new HashMultiMap();
     protected MultiMap aliasEdges = new HashMultiMap();
     protected LargeNumberedMap loadSets;
@@ -60,8 +60,9 @@ public final class PropCycle extends Propagator {
             if( verbose ) G.v().out.println( "Processing stores" );
             for (Object object : pag.storeSources()) {
                 final VarNode src = (VarNode) object;
-                Node[] targets = pag.storeLookup( src );
-                for (Node element0 : targets) {
+                EdgeRow targets = pag.storeRow( src, row );
+                for( int i = 0; i < targets.size(); i++ ) {
+                    Node element0 = targets.get( i );
                     final FieldRefNode target = (FieldRefNode) element0;
                     changed = target.getBase().makeP2Set().forall( new P2SetVisitor() {
                     public final void visit( Node n ) {
@@ -105,12 +106,14 @@ public final class PropCycle extends Propagator {
 
         path.add( v );
         if( v.getP2Set().isEmpty() ) {
-            Node[] srcs = pag.allocInvLookup( v );
-            for (Node element : srcs) {
+            EdgeRow srcs = pag.allocInvRow( v, row );
+            for( int i = 0; i < srcs.size(); i++ ) {
+                Node element = srcs.get( i );
                 ret = v.makeP2Set().add( element ) | ret;
             }
         }
         {
+            // the recursive call below refills the shared row
             Node[] srcs = pag.simpleInvLookup( v );
             for (Node element : srcs) {
                 VarNode src = (VarNode) element;
@@ -119,8 +122,9 @@ public final class PropCycle extends Propagator {
             }
         }
         {
-            Node[] srcs = pag.loadInvLookup( v );
-            for (Node element : srcs) {
+            EdgeRow srcs = pag.loadInvRow( v, row );
+            for( int i = 0; i < srcs.size(); i++ ) {
+                Node element = srcs.get( i );
                 final FieldRefNode src = (FieldRefNode) element;
                 ret = src.getBase().getP2Set().forall( new P2SetVisitor() {
                 public final void visit( Node n ) {
@@ -136,6 +140,8 @@ public final class PropCycle extends Propagator {
     }
 
     private PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
     private OnFlyCallGraph ofcg;
     private Integer currentIteration;
     private final LargeNumberedMap varNodeToIteration;
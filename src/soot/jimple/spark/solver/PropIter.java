@@ -87,8 +87,9 @@ public final class PropIter extends Propagator {
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
 	    ret = element.makeP2Set().add( src ) | ret;
 	}
 	return ret;
@@ -98,8 +99,9 @@ public final class PropIter extends Propagator {
 	boolean ret = false;
 	PointsToSetInternal srcSet = src.getP2Set();
 	if( srcSet.isEmpty() ) return false;
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
+	EdgeRow simpleTargets = pag.simpleRow( src, row );
+	for( int i = 0; i < simpleTargets.size(); i++ ) {
+	    Node element = simpleTargets.get( i );
 	    ret = element.makeP2Set().addAll( srcSet, null ) | ret;
 	}
         return ret;
@@ -109,8 +111,9 @@ public final class PropIter extends Propagator {
 	boolean ret = false;
 	final PointsToSetInternal srcSet = src.getP2Set();
 	if( srcSet.isEmpty() ) return false;
-	Node[] storeTargets = pag.storeLookup( src );
-	for (Node element : storeTargets) {
+	EdgeRow storeTargets = pag.storeRow( src, row );
+	for( int i = 0; i < storeTargets.size(); i++ ) {
+            Node element = storeTargets.get( i );
             final FieldRefNode fr = (FieldRefNode) element;
             final SparkField f = fr.getField();
             ret = fr.getBase().getP2Set().forall( new P2SetVisitor() {
@@ -148,6 +151,8 @@ public final class PropIter extends Propagator {
     }
 
     protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
 }
 
 
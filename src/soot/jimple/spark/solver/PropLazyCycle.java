@@ -0,0 +1,533 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.solver;
+import soot.jimple.spark.pag.*;
+import soot.jimple.spark.sets.*;
+import soot.jimple.spark.internal.TypeManager;
+import soot.*;
+import soot.util.IdentityHashSet;
+import soot.util.queue.*;
+import java.util.*;
+
+/** Propagates points-to sets along pointer assignment graph using a worklist,
+ * collapsing cycles of simple edges as they are found during propagation.
+ * When propagating along a simple edge src -> tgt leaves both nodes with the
+ * same points-to set, the edge is likely to be part of a cycle, so the
+ * strongly connected components reachable from tgt are computed and their
+ * nodes are merged (lazy cycle detection, as described by Hardekopf and Lin).
+ * Each edge triggers at most one search, and searches that could not find
+ * anything new since the graph last changed are skipped. Only edges along which no type
+ * filtering takes place are followed, so the points-to sets computed are
+ * the same as with PropWorklist.
+ */
+
+public final class PropLazyCycle extends Propagator {
+    protected final Set<VarNode> varNodeWorkList = new TreeSet<VarNode>();
+
+    public PropLazyCycle( PAG pag ) { this.pag = pag; }
+    /** Actually does the propagation. */
+    public final void propagate() {
+        ofcg = pag.getOnFlyCallGraph();
+        typeManager = pag.getTypeManager();
+        ignoreTypes = pag.getOpts().ignore_types();
+        new TopoSorter( pag, false ).sort();
+	for (Object object : pag.allocSources()) {
+	    handleAllocNode( (AllocNode) object );
+	}
+
+        boolean verbose = pag.getOpts().verbose();
+	do {
+            if( verbose ) {
+                G.v().out.println( "Worklist has "+varNodeWorkList.size()+
+                        " nodes." );
+            }
+            while( !varNodeWorkList.isEmpty() ) {
+                VarNode src = varNodeWorkList.iterator().next();
+                varNodeWorkList.remove( src );
+                handleVarNode( src );
+                if( !cycleCandidates.isEmpty() ) {
+                    for (VarNode candidate : new ArrayList<VarNode>( cycleCandidates ) ) {
+                        collapseCyclesFrom( (VarNode) candidate.getReplacement() );
+                    }
+                    cycleCandidates.clear();
+                }
+            }
+            if( verbose ) {
+                G.v().out.println( "Now handling field references" );
+            }
+            for (Object object : pag.storeSources()) {
+                final VarNode src = (VarNode) object;
+                EdgeRow targets = pag.storeRow( src, row );
+                for( int i = 0; i < targets.size(); i++ ) {
+                    Node element0 = targets.get( i );
+                    final FieldRefNode target = (FieldRefNode) element0;
+                    target.getBase().makeP2Set().forall( new P2SetVisitor() {
+                    public final void visit( Node n ) {
+                            AllocDotField nDotF = pag.makeAllocDotField(
+                                (AllocNode) n, target.getField() );
+                            nDotF.makeP2Set().addAll( src.getP2Set(), null );
+                        }
+                    } );
+                }
+            }
+            HashSet<Object[]> edgesToPropagate = new HashSet<Object[]>();
+	    for (Object object : pag.loadSources()) {
+                handleFieldRefNode( (FieldRefNode) object, edgesToPropagate );
+	    }
+	        IdentityHashSet<PointsToSetInternal> nodesToFlush = new IdentityHashSet<PointsToSetInternal>();
+            for (Object[] pair : edgesToPropagate) {
+                PointsToSetInternal nDotF = (PointsToSetInternal) pair[0];
+		PointsToSetInternal newP2Set = nDotF.getNewSet();
+                VarNode loadTarget = (VarNode) ((VarNode) pair[1]).getReplacement();
+                if( loadTarget.makeP2Set().addAll( newP2Set, null ) ) {
+                    varNodeWorkList.add( loadTarget );
+                }
+                nodesToFlush.add( nDotF );
+            }
+            for (PointsToSetInternal nDotF : nodesToFlush) {
+                nDotF.flushNew();
+            }
+	} while( !varNodeWorkList.isEmpty() );
+        if( verbose ) {
+            G.v().out.println( "Cycle searches: "+numSearches+
+                    ", nodes collapsed: "+numCollapsed );
+        }
+    }
+
+    /** Returns the number of nodes merged into other nodes so far. */
+    public int getNumCollapsed() { return numCollapsed; }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final boolean handleAllocNode( AllocNode src ) {
+	boolean ret = false;
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
+	    if( element.makeP2Set().add( src ) ) {
+                varNodeWorkList.add( (VarNode) element );
+                ret = true;
+            }
+	}
+	return ret;
+    }
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final boolean handleVarNode( final VarNode src ) {
+	boolean ret = false;
+        boolean flush = true;
+
+        if( src.getReplacement() != src ) throw new RuntimeException(
+                "Got bad node "+src+" with rep "+src.getReplacement() );
+
+	final PointsToSetInternal newP2Set = src.getP2Set().getNewSet();
+	if( newP2Set.isEmpty() ) return false;
+
+        List<VarNode> members = mergedInto.get( src );
+
+        if( ofcg != null ) {
+            QueueReader addedEdges = pag.edgeReader();
+            ofcg.updatedNode( src );
+            if( members != null ) {
+                for (VarNode member : members) {
+                    ofcg.updatedNode( member );
+                }
+            }
+            ofcg.build();
+
+            while(addedEdges.hasNext()) {
+                Node addedSrc = (Node) addedEdges.next();
+                Node addedTgt = (Node) addedEdges.next();
+                ret = true;
+                if( addedSrc instanceof VarNode ) {
+                    if( addedTgt instanceof VarNode ) {
+                        VarNode edgeSrc = (VarNode) addedSrc.getReplacement();
+                        VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+
+                        lastChange = numSearches;
+                        if( edgeTgt.makeP2Set().addAll( edgeSrc.getP2Set(), null ) ) {
+                            varNodeWorkList.add( edgeTgt );
+                            if(edgeTgt == src) flush = false;
+                        }
+                    }
+                } else if( addedSrc instanceof AllocNode ) {
+                    AllocNode edgeSrc = (AllocNode) addedSrc;
+                    VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+                    if( edgeTgt.makeP2Set().add( edgeSrc ) ) {
+                        varNodeWorkList.add( edgeTgt );
+                        if(edgeTgt == src) flush = false;
+                    }
+                }
+            }
+        }
+
+	EdgeRow simpleTargets = pag.simpleRow( src, row );
+	for( int i = 0; i < simpleTargets.size(); i++ ) {
+	    Node element = simpleTargets.get( i );
+	    if( element.makeP2Set().addAll( newP2Set, null ) ) {
+                varNodeWorkList.add( (VarNode) element );
+                if(element == src) flush = false;
+                ret = true;
+            } else if( element != src ) {
+                checkEdge( src, (VarNode) element );
+            }
+	}
+
+        EdgeRow storeTargets = pag.storeRow( src, row );
+        for( int i = 0; i < storeTargets.size(); i++ ) {
+            Node element = storeTargets.get( i );
+            final FieldRefNode fr = (FieldRefNode) element;
+            final SparkField f = fr.getField();
+            ret = fr.getBase().getP2Set().forall( new P2SetVisitor() {
+            public final void visit( Node n ) {
+                    AllocDotField nDotF = pag.makeAllocDotField(
+                        (AllocNode) n, f );
+                    if( nDotF.makeP2Set().addAll( newP2Set, null ) ) {
+                        returnValue = true;
+                    }
+		}
+	    } ) | ret;
+        }
+
+        final HashSet<Node[]> storesToPropagate = new HashSet<Node[]>();
+        final HashSet<Node[]> loadsToPropagate = new HashSet<Node[]>();
+	Collection fieldRefs = src.getAllFieldRefs();
+        if( members != null ) {
+            fieldRefs = new ArrayList( fieldRefs );
+            for (VarNode member : members) {
+                fieldRefs.addAll( member.getAllFieldRefs() );
+            }
+        }
+	for( Iterator frIt = fieldRefs.iterator(); frIt.hasNext(); ) {
+	    final FieldRefNode fr = (FieldRefNode) frIt.next();
+	    final SparkField field = fr.getField();
+	    final Node[] storeSources = pag.storeInvLookup( fr );
+            if( storeSources.length > 0 ) {
+                newP2Set.forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = pag.makeAllocDotField(
+                            (AllocNode) n, field );
+                        for (Node element : storeSources) {
+                            Node[] pair = { element,
+                                nDotF.getReplacement() };
+                            storesToPropagate.add( pair );
+                        }
+                    }
+                } );
+            }
+
+	    final Node[] loadTargets = pag.loadLookup( fr );
+            if( loadTargets.length > 0 ) {
+                newP2Set.forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = pag.makeAllocDotField(
+                            (AllocNode) n, field );
+                        if( nDotF != null ) {
+                            for (Node element : loadTargets) {
+                                Node[] pair = { nDotF.getReplacement(),
+                                    element };
+                                loadsToPropagate.add( pair );
+                            }
+                        }
+                    }
+                } );
+            }
+	}
+        if(flush) src.getP2Set().flushNew();
+        for (Node[] p : storesToPropagate) {
+            VarNode storeSource = (VarNode) p[0];
+            AllocDotField nDotF = (AllocDotField) p[1];
+            if( nDotF.makeP2Set().addAll( storeSource.getP2Set(), null ) ) {
+                ret = true;
+            }
+        }
+        for (Node[] p : loadsToPropagate) {
+            AllocDotField nDotF = (AllocDotField) p[0];
+            VarNode loadTarget = (VarNode) p[1];
+            if( loadTarget.makeP2Set().
+                addAll( nDotF.getP2Set(), null ) ) {
+                varNodeWorkList.add( loadTarget );
+                ret = true;
+            }
+        }
+	return ret;
+    }
+
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final void handleFieldRefNode( FieldRefNode src,
+            final HashSet<Object[]> edgesToPropagate ) {
+	final Node[] loadTargets = pag.loadLookup( src );
+	if( loadTargets.length == 0 ) return;
+        final SparkField field = src.getField();
+
+	src.getBase().getP2Set().forall( new P2SetVisitor() {
+
+	public final void visit( Node n ) {
+                AllocDotField nDotF = pag.makeAllocDotField(
+                    (AllocNode) n, field );
+                if( nDotF != null ) {
+                    PointsToSetInternal p2Set = nDotF.getP2Set();
+                    if( !p2Set.getNewSet().isEmpty() ) {
+                        for (Node element : loadTargets) {
+                            Object[] pair = { p2Set, element };
+                            edgesToPropagate.add( pair );
+                        }
+                    }
+                }
+	    }
+	} );
+    }
+
+    /** Called when propagating along the simple edge src -> tgt added nothing
+     * to tgt. If the two points-to sets are now equal and the edge has not
+     * triggered a search before, tgt is remembered as the start of a search
+     * for cycles, done once src has been handled. */
+    protected final void checkEdge( VarNode src, VarNode tgt ) {
+        if( !follows( src, tgt ) ) return;
+        long edge = ( ((long) src.getNumber()) << 32 ) | tgt.getNumber();
+        if( checkedEdges.contains( edge ) ) return;
+        if( src.getP2Set().size() != tgt.getP2Set().size() ) return;
+        checkedEdges.add( edge );
+        cycleCandidates.add( tgt );
+    }
+
+    /** Returns true if cycle searches follow the simple edge src -> tgt,
+     * that is, if no points-to information is filtered out along it. */
+    protected final boolean follows( VarNode src, VarNode tgt ) {
+        return ignoreTypes
+            || typeManager.castNeverFails( src.getType(), tgt.getType() );
+    }
+
+    /** Finds the strongly connected components of simple edges reachable
+     * from start using Tarjan's algorithm, without recursion since the
+     * paths in the PAG can be very long, and collapses each of them. */
+    protected final void collapseCyclesFrom( VarNode start ) {
+        // A search from a node already reached by an earlier search would
+        // find nothing new unless the graph has changed since.
+        int startNum = start.getNumber();
+        if( startNum < visitedIn.length && visitedIn[startNum] > lastChange ) return;
+        numSearches++;
+        final ArrayList<VarNode> sccStack = new ArrayList<VarNode>();
+        final ArrayList<VarNode> dfsNodes = new ArrayList<VarNode>();
+        final ArrayList<Node[]> dfsSuccs = new ArrayList<Node[]>();
+        int[] dfsPos = new int[16];
+        final List<List<VarNode>> sccs = new ArrayList<List<VarNode>>();
+        int nextIndex = 0;
+
+        visit( start, nextIndex++ );
+        sccStack.add( start );
+        dfsNodes.add( start );
+        dfsSuccs.add( pag.simpleLookup( start ) );
+        dfsPos[0] = 0;
+
+        while( !dfsNodes.isEmpty() ) {
+            int top = dfsNodes.size() - 1;
+            VarNode v = dfsNodes.get( top );
+            Node[] succs = dfsSuccs.get( top );
+            if( dfsPos[top] < succs.length ) {
+                VarNode w = (VarNode) succs[dfsPos[top]++];
+                if( w == v || !follows( v, w ) ) continue;
+                int wNum = w.getNumber();
+                if( wNum >= visitedIn.length || visitedIn[wNum] != numSearches ) {
+                    visit( w, nextIndex++ );
+                    sccStack.add( w );
+                    dfsNodes.add( w );
+                    dfsSuccs.add( pag.simpleLookup( w ) );
+                    if( top + 1 == dfsPos.length ) {
+                        int[] newPos = new int[dfsPos.length * 2];
+                        System.arraycopy( dfsPos, 0, newPos, 0, dfsPos.length );
+                        dfsPos = newPos;
+                    }
+                    dfsPos[top+1] = 0;
+                } else if( onStack[wNum] ) {
+                    int vNum = v.getNumber();
+                    if( dfsIndex[wNum] < lowLink[vNum] ) {
+                        lowLink[vNum] = dfsIndex[wNum];
+                    }
+                }
+                continue;
+            }
+            dfsNodes.remove( top );
+            dfsSuccs.remove( top );
+            int vNum = v.getNumber();
+            if( top > 0 ) {
+                int parentNum = dfsNodes.get( top - 1 ).getNumber();
+                if( lowLink[vNum] < lowLink[parentNum] ) {
+                    lowLink[parentNum] = lowLink[vNum];
+                }
+            }
+            if( lowLink[vNum] == dfsIndex[vNum] ) {
+                List<VarNode> scc = new ArrayList<VarNode>();
+                VarNode w;
+                do {
+                    w = sccStack.remove( sccStack.size() - 1 );
+                    onStack[w.getNumber()] = false;
+                    scc.add( w );
+                } while( w != v );
+                if( scc.size() > 1 ) sccs.add( scc );
+            }
+        }
+        for (List<VarNode> scc : sccs) {
+            collapse( scc );
+        }
+    }
+
+    /** Marks v as visited by the current search, with the given index. */
+    private void visit( VarNode v, int index ) {
+        int num = v.getNumber();
+        if( num >= visitedIn.length ) {
+            int size = Math.max( num + 1, pag.getVarNodeNumberer().size() + 1 );
+            int[] newVisitedIn = new int[size];
+            System.arraycopy( visitedIn, 0, newVisitedIn, 0, visitedIn.length );
+            visitedIn = newVisitedIn;
+            int[] newDfsIndex = new int[size];
+            System.arraycopy( dfsIndex, 0, newDfsIndex, 0, dfsIndex.length );
+            dfsIndex = newDfsIndex;
+            int[] newLowLink = new int[size];
+            System.arraycopy( lowLink, 0, newLowLink, 0, lowLink.length );
+            lowLink = newLowLink;
+            boolean[] newOnStack = new boolean[size];
+            System.arraycopy( onStack, 0, newOnStack, 0, onStack.length );
+            onStack = newOnStack;
+        }
+        visitedIn[num] = numSearches;
+        dfsIndex[num] = index;
+        lowLink[num] = index;
+        onStack[num] = true;
+    }
+
+    /** Merges the nodes of a strongly connected component into its first
+     * node, and puts the result back on the worklist so that its points-to
+     * set reaches the successors of the merged nodes. */
+    protected final void collapse( List<VarNode> scc ) {
+        VarNode root = scc.get( 0 );
+        boolean merged = false;
+        for (VarNode v : scc) {
+            if( v == root ) continue;
+            if( !ignoreTypes ) {
+                if( !sameType( root.getType(), v.getType() ) ) continue;
+            } else {
+                // Types are not used for filtering, but the sets being
+                // merged must agree on their type.
+                PointsToSetInternal rootSet = root.getP2Set();
+                PointsToSetInternal vSet = v.getP2Set();
+                if( rootSet != EmptyPointsToSet.v()
+                        && vSet != EmptyPointsToSet.v()
+                        && !sameType( rootSet.getType(), vSet.getType() ) ) {
+                    rootSet.setType( null );
+                    vSet.setType( null );
+                }
+            }
+            root.mergeWith( v );
+            varNodeWorkList.remove( v );
+            List<VarNode> members = mergedInto.get( root );
+            if( members == null ) mergedInto.put( root, members = new ArrayList<VarNode>() );
+            members.add( v );
+            List<VarNode> vMembers = mergedInto.remove( v );
+            if( vMembers != null ) members.addAll( vMembers );
+            numCollapsed++;
+            merged = true;
+        }
+        if( merged ) {
+            varNodeWorkList.add( root );
+            lastChange = numSearches;
+        }
+    }
+
+    private static boolean sameType( Type t1, Type t2 ) {
+        return t1 == null ? t2 == null : t1.equals( t2 );
+    }
+
+    protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
+    protected OnFlyCallGraph ofcg;
+    protected TypeManager typeManager;
+    protected boolean ignoreTypes;
+    protected int numSearches = 0;
+    protected int numCollapsed = 0;
+    /** For each node that others have been merged into, the merged nodes,
+     * whose field references and call sites are handled with it. */
+    protected final Map<VarNode, List<VarNode>> mergedInto = new HashMap<VarNode, List<VarNode>>();
+    /** Per node number, the search that last visited the node, and its
+     * Tarjan index and low link in that search. */
+    private int[] visitedIn = new int[0];
+    /** The number of searches done when simple edges were last added or
+     * nodes last merged. */
+    private int lastChange = 0;
+    private int[] dfsIndex = new int[0];
+    private int[] lowLink = new int[0];
+    private boolean[] onStack = new boolean[0];
+    /** The simple edges that have triggered a search, each as the number of
+     * its source in the high 32 bits and that of its target in the low. */
+    protected final EdgeSet checkedEdges = new EdgeSet();
+    protected final Set<VarNode> cycleCandidates = new LinkedHashSet<VarNode>();
+
+    /** A set of edges, each packed into a long as in {@link #checkEdge},
+     * kept in an open-addressing table rather than as Long objects. Since
+     * nodes are numbered from 1, no edge is 0, which marks a free slot. */
+    protected static final class EdgeSet {
+        private long[] table = new long[64];
+        private int size = 0;
+
+        public boolean contains( long edge ) {
+            int mask = table.length - 1;
+            for( int i = slot( edge, mask ); ; i = ( i + 1 ) & mask ) {
+                if( table[i] == edge ) return true;
+                if( table[i] == 0L ) return false;
+            }
+        }
+
+        /** Adds edge, which must not be 0; returns true if it was not
+         * already in the set. */
+        public boolean add( long edge ) {
+            int mask = table.length - 1;
+            int i = slot( edge, mask );
+            for( ; table[i] != 0L; i = ( i + 1 ) & mask ) {
+                if( table[i] == edge ) return false;
+            }
+            table[i] = edge;
+            if( ++size * 2 > table.length ) grow();
+            return true;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            int mask = table.length - 1;
+            for( int j = 0; j < old.length; j++ ) {
+                long edge = old[j];
+                if( edge == 0L ) continue;
+                int i = slot( edge, mask );
+                while( table[i] != 0L ) i = ( i + 1 ) & mask;
+                table[i] = edge;
+            }
+        }
+
+        private static int slot( long edge, int mask ) {
+            long h = edge * 0x9E3779B97F4A7C15L;
+            return (int) ( h >>> 32 ) & mask;
+        }
+    }
+}
@@ -64,8 +64,9 @@ public final class PropMerge extends Propagator {
             }
             for (Object object : pag.storeSources()) {
                 final VarNode src = (VarNode) object;
-                Node[] storeTargets = pag.storeLookup( src );
-                for (Node element0 : storeTargets) {
+                EdgeRow storeTargets = pag.storeRow( src, row );
+                for( int i = 0; i < storeTargets.size(); i++ ) {
+                    Node element0 = storeTargets.get( i );
                     final FieldRefNode fr = (FieldRefNode) element0;
                     fr.makeP2Set().addAll( src.getP2Set(), null );
                 }
@@ -75,8 +76,9 @@ public final class PropMerge extends Propagator {
                 if( src != src.getReplacement() ) {
                     throw new RuntimeException( "shouldn't happen" );
                 }
-                Node[] targets = pag.loadLookup( src );
-                for (Node element0 : targets) {
+                EdgeRow targets = pag.loadRow( src, row );
+                for( int i = 0; i < targets.size(); i++ ) {
+                    Node element0 = targets.get( i );
                     VarNode target = (VarNode) element0;
                     if( target.makeP2Set().addAll(
                                 src.getP2Set(), null ) ) {
@@ -94,8 +96,9 @@ public final class PropMerge extends Propagator {
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
 	    if( element.makeP2Set().add( src ) ) {
                 varNodeWorkList.add( element );
                 ret = true;
@@ -117,16 +120,18 @@ public final class PropMerge extends Propagator {
 	final PointsToSetInternal newP2Set = src.getP2Set();
 	if( newP2Set.isEmpty() ) return false;
 
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
+	EdgeRow simpleTargets = pag.simpleRow( src, row );
+	for( int i = 0; i < simpleTargets.size(); i++ ) {
+	    Node element = simpleTargets.get( i );
 	    if( element.makeP2Set().addAll( newP2Set, null ) ) {
                 varNodeWorkList.add( element );
                 ret = true;
             }
 	}
 
-        Node[] storeTargets = pag.storeLookup( src );
-        for (Node element : storeTargets) {
+        EdgeRow storeTargets = pag.storeRow( src, row );
+        for( int i = 0; i < storeTargets.size(); i++ ) {
+            Node element = storeTargets.get( i );
             final FieldRefNode fr = (FieldRefNode) element;
             if( fr.makeP2Set().addAll( newP2Set, null ) ) {
                 ret = true;
@@ -153,6 +158,8 @@ public final class PropMerge extends Propagator {
     }
 
     protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
 }
 
 
@@ -0,0 +1,463 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.solver;
+import soot.jimple.spark.pag.*;
+import soot.jimple.spark.sets.*;
+import soot.options.SparkOptions;
+import soot.*;
+import soot.util.IdentityHashSet;
+import soot.util.queue.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Propagates points-to sets along pointer assignment graph using a worklist,
+ * like {@link PropWorklist}, but updates the points-to sets on several
+ * threads.
+ *
+ * The worklist is processed in rounds. Each round first takes all nodes off
+ * the worklist and, on one thread, lets the on-the-fly call graph see their
+ * new points-to sets and propagates along any edges that this adds. The
+ * propagation of the new sets along the existing edges is then split over
+ * the worker threads in two phases: the first only writes the points-to
+ * sets of field nodes (AllocDotFields), and the second only those of
+ * variables, so a set is never read while another thread writes it. Each
+ * write holds the lock of the node written to. Since the propagation is
+ * monotonic, the points-to sets reached are the same as those computed by
+ * {@link PropWorklist}.
+ */
+
+public final class PropParallel extends Propagator {
+    /** Number of work items a thread claims at a time. */
+    private static final int CHUNK = 32;
+
+    protected final Set<VarNode> varNodeWorkList = new TreeSet<VarNode>();
+
+    public PropParallel( PAG pag ) {
+        this( pag, PackManager.v().getNumThreads() );
+    }
+    public PropParallel( PAG pag, int numThreads ) {
+        this.pag = pag;
+        // the shared set implementations keep global tables of sets
+        this.numThreads = hasSharedSets( pag.getOpts() ) ? 1 : numThreads;
+    }
+    /** Actually does the propagation. */
+    public final void propagate() {
+        ofcg = pag.getOnFlyCallGraph();
+        new TopoSorter( pag, false ).sort();
+	for (Object object : pag.allocSources()) {
+	    handleAllocNode( (AllocNode) object );
+	}
+
+        boolean verbose = pag.getOpts().verbose();
+        if( verbose ) {
+            G.v().out.println( "Propagating on "+numThreads+" threads." );
+        }
+        if( numThreads > 1 ) executor = newExecutor( numThreads );
+        try {
+            do {
+                if( verbose ) {
+                    G.v().out.println( "Worklist has "+varNodeWorkList.size()+
+                            " nodes." );
+                }
+                while( !varNodeWorkList.isEmpty() ) {
+                    handleVarNodes();
+                }
+                if( verbose ) {
+                    G.v().out.println( "Now handling field references" );
+                }
+                handleStores();
+                handleLoads();
+            } while( !varNodeWorkList.isEmpty() );
+        } finally {
+            if( executor != null ) executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final boolean handleAllocNode( AllocNode src ) {
+	boolean ret = false;
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
+	    if( element.makeP2Set().add( src ) ) {
+                varNodeWorkList.add( (VarNode) element );
+                ret = true;
+            }
+	}
+	return ret;
+    }
+
+    /** The new points-to set of a variable taken off the worklist, with
+     * the edges it is to be propagated along. */
+    private static final class Update {
+        final VarNode src;
+        final PointsToSetInternal newP2Set;
+        final Node[] simpleTargets;
+        final Node[] storeTargets;
+        final FieldRefNode[] fieldRefs;
+        final Node[][] storeSources;
+        final Node[][] loadTargets;
+        /** Pairs of an AllocDotField and a load target, found in the first
+         * phase and propagated in the second. */
+        final List<Node> loads = new ArrayList<Node>();
+        /** The variables whose points-to sets grew in the second phase. */
+        final List<VarNode> changed = new ArrayList<VarNode>();
+
+        Update( PAG pag, VarNode src, PointsToSetInternal newP2Set ) {
+            this.src = src;
+            this.newP2Set = newP2Set;
+            simpleTargets = pag.simpleLookup( src );
+            storeTargets = pag.storeLookup( src );
+            Collection<FieldRefNode> frs = src.getAllFieldRefs();
+            fieldRefs = frs.toArray( new FieldRefNode[frs.size()] );
+            storeSources = new Node[fieldRefs.length][];
+            loadTargets = new Node[fieldRefs.length][];
+            for( int i = 0; i < fieldRefs.length; i++ ) {
+                storeSources[i] = pag.storeInvLookup( fieldRefs[i] );
+                loadTargets[i] = pag.loadLookup( fieldRefs[i] );
+            }
+        }
+    }
+
+    /** Takes all nodes off the worklist and propagates their new points-to
+     * information to all their successors. */
+    private void handleVarNodes() {
+        VarNode[] srcs = varNodeWorkList.toArray( new VarNode[varNodeWorkList.size()] );
+        varNodeWorkList.clear();
+
+        if( ofcg != null ) {
+            for (VarNode src : srcs) {
+                checkReplacement( src );
+                if( !src.getP2Set().getNewSet().isEmpty() ) updateCallGraph( src );
+            }
+        }
+        // the type masks must not change while other threads read them
+        pag.getTypeManager().update();
+
+        // All edges, including those just added by the call graph, are
+        // looked up here: the lookups may rewrite the edge maps.
+        final List<Update> updates = new ArrayList<Update>( srcs.length );
+        for (VarNode src : srcs) {
+            checkReplacement( src );
+            PointsToSetInternal p2Set = src.getP2Set();
+            PointsToSetInternal newP2Set = p2Set.getNewSet();
+            if( newP2Set.isEmpty() ) continue;
+            if( newP2Set == p2Set ) {
+                // no separate new set to hand over; copy the whole set
+                newP2Set = pag.getSetFactory().newSet( null, pag );
+                newP2Set.addAll( p2Set, null );
+            }
+            // flushing replaces the new set, so the one taken here stays
+            // unchanged while other threads read it
+            p2Set.flushNew();
+            updates.add( new Update( pag, src, newP2Set ) );
+        }
+
+        // Phase 1: write only field nodes.
+        forEach( updates.size(), new IndexTask() {
+            public void run( int i ) {
+                final Update u = updates.get( i );
+                for (Node element : u.storeTargets) {
+                    final FieldRefNode fr = (FieldRefNode) element;
+                    final SparkField f = fr.getField();
+                    fr.getBase().getP2Set().forall( new P2SetVisitor() {
+                    public final void visit( Node n ) {
+                            addAll( makeAllocDotField( (AllocNode) n, f ), u.newP2Set );
+                        }
+                    } );
+                }
+                for( int j = 0; j < u.fieldRefs.length; j++ ) {
+                    final SparkField field = u.fieldRefs[j].getField();
+                    final Node[] storeSources = u.storeSources[j];
+                    final Node[] loadTargets = u.loadTargets[j];
+                    if( storeSources.length == 0 && loadTargets.length == 0 ) continue;
+                    u.newP2Set.forall( new P2SetVisitor() {
+                    public final void visit( Node n ) {
+                            Node nDotF = makeAllocDotField( (AllocNode) n, field ).getReplacement();
+                            for (Node element : storeSources) {
+                                addAll( nDotF, element.getP2Set() );
+                            }
+                            for (Node element : loadTargets) {
+                                u.loads.add( nDotF );
+                                u.loads.add( element );
+                            }
+                        }
+                    } );
+                }
+            }
+        } );
+
+        // Phase 2: write only variables.
+        forEach( updates.size(), new IndexTask() {
+            public void run( int i ) {
+                Update u = updates.get( i );
+                for (Node element : u.simpleTargets) {
+                    if( addAll( element, u.newP2Set ) ) {
+                        u.changed.add( (VarNode) element );
+                    }
+                }
+                for( int j = 0; j < u.loads.size(); j += 2 ) {
+                    Node nDotF = u.loads.get( j );
+                    VarNode loadTarget = (VarNode) u.loads.get( j+1 );
+                    if( addAll( loadTarget, nDotF.getP2Set() ) ) {
+                        u.changed.add( loadTarget );
+                    }
+                }
+            }
+        } );
+
+        for (Update u : updates) {
+            varNodeWorkList.addAll( u.changed );
+        }
+    }
+
+    /** Lets the on-the-fly call graph see the new points-to set of src, and
+     * propagates along the edges this adds to the pointer assignment graph. */
+    private void updateCallGraph( VarNode src ) {
+        QueueReader addedEdges = pag.edgeReader();
+        ofcg.updatedNode( src );
+        ofcg.build();
+
+        while(addedEdges.hasNext()) {
+            Node addedSrc = (Node) addedEdges.next();
+            Node addedTgt = (Node) addedEdges.next();
+            if( addedSrc instanceof VarNode ) {
+                if( addedTgt instanceof VarNode ) {
+                    VarNode edgeSrc = (VarNode) addedSrc.getReplacement();
+                    VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+
+                    if( edgeTgt.makeP2Set().addAll( edgeSrc.getP2Set(), null ) ) {
+                        varNodeWorkList.add( edgeTgt );
+                    }
+                }
+            } else if( addedSrc instanceof AllocNode ) {
+                AllocNode edgeSrc = (AllocNode) addedSrc;
+                VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+                if( edgeTgt.makeP2Set().add( edgeSrc ) ) {
+                    varNodeWorkList.add( edgeTgt );
+                }
+            }
+        }
+    }
+
+    /** Propagates the points-to sets of all store sources into the fields
+     * of the objects their bases point to. */
+    private void handleStores() {
+        final List<VarNode> srcs = new ArrayList<VarNode>();
+        final List<Node[]> targets = new ArrayList<Node[]>();
+        for (Object object : pag.storeSources()) {
+            srcs.add( (VarNode) object );
+            targets.add( pag.storeLookup( (VarNode) object ) );
+        }
+        forEach( srcs.size(), new IndexTask() {
+            public void run( int i ) {
+                final VarNode src = srcs.get( i );
+                for (Node element : targets.get( i )) {
+                    final FieldRefNode target = (FieldRefNode) element;
+                    target.getBase().getP2Set().forall( new P2SetVisitor() {
+                    public final void visit( Node n ) {
+                            AllocDotField nDotF = makeAllocDotField(
+                                (AllocNode) n, target.getField() );
+                            addAll( nDotF, src.getP2Set() );
+                        }
+                    } );
+                }
+            }
+        } );
+    }
+
+    /** Propagates the new points-to sets of all fields to the targets of
+     * the loads that read them. */
+    private void handleLoads() {
+        final List<FieldRefNode> srcs = new ArrayList<FieldRefNode>();
+        final List<Node[]> targets = new ArrayList<Node[]>();
+        for (Object object : pag.loadSources()) {
+            srcs.add( (FieldRefNode) object );
+            targets.add( pag.loadLookup( (FieldRefNode) object ) );
+        }
+        final List<List<Object>> edgesToPropagate = new ArrayList<List<Object>>( srcs.size() );
+        for( int i = 0; i < srcs.size(); i++ ) {
+            edgesToPropagate.add( new ArrayList<Object>() );
+        }
+        forEach( srcs.size(), new IndexTask() {
+            public void run( int i ) {
+                final Node[] loadTargets = targets.get( i );
+                if( loadTargets.length == 0 ) return;
+                final SparkField field = srcs.get( i ).getField();
+                final List<Object> edges = edgesToPropagate.get( i );
+                srcs.get( i ).getBase().getP2Set().forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = makeAllocDotField(
+                            (AllocNode) n, field );
+                        PointsToSetInternal p2Set = nDotF.getP2Set();
+                        if( !p2Set.getNewSet().isEmpty() ) {
+                            for (Node element : loadTargets) {
+                                edges.add( p2Set );
+                                edges.add( element );
+                            }
+                        }
+                    }
+                } );
+            }
+        } );
+        final List<List<VarNode>> changed = new ArrayList<List<VarNode>>( srcs.size() );
+        for( int i = 0; i < srcs.size(); i++ ) {
+            changed.add( new ArrayList<VarNode>() );
+        }
+        forEach( srcs.size(), new IndexTask() {
+            public void run( int i ) {
+                List<Object> edges = edgesToPropagate.get( i );
+                for( int j = 0; j < edges.size(); j += 2 ) {
+                    PointsToSetInternal nDotF = (PointsToSetInternal) edges.get( j );
+                    VarNode loadTarget = (VarNode) edges.get( j+1 );
+                    if( addAll( loadTarget, nDotF.getNewSet() ) ) {
+                        changed.get( i ).add( loadTarget );
+                    }
+                }
+            }
+        } );
+        IdentityHashSet<PointsToSetInternal> nodesToFlush = new IdentityHashSet<PointsToSetInternal>();
+        for( int i = 0; i < srcs.size(); i++ ) {
+            varNodeWorkList.addAll( changed.get( i ) );
+            List<Object> edges = edgesToPropagate.get( i );
+            for( int j = 0; j < edges.size(); j += 2 ) {
+                nodesToFlush.add( (PointsToSetInternal) edges.get( j ) );
+            }
+        }
+        for (PointsToSetInternal nDotF : nodesToFlush) {
+            nDotF.flushNew();
+        }
+    }
+
+    /** Adds the contents of set to the points-to set of n, holding the
+     * lock of n; returns true if the set of n changed. */
+    private static boolean addAll( Node n, PointsToSetInternal set ) {
+        synchronized( n ) {
+            return n.makeP2Set().addAll( set, null );
+        }
+    }
+
+    /** Returns the node for field of an, making it if necessary. The
+     * fields of an AllocNode are guarded by its lock. */
+    private AllocDotField makeAllocDotField( AllocNode an, SparkField field ) {
+        synchronized( an ) {
+            return pag.makeAllocDotField( an, field );
+        }
+    }
+
+    private static void checkReplacement( VarNode src ) {
+        if( src.getReplacement() != src ) throw new RuntimeException(
+                "Got bad node "+src+" with rep "+src.getReplacement() );
+    }
+
+    /** Returns true if the points-to sets of the options share state
+     * between sets, so that they cannot be updated on several threads. */
+    private static boolean hasSharedSets( SparkOptions opts ) {
+        switch( opts.set_impl() ) {
+            case SparkOptions.set_impl_heintze:
+            case SparkOptions.set_impl_sharedlist:
+                return true;
+            case SparkOptions.set_impl_double:
+                return opts.double_set_old() == SparkOptions.double_set_old_heintze
+                    || opts.double_set_old() == SparkOptions.double_set_old_sharedlist
+                    || opts.double_set_new() == SparkOptions.double_set_new_heintze
+                    || opts.double_set_new() == SparkOptions.double_set_new_sharedlist;
+            default:
+                return false;
+        }
+    }
+
+    /** A piece of work done for each of a range of indices. */
+    private interface IndexTask {
+        void run( int i );
+    }
+
+    /** Runs task for the indices 0 to n-1, spread over the worker threads,
+     * and returns when all have been done. */
+    private void forEach( final int n, final IndexTask task ) {
+        if( executor == null || n <= CHUNK ) {
+            for( int i = 0; i < n; i++ ) task.run( i );
+            return;
+        }
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            public void run() {
+                int start;
+                while( ( start = next.getAndAdd( CHUNK ) ) < n ) {
+                    int end = Math.min( start + CHUNK, n );
+                    for( int i = start; i < end; i++ ) task.run( i );
+                }
+            }
+        };
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for( int t = 0; t < numThreads; t++ ) {
+            results.add( executor.submit( worker ) );
+        }
+        for( Future<?> result : results ) {
+            waitFor( result );
+        }
+    }
+
+    /** Waits for the given task to finish, rethrowing whatever it threw. */
+    private static void waitFor( Future<?> result ) {
+        try {
+            result.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while waiting for propagator threads" );
+        } catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+            if( cause instanceof Error ) throw (Error) cause;
+            throw new RuntimeException( cause );
+        }
+    }
+
+    private static ExecutorService newExecutor( int numThreads ) {
+        return new ThreadPoolExecutor( numThreads, numThreads,
+                0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread( Runnable r ) {
+                        Thread t = new Thread( r, "soot-spark-propagator" );
+                        t.setDaemon( true );
+                        return t;
+                    }
+                } );
+    }
+
+    protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
+    protected OnFlyCallGraph ofcg;
+    private final int numThreads;
+    private ExecutorService executor;
+}
@@ -57,8 +57,9 @@ public final class PropWorklist extends Propagator {
             }
             for (Object object : pag.storeSources()) {
                 final VarNode src = (VarNode) object;
-                Node[] targets = pag.storeLookup( src );
-                for (Node element0 : targets) {
+                EdgeRow targets = pag.storeRow( src, row );
+                for( int i = 0; i < targets.size(); i++ ) {
+                    Node element0 = targets.get( i );
                     final FieldRefNode target = (FieldRefNode) element0;
                     target.getBase().makeP2Set().forall( new P2SetVisitor() {
                     public final void visit( Node n ) {
@@ -96,8 +97,9 @@ public final class PropWorklist extends Propagator {
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
+	EdgeRow targets = pag.allocRow( src, row );
+	for( int i = 0; i < targets.size(); i++ ) {
+	    Node element = targets.get( i );
 	    if( element.makeP2Set().add( src ) ) {
                 varNodeWorkList.add( (VarNode) element );
                 ret = true;
@@ -147,8 +149,9 @@ public final class PropWorklist extends Propagator {
             }
         }
 
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
+	EdgeRow simpleTargets = pag.simpleRow( src, row );
+	for( int i = 0; i < simpleTargets.size(); i++ ) {
+	    Node element = simpleTargets.get( i );
 	    if( element.makeP2Set().addAll( newP2Set, null ) ) {
                 varNodeWorkList.add( (VarNode) element );
                 if(element == src) flush = false;
@@ -156,8 +159,9 @@ public final class PropWorklist extends Propagator {
             }
 	}
 
-        Node[] storeTargets = pag.storeLookup( src );
-        for (Node element : storeTargets) {
+        EdgeRow storeTargets = pag.storeRow( src, row );
+        for( int i = 0; i < storeTargets.size(); i++ ) {
+            Node element = storeTargets.get( i );
             final FieldRefNode fr = (FieldRefNode) element;
             final SparkField f = fr.getField();
             ret = fr.getBase().getP2Set().forall( new P2SetVisitor() {
@@ -256,6 +260,8 @@ public final class PropWorklist extends Propagator {
     }
     
     protected PAG pag;
+    /** Reused for every edge lookup that is not nested in another. */
+    private final EdgeRow row = new EdgeRow();
     protected OnFlyCallGraph ofcg;
 }
 
@@ -107,13 +107,13 @@ public class Aggregator extends BodyTransformer
       Iterator stmtIt;
       LocalUses localUses;
       LocalDefs localDefs;
-      ExceptionalUnitGraph graph;
+      UnitGraph graph;
       boolean hadAggregation = false;
       Chain units = body.getUnits();
       
-      graph = new ExceptionalUnitGraph(body);
-      localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
-      localUses = new SimpleLocalUses(graph, localDefs);
+      graph = body.getAnalysisCache().getUnitGraph();
+      localDefs = body.getAnalysisCache().getLocalDefs(graph);
+      localUses = body.getAnalysisCache().getLocalUses(graph);
           
       stmtIt = (new PseudoTopologicalOrderer()).newList(graph,false).iterator();
       
@@ -22,15 +22,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import soot.EntryPoints;
 import soot.G;
 import soot.Local;
 import soot.MethodOrMethodContext;
+import soot.PackManager;
+import soot.PhaseOptions;
 import soot.PointsToAnalysis;
 import soot.PointsToSet;
 import soot.Scene;
 import soot.Type;
+import soot.options.CGOptions;
 import soot.util.queue.QueueReader;
 
 /** Models the call graph.
@@ -50,11 +55,18 @@ public final class CallGraphBuilder
         return new ContextInsensitiveContextManager( cg );
     }
 
+    /** Returns a new, empty call graph: a CompactCallGraph if the compact
+     * option of the cg phase is set, and a CallGraph otherwise. */
+    public static CallGraph makeCallGraph() {
+        CGOptions options = new CGOptions( PhaseOptions.v().getPhaseOptions( "cg" ) );
+        return options.compact() ? new CompactCallGraph() : new CallGraph();
+    }
+
     /** This constructor builds a complete call graph using the given
      * PointsToAnalysis to resolve virtual calls. */
     public CallGraphBuilder( PointsToAnalysis pa ) {
         this.pa = pa;
-        cg = new CallGraph();
+        cg = makeCallGraph();
         Scene.v().setCallGraph( cg );
         reachables = Scene.v().getReachableMethods();
         ContextManager cm = makeContextManager(cg);
@@ -69,7 +81,7 @@ public final class CallGraphBuilder
         G.v().out.println( "Warning: using incomplete callgraph containing "+
                 "only application classes." );
         pa = soot.jimple.toolkits.pointer.DumbPointerAnalysis.v();
-        cg = new CallGraph();
+        cg = makeCallGraph();
         Scene.v().setCallGraph(cg);
         List<MethodOrMethodContext> entryPoints = new ArrayList<MethodOrMethodContext>();
         entryPoints.addAll( EntryPoints.v().methodsOfApplicationClasses() );
@@ -78,34 +90,76 @@ public final class CallGraphBuilder
         ContextManager cm = new ContextInsensitiveContextManager( cg );
         ofcgb = new OnFlyCallGraphBuilder( cm, reachables, true );
     }
+    /** Builds the call graph. With more than one thread requested by
+     * -num-threads, the bodies of the reachable methods are built, and
+     * scanned for their edges to static initializers and finalizers, in
+     * parallel; see {@link #buildInParallel(int)}. */
     public void build() {
+        int numThreads = PackManager.v().getNumThreads();
+        if( numThreads > 1 && PackManager.v().canBuildBodiesInParallel() ) {
+            buildInParallel( numThreads );
+            return;
+        }
+        processWorklist();
+    }
+
+    /** Builds the call graph as {@link #processWorklist()} does, but each
+     * time it processes the newly reachable methods, it first builds their
+     * bodies on numThreads worker threads, which then find the edges of
+     * each method to static initializers and finalizers into a buffer per
+     * method. The methods are still processed one by one on the calling
+     * thread, in the same order as in the sequential build, each adding
+     * the edges of its buffer, so the edges and their order are the same:
+     * calls are dispatched after exactly the same bodies have been built,
+     * and hence see the same phantom methods created by them. */
+    private void buildInParallel( int numThreads ) {
+        PackManager.prepareForWorkers();
+        ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+        ofcgb.setBodyBuilder( executor );
+        try {
+            processWorklist();
+        } finally {
+            ofcgb.setBodyBuilder( null );
+            executor.shutdownNow();
+        }
+    }
+
+    /** Processes the reachable methods until no new ones are found, adding
+     * the types reaching the receivers of one method at a time. */
+    private void processWorklist() {
         QueueReader worklist = reachables.listener();
         while(true) {
             ofcgb.processReachables();
             reachables.update();
             if( !worklist.hasNext() ) break;
             MethodOrMethodContext momc = (MethodOrMethodContext) worklist.next();
-            List receivers = (List) ofcgb.methodToReceivers().get(momc.method());
-            if( receivers != null) for( Iterator receiverIt = receivers.iterator(); receiverIt.hasNext(); ) {     
-                final Local receiver = (Local) receiverIt.next();
-                final PointsToSet p2set = pa.reachingObjects( receiver );
-                for( Iterator typeIt = p2set.possibleTypes().iterator(); typeIt.hasNext(); ) {
-                    final Type type = (Type) typeIt.next();
-                    ofcgb.addType( receiver, momc.context(), type, null );
-                }
+            processTypes( momc );
+        }
+    }
+
+    /** Adds the types that the receivers and string constants of the given
+     * method may point to, as given by the points-to analysis. */
+    private void processTypes( MethodOrMethodContext momc ) {
+        List receivers = (List) ofcgb.methodToReceivers().get(momc.method());
+        if( receivers != null) for( Iterator receiverIt = receivers.iterator(); receiverIt.hasNext(); ) {     
+            final Local receiver = (Local) receiverIt.next();
+            final PointsToSet p2set = pa.reachingObjects( receiver );
+            for( Iterator typeIt = p2set.possibleTypes().iterator(); typeIt.hasNext(); ) {
+                final Type type = (Type) typeIt.next();
+                ofcgb.addType( receiver, momc.context(), type, null );
             }
-            List stringConstants = (List) ofcgb.methodToStringConstants().get(momc.method());
-            if( stringConstants != null ) for( Iterator stringConstantIt = stringConstants.iterator(); stringConstantIt.hasNext(); ) {     
-                final Local stringConstant = (Local) stringConstantIt.next();
-                PointsToSet p2set = pa.reachingObjects( stringConstant );
-                Collection possibleStringConstants = p2set.possibleStringConstants();
-                if( possibleStringConstants == null ) {
-                    ofcgb.addStringConstant( stringConstant, momc.context(), null );
-                } else {
-                    for( Iterator constantIt = possibleStringConstants.iterator(); constantIt.hasNext(); ) {
-                        final String constant = (String) constantIt.next();
-                        ofcgb.addStringConstant( stringConstant, momc.context(), constant );
-                    }
+        }
+        List stringConstants = (List) ofcgb.methodToStringConstants().get(momc.method());
+        if( stringConstants != null ) for( Iterator stringConstantIt = stringConstants.iterator(); stringConstantIt.hasNext(); ) {     
+            final Local stringConstant = (Local) stringConstantIt.next();
+            PointsToSet p2set = pa.reachingObjects( stringConstant );
+            Collection possibleStringConstants = p2set.possibleStringConstants();
+            if( possibleStringConstants == null ) {
+                ofcgb.addStringConstant( stringConstant, momc.context(), null );
+            } else {
+                for( Iterator constantIt = possibleStringConstants.iterator(); constantIt.hasNext(); ) {
+                    final String constant = (String) constantIt.next();
+                    ofcgb.addStringConstant( stringConstant, momc.context(), constant );
                 }
             }
         }
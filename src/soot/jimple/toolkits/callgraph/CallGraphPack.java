@@ -25,7 +25,8 @@ import java.util.*;
 import soot.options.CGOptions;
 
 /** A radio pack implementation for the call graph pack that calls the
- * intra-procedural clinit eliminator after the call graph has been built. */
+ * intra-procedural clinit eliminator after the call graph has been built,
+ * and then freezes a compact call graph if asked to. */
 public class CallGraphPack extends RadioScenePack
 {
     public CallGraphPack(String name) {
@@ -59,5 +60,8 @@ public class CallGraphPack extends RadioScenePack
                 }
             }
         }
+        if( options.freeze() && Scene.v().getCallGraph() instanceof CompactCallGraph ) {
+            ((CompactCallGraph) Scene.v().getCallGraph()).freeze();
+        }
     }
 }
@@ -0,0 +1,488 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.toolkits.callgraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.util.MapNumberer;
+import soot.util.queue.ChunkedQueue;
+import soot.util.queue.QueueReader;
+
+/** The same call graph as {@link CallGraph}, stored in int arrays rather
+ * than in Edge objects. The methods are identified by their numbers from
+ * {@link Scene#getMethodNumberer()} and the units by numbers the graph
+ * gives them as it first sees them; each edge is an index into parallel
+ * arrays holding its source, unit, target and kind, and the edges out of
+ * each unit and method and into each method are linked through further
+ * arrays of edge indices. An edge takes about half the memory of an Edge
+ * object in the hash set and lists of a CallGraph, and under a third once
+ * the graph is frozen.
+ *
+ * <p>The iterators return new Edge objects, which are equal to, but not
+ * the same as, the ones added, as do listeners for the edges added before
+ * they were created. They return the edges in the same order as those of
+ * a CallGraph to which the same edges were added and removed.
+ *
+ * <p>Use the compact option of the cg phase to have the call graph
+ * builders create a CompactCallGraph.
+ */
+public class CompactCallGraph extends CallGraph
+{
+    private static final int NONE = -1;
+    /** Set in the kind of an edge that has been removed. */
+    private static final byte REMOVED = (byte) 0x80;
+
+    /** Numbers the units, until the graph is frozen. */
+    private MapNumberer unitNumberer = new MapNumberer();
+    /** Once the graph is frozen, the units by number, and an
+     * open-addressing hash table of their numbers, which together take the
+     * place of the much larger map of unitNumberer. */
+    private Unit[] units;
+    private int[] unitTable;
+
+    /** The methods and method contexts at the ends of the edges, numbered
+     * densely in the order they were first seen. Methods without context
+     * are found through methodToNode, indexed by their method number;
+     * others, and null, through otherToNode. */
+    private MethodOrMethodContext[] nodes = new MethodOrMethodContext[256];
+    private int nodeCount;
+    private int[] methodToNode = new int[256];
+    private final IdentityHashMap<MethodOrMethodContext, Integer> otherToNode =
+        new IdentityHashMap<MethodOrMethodContext, Integer>();
+
+    /** The first edge out of or into each node, and out of each unit,
+     * indexed by unit number. */
+    private int[] headBySrc = new int[256];
+    private int[] headByTgt = new int[256];
+    private int[] headByUnit = new int[256];
+
+    /** The kinds of edges, by index. */
+    private final List<Kind> kinds = new ArrayList<Kind>();
+
+    /** The edges, in the order they were added. */
+    private int edgeCount;
+    private int liveEdgeCount;
+    private int[] src = new int[1024];
+    private int[] unit = new int[1024];
+    private int[] tgt = new int[1024];
+    private byte[] kind = new byte[1024];
+    private int[] nextBySrc = new int[1024];
+    private int[] nextByTgt = new int[1024];
+    private int[] nextByUnit = new int[1024];
+    private int[] prevBySrc = new int[1024];
+    private int[] prevByTgt = new int[1024];
+    private int[] prevByUnit = new int[1024];
+
+    /** An open-addressing hash table of the live edges, holding their
+     * indices plus one. */
+    private int[] table = new int[2048];
+
+    private boolean frozen;
+
+    /** The queues read by the listeners; each edge added is also added to
+     * all of them. Unlike the stream of a CallGraph, none of them is read
+     * from the start, so an edge is only kept in a queue until all of its
+     * listeners have read it. */
+    private final List<ChunkedQueue<Edge>> streams = new ArrayList<ChunkedQueue<Edge>>();
+
+    public CompactCallGraph() {
+        Arrays.fill( headBySrc, NONE );
+        Arrays.fill( headByTgt, NONE );
+        Arrays.fill( headByUnit, NONE );
+    }
+
+    public boolean addEdge( Edge e ) {
+        checkNotFrozen();
+        int s = node( e.getSrc(), true );
+        int u = unitNumber( e.srcUnit(), true );
+        int t = node( e.getTgt(), true );
+        byte k = kindIndex( e.kind() );
+        int slot = find( s, u, t, k );
+        if( table[slot] != 0 ) return false;
+
+        if( edgeCount == src.length ) growEdges();
+        int edge = edgeCount++;
+        liveEdgeCount++;
+        src[edge] = s;
+        unit[edge] = u;
+        tgt[edge] = t;
+        kind[edge] = k;
+        table[slot] = edge + 1;
+        if( liveEdgeCount * 3 > table.length * 2 ) rehash( table.length * 2 );
+
+        if( u >= headByUnit.length ) headByUnit = grow( headByUnit, u );
+        headByUnit[u] = link( headByUnit[u], edge, nextByUnit, prevByUnit );
+        headBySrc[s] = link( headBySrc[s], edge, nextBySrc, prevBySrc );
+        headByTgt[t] = link( headByTgt[t], edge, nextByTgt, prevByTgt );
+        for( ChunkedQueue<Edge> stream : streams ) stream.add( e );
+        return true;
+    }
+
+    public boolean removeEdge( Edge e ) {
+        checkNotFrozen();
+        int s = node( e.getSrc(), false );
+        int u = unitNumber( e.srcUnit(), false );
+        int t = node( e.getTgt(), false );
+        if( s == NONE || u == NONE || t == NONE ) return false;
+        int slot = find( s, u, t, kindIndex( e.kind() ) );
+        int edge = table[slot] - 1;
+        if( edge < 0 ) return false;
+        removeFromTable( slot );
+        liveEdgeCount--;
+        kind[edge] |= REMOVED;
+
+        headByUnit[u] = unlink( headByUnit[u], edge, nextByUnit, prevByUnit );
+        headBySrc[s] = unlink( headBySrc[s], edge, nextBySrc, prevBySrc );
+        headByTgt[t] = unlink( headByTgt[t], edge, nextByTgt, prevByTgt );
+        return true;
+    }
+
+    /** Makes the call graph read-only, and releases the memory that was
+     * only needed to add and remove edges, including the map from units to
+     * their numbers. The cg option freeze does this once the call graph has
+     * been built. */
+    public void freeze() {
+        if( frozen ) return;
+        frozen = true;
+        streams.clear();
+        table = null;
+        prevBySrc = prevByTgt = prevByUnit = null;
+        int unitCount = unitNumberer.size();
+        int size = 2;
+        while( size < unitCount * 3 / 2 + 1 ) size <<= 1;
+        units = new Unit[unitCount + 1];
+        unitTable = new int[size];
+        for( int n = 1; n <= unitCount; n++ ) {
+            Unit u = (Unit) unitNumberer.get( n );
+            units[n] = u;
+            unitTable[findUnit( u )] = n;
+        }
+        unitNumberer = null;
+        headByUnit = Arrays.copyOf( headByUnit, unitCount + 1 );
+        nodes = Arrays.copyOf( nodes, nodeCount );
+        headBySrc = Arrays.copyOf( headBySrc, nodeCount );
+        headByTgt = Arrays.copyOf( headByTgt, nodeCount );
+        src = Arrays.copyOf( src, edgeCount );
+        unit = Arrays.copyOf( unit, edgeCount );
+        tgt = Arrays.copyOf( tgt, edgeCount );
+        kind = Arrays.copyOf( kind, edgeCount );
+        nextBySrc = Arrays.copyOf( nextBySrc, edgeCount );
+        nextByTgt = Arrays.copyOf( nextByTgt, edgeCount );
+        nextByUnit = Arrays.copyOf( nextByUnit, edgeCount );
+    }
+
+    /** Returns true if the call graph has been frozen by {@link #freeze()}. */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public boolean isEntryMethod( SootMethod method ) {
+        int n = node( method, false );
+        return n == NONE || headByTgt[n] == NONE;
+    }
+
+    public Edge findEdge( Unit u, SootMethod callee ) {
+        int un = unitNumber( u, false );
+        if( un == NONE ) return null;
+        for( int edge = headByUnit[un]; edge != NONE; edge = nextByUnit[edge] ) {
+            if( nodes[tgt[edge]].method() == callee ) return edge( edge );
+        }
+        return null;
+    }
+
+    public Iterator<MethodOrMethodContext> sourceMethods() {
+        List<MethodOrMethodContext> ret = new ArrayList<MethodOrMethodContext>();
+        for( int n = 0; n < nodeCount; n++ ) {
+            if( headBySrc[n] != NONE ) ret.add( nodes[n] );
+        }
+        return ret.iterator();
+    }
+
+    public Iterator<Edge> edgesOutOf( Unit u ) {
+        if( u == null ) throw new RuntimeException();
+        int un = unitNumber( u, false );
+        return new EdgeIterator( un == NONE ? NONE : headByUnit[un], BY_UNIT );
+    }
+
+    public Iterator<Edge> edgesOutOf( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        int n = node( m, false );
+        return new EdgeIterator( n == NONE ? NONE : headBySrc[n], BY_SRC );
+    }
+
+    public Iterator<Edge> edgesInto( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        int n = node( m, false );
+        return new EdgeIterator( n == NONE ? NONE : headByTgt[n], BY_TGT );
+    }
+
+    /** Returns a QueueReader of all edges added so far, including those
+     * since removed, which will also return the edges added later. The
+     * edges added so far are made into Edge objects right away. */
+    public QueueReader<Edge> listener() {
+        ChunkedQueue<Edge> stream = newStream();
+        QueueReader<Edge> ret = stream.reader();
+        for( int edge = 0; edge < edgeCount; edge++ ) stream.add( edge( edge ) );
+        return ret;
+    }
+
+    /** Returns a QueueReader which will return only the edges added from
+     * now on. */
+    public QueueReader<Edge> newListener() {
+        return newStream().reader();
+    }
+
+    /** Returns a new queue that receives the edges added from now on, or
+     * none if the graph is frozen. */
+    private ChunkedQueue<Edge> newStream() {
+        ChunkedQueue<Edge> ret = new ChunkedQueue<Edge>();
+        if( !frozen ) streams.add( ret );
+        return ret;
+    }
+
+    public int size() {
+        return liveEdgeCount;
+    }
+
+    private static final int BY_UNIT = 0;
+    private static final int BY_SRC = 1;
+    private static final int BY_TGT = 2;
+
+    /** Iterates over a list of edges. The arrays are looked up at each
+     * step, since adding edges may replace them. */
+    private class EdgeIterator implements Iterator<Edge> {
+        private int position;
+        private final int list;
+        EdgeIterator( int head, int list ) {
+            this.position = head;
+            this.list = list;
+        }
+        public boolean hasNext() {
+            return position != NONE;
+        }
+        public Edge next() {
+            if( position == NONE ) throw new NoSuchElementException();
+            Edge ret = edge( position );
+            switch( list ) {
+                case BY_UNIT: position = nextByUnit[position]; break;
+                case BY_SRC: position = nextBySrc[position]; break;
+                default: position = nextByTgt[position]; break;
+            }
+            return ret;
+        }
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private Edge edge( int edge ) {
+        return new Edge( nodes[src[edge]],
+                unit[edge] == 0 ? null : unit( unit[edge] ),
+                nodes[tgt[edge]], kinds.get( kind[edge] & ~REMOVED ) );
+    }
+
+    /** Inserts edge into the list starting at head, after the head, as
+     * CallGraph does, and returns the new head. */
+    private static int link( int head, int edge, int[] next, int[] prev ) {
+        if( head == NONE ) {
+            next[edge] = NONE;
+            prev[edge] = NONE;
+            return edge;
+        }
+        next[edge] = next[head];
+        prev[edge] = head;
+        if( next[head] != NONE ) prev[next[head]] = edge;
+        next[head] = edge;
+        return head;
+    }
+
+    /** Removes edge from the list starting at head, and returns the new
+     * head. */
+    private static int unlink( int head, int edge, int[] next, int[] prev ) {
+        if( next[edge] != NONE ) prev[next[edge]] = prev[edge];
+        if( prev[edge] != NONE ) {
+            next[prev[edge]] = next[edge];
+            return head;
+        }
+        return next[edge];
+    }
+
+    /** Returns the node of m, creating it if create is true, or else
+     * returning NONE if there is none. */
+    private int node( MethodOrMethodContext m, boolean create ) {
+        if( m instanceof SootMethod ) {
+            int number = ((SootMethod) m).getNumber();
+            if( number < methodToNode.length && methodToNode[number] != 0 ) {
+                return methodToNode[number] - 1;
+            }
+            if( !create ) return NONE;
+            if( number >= methodToNode.length ) methodToNode = grow( methodToNode, number );
+            int ret = newNode( m );
+            methodToNode[number] = ret + 1;
+            return ret;
+        }
+        Integer ret = otherToNode.get( m );
+        if( ret != null ) return ret.intValue();
+        if( !create ) return NONE;
+        int n = newNode( m );
+        otherToNode.put( m, new Integer( n ) );
+        return n;
+    }
+
+    private int newNode( MethodOrMethodContext m ) {
+        if( nodeCount == nodes.length ) {
+            nodes = Arrays.copyOf( nodes, nodeCount * 2 );
+            headBySrc = grow( headBySrc, nodeCount );
+            headByTgt = grow( headByTgt, nodeCount );
+        }
+        nodes[nodeCount] = m;
+        return nodeCount++;
+    }
+
+    /** Returns the number of u, or 0 for null. If u has no number, it is
+     * given one if create is true, or else NONE is returned. */
+    private int unitNumber( Unit u, boolean create ) {
+        if( u == null ) return 0;
+        if( frozen ) {
+            int ret = unitTable[findUnit( u )];
+            return ret == 0 ? NONE : ret;
+        }
+        if( create ) {
+            unitNumberer.add( u );
+        } else if( !unitNumberer.contains( u ) ) {
+            return NONE;
+        }
+        int ret = (int) unitNumberer.get( u );
+        if( !create && ret >= headByUnit.length ) return NONE;
+        return ret;
+    }
+
+    private Unit unit( int number ) {
+        if( frozen ) return units[number];
+        return (Unit) unitNumberer.get( number );
+    }
+
+    /** Returns the slot of unitTable holding the number of u, or the empty
+     * slot where it would go. */
+    private int findUnit( Unit u ) {
+        int mask = unitTable.length - 1;
+        int h = u.hashCode() * 0x9E3779B1;
+        int slot = ( h ^ (h >>> 16) ) & mask;
+        while( unitTable[slot] != 0 && !units[unitTable[slot]].equals( u ) ) {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private byte kindIndex( Kind k ) {
+        int ret = kinds.indexOf( k );
+        if( ret < 0 ) {
+            ret = kinds.size();
+            kinds.add( k );
+        }
+        return (byte) ret;
+    }
+
+    private static int hash( int s, int u, int t, byte k ) {
+        int h = s * 0x9E3779B1 + u;
+        h = h * 0x9E3779B1 + t;
+        h = h * 0x9E3779B1 + k;
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the slot of the table holding the given edge, or the empty
+     * slot where it would go. */
+    private int find( int s, int u, int t, byte k ) {
+        int mask = table.length - 1;
+        int slot = hash( s, u, t, k ) & mask;
+        while( true ) {
+            int edge = table[slot] - 1;
+            if( edge < 0 ) return slot;
+            if( src[edge] == s && unit[edge] == u && tgt[edge] == t
+                    && kind[edge] == k ) return slot;
+            slot = ( slot + 1 ) & mask;
+        }
+    }
+
+    /** Empties the given slot, moving back the entries after it that would
+     * otherwise no longer be found. */
+    private void removeFromTable( int slot ) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int i = slot;
+        while( true ) {
+            i = ( i + 1 ) & mask;
+            int edge = table[i] - 1;
+            if( edge < 0 ) break;
+            int home = hash( src[edge], unit[edge], tgt[edge], kind[edge] ) & mask;
+            // move the entry into the hole unless its home lies
+            // cyclically in (hole, i]
+            if( hole <= i ? ( home <= hole || home > i ) : ( home <= hole && home > i ) ) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void rehash( int size ) {
+        table = new int[size];
+        for( int edge = 0; edge < edgeCount; edge++ ) {
+            if( ( kind[edge] & REMOVED ) != 0 ) continue;
+            table[find( src[edge], unit[edge], tgt[edge], kind[edge] )] = edge + 1;
+        }
+    }
+
+    private void growEdges() {
+        int size = src.length * 2;
+        src = Arrays.copyOf( src, size );
+        unit = Arrays.copyOf( unit, size );
+        tgt = Arrays.copyOf( tgt, size );
+        kind = Arrays.copyOf( kind, size );
+        nextBySrc = Arrays.copyOf( nextBySrc, size );
+        nextByTgt = Arrays.copyOf( nextByTgt, size );
+        nextByUnit = Arrays.copyOf( nextByUnit, size );
+        prevBySrc = Arrays.copyOf( prevBySrc, size );
+        prevByTgt = Arrays.copyOf( prevByTgt, size );
+        prevByUnit = Arrays.copyOf( prevByUnit, size );
+    }
+
+    /** Returns a copy of a, large enough to be indexed by index, with the
+     * new elements set to NONE, or 0 for methodToNode. */
+    private int[] grow( int[] a, int index ) {
+        int size = Math.max( index + 1, a.length * 2 );
+        int[] ret = Arrays.copyOf( a, size );
+        if( a != methodToNode ) Arrays.fill( ret, a.length, size, NONE );
+        return ret;
+    }
+
+    private void checkNotFrozen() {
+        if( frozen ) throw new UnsupportedOperationException( "the call graph is frozen" );
+    }
+}
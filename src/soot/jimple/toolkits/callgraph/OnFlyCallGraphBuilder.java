@@ -31,9 +31,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 import soot.ArrayType;
 import soot.Body;
@@ -53,6 +56,7 @@ import soot.SceneTransformer;
 import soot.SootClass;
 import soot.SootMethod;
 import soot.SootMethodRef;
+import soot.SootResolver;
 import soot.Transform;
 import soot.Type;
 import soot.Unit;
@@ -371,7 +375,7 @@ public final class OnFlyCallGraphBuilder
 	}
 	
     /** context-insensitive stuff */
-    private final CallGraph cicg = new CallGraph();
+    private final CallGraph cicg = CallGraphBuilder.makeCallGraph();
     private final HashSet<SootMethod> analyzedMethods = new HashSet<SootMethod>();
 
     private final LargeNumberedMap receiverToSites = new LargeNumberedMap( Scene.v().getLocalNumberer() ); // Local -> List(VirtualCallSite)
@@ -392,6 +396,24 @@ public final class OnFlyCallGraphBuilder
 
     private ContextManager cm;
 
+    /** If not null, the bodies of newly reachable methods are built and
+     * scanned on this executor; unbuilt reads the reachable methods whose
+     * bodies have not been requested yet. */
+    private ExecutorService bodyBuilder;
+    private QueueReader unbuilt;
+
+    /** The newly reachable methods scanned by the body builder, which
+     * processNewMethod has yet to process. */
+    private final Map<SootMethod, ScannedMethod> scanned =
+        new ConcurrentHashMap<SootMethod, ScannedMethod>();
+
+    /** The edges that getImplicitTargets would add for a method, in the
+     * same order, and the statements of the method with an invoke. */
+    private static final class ScannedMethod {
+        final List<Edge> edges = new ArrayList<Edge>();
+        final List<Unit> invokes = new ArrayList<Unit>();
+    }
+
     private final ChunkedQueue targetsQueue = new ChunkedQueue();
     private final QueueReader targets = targetsQueue.reader();
 
@@ -415,12 +437,25 @@ public final class OnFlyCallGraphBuilder
         this( cm, rm );
         this.appOnly = appOnly;
     }
+    /** Makes processReachables build the bodies of each batch of newly
+     * reachable methods on the given executor before it processes them,
+     * or on the calling thread if executor is null. Each worker also finds
+     * the edges to the static initializers and finalizers of the methods
+     * it built, into a buffer per method. The executor is only used while
+     * processReachables runs, and the methods are still processed one by
+     * one in the same order, each adding the edges of its buffer, so the
+     * edges are added in the same order as without the executor. */
+    public void setBodyBuilder( ExecutorService executor ) {
+        bodyBuilder = executor;
+        unbuilt = executor == null ? null : rm.listener();
+    }
     public void processReachables() {
         while(true) {
             if( !worklist.hasNext() ) {
                 rm.update();
                 if( !worklist.hasNext() ) break;
             }
+            if( bodyBuilder != null ) buildBodies();
             MethodOrMethodContext momc = (MethodOrMethodContext) worklist.next();
             SootMethod m = momc.method();
             if( appOnly && !m.getDeclaringClass().isApplicationClass() ) continue;
@@ -525,16 +560,108 @@ public final class OnFlyCallGraphBuilder
         }
         sites.add(new VirtualCallSite(s, m, iie, subSig, kind));
     }
+    /** Builds the bodies of all reachable methods not seen by unbuilt yet
+     * on the body builder, then scans them there, and waits for them. As
+     * in PackManager.retrieveAllBodies(), the methods of one class are
+     * built on the same thread. */
+    private void buildBodies() {
+        Map<SootClass, List<SootMethod>> classToMethods =
+            new LinkedHashMap<SootClass, List<SootMethod>>();
+        Set<SootMethod> seen = new HashSet<SootMethod>();
+        while( unbuilt.hasNext() ) {
+            SootMethod m = ((MethodOrMethodContext) unbuilt.next()).method();
+            if( appOnly && !m.getDeclaringClass().isApplicationClass() ) continue;
+            if( !m.isConcrete() || m.getDeclaringClass().isPhantomClass()
+                    || analyzedMethods.contains( m ) || !seen.add( m ) ) continue;
+            List<SootMethod> methods = classToMethods.get( m.getDeclaringClass() );
+            if( methods == null ) {
+                classToMethods.put( m.getDeclaringClass(),
+                        methods = new ArrayList<SootMethod>() );
+            }
+            methods.add( m );
+        }
+        if( classToMethods.isEmpty() ) return;
+        // Resolve the classes here, so that no worker adds classes to the
+        // Scene, and they are added in the same order in every run.
+        for( SootClass cl : classToMethods.keySet() ) {
+            SootResolver.v().resolveClass( cl.getName(), SootClass.BODIES );
+        }
+        List<Runnable> builds = new ArrayList<Runnable>();
+        List<Runnable> scans = new ArrayList<Runnable>();
+        for( final List<SootMethod> methods : classToMethods.values() ) {
+            builds.add( new Runnable() {
+                public void run() {
+                    for( SootMethod m : methods ) m.retrieveActiveBody();
+                }
+            } );
+            scans.add( new Runnable() {
+                public void run() {
+                    for( SootMethod m : methods ) {
+                        ScannedMethod scan = scan( m );
+                        if( scan != null ) scanned.put( m, scan );
+                    }
+                }
+            } );
+        }
+        PackManager.runInParallel( builds, bodyBuilder );
+        // Building a body may add phantom methods to the classes that
+        // scanning reads, so the scans wait until all bodies are built.
+        PackManager.runInParallel( scans, bodyBuilder );
+    }
+    /** Finds the edges getImplicitTargets would add for m, and the
+     * statements of m with an invoke, on a worker of the body builder.
+     * Returns null for the methods it leaves to processNewMethod: those
+     * that use reflection, which may add classes to the Scene, and those
+     * whose new expressions have types not yet connected to their
+     * classes. Only reads the Scene; the targets of static invokes, which
+     * may be made as phantom methods, are left to processNewMethod. */
+    private ScannedMethod scan( SootMethod m ) {
+        ScannedMethod ret = new ScannedMethod();
+        SootClass scl = m.getDeclaringClass();
+        if( m.getSubSignature().indexOf( "<init>" ) >= 0 && scl.declaresMethod( sigFinalize ) ) {
+            ret.edges.add( new Edge( m, null, scl.getMethod( sigFinalize ), Kind.FINALIZE ) );
+        }
+        for( Iterator sIt = m.getActiveBody().getUnits().iterator(); sIt.hasNext(); ) {
+            final Stmt s = (Stmt) sIt.next();
+            if( s.containsInvokeExpr() ) {
+                if( usesReflection( s.getInvokeExpr() ) ) return null;
+                ret.invokes.add( s );
+            }
+            if( s instanceof AssignStmt ) {
+                Value rhs = ((AssignStmt) s).getRightOp();
+                if( rhs instanceof NewExpr || rhs instanceof NewArrayExpr || rhs instanceof NewMultiArrayExpr ) {
+                    Type t = rhs.getType();
+                    if( t instanceof ArrayType ) t = ((ArrayType) t).baseType;
+                    if( t instanceof RefType && !((RefType) t).hasSootClass() ) return null;
+                }
+            }
+            addClinitEdges( m, s, ret.edges );
+        }
+        return ret;
+    }
+    private boolean usesReflection( InvokeExpr ie ) {
+        String signature = ie.getMethodRef().getSignature();
+        return signature.equals( "<java.lang.reflect.Method: java.lang.Object invoke(java.lang.Object,java.lang.Object[])>" )
+            || signature.equals( "<java.lang.Class: java.lang.Object newInstance()>" )
+            || signature.equals( "<java.lang.reflect.Constructor: java.lang.Object newInstance(java.lang.Object[])>" )
+            || ie.getMethodRef().getSubSignature() == sigForName;
+    }
     private void processNewMethod( SootMethod m ) {
         if( m.isNative() || m.isPhantom() ) {
             return;
         }
+        ScannedMethod scan = scanned.remove( m );
+        if( scan != null ) {
+            for( Edge e : scan.edges ) cicg.addEdge( e );
+            findReceivers( m, scan.invokes );
+            return;
+        }
         Body b = m.retrieveActiveBody();
         getImplicitTargets( m );
-        findReceivers(m, b);
+        findReceivers( m, b.getUnits() );
     }
-    private void findReceivers(SootMethod m, Body b) {
-        for( Iterator sIt = b.getUnits().iterator(); sIt.hasNext(); ) {
+    private void findReceivers(SootMethod m, Collection<Unit> units) {
+        for( Iterator sIt = units.iterator(); sIt.hasNext(); ) {
             final Stmt s = (Stmt) sIt.next();
             if (s.containsInvokeExpr()) {
                 InvokeExpr ie = s.getInvokeExpr();
@@ -582,6 +709,7 @@ public final class OnFlyCallGraphBuilder
             handleInit(source, scl);
         }
         Body b = source.retrieveActiveBody();
+        List<Edge> edges = new ArrayList<Edge>();
         for( Iterator sIt = b.getUnits().iterator(); sIt.hasNext(); ) {
             final Stmt s = (Stmt) sIt.next();
             if( s.containsInvokeExpr() ) {
@@ -598,38 +726,49 @@ public final class OnFlyCallGraphBuilder
                 if( ie.getMethodRef().getSubSignature() == sigForName ) {
                 	reflectionModel.classForName(source,s);
                 }
-                if( ie instanceof StaticInvokeExpr ) {
-                	SootClass cl = ie.getMethodRef().declaringClass();
-                	for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
-                		addEdge( source, s, clinit, Kind.CLINIT );
-                	}
+            }
+            addClinitEdges( source, s, edges );
+            for( Edge e : edges ) cicg.addEdge( e );
+            edges.clear();
+        }
+    }
+
+    /** Adds to edges the edges from s to the static initializers its
+     * invokes, static field references and allocations may run. */
+    private void addClinitEdges( SootMethod source, Stmt s, List<Edge> edges ) {
+        if( s.containsInvokeExpr() ) {
+            InvokeExpr ie = s.getInvokeExpr();
+            if( ie instanceof StaticInvokeExpr ) {
+                SootClass cl = ie.getMethodRef().declaringClass();
+                for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
+                    edges.add( new Edge( source, s, clinit, Kind.CLINIT ) );
                 }
             }
-            if( s.containsFieldRef() ) {
-                FieldRef fr = s.getFieldRef();
-                if( fr instanceof StaticFieldRef ) {
-                    SootClass cl = fr.getFieldRef().declaringClass();
-                    for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
-                        addEdge( source, s, clinit, Kind.CLINIT );
-                    }
+        }
+        if( s.containsFieldRef() ) {
+            FieldRef fr = s.getFieldRef();
+            if( fr instanceof StaticFieldRef ) {
+                SootClass cl = fr.getFieldRef().declaringClass();
+                for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
+                    edges.add( new Edge( source, s, clinit, Kind.CLINIT ) );
                 }
             }
-            if( s instanceof AssignStmt ) {
-                Value rhs = ((AssignStmt)s).getRightOp();
-                if( rhs instanceof NewExpr ) {
-                    NewExpr r = (NewExpr) rhs;
-                    SootClass cl = r.getBaseType().getSootClass();
+        }
+        if( s instanceof AssignStmt ) {
+            Value rhs = ((AssignStmt)s).getRightOp();
+            if( rhs instanceof NewExpr ) {
+                NewExpr r = (NewExpr) rhs;
+                SootClass cl = r.getBaseType().getSootClass();
+                for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
+                    edges.add( new Edge( source, s, clinit, Kind.CLINIT ) );
+                }
+            } else if( rhs instanceof NewArrayExpr || rhs instanceof NewMultiArrayExpr ) {
+                Type t = rhs.getType();
+                if( t instanceof ArrayType ) t = ((ArrayType)t).baseType;
+                if( t instanceof RefType ) {
+                    SootClass cl = ((RefType) t).getSootClass();
                     for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
-                        addEdge( source, s, clinit, Kind.CLINIT );
-                    }
-                } else if( rhs instanceof NewArrayExpr || rhs instanceof NewMultiArrayExpr ) {
-                    Type t = rhs.getType();
-                    if( t instanceof ArrayType ) t = ((ArrayType)t).baseType;
-                    if( t instanceof RefType ) {
-                        SootClass cl = ((RefType) t).getSootClass();
-                        for (SootMethod clinit : EntryPoints.v().clinitsOf(cl)) {
-                            addEdge( source, s, clinit, Kind.CLINIT );
-                        }
+                        edges.add( new Edge( source, s, clinit, Kind.CLINIT ) );
                     }
                 }
             }
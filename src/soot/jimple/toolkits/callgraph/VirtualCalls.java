@@ -32,8 +32,18 @@ public final class VirtualCalls
     public VirtualCalls( Singletons.Global g ) {}
     public static VirtualCalls v() { return G.v().soot_jimple_toolkits_callgraph_VirtualCalls(); }
 
-    private final LargeNumberedMap typeToVtbl =
-        new LargeNumberedMap( Scene.v().getTypeNumberer() );
+    /** Marks a (type, subsignature) pair that resolves to no method. */
+    private static final Object NO_TARGET = new Object();
+
+    /** The Scene state the tables below were computed in. */
+    private int sceneState = -1;
+
+    /** Maps each subsignature to the DispatchTable of calls to it. */
+    private LargeNumberedMap subSigToTable;
+
+    /** Maps each base type of an AnySubType to its concrete subtypes, in the
+     * order in which they are resolved. */
+    private final Map<Type,List<Type>> baseToSubTypes = new HashMap<Type,List<Type>>();
 
     public SootMethod resolveSpecial( SpecialInvokeExpr iie, NumberedString subSig, SootMethod container ) {
         SootMethod target = iie.getMethod();
@@ -55,29 +65,49 @@ public final class VirtualCalls
     }
 
     public SootMethod resolveNonSpecial( RefType t, NumberedString subSig ) {
-        SmallNumberedMap vtbl = (SmallNumberedMap) typeToVtbl.get( t );
-        if( vtbl == null ) {
-            typeToVtbl.put( t, vtbl =
-                    new SmallNumberedMap( Scene.v().getMethodNumberer() ) );
-        }
-        SootMethod ret = (SootMethod) vtbl.get( subSig );
-        if( ret != null ) return ret;
+        return lookup( table( subSig ), t );
+    }
+
+    private SootMethod lookup( DispatchTable table, RefType t ) {
+        Object cached = table.typeToTarget.get( t );
+        if( cached != null ) return cached == NO_TARGET ? null : (SootMethod) cached;
+        SootMethod ret = null;
         SootClass cls = (t).getSootClass();
-        if( cls.declaresMethod( subSig ) ) {
-            SootMethod m = cls.getMethod( subSig );
+        if( cls.declaresMethod( table.subSig ) ) {
+            SootMethod m = cls.getMethod( table.subSig );
             if( m.isConcrete() || m.isNative() || m.isPhantom() ) {
-                ret = cls.getMethod( subSig );
+                ret = m;
             }
         } else {
             if( cls.hasSuperclass() ) {
-                ret = resolveNonSpecial( cls.getSuperclass().getType(), subSig );
+                ret = lookup( table, cls.getSuperclass().getType() );
             }
         }
-        vtbl.put( subSig, ret );
+        table.typeToTarget.put( t, ret == null ? NO_TARGET : ret );
         return ret;
     }
 
-    private final Map<Type,List<Type>> baseToSubTypes = new HashMap<Type,List<Type>>();
+    /** Discards all resolved dispatches. Those of a subsignature are also
+     * discarded automatically when a method with that subsignature is added
+     * to or removed from a class, and all of them when a class is added to
+     * or removed from the Scene. */
+    public void clear() {
+        subSigToTable = new LargeNumberedMap( Scene.v().getSubSigNumberer() );
+        baseToSubTypes.clear();
+        sceneState = Scene.v().getState();
+    }
+
+    /** Returns the table of resolved calls to subSig, discarding it first if
+     * it is stale. */
+    private DispatchTable table( NumberedString subSig ) {
+        if( sceneState != Scene.v().getState() ) clear();
+        DispatchTable ret = (DispatchTable) subSigToTable.get( subSig );
+        int methodState = Scene.v().getMethodState( subSig );
+        if( ret == null || ret.methodState != methodState ) {
+            subSigToTable.put( subSig, ret = new DispatchTable( subSig, methodState ) );
+        }
+        return ret;
+    }
 
     public void resolve( Type t, Type declaredType, NumberedString subSig, SootMethod container, ChunkedQueue targets ) {
         resolve(t, declaredType, null, subSig, container, targets);
@@ -98,51 +128,118 @@ public final class VirtualCalls
             SootMethod target = resolveNonSpecial( (RefType) t, subSig );
             if( target != null ) targets.add( target );
         } else if( t instanceof AnySubType ) {
-            RefType base = ((AnySubType)t).getBase();
-
-            List subTypes = baseToSubTypes.get(base);
-            if( subTypes != null ) {
-                for( Iterator stIt = subTypes.iterator(); stIt.hasNext(); ) {
-                    final Type st = (Type) stIt.next();
-                    resolve( st, declaredType, sigType, subSig, container, targets );
-                }
-                return;
-            }
-
-            baseToSubTypes.put(base, subTypes = new ArrayList() );
-
-            subTypes.add(base);
-
-            LinkedList<SootClass> worklist = new LinkedList<SootClass>();
-            HashSet<SootClass> workset = new HashSet<SootClass>();
-            FastHierarchy fh = Scene.v().getOrMakeFastHierarchy();
-            SootClass cl = base.getSootClass();
-
-            if( workset.add( cl ) ) worklist.add( cl );
-            while( !worklist.isEmpty() ) {
-                cl = worklist.removeFirst();
-                if( cl.isInterface() ) {
-                    for( Iterator cIt = fh.getAllImplementersOfInterface(cl).iterator(); cIt.hasNext(); ) {
-                        final SootClass c = (SootClass) cIt.next();
-                        if( workset.add( c ) ) worklist.add( c );
-                    }
-                } else {
-                    if( cl.isConcrete() ) {
-                        resolve( cl.getType(), declaredType, sigType, subSig, container, targets );
-                        subTypes.add(cl.getType());
-                    }
-                    for( Iterator cIt = fh.getSubclassesOf( cl ).iterator(); cIt.hasNext(); ) {
-                        final SootClass c = (SootClass) cIt.next();
-                        if( workset.add( c ) ) worklist.add( c );
-                    }
-                }
+            for( SootMethod target : anySubTypeTargets( table( subSig ),
+                        (AnySubType) t, declaredType, sigType ) ) {
+                targets.add( target );
             }
         } else if( t instanceof NullType ) {
         } else {
             throw new RuntimeException( "oops "+t );
         }
     }
-    
+
+    /** Returns the targets of a call to the subsignature of table on an object of any subtype
+     * of the base of t that is also a subtype of declaredType and sigType,
+     * computing them on the first request. */
+    private SootMethod[] anySubTypeTargets( DispatchTable table, AnySubType t,
+            Type declaredType, Type sigType ) {
+        List<AnySubTypeTargets> entries =
+            (List<AnySubTypeTargets>) table.anySubTypeToTargets.get( t );
+        if( entries == null ) {
+            table.anySubTypeToTargets.put( t,
+                    entries = new ArrayList<AnySubTypeTargets>( 1 ) );
+        }
+        for( AnySubTypeTargets e : entries ) {
+            if( e.declaredType == declaredType && e.sigType == sigType ) return e.targets;
+        }
+        FastHierarchy fh = Scene.v().getOrMakeFastHierarchy();
+        List<SootMethod> ret = new ArrayList<SootMethod>();
+        for( Type st : subTypesOf( t.getBase() ) ) {
+            if( declaredType != null && !fh.canStoreType( st, declaredType ) ) continue;
+            if( sigType != null && !fh.canStoreType( st, sigType ) ) continue;
+            SootMethod target = lookup( table, (RefType) st );
+            if( target != null ) ret.add( target );
+        }
+        AnySubTypeTargets e = new AnySubTypeTargets( declaredType, sigType,
+                ret.toArray( new SootMethod[ret.size()] ) );
+        entries.add( e );
+        return e.targets;
+    }
+
+    /** Returns the concrete classes that are subtypes of base, base itself
+     * included, ordered by class number. The sets of the hierarchy iterate
+     * in the order of the identity hash codes of the classes, which depends
+     * on the threads that first hashed them, so calls would otherwise be
+     * dispatched in a different order by a parallel build. */
+    private List<Type> subTypesOf( RefType base ) {
+        List<Type> subTypes = baseToSubTypes.get(base);
+        if( subTypes != null ) return subTypes;
+        baseToSubTypes.put(base, subTypes = new ArrayList<Type>() );
+
+        List<SootClass> concrete = new ArrayList<SootClass>();
+        LinkedList<SootClass> worklist = new LinkedList<SootClass>();
+        HashSet<SootClass> workset = new HashSet<SootClass>();
+        FastHierarchy fh = Scene.v().getOrMakeFastHierarchy();
+        SootClass cl = base.getSootClass();
+
+        if( workset.add( cl ) ) worklist.add( cl );
+        while( !worklist.isEmpty() ) {
+            cl = worklist.removeFirst();
+            if( cl.isInterface() ) {
+                for( Iterator cIt = fh.getAllImplementersOfInterface(cl).iterator(); cIt.hasNext(); ) {
+                    final SootClass c = (SootClass) cIt.next();
+                    if( workset.add( c ) ) worklist.add( c );
+                }
+            } else {
+                if( cl.isConcrete() ) {
+                    concrete.add(cl);
+                }
+                for( Iterator cIt = fh.getSubclassesOf( cl ).iterator(); cIt.hasNext(); ) {
+                    final SootClass c = (SootClass) cIt.next();
+                    if( workset.add( c ) ) worklist.add( c );
+                }
+            }
+        }
+        Collections.sort( concrete, new Comparator<SootClass>() {
+            public int compare( SootClass a, SootClass b ) {
+                return a.getNumber() < b.getNumber() ? -1
+                    : a.getNumber() == b.getNumber() ? 0 : 1;
+            }
+        } );
+        for( SootClass c : concrete ) subTypes.add( c.getType() );
+        return subTypes;
+    }
+
+    /** The resolved calls to one subsignature. */
+    private static class DispatchTable {
+        final NumberedString subSig;
+        /** The method state of subSig the table was computed in. */
+        final int methodState;
+        /** Maps each RefType to the method a call on it dispatches to, or
+         * to NO_TARGET. */
+        final SmallNumberedMap typeToTarget =
+            new SmallNumberedMap( Scene.v().getTypeNumberer() );
+        /** Maps each AnySubType to the list of AnySubTypeTargets computed
+         * for it. */
+        final SmallNumberedMap anySubTypeToTargets =
+            new SmallNumberedMap( Scene.v().getTypeNumberer() );
+        DispatchTable( NumberedString subSig, int methodState ) {
+            this.subSig = subSig;
+            this.methodState = methodState;
+        }
+    }
+
+    private static class AnySubTypeTargets {
+        final Type declaredType;
+        final Type sigType;
+        final SootMethod[] targets;
+        AnySubTypeTargets( Type declaredType, Type sigType, SootMethod[] targets ) {
+            this.declaredType = declaredType;
+            this.sigType = sigType;
+            this.targets = targets;
+        }
+    }
+
     public final NumberedString sigClinit =
         Scene.v().getSubSigNumberer().findOrAdd("void <clinit>()");
     public final NumberedString sigStart =
@@ -11,9 +11,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import soot.PackManager;
 import soot.PatchingChain;
 import soot.SootMethod;
 import soot.Unit;
+import soot.options.Options;
 
 import com.google.common.collect.Table.Cell;
 
@@ -30,6 +32,18 @@ public class JimpleIDESolver<D, V> extends IDESolver<Unit, D, SootMethod, V, Int
 		this.DUMP_RESULTS = dumpResults;
 	}
 	
+	/**
+	 * Runs the solver on as many threads as requested with <code>-num-threads</code>,
+	 * or on the default number of threads of the solver if that option was left at 1.
+	 */
+	@Override
+	public void solve() {
+		if(Options.v().num_threads() == 1)
+			super.solve();
+		else
+			solve(PackManager.v().getNumThreads());
+	}
+	
 	@Override
 	public void solve(int numThreads) {
 		super.solve(numThreads);
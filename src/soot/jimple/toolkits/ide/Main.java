@@ -2,7 +2,6 @@ package soot.jimple.toolkits.ide;
 
 import heros.IFDSTabulationProblem;
 import heros.InterproceduralCFG;
-import heros.solver.IFDSSolver;
 
 import java.util.Map;
 
@@ -30,7 +29,7 @@ public class Main {
 
 				IFDSTabulationProblem<Unit,Local,SootMethod,InterproceduralCFG<Unit,SootMethod>> problem = new IFDSLocalInfoFlow(new JimpleBasedInterproceduralCFG());
 				
-				IFDSSolver<Unit,Local,SootMethod,InterproceduralCFG<Unit,SootMethod>> solver = new IFDSSolver<Unit,Local,SootMethod,InterproceduralCFG<Unit,SootMethod>>(problem);	
+				JimpleIFDSSolver<Local> solver = new JimpleIFDSSolver<Local>(problem);	
 				solver.solve();
 				Unit ret = Scene.v().getMainMethod().getActiveBody().getUnits().getLast();
 				for(Local l: solver.ifdsResultsAt(ret)) {
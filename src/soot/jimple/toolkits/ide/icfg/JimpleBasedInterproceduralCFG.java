@@ -13,9 +13,12 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import soot.Body;
 import soot.MethodOrMethodContext;
+import soot.PackManager;
 import soot.PatchingChain;
 import soot.Scene;
 import soot.SootMethod;
@@ -41,7 +44,12 @@ import com.google.common.cache.LoadingCache;
  * explicit call statements or through calls to {@link Thread#start()}.
  * 
  * This class is designed to be thread safe, and subclasses of this class must be designed
- * in a thread-safe way, too.
+ * in a thread-safe way, too. The owner of every unit is looked up in a map that is filled
+ * by the constructor and only read afterwards. Unit graphs are made by {@link #makeGraph(Body)}
+ * the first time they are needed. With more than one thread requested by
+ * <code>-num-threads</code>, the constructor builds the exceptional unit graphs of all
+ * reachable bodies ahead of time on that many threads, and makeGraph() then only hands
+ * them out.
  */
 @ThreadSafe
 public class JimpleBasedInterproceduralCFG implements InterproceduralCFG<Unit,SootMethod> {
@@ -60,9 +68,12 @@ public class JimpleBasedInterproceduralCFG implements InterproceduralCFG<Unit,So
 	@DontSynchronize("readonly")
 	protected final CallGraph cg;
 	
-	@DontSynchronize("written by single thread; read afterwards")
+	@DontSynchronize("written by the constructor only; read afterwards")
 	protected final Map<Unit,Body> unitToOwner = new HashMap<Unit,Body>();	
 	
+	@DontSynchronize("written by the constructor only; read afterwards")
+	private final Map<Body,DirectedGraph<Unit>> prebuiltUnitGraphs = new HashMap<Body,DirectedGraph<Unit>>();
+	
 	@SynchronizedBy("by use of synchronized LoadingCache class")
 	protected final LoadingCache<Body,DirectedGraph<Unit>> bodyToUnitGraph =
 			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Body,DirectedGraph<Unit>>() {
@@ -130,16 +141,54 @@ public class JimpleBasedInterproceduralCFG implements InterproceduralCFG<Unit,So
 		ReachableMethods reachableMethods = new ReachableMethods(cg, eps.iterator(), new EdgeFilter());
 		reachableMethods.update();
 		
+		List<Body> bodies = new ArrayList<Body>();
 		for(Iterator<MethodOrMethodContext> iter = reachableMethods.listener(); iter.hasNext(); ) {
 			SootMethod m = iter.next().method();
 			if(m.hasActiveBody()) {
 				Body b = m.getActiveBody();
+				bodies.add(b);
 				PatchingChain<Unit> units = b.getUnits();
 				for (Unit unit : units) {
 					unitToOwner.put(unit, b);
 				}
 			}
 		}
+		
+		int numThreads = PackManager.v().getNumThreads();
+		if(numThreads > 1 && bodies.size() > 1)
+			prebuildUnitGraphs(bodies, numThreads);
+	}
+	
+	/**
+	 * Builds the exceptional unit graphs of the given bodies on numThreads worker
+	 * threads, each thread taking every numThreads-th body, and stores them in
+	 * {@link #prebuiltUnitGraphs}. The workers do not call {@link #makeGraph(Body)},
+	 * which subclasses may override without being thread safe.
+	 */
+	private void prebuildUnitGraphs(final List<Body> bodies, final int numThreads) {
+		// the graphs use the unit throw analysis, whatever the default is
+		UnitThrowAnalysis.v();
+		PackManager.prepareForWorkers();
+		@SuppressWarnings("unchecked")
+		final DirectedGraph<Unit>[] graphs = new DirectedGraph[bodies.size()];
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for(int t = 0; t < numThreads; t++) {
+			final int first = t;
+			tasks.add(new Runnable() {
+				public void run() {
+					for(int i = first; i < graphs.length; i += numThreads)
+						graphs[i] = makeExceptionalGraph(bodies.get(i));
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			PackManager.runInParallel(tasks, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+		for(int i = 0; i < graphs.length; i++)
+			prebuiltUnitGraphs.put(bodies.get(i), graphs[i]);
 	}
 
 	@Override
@@ -159,6 +208,12 @@ public class JimpleBasedInterproceduralCFG implements InterproceduralCFG<Unit,So
 	}
 
 	protected synchronized DirectedGraph<Unit> makeGraph(Body body) {
+		DirectedGraph<Unit> graph = prebuiltUnitGraphs.get(body);
+		if(graph != null) return graph;
+		return makeExceptionalGraph(body);
+	}
+
+	private final DirectedGraph<Unit> makeExceptionalGraph(Body body) {
 		return new ExceptionalUnitGraph(body, UnitThrowAnalysis.v() ,true);
 	}
 
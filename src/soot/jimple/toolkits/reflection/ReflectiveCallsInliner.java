@@ -185,10 +185,15 @@ public class ReflectiveCallsInliner extends SceneTransformer {
 	}
 
 	private void cleanup(Body b) {
-		CopyPropagator.v().transform(b);
-		DeadAssignmentEliminator.v().transform(b);
-		UnusedLocalEliminator.v().transform(b);
-		NopEliminator.v().transform(b);
+		b.beginAnalysisScope();
+		try {
+			CopyPropagator.v().transform(b);
+			DeadAssignmentEliminator.v().transform(b);
+			UnusedLocalEliminator.v().transform(b);
+			NopEliminator.v().transform(b);
+		} finally {
+			b.endAnalysisScope();
+		}
 	}
 
 	private void initializeReflectiveCallsTable() {
@@ -98,11 +98,11 @@ public class CopyPropagator extends BodyTransformer
         
 //            ((JimpleBody) stmtBody).printDebugTo(new java.io.PrintWriter(G.v().out, true));
             
-        ExceptionalUnitGraph graph = new ExceptionalUnitGraph(stmtBody);
+        UnitGraph graph = stmtBody.getAnalysisCache().getUnitGraph();
 
         LocalDefs localDefs;
         
-        localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+        localDefs = stmtBody.getAnalysisCache().getLocalDefs(graph);
 
         // Perform a local propagation pass.
         {
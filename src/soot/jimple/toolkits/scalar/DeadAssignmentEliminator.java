@@ -153,9 +153,9 @@ public class DeadAssignmentEliminator extends BodyTransformer
             }
         }
 
-        ExceptionalUnitGraph graph = new ExceptionalUnitGraph(b);
-        LocalDefs defs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
-        LocalUses uses = new SimpleLocalUses(graph, defs);
+        UnitGraph graph = b.getAnalysisCache().getUnitGraph();
+        LocalDefs defs = b.getAnalysisCache().getLocalDefs(graph);
+        LocalUses uses = b.getAnalysisCache().getLocalUses(graph);
         
         // Add all the statements which are used to compute values
         // for the essential statements, recursively
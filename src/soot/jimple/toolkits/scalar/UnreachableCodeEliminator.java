@@ -47,7 +47,7 @@ public class UnreachableCodeEliminator extends BodyTransformer
     }
 
     class Instance {
-        ExceptionalUnitGraph stmtGraph;
+        UnitGraph stmtGraph;
         HashSet<Object> visited;
         int numPruned;
 
@@ -61,15 +61,15 @@ public class UnreachableCodeEliminator extends BodyTransformer
             numPruned = 0;
 
             if (PhaseOptions.getBoolean(options, "remove-unreachable-traps")) {
-                stmtGraph = new ExceptionalUnitGraph(body);
+                stmtGraph = body.getAnalysisCache().getUnitGraph();
             } else {
                 // Force a conservative ExceptionalUnitGraph() which
                 // necessarily includes an edge from every trapped Unit to
                 // its handler, so that we retain Traps in the case where
                 // trapped units remain, but the default ThrowAnalysis
                 // says that none of them can throw the caught exception.
-                stmtGraph = new ExceptionalUnitGraph(body, PedanticThrowAnalysis.v(),
-                                                    false);
+                stmtGraph = body.getAnalysisCache().getUnitGraph(
+                        PedanticThrowAnalysis.v(), false);
             }
             visited = new HashSet<Object>();
 
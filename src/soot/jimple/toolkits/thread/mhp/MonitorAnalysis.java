@@ -185,8 +185,7 @@ public class MonitorAnalysis extends ForwardFlowAnalysis
 		// G.v().out.println(graph.getBody().getMethod().getSignature() + " numNodes: " + numNodes + 
 		//    " numComputations: " + numComputations + " avg: " + Main.truncatedOf((double) numComputations / numNodes, 2));
 		
-		Timers.v().totalFlowNodes += numNodes;
-		Timers.v().totalFlowComputations += numComputations;
+		Timers.v().addFlowStatistics(numNodes, numComputations);
 	}
 	
 	
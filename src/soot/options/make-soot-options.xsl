@@ -106,7 +106,7 @@ public class Options extends OptionsBase {
 <!--*************************************************************************-->
 
   <xsl:template mode="parse" match="section">
-      <xsl:apply-templates mode="parse" select="boolopt|multiopt|listopt|phaseopt|stropt|macroopt"/>
+      <xsl:apply-templates mode="parse" select="boolopt|multiopt|listopt|phaseopt|stropt|intopt|macroopt"/>
   </xsl:template>
 
 <!--* BOOLEAN_OPTION *******************************************************-->
@@ -219,6 +219,28 @@ public class Options extends OptionsBase {
             }
   </xsl:template>
 
+<!--* INTEGER_OPTION ******************************************************-->
+  <xsl:template mode="parse" match="intopt">
+            else if( false<xsl:text/>
+    <xsl:for-each select="alias">
+            || option.equals( "<xsl:value-of select="."/>" )<xsl:text/>
+    </xsl:for-each>
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    <xsl:variable name="name" select="translate(alias[last()],'-. ','___')"/>
+                try {
+                    <xsl:copy-of select="$name"/> = Integer.parseInt( value );
+                } catch( NumberFormatException e ) {
+                    G.v().out.println( "Invalid integer "+value+" given for option -"+option );
+                    return false;
+                }
+            }
+  </xsl:template>
+
 <!--* MACRO_OPTION *******************************************************-->
   <xsl:template mode="parse" match="macroopt">
             else if( false<xsl:text/>
@@ -238,7 +260,7 @@ public class Options extends OptionsBase {
 <!--*************************************************************************-->
 
   <xsl:template mode="vars" match="section">
-      <xsl:apply-templates mode="vars" select="boolopt|multiopt|listopt|phaseopt|stropt|macroopt"/>
+      <xsl:apply-templates mode="vars" select="boolopt|multiopt|listopt|phaseopt|stropt|intopt|macroopt"/>
   </xsl:template>
 
 <!--* BOOLEAN_OPTION *******************************************************-->
@@ -286,6 +308,13 @@ public class Options extends OptionsBase {
     private String <xsl:value-of select="translate(alias[last()],'-. ','___')"/> = "";<xsl:text/>
   </xsl:template>
 
+<!--* INTEGER_OPTION ******************************************************-->
+  <xsl:template mode="vars" match="intopt">
+    public int <xsl:value-of select="translate(alias[last()],'-. ','___')"/>() { return <xsl:value-of select="translate(alias[last()],'-. ','___')"/>; }
+    public void set_<xsl:value-of select="translate(alias[last()],'-. ','___')"/>( int setting ) { <xsl:value-of select="translate(alias[last()],'-. ','___')"/> = setting; }
+    private int <xsl:value-of select="translate(alias[last()],'-. ','___')"/> = <xsl:choose><xsl:when test="default"><xsl:value-of select="default"/></xsl:when><xsl:otherwise>0</xsl:otherwise></xsl:choose>;<xsl:text/>
+  </xsl:template>
+
 <!--* MACRO_OPTION *******************************************************-->
   <xsl:template mode="vars" match="macroopt">
   </xsl:template>
@@ -315,7 +344,7 @@ public class Options extends OptionsBase {
 
   <xsl:template mode="usage" match="section">
 +"\n<xsl:value-of select="name"/>:\n"
-      <xsl:apply-templates mode="usage" select="boolopt|multiopt|listopt|phaseopt|stropt|macroopt"/>
+      <xsl:apply-templates mode="usage" select="boolopt|multiopt|listopt|phaseopt|stropt|intopt|macroopt"/>
   </xsl:template>
 
 <!--* BOOLEAN_OPTION *******************************************************-->
@@ -346,6 +375,11 @@ public class Options extends OptionsBase {
 +padOpt("<xsl:for-each select="alias"> -<xsl:value-of select="."/><xsl:text> </xsl:text><xsl:call-template name="arg-label"/></xsl:for-each>", "<xsl:apply-templates select="short_desc"/>" )<xsl:text/>
   </xsl:template>
 
+<!--* INTEGER_OPTION ******************************************************-->
+  <xsl:template mode="usage" match="intopt">
++padOpt("<xsl:for-each select="alias"> -<xsl:value-of select="."/><xsl:text> </xsl:text><xsl:call-template name="arg-label"/></xsl:for-each>", "<xsl:apply-templates select="short_desc"/>" )<xsl:text/>
+  </xsl:template>
+
 <!--* MACRO_OPTION *******************************************************-->
   <xsl:template mode="usage" match="macroopt">
 +padOpt("<xsl:for-each select="alias"> -<xsl:value-of select="."/></xsl:for-each>", "<xsl:apply-templates select="short_desc"/>" )<xsl:text/>
@@ -20,7 +20,7 @@ Soot Command Line Options
 <h2><xsl:value-of select="name"/></h2>
 </td></tr>
 
-<xsl:for-each select="boolopt|listopt|multiopt|stropt|macroopt|phaseopt">
+<xsl:for-each select="boolopt|listopt|multiopt|stropt|intopt|macroopt|phaseopt">
 
 <tr>
 <td>
@@ -101,7 +101,7 @@ Soot Command Line Options
 <xsl:template name="format_arg">
   <xsl:choose>
     <xsl:when test="../set_arg_label"><var><xsl:value-of select="../set_arg_label"/></var></xsl:when>
-    <xsl:when test="parent::listopt | parent::multiopt | parent::stropt | parent::phaseopt"><var>arg</var></xsl:when>
+    <xsl:when test="parent::listopt | parent::multiopt | parent::stropt | parent::intopt | parent::phaseopt"><var>arg</var></xsl:when>
   </xsl:choose>
 </xsl:template>
 
@@ -330,9 +330,14 @@ public class PiNodeManager
                     box.setValue(old);
             }
 
-            DeadAssignmentEliminator.v().transform(body);
-            CopyPropagator.v().transform(body);
-            DeadAssignmentEliminator.v().transform(body);            
+            body.beginAnalysisScope();
+            try {
+                DeadAssignmentEliminator.v().transform(body);
+                CopyPropagator.v().transform(body);
+                DeadAssignmentEliminator.v().transform(body);
+            } finally {
+                body.endAnalysisScope();
+            }
         }
         else{
             for(Iterator unitsIt = body.getUnits().iterator(); unitsIt.hasNext();){
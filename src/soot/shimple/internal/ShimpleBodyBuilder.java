@@ -131,11 +131,16 @@ public class ShimpleBodyBuilder
         boolean optElim = options.node_elim_opt();
         
         if(optElim){
-            DeadAssignmentEliminator.v().transform(body);
-            UnreachableCodeEliminator.v().transform(body);
-            UnconditionalBranchFolder.v().transform(body);
-            Aggregator.v().transform(body);
-            UnusedLocalEliminator.v().transform(body);
+            body.beginAnalysisScope();
+            try {
+                DeadAssignmentEliminator.v().transform(body);
+                UnreachableCodeEliminator.v().transform(body);
+                UnconditionalBranchFolder.v().transform(body);
+                Aggregator.v().transform(body);
+                UnusedLocalEliminator.v().transform(body);
+            } finally {
+                body.endAnalysisScope();
+            }
         }
     }
     
@@ -42,7 +42,9 @@ public abstract class TagAggregator extends BodyTransformer {
     /** Return name of the resulting aggregated tag. */
     public abstract String aggregatedName();
 
-    protected void internalTransform(Body b, String phaseName, Map options)
+    /* Synchronized since the tags and units fields are shared by all
+     * bodies, which may be transformed on several threads. */
+    protected synchronized void internalTransform(Body b, String phaseName, Map options)
     {
         BafBody body = (BafBody) b;
        
@@ -296,7 +296,7 @@ public final class ThrowableSet {
 	 * exceptions corresponding to <code>include</code> -
 	 * <code>exclude</code>.
 	 */
-	private ThrowableSet registerSetIfNew(Set include, Set exclude) {
+	private synchronized ThrowableSet registerSetIfNew(Set include, Set exclude) {
 	    if (INSTRUMENTING) {
 		registrationCalls++;
 	    }
@@ -426,7 +426,11 @@ public final class ThrowableSet {
      * results from adding all elements in k to <code>this</code>.  If
      * (k,v) is in <code>memoizedAdds</code> and k is a
      * {@link RefLikeType}, then v is the set that results from adding
-     * k to <code>this</code>.
+     * k to <code>this</code>.  Guarded by this set's monitor, since
+     * the same sets are shared by bodies transformed on different threads.
+     * The <code>add()</code> methods get the {@link FastHierarchy} before
+     * taking that monitor, because making the hierarchy takes the lock
+     * of the {@link Scene}.
      */
     private Map<Object,ThrowableSet> memoizedAdds;
 
@@ -499,7 +503,15 @@ public final class ThrowableSet {
      * #whichCatchableAs(RefType)} operation and, thus, unable to
      * represent the addition of <code>e</code>.
      */
-    public ThrowableSet add(RefType e) 
+    public ThrowableSet add(RefType e)
+      throws ThrowableSet.AlreadyHasExclusionsException {
+	FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
+	synchronized (this) {
+	    return add(e, hierarchy);
+	}
+    }
+
+    private ThrowableSet add(RefType e, FastHierarchy hierarchy)
       throws ThrowableSet.AlreadyHasExclusionsException {
 	if (INSTRUMENTING) {
 	    Manager.v().addsOfRefType++;
@@ -527,8 +539,6 @@ public final class ThrowableSet {
 			Manager.v().addsExclusionWithoutSearch++;
 		    }
 		}
-		FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
-
 		for (Iterator i = exceptionsExcluded.iterator(); i.hasNext(); ) {
 		    RefType exclusionBase = ((AnySubType) i.next()).getBase();
 		    if (hierarchy.canStoreType(e, exclusionBase)) {
@@ -610,7 +620,15 @@ public final class ThrowableSet {
      * #whichCatchableAs(RefType)} operation and, thus, unable to
      * represent the addition of <code>e</code>.
      */
-    public ThrowableSet add(AnySubType e) 
+    public ThrowableSet add(AnySubType e)
+      throws ThrowableSet.AlreadyHasExclusionsException {
+	FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
+	synchronized (this) {
+	    return add(e, hierarchy);
+	}
+    }
+
+    private ThrowableSet add(AnySubType e, FastHierarchy hierarchy)
       throws ThrowableSet.AlreadyHasExclusionsException {
 	if (INSTRUMENTING) {
 	    Manager.v().addsOfAnySubType++;
@@ -624,7 +642,6 @@ public final class ThrowableSet {
 	    }
 	    return result;
 	} else {
-	    FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
 	    RefType newBase = e.getBase(); 
 
 	    if (INSTRUMENTING) {
@@ -728,6 +745,14 @@ public final class ThrowableSet {
      * this <code>ThrowableSet</code>.
      */
     public ThrowableSet add(ThrowableSet s)
+      throws ThrowableSet.AlreadyHasExclusionsException {
+	FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
+	synchronized (this) {
+	    return add(s, hierarchy);
+	}
+    }
+
+    private ThrowableSet add(ThrowableSet s, FastHierarchy hierarchy)
       throws ThrowableSet.AlreadyHasExclusionsException {
 	if (INSTRUMENTING) {
 	    Manager.v().addsOfSet++;
@@ -741,7 +766,7 @@ public final class ThrowableSet {
 		Manager.v().addsInclusionFromSearch++;
 		Manager.v().addsExclusionWithoutSearch++;
 	    }
-	    result = this.add(s.exceptionsIncluded);
+	    result = this.add(s.exceptionsIncluded, hierarchy);
 	    memoizedAdds.put(s, result);
 	} else if (INSTRUMENTING) {
 	    Manager.v().addsInclusionFromMemo++;
@@ -763,10 +788,9 @@ public final class ThrowableSet {
      * @return a set containing all the <code>addedExceptions</code> as well
      * as the exceptions in this set.
      */
-    private ThrowableSet add(Set addedExceptions) {
+    private ThrowableSet add(Set addedExceptions, FastHierarchy hierarchy) {
 	Set resultSet = new HashSet(this.exceptionsIncluded);
 	int changes = 0;
-	FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
 
 	// This algorithm is O(n m), where n and m are the sizes of the
 	// two sets, so hope that the sets are small.
@@ -1366,7 +1390,7 @@ public final class ThrowableSet {
      * A package-private method to provide unit tests with access to
      * ThrowableSet's internals.
      */
-    Map getMemoizedAdds() {
+    synchronized Map getMemoizedAdds() {
 	if (memoizedAdds == null) {
 	    return Collections.EMPTY_MAP;
 	} else {
@@ -0,0 +1,665 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.toolkits.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import soot.Body;
+import soot.RefType;
+import soot.Scene;
+import soot.Timers;
+import soot.Trap;
+import soot.Unit;
+import soot.UnitBox;
+import soot.baf.ThrowInst;
+import soot.jimple.ThrowStmt;
+import soot.options.Options;
+import soot.toolkits.exceptions.ThrowAnalysis;
+import soot.toolkits.exceptions.ThrowableSet;
+
+/**
+ * <p>The same control flow graph as {@link ExceptionalUnitGraph}, with the
+ * same nodes, edges, heads, tails and exception destinations, stored
+ * compactly. The units are numbered in the order of the unit chain, and
+ * each of the unexceptional, exceptional and combined successor and
+ * predecessor relations is kept as a pair of int arrays: the edges of
+ * unit <i>n</i> are found between <code>start[n]</code> and
+ * <code>start[n+1]</code> in the array of edge targets. This takes a
+ * small fraction of the memory of the maps of lists kept by
+ * <code>ExceptionalUnitGraph</code>, which matters for methods with many
+ * thousands of units.</p>
+ *
+ * <p>The lists returned by {@link #getSuccsOf(Unit)} and the other edge
+ * queries are unmodifiable views of the arrays, created on each call.
+ * They list the same units in the same order as those of an
+ * <code>ExceptionalUnitGraph</code> built with the same parameters.</p>
+ */
+public class CompactExceptionalUnitGraph extends UnitGraph implements ExceptionalGraph<Unit>
+{
+    private static final int[] NO_EDGES = new int[0];
+
+    private final ThrowAnalysis throwAnalysis;
+
+    /** The units, indexed by number. */
+    private final Unit[] units;
+    /** Open addressing hash table from units to their number plus one. */
+    private final int[] unitIndex;
+
+    private int[] unexceptionalSuccStart, unexceptionalSuccs;
+    private int[] unexceptionalPredStart, unexceptionalPreds;
+    private int[] exceptionalSuccStart, exceptionalSuccs;
+    private int[] exceptionalPredStart, exceptionalPreds;
+    private int[] succStart, succs;
+    private int[] predStart, preds;
+
+    /** The exception destinations of units which may throw an exception
+     * caught in the method, indexed by number, or null. */
+    private List<ExceptionalUnitGraph.ExceptionDest>[] unitToExceptionDests;
+
+    /**
+     *  Constructs the graph for a given Body instance, using the
+     *  <code>ThrowAnalysis</code> and <code>omitExceptingUnitEdges</code>
+     *  value that are passed as parameters, as
+     *  {@link ExceptionalUnitGraph#ExceptionalUnitGraph(Body, ThrowAnalysis, boolean)}
+     *  does.
+     */
+    public CompactExceptionalUnitGraph(Body body, ThrowAnalysis throwAnalysis,
+            boolean omitExceptingUnitEdges) {
+        super(body);
+        this.throwAnalysis = throwAnalysis;
+
+        if(Options.v().time())
+            Timers.v().graphTimer.start();
+
+        int size = unitChain.size();
+        units = new Unit[size];
+        int tableSize = 4;
+        while (tableSize < size * 2) tableSize <<= 1;
+        unitIndex = new int[tableSize];
+        int n = 0;
+        for (Iterator<Unit> unitIt = unitChain.iterator(); unitIt.hasNext(); ) {
+            Unit u = unitIt.next();
+            units[n] = u;
+            int slot = slotOf(u);
+            unitIndex[slot] = ++n;
+        }
+
+        buildUnexceptionalEdges();
+        int[] additionalHeads = NO_EDGES;
+        if (body.getTraps().size() == 0) {
+            exceptionalSuccStart = exceptionalPredStart = null;
+            succStart = unexceptionalSuccStart;
+            succs = unexceptionalSuccs;
+            predStart = unexceptionalPredStart;
+            preds = unexceptionalPreds;
+        } else {
+            int[] throwers = buildExceptionDests();
+            additionalHeads = buildExceptionalEdges(throwers, omitExceptingUnitEdges);
+            combineEdges();
+        }
+        buildHeadsAndTails(additionalHeads);
+
+        if(Options.v().time())
+            Timers.v().graphTimer.end();
+
+        soot.util.PhaseDumper.v().dumpGraph(this);
+    }
+
+    /**
+     *  Constructs the graph from a given Body instance using the
+     *  default <code>ThrowAnalysis</code> and the
+     *  omit-excepting-unit-edges command line option, as
+     *  {@link ExceptionalUnitGraph#ExceptionalUnitGraph(Body)} does.
+     */
+    public CompactExceptionalUnitGraph(Body body) {
+        this(body, Scene.v().getDefaultThrowAnalysis(),
+             Options.v().omit_excepting_unit_edges());
+    }
+
+    /** Returns the slot of the hash table holding <code>u</code>, or the
+     * empty slot where it would go. */
+    private int slotOf(Unit u) {
+        int mask = unitIndex.length - 1;
+        int h = System.identityHashCode(u);
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (unitIndex[slot] != 0 && units[unitIndex[slot] - 1] != u) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Returns the number of <code>u</code>, or -1 if it is not in the
+     * graph. */
+    private int numberOf(Unit u) {
+        return unitIndex[slotOf(u)] - 1;
+    }
+
+    private int checkedNumberOf(Unit u) {
+        int n = numberOf(u);
+        if (n < 0) throw new RuntimeException("Invalid unit " + u);
+        return n;
+    }
+
+    /** Adds the fall-through and branch edges, as
+     * {@link UnitGraph#buildUnexceptionalEdges(java.util.Map, java.util.Map)}
+     * does. */
+    private void buildUnexceptionalEdges() {
+        EdgeList edges = new EdgeList(units.length);
+        for (int n = 0; n < units.length; n++) {
+            Unit u = units[n];
+            if (u.fallsThrough() && n + 1 < units.length) {
+                edges.add(n, n + 1);
+            }
+            if (u.branches()) {
+                for (Iterator<UnitBox> targetIt = u.getUnitBoxes().iterator();
+                     targetIt.hasNext(); ) {
+                    int target = checkedNumberOf(targetIt.next().getUnit());
+                    // Arbitrary bytecode can branch to the same
+                    // target it falls through to, so we screen for duplicates:
+                    if (!edges.contains(n, target)) {
+                        edges.add(n, target);
+                    }
+                }
+            }
+        }
+        unexceptionalSuccStart = edges.starts(true);
+        unexceptionalSuccs = edges.targets(true, unexceptionalSuccStart);
+        unexceptionalPredStart = edges.starts(false);
+        unexceptionalPreds = edges.targets(false, unexceptionalPredStart);
+    }
+
+    /** Determines which units may throw exceptions that would be caught
+     * by traps within the method, as
+     * {@link ExceptionalUnitGraph#buildExceptionDests(ThrowAnalysis)}
+     * does. Returns the numbers of those units, in the order in which
+     * <code>ExceptionalUnitGraph</code> would visit them. */
+    private int[] buildExceptionDests() {
+        unitToExceptionDests = new List[units.length];
+        ThrowableSet[] uncaught = new ThrowableSet[units.length];
+        IntList throwers = new IntList();
+        ThrowableSet empty = ThrowableSet.Manager.v().EMPTY;
+
+        // Record the caught exceptions.
+        for (Iterator<Trap> trapIt = body.getTraps().iterator(); trapIt.hasNext(); ) {
+            Trap trap = trapIt.next();
+            RefType catcher = trap.getException().getType();
+            for (Iterator<Unit> unitIt = unitChain.iterator(trap.getBeginUnit(),
+                    unitChain.getPredOf(trap.getEndUnit())); unitIt.hasNext(); ) {
+                int n = checkedNumberOf(unitIt.next());
+                ThrowableSet thrownSet = uncaught[n];
+                if (thrownSet == null) {
+                    thrownSet = throwAnalysis.mightThrow(units[n]);
+                }
+                ThrowableSet.Pair catchableAs = thrownSet.whichCatchableAs(catcher);
+                if (!catchableAs.getCaught().equals(empty)) {
+                    if (unitToExceptionDests[n] == null) {
+                        unitToExceptionDests[n] = new ArrayList<ExceptionalUnitGraph.ExceptionDest>(3);
+                        throwers.add(n);
+                    }
+                    unitToExceptionDests[n].add(new ExceptionalUnitGraph.ExceptionDest(trap, catchableAs.getCaught()));
+                    uncaught[n] = catchableAs.getUncaught();
+                }
+            }
+        }
+
+        // Record the exceptions which escape units that throw some exceptions
+        // to traps; those of other units are computed on demand.
+        for (int i = 0; i < throwers.size; i++) {
+            int n = throwers.values[i];
+            if (uncaught[n] != empty) {
+                unitToExceptionDests[n].add(new ExceptionalUnitGraph.ExceptionDest(null, uncaught[n]));
+            }
+        }
+        return throwers.toArray();
+    }
+
+    /** Adds the edges for exceptional control flow, as
+     * {@link ExceptionalUnitGraph#buildExceptionalEdges(ThrowAnalysis,
+     * java.util.Map, java.util.Map, java.util.Map, boolean)} does.
+     * Returns the numbers of the handler units which may be reached by an
+     * exception thrown by the first unit. */
+    private int[] buildExceptionalEdges(int[] throwers, boolean omitExceptingUnitEdges) {
+        EdgeList edges = new EdgeList(units.length);
+        IntList trapsThatAreHeads = new IntList();
+
+        for (int i = 0; i < throwers.length; i++) {
+            int thrower = throwers[i];
+            Unit throwerUnit = units[thrower];
+
+            // See ExceptionalUnitGraph for which edges are added from the
+            // thrower's predecessors and which from the thrower itself.
+            boolean alwaysAddSelfEdges = ((! omitExceptingUnitEdges) ||
+                    ExceptionalUnitGraph.mightHaveSideEffects(throwerUnit));
+            ThrowableSet predThrowables = null;
+            ThrowableSet selfThrowables = null;
+            if (throwerUnit instanceof ThrowInst) {
+                ThrowInst throwInst = (ThrowInst) throwerUnit;
+                predThrowables = throwAnalysis.mightThrowImplicitly(throwInst);
+                selfThrowables = throwAnalysis.mightThrowExplicitly(throwInst);
+            } else if (throwerUnit instanceof ThrowStmt) {
+                ThrowStmt throwStmt = (ThrowStmt) throwerUnit;
+                predThrowables = throwAnalysis.mightThrowImplicitly(throwStmt);
+                selfThrowables = throwAnalysis.mightThrowExplicitly(throwStmt);
+            }
+
+            for (Iterator<ExceptionalUnitGraph.ExceptionDest> destIt = unitToExceptionDests[thrower].iterator();
+                 destIt.hasNext(); ) {
+                ExceptionalUnitGraph.ExceptionDest dest = destIt.next();
+                if (dest.getTrap() != null) {
+                    int catcher = checkedNumberOf(dest.getTrap().getHandlerUnit());
+                    RefType trapsType = dest.getTrap().getException().getType();
+                    if (predThrowables == null ||
+                        predThrowables.catchableAs(trapsType)) {
+                        // Add edges from the thrower's predecessors to the catcher.
+                        if (thrower == 0) {
+                            trapsThatAreHeads.addIfAbsent(catcher);
+                        }
+                        for (int p = unexceptionalPredStart[thrower];
+                             p < unexceptionalPredStart[thrower + 1]; p++) {
+                            edges.addIfAbsent(unexceptionalPreds[p], catcher);
+                        }
+                    }
+                    if (alwaysAddSelfEdges ||
+                        (selfThrowables != null &&
+                         selfThrowables.catchableAs(trapsType))) {
+                        edges.addIfAbsent(thrower, catcher);
+                    }
+                }
+            }
+        }
+
+        // Now for every CFG edge that leads to a handler that may itself
+        // throw an exception catchable within the method, add edges from
+        // the head of that edge to the unit that catches the handler's
+        // exception. A head of -1 stands for the fictitious predecessor of
+        // the first unit.
+        IntList workList = new IntList();
+        for (Iterator<Trap> trapIt = body.getTraps().iterator(); trapIt.hasNext(); ) {
+            int handlerStart = checkedNumberOf(trapIt.next().getHandlerUnit());
+            if (mightThrowToIntraproceduralCatcher(handlerStart)) {
+                for (int p = unexceptionalPredStart[handlerStart];
+                     p < unexceptionalPredStart[handlerStart + 1]; p++) {
+                    workList.add(unexceptionalPreds[p]);
+                    workList.add(handlerStart);
+                }
+                for (int e = edges.firstIn[handlerStart]; e >= 0;
+                     e = edges.nextInList.values[e]) {
+                    workList.add(edges.sources.values[e]);
+                    workList.add(handlerStart);
+                }
+                if (trapsThatAreHeads.contains(handlerStart)) {
+                    workList.add(-1);
+                    workList.add(handlerStart);
+                }
+            }
+        }
+        for (int w = 0; w < workList.size; w += 2) {
+            int pred = workList.values[w];
+            int thrower = workList.values[w + 1];
+            if (unitToExceptionDests[thrower] == null) continue;
+            for (Iterator<ExceptionalUnitGraph.ExceptionDest> i = unitToExceptionDests[thrower].iterator(); i.hasNext(); ) {
+                ExceptionalUnitGraph.ExceptionDest dest = i.next();
+                if (dest.getTrap() != null) {
+                    int handlerStart = checkedNumberOf(dest.getTrap().getHandlerUnit());
+                    boolean edgeAdded = false;
+                    if (pred < 0) {
+                        edgeAdded = trapsThatAreHeads.addIfAbsent(handlerStart);
+                    } else {
+                        edgeAdded = edges.addIfAbsent(pred, handlerStart);
+                    }
+                    if (edgeAdded && mightThrowToIntraproceduralCatcher(handlerStart)) {
+                        workList.add(pred);
+                        workList.add(handlerStart);
+                    }
+                }
+            }
+        }
+
+        exceptionalSuccStart = edges.starts(true);
+        exceptionalSuccs = edges.targets(true, exceptionalSuccStart);
+        exceptionalPredStart = edges.starts(false);
+        exceptionalPreds = edges.targets(false, exceptionalPredStart);
+        return trapsThatAreHeads.toArray();
+    }
+
+    private boolean mightThrowToIntraproceduralCatcher(int n) {
+        if (unitToExceptionDests[n] == null) return false;
+        for (Iterator<ExceptionalUnitGraph.ExceptionDest> i = unitToExceptionDests[n].iterator(); i.hasNext(); ) {
+            if (i.next().getTrap() != null) return true;
+        }
+        return false;
+    }
+
+    /** Merges the unexceptional and exceptional edges into the combined
+     * successor and predecessor arrays, ordered as
+     * {@link UnitGraph#combineMapValues(java.util.Map, java.util.Map)}
+     * orders them. */
+    private void combineEdges() {
+        if (exceptionalSuccs.length == 0) {
+            succStart = unexceptionalSuccStart;
+            succs = unexceptionalSuccs;
+            predStart = unexceptionalPredStart;
+            preds = unexceptionalPreds;
+            return;
+        }
+        succStart = new int[units.length + 1];
+        succs = combine(unexceptionalSuccStart, unexceptionalSuccs,
+                exceptionalSuccStart, exceptionalSuccs, succStart);
+        predStart = new int[units.length + 1];
+        preds = combine(unexceptionalPredStart, unexceptionalPreds,
+                exceptionalPredStart, exceptionalPreds, predStart);
+    }
+
+    private int[] combine(int[] startA, int[] edgesA, int[] startB, int[] edgesB,
+            int[] resultStart) {
+        int[] result = new int[edgesA.length + edgesB.length];
+        int size = 0;
+        for (int n = 0; n < units.length; n++) {
+            resultStart[n] = size;
+            // As a minor optimization of the duplicate screening,
+            // copy the longer list first.
+            int[] longer = edgesA, shorter = edgesB;
+            int longerFrom = startA[n], longerTo = startA[n + 1];
+            int shorterFrom = startB[n], shorterTo = startB[n + 1];
+            if (longerTo - longerFrom < shorterTo - shorterFrom) {
+                longer = edgesB;
+                shorter = edgesA;
+                longerFrom = startB[n];
+                longerTo = startB[n + 1];
+                shorterFrom = startA[n];
+                shorterTo = startA[n + 1];
+            }
+            for (int i = longerFrom; i < longerTo; i++) {
+                result[size++] = longer[i];
+            }
+            for (int i = shorterFrom; i < shorterTo; i++) {
+                int target = shorter[i];
+                boolean seen = false;
+                for (int j = resultStart[n]; j < size; j++) {
+                    if (result[j] == target) {
+                        seen = true;
+                        break;
+                    }
+                }
+                if (!seen) result[size++] = target;
+            }
+        }
+        resultStart[units.length] = size;
+        if (size == result.length) return result;
+        int[] trimmed = new int[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /** Sets the heads to the handlers in <code>additionalHeads</code> and
+     * the first unit, and the tails to the units which return or which may
+     * throw an exception out of the method, as <code>ExceptionalUnitGraph</code>
+     * does. */
+    private void buildHeadsAndTails(int[] additionalHeads) {
+        List<Unit> headList = new ArrayList<Unit>(additionalHeads.length + 1);
+        for (int i = 0; i < additionalHeads.length; i++) {
+            headList.add(units[additionalHeads[i]]);
+        }
+        Unit entryPoint = units[0];
+        if (! headList.contains(entryPoint)) {
+            headList.add(entryPoint);
+        }
+
+        List<Unit> tailList = new ArrayList<Unit>();
+        for (int n = 0; n < units.length; n++) {
+            Unit u = units[n];
+            if (u instanceof soot.jimple.ReturnStmt ||
+                u instanceof soot.jimple.ReturnVoidStmt ||
+                u instanceof soot.baf.ReturnInst ||
+                u instanceof soot.baf.ReturnVoidInst) {
+                tailList.add(u);
+            } else if (u instanceof soot.jimple.ThrowStmt ||
+                       u instanceof soot.baf.ThrowInst) {
+                if (unitToExceptionDests == null || unitToExceptionDests[n] == null) {
+                    // All of its exceptions escape the method.
+                    tailList.add(u);
+                } else {
+                    for (Iterator<ExceptionalUnitGraph.ExceptionDest> destIt = unitToExceptionDests[n].iterator();
+                         destIt.hasNext(); ) {
+                        if (destIt.next().getTrap() == null) {
+                            tailList.add(u);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        tails = Collections.unmodifiableList(tailList);
+        heads = Collections.unmodifiableList(headList);
+    }
+
+    private List<Unit> edgesOf(int n, int[] start, int[] edges) {
+        if (start == null || start[n] == start[n + 1]) {
+            return Collections.emptyList();
+        }
+        return new UnitList(edges, start[n], start[n + 1]);
+    }
+
+    public List<Unit> getPredsOf(Unit u) {
+        return edgesOf(checkedNumberOf(u), predStart, preds);
+    }
+
+    public List<Unit> getSuccsOf(Unit u) {
+        return edgesOf(checkedNumberOf(u), succStart, succs);
+    }
+
+    public List<Unit> getUnexceptionalPredsOf(Unit u) {
+        return edgesOf(checkedNumberOf(u), unexceptionalPredStart, unexceptionalPreds);
+    }
+
+    public List<Unit> getUnexceptionalSuccsOf(Unit u) {
+        return edgesOf(checkedNumberOf(u), unexceptionalSuccStart, unexceptionalSuccs);
+    }
+
+    public List<Unit> getExceptionalPredsOf(Unit u) {
+        int n = numberOf(u);
+        if (n < 0) return Collections.emptyList();
+        return edgesOf(n, exceptionalPredStart, exceptionalPreds);
+    }
+
+    public List<Unit> getExceptionalSuccsOf(Unit u) {
+        int n = numberOf(u);
+        if (n < 0) return Collections.emptyList();
+        return edgesOf(n, exceptionalSuccStart, exceptionalSuccs);
+    }
+
+    /**
+     * Returns a collection of {@link ExceptionalUnitGraph.ExceptionDest
+     * ExceptionDest} objects which represent how exceptions thrown by a
+     * specified unit will be handled, as
+     * {@link ExceptionalUnitGraph#getExceptionDests(Unit)} does.
+     */
+    public Collection<ExceptionalUnitGraph.ExceptionDest> getExceptionDests(Unit u) {
+        int n = numberOf(u);
+        if (n >= 0 && unitToExceptionDests != null && unitToExceptionDests[n] != null) {
+            return unitToExceptionDests[n];
+        }
+        Collection<ExceptionalUnitGraph.ExceptionDest> result = new LinkedList<ExceptionalUnitGraph.ExceptionDest>();
+        result.add(new ExceptionalUnitGraph.ExceptionDest(null, throwAnalysis.mightThrow(u)));
+        return result;
+    }
+
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (int n = 0; n < units.length; n++) {
+            Unit u = units[n];
+            buf.append("  preds: "+getPredsOf(u)+"\n");
+            buf.append("  unexceptional preds: "+getUnexceptionalPredsOf(u)+"\n");
+            buf.append("  exceptional preds: "+getExceptionalPredsOf(u)+"\n");
+            buf.append(u.toString() + '\n');
+            buf.append("  exception destinations: "+getExceptionDests(u)+"\n");
+            buf.append("  unexceptional succs: "+getUnexceptionalSuccsOf(u)+"\n");
+            buf.append("  exceptional succs: "+getExceptionalSuccsOf(u)+"\n");
+            buf.append("  succs "+getSuccsOf(u)+"\n\n");
+        }
+        return buf.toString();
+    }
+
+    /** An unmodifiable view of a range of an edge array, as units. */
+    private class UnitList extends AbstractList<Unit> implements RandomAccess {
+        private final int[] edges;
+        private final int from;
+        private final int to;
+
+        UnitList(int[] edges, int from, int to) {
+            this.edges = edges;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Unit get(int i) {
+            if (i < 0 || i >= to - from) throw new IndexOutOfBoundsException("" + i);
+            return units[edges[from + i]];
+        }
+
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /** A growable array of ints. */
+    private static class IntList {
+        int[] values = new int[8];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                int[] newValues = new int[size * 2];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+            }
+            values[size++] = v;
+        }
+
+        boolean contains(int v) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == v) return true;
+            }
+            return false;
+        }
+
+        boolean addIfAbsent(int v) {
+            if (contains(v)) return false;
+            add(v);
+            return true;
+        }
+
+        int[] toArray() {
+            int[] ret = new int[size];
+            System.arraycopy(values, 0, ret, 0, size);
+            return ret;
+        }
+    }
+
+    /**
+     * Edges as they are added while building the graph. The outgoing and
+     * incoming edges of each unit are chained in the order they were
+     * added, so that they can be queried during construction and then laid
+     * out in that order.
+     */
+    private static class EdgeList {
+        final IntList sources = new IntList();
+        final IntList targets = new IntList();
+        final IntList nextOutList = new IntList();
+        final IntList nextInList = new IntList();
+        final int[] firstOut, lastOut, firstIn, lastIn;
+
+        EdgeList(int units) {
+            firstOut = new int[units];
+            lastOut = new int[units];
+            firstIn = new int[units];
+            lastIn = new int[units];
+            Arrays.fill(firstOut, -1);
+            Arrays.fill(firstIn, -1);
+        }
+
+        boolean contains(int from, int to) {
+            for (int e = firstOut[from]; e >= 0; e = nextOutList.values[e]) {
+                if (targets.values[e] == to) return true;
+            }
+            return false;
+        }
+
+        void add(int from, int to) {
+            int e = sources.size;
+            sources.add(from);
+            targets.add(to);
+            nextOutList.add(-1);
+            nextInList.add(-1);
+            if (firstOut[from] < 0) firstOut[from] = e;
+            else nextOutList.values[lastOut[from]] = e;
+            lastOut[from] = e;
+            if (firstIn[to] < 0) firstIn[to] = e;
+            else nextInList.values[lastIn[to]] = e;
+            lastIn[to] = e;
+        }
+
+        boolean addIfAbsent(int from, int to) {
+            if (contains(from, to)) return false;
+            add(from, to);
+            return true;
+        }
+
+        /** Returns the start of the edges of each unit, counting them by
+         * source if <code>out</code> is true, else by target. */
+        int[] starts(boolean out) {
+            int[] start = new int[firstOut.length + 1];
+            int[] keys = out ? sources.values : targets.values;
+            for (int e = 0; e < sources.size; e++) {
+                start[keys[e] + 1]++;
+            }
+            for (int n = 0; n < firstOut.length; n++) {
+                start[n + 1] += start[n];
+            }
+            return start;
+        }
+
+        /** Lays out the targets of the outgoing edges of each unit if
+         * <code>out</code> is true, else the sources of the incoming
+         * edges, in the order the edges were added. */
+        int[] targets(boolean out, int[] start) {
+            if (sources.size == 0) return NO_EDGES;
+            int[] ret = new int[sources.size];
+            int[] first = out ? firstOut : firstIn;
+            int[] next = out ? nextOutList.values : nextInList.values;
+            int[] ends = out ? targets.values : sources.values;
+            for (int n = 0; n < first.length; n++) {
+                int i = start[n];
+                for (int e = first[n]; e >= 0; e = next[e]) {
+                    ret[i++] = ends[e];
+                }
+            }
+            return ret;
+        }
+    }
+}
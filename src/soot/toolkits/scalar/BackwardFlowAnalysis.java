@@ -26,9 +26,10 @@
 
 package soot.toolkits.scalar;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -62,16 +63,19 @@ public abstract class BackwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
 
     protected void doAnalysis()
     {
-        final Map<N, Integer> numbers = new HashMap<N, Integer>();
-        List<N> orderedUnits = constructOrderer().newList(graph,true);
-        int i = 1;
-        for( Iterator<N> uIt = orderedUnits.iterator(); uIt.hasNext(); ) {
-            final N u = uIt.next();
-            numbers.put(u, new Integer(i));
-            i++;
-        }
+        List<N> orderedUnits = new ArrayList<N>(constructOrderer().newList(graph,true));
 
-        Collection<N> changedUnits = constructWorklist(numbers);
+        // Number the nodes once; the fixed point iteration below then works
+        // on arrays indexed by these numbers, visiting lower numbers first.
+        final Map<N, Integer> numbers = numbersOf(orderedUnits);
+        int[][] predNumbers = neighbourNumbers(graph, orderedUnits, numbers, true);
+        int[][] succNumbers = neighbourNumbers(graph, orderedUnits, numbers, false);
+        @SuppressWarnings("unchecked")
+        A[] beforeFlows = (A[]) new Object[orderedUnits.size()];
+        @SuppressWarnings("unchecked")
+        A[] afterFlows = (A[]) new Object[orderedUnits.size()];
+        boolean[] isTail = new boolean[orderedUnits.size()];
+        BitSet changedUnits = new BitSet(orderedUnits.size());
 
 
         // Set initial Flows and nodes to visit.
@@ -81,11 +85,14 @@ public abstract class BackwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
             while(it.hasNext())
             {
                 N s = it.next();
+                int i = numbers.get(s).intValue();
 
-                changedUnits.add(s);
+                changedUnits.set(i);
 
-                unitToBeforeFlow.put(s, newInitialFlow());
-                unitToAfterFlow.put(s, newInitialFlow());
+                beforeFlows[i] = newInitialFlow();
+                afterFlows[i] = newInitialFlow();
+                unitToBeforeFlow.put(s, beforeFlows[i]);
+                unitToAfterFlow.put(s, afterFlows[i]);
             }
         }
 
@@ -98,8 +105,11 @@ public abstract class BackwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
             
             while (it.hasNext()) {
                 N s = it.next();
+                int i = numbers.get(s).intValue();
+                isTail[i] = true;
                 // this is a backward flow analysis
-                unitToAfterFlow.put(s, entryInitialFlow());
+                afterFlows[i] = entryInitialFlow();
+                unitToAfterFlow.put(s, afterFlows[i]);
             }
         }
 
@@ -107,46 +117,43 @@ public abstract class BackwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
         {
             A previousBeforeFlow = newInitialFlow();
 
-            while(!changedUnits.isEmpty())
+            for(int i = changedUnits.nextSetBit(0); i >= 0; i = changedUnits.nextSetBit(0))
             {
                 A beforeFlow;
                 A afterFlow;
 
                 //get the first object
-                N s = changedUnits.iterator().next();
-                changedUnits.remove(s);
-                boolean isTail = tails.contains(s);
+                changedUnits.clear(i);
+                N s = orderedUnits.get(i);
 
-                copy(unitToBeforeFlow.get(s), previousBeforeFlow);
+                copy(beforeFlows[i], previousBeforeFlow);
 
                 // Compute and store afterFlow
                 {
-                    List<N> succs = graph.getSuccsOf(s);
+                    int[] succs = succNumbers[i];
 
-                    afterFlow =  unitToAfterFlow.get(s);
+                    afterFlow = afterFlows[i];
 
-                    if(succs.size() == 1)
-                        copy(unitToBeforeFlow.get(succs.get(0)), afterFlow);
-                    else if(succs.size() != 0)
+                    if(succs.length == 1)
+                        copy(beforeFlows[succs[0]], afterFlow);
+                    else if(succs.length != 0)
                     {
-                        Iterator<N> succIt = succs.iterator();
-
-                        copy(unitToBeforeFlow.get(succIt.next()), afterFlow);
+                        copy(beforeFlows[succs[0]], afterFlow);
 
-                        while(succIt.hasNext())
+                        for(int j = 1; j < succs.length; j++)
                         {
-                            A otherBranchFlow = unitToBeforeFlow.get(succIt.next());
+                            A otherBranchFlow = beforeFlows[succs[j]];
                             mergeInto(s, afterFlow, otherBranchFlow);
                         }
 
-                        if(isTail && succs.size() != 0)
+                        if(isTail[i] && succs.length != 0)
                             mergeInto(s, afterFlow, entryInitialFlow());
                     }
                 }
 
                 // Compute beforeFlow and store it.
                 {
-                    beforeFlow = unitToBeforeFlow.get(s);
+                    beforeFlow = beforeFlows[i];
                     if (Options.v().interactive_mode()){
                         A savedFlow = newInitialFlow();
                         if (filterUnitToAfterFlow != null){
@@ -180,19 +187,20 @@ public abstract class BackwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
                 // Update queue appropriately
                     if(!beforeFlow.equals(previousBeforeFlow))
                     {
-                        Iterator<N> predIt = graph.getPredsOf(s).iterator();
+                        int[] preds = predNumbers[i];
 
-                        while(predIt.hasNext())
-                        {
-                            N pred = predIt.next();
-                            
-                            changedUnits.add(pred);
-                        }
+                        for(int j = 0; j < preds.length; j++)
+                            changedUnits.set(preds[j]);
                     }
             }
         }
     }
     
+    /**
+     * No longer used by {@link #doAnalysis()}, which keeps its worklist as a
+     * bit set over the node numbers.
+     * @deprecated
+     */
 	protected Collection<N> constructWorklist(final Map<N, Integer> numbers) {
 		return new TreeSet<N>( new Comparator<N>() {
             public int compare(N o1, N o2) {
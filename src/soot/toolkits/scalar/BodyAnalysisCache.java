@@ -0,0 +1,247 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2026 Sable Research Group
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.toolkits.scalar;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import soot.Body;
+import soot.Local;
+import soot.PatchingChain;
+import soot.Scene;
+import soot.Trap;
+import soot.Unit;
+import soot.UnitBox;
+import soot.ValueBox;
+import soot.options.Options;
+import soot.toolkits.exceptions.ThrowAnalysis;
+import soot.toolkits.graph.CompactExceptionalUnitGraph;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+import soot.util.Chain;
+import soot.util.HashChain;
+
+/**
+ * Hands out the control flow graph, live locals, local defs and local uses
+ * of a body, reusing them for as long as the body is unchanged, so that
+ * transformers running one after another need not each rebuild them. The
+ * graphs are {@link CompactExceptionalUnitGraph}s, which have the same edges
+ * as {@link ExceptionalUnitGraph}s but take much less memory.
+ *
+ * <p>Any change to the unit, local or trap chain of the body, as counted by
+ * {@link HashChain#getModificationCount()}, invalidates the cached
+ * analyses. So does any change made to the units in place: retargeting a
+ * branch, replacing the value in a box, or changing the type of a local.
+ * These are found by comparing the body against a snapshot of the units,
+ * their boxes and the traps taken when the analyses were built, which is
+ * much cheaper than building the analyses again.
+ *
+ * <p>Obtain the cache of a body with {@link Body#getAnalysisCache()}. The
+ * cache is discarded when the outermost analysis scope of the body ends;
+ * packs and body transformers each open one, so that the analyses do not
+ * stay in memory along with every body. Like the body itself, a cache
+ * must not be used by several threads at once.
+ */
+public class BodyAnalysisCache
+{
+    private static final Object END_OF_UNIT = new Object();
+
+    private final Body body;
+    private final List<Entry> entries = new ArrayList<Entry>( 2 );
+    private long unitCount;
+    private long localCount;
+    private long trapCount;
+    private Object[] snapshot;
+    private List<Object> recording;
+    private int position;
+
+    public BodyAnalysisCache( Body body ) {
+        this.body = body;
+    }
+
+    /** Returns the graph of the body built with the default ThrowAnalysis
+     * and the omit-excepting-unit-edges option, as by
+     * {@link ExceptionalUnitGraph#ExceptionalUnitGraph(Body)}. */
+    public CompactExceptionalUnitGraph getUnitGraph() {
+        return getUnitGraph( Scene.v().getDefaultThrowAnalysis(),
+                Options.v().omit_excepting_unit_edges() );
+    }
+
+    /** Returns the graph of the body built with the given ThrowAnalysis, as
+     * by {@link
+     * ExceptionalUnitGraph#ExceptionalUnitGraph(Body, ThrowAnalysis, boolean)}. */
+    public CompactExceptionalUnitGraph getUnitGraph( ThrowAnalysis throwAnalysis,
+            boolean omitExceptingUnitEdges ) {
+        validate();
+        for( Entry e : entries ) {
+            if( e.throwAnalysis == throwAnalysis
+            && e.omitExceptingUnitEdges == omitExceptingUnitEdges ) return e.graph;
+        }
+        CompactExceptionalUnitGraph graph = new CompactExceptionalUnitGraph( body,
+                throwAnalysis, omitExceptingUnitEdges );
+        if( entries.isEmpty() ) takeSnapshot();
+        entries.add( new Entry( graph, throwAnalysis, omitExceptingUnitEdges ) );
+        return graph;
+    }
+
+    /** Returns the live locals of the body computed over the given graph. If
+     * the graph was not handed out by this cache, or the body has changed
+     * since, the result is computed afresh and not cached. */
+    public LiveLocals getLiveLocals( UnitGraph graph ) {
+        Entry e = entryFor( graph );
+        if( e == null ) return new SimpleLiveLocals( graph );
+        return liveLocals( e );
+    }
+
+    /** Returns the local defs of the body computed over the given graph, as
+     * by {@link SmartLocalDefs}. If the graph was not handed out by this
+     * cache, or the body has changed since, the result is computed afresh
+     * and not cached. */
+    public LocalDefs getLocalDefs( UnitGraph graph ) {
+        Entry e = entryFor( graph );
+        if( e == null ) return new SmartLocalDefs( graph, new SimpleLiveLocals( graph ) );
+        return localDefs( e );
+    }
+
+    /** Returns the local uses of the body computed over the given graph, as
+     * by {@link SimpleLocalUses}. If the graph was not handed out by this
+     * cache, or the body has changed since, the result is computed afresh
+     * and not cached. */
+    public LocalUses getLocalUses( UnitGraph graph ) {
+        Entry e = entryFor( graph );
+        if( e == null ) {
+            return new SimpleLocalUses( graph,
+                    new SmartLocalDefs( graph, new SimpleLiveLocals( graph ) ) );
+        }
+        if( e.localUses == null ) e.localUses = new SimpleLocalUses( graph, localDefs( e ) );
+        return e.localUses;
+    }
+
+    /** Discards all cached analyses. */
+    public void clear() {
+        entries.clear();
+        snapshot = null;
+    }
+
+    private LiveLocals liveLocals( Entry e ) {
+        if( e.liveLocals == null ) e.liveLocals = new SimpleLiveLocals( e.graph );
+        return e.liveLocals;
+    }
+
+    private LocalDefs localDefs( Entry e ) {
+        if( e.localDefs == null ) e.localDefs = new SmartLocalDefs( e.graph, liveLocals( e ) );
+        return e.localDefs;
+    }
+
+    private Entry entryFor( UnitGraph graph ) {
+        validate();
+        for( Entry e : entries ) {
+            if( e.graph == graph ) return e;
+        }
+        return null;
+    }
+
+    /** Discards the cached analyses if the body has changed since they were
+     * built. */
+    private void validate() {
+        if( entries.isEmpty() ) return;
+        if( modificationCount( body.getUnits() ) != unitCount
+        || modificationCount( body.getLocals() ) != localCount
+        || modificationCount( body.getTraps() ) != trapCount
+        || !sameAsSnapshot() ) {
+            clear();
+        }
+    }
+
+    private void takeSnapshot() {
+        unitCount = modificationCount( body.getUnits() );
+        localCount = modificationCount( body.getLocals() );
+        trapCount = modificationCount( body.getTraps() );
+        recording = new ArrayList<Object>( body.getUnits().size() * 4 );
+        walk();
+        snapshot = recording.toArray();
+        recording = null;
+    }
+
+    /** Returns the number of changes made to chain, or 0 if it does not
+     * count them; the snapshot still catches changes to such chains. */
+    private static long modificationCount( Chain chain ) {
+        if( chain instanceof PatchingChain ) return ( (PatchingChain) chain ).getModificationCount();
+        if( chain instanceof HashChain ) return ( (HashChain) chain ).getModificationCount();
+        return 0;
+    }
+
+    private boolean sameAsSnapshot() {
+        return walk();
+    }
+
+    /** Goes over everything about the body the analyses depend on, either
+     * recording it or comparing it by identity against the snapshot. Returns
+     * false at the first difference from the snapshot. */
+    private boolean walk() {
+        position = 0;
+        for( Iterator<Unit> uIt = body.getUnits().iterator(); uIt.hasNext(); ) {
+            final Unit u = uIt.next();
+            if( !see( u ) ) return false;
+            for( Iterator bIt = u.getUseAndDefBoxes().iterator(); bIt.hasNext(); ) {
+                if( !see( ((ValueBox) bIt.next()).getValue() ) ) return false;
+            }
+            for( Iterator bIt = u.getUnitBoxes().iterator(); bIt.hasNext(); ) {
+                if( !see( ((UnitBox) bIt.next()).getUnit() ) ) return false;
+            }
+            if( !see( END_OF_UNIT ) ) return false;
+        }
+        for( Iterator<Trap> tIt = body.getTraps().iterator(); tIt.hasNext(); ) {
+            final Trap t = tIt.next();
+            if( !see( t.getBeginUnit() ) || !see( t.getEndUnit() )
+            || !see( t.getHandlerUnit() ) || !see( t.getException() ) ) return false;
+        }
+        for( Iterator<Local> lIt = body.getLocals().iterator(); lIt.hasNext(); ) {
+            final Local l = lIt.next();
+            if( !see( l ) || !see( l.getType() ) ) return false;
+        }
+        return recording != null || position == snapshot.length;
+    }
+
+    private boolean see( Object o ) {
+        if( recording != null ) {
+            recording.add( o );
+            return true;
+        }
+        return position < snapshot.length && snapshot[position++] == o;
+    }
+
+    private static class Entry {
+        final CompactExceptionalUnitGraph graph;
+        final ThrowAnalysis throwAnalysis;
+        final boolean omitExceptingUnitEdges;
+        LiveLocals liveLocals;
+        LocalDefs localDefs;
+        LocalUses localUses;
+
+        Entry( CompactExceptionalUnitGraph graph, ThrowAnalysis throwAnalysis,
+                boolean omitExceptingUnitEdges ) {
+            this.graph = graph;
+            this.throwAnalysis = throwAnalysis;
+            this.omitExceptingUnitEdges = omitExceptingUnitEdges;
+        }
+    }
+}
@@ -27,6 +27,7 @@
 package soot.toolkits.scalar;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import soot.toolkits.graph.DirectedGraph;
@@ -78,4 +79,30 @@ public abstract class FlowAnalysis<N,A> extends AbstractFlowAnalysis<N,A>
 		return new PseudoTopologicalOrderer();
 	}
 
+    /** Returns a map from each of the given nodes to its index in the list. */
+    static <N> Map<N, Integer> numbersOf(List<N> nodes)
+    {
+        Map<N, Integer> numbers = new HashMap<N, Integer>(nodes.size() * 2 + 1, 0.7f);
+        for (int i = 0; i < nodes.size(); i++)
+            numbers.put(nodes.get(i), new Integer(i));
+        return numbers;
+    }
+
+    /** Returns, for each of the given nodes, the numbers of its predecessors
+     * or successors in <code>graph</code>, in the order the graph lists them. */
+    static <N> int[][] neighbourNumbers(DirectedGraph<N> graph, List<N> nodes,
+            Map<N, Integer> numbers, boolean preds)
+    {
+        int[][] ret = new int[nodes.size()][];
+        for (int i = 0; i < ret.length; i++) {
+            List<N> neighbours = preds ? graph.getPredsOf(nodes.get(i)) : graph.getSuccsOf(nodes.get(i));
+            int[] n = new int[neighbours.size()];
+            int j = 0;
+            for (N neighbour : neighbours)
+                n[j++] = numbers.get(neighbour).intValue();
+            ret[i] = n;
+        }
+        return ret;
+    }
+
 }
@@ -317,8 +317,7 @@ public abstract class ForwardBranchedFlowAnalysis<A> extends BranchedFlowAnalysi
         // G.v().out.println(graph.getBody().getMethod().getSignature() + " numNodes: " + numNodes + 
         //    " numComputations: " + numComputations + " avg: " + Main.truncatedOf((double) numComputations / numNodes, 2));
         
-        Timers.v().totalFlowNodes += numNodes;
-        Timers.v().totalFlowComputations += numComputations;
+        Timers.v().addFlowStatistics(numNodes, numComputations);
 
     } // end doAnalysis
 
@@ -54,19 +54,22 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
 
     protected void doAnalysis()
     {
-        final Map<N, Integer> numbers = new HashMap<N, Integer>();
 //        Timers.v().orderComputation = new soot.Timer();
 //        Timers.v().orderComputation.start();
-        List<N> orderedUnits = constructOrderer().newList(graph,false);
+        List<N> orderedUnits = new ArrayList<N>(constructOrderer().newList(graph,false));
 //        Timers.v().orderComputation.end();
-        int i = 1;
-        for( Iterator<N> uIt = orderedUnits.iterator(); uIt.hasNext(); ) {
-            final N u = uIt.next();
-            numbers.put(u, new Integer(i));
-            i++;
-        }
 
-        Collection<N> changedUnits = constructWorklist(numbers);
+        // Number the nodes once; the fixed point iteration below then works
+        // on arrays indexed by these numbers, visiting lower numbers first.
+        final Map<N, Integer> numbers = numbersOf(orderedUnits);
+        int[][] predNumbers = neighbourNumbers(graph, orderedUnits, numbers, true);
+        int[][] succNumbers = neighbourNumbers(graph, orderedUnits, numbers, false);
+        @SuppressWarnings("unchecked")
+        A[] beforeFlows = (A[]) new Object[orderedUnits.size()];
+        @SuppressWarnings("unchecked")
+        A[] afterFlows = (A[]) new Object[orderedUnits.size()];
+        boolean[] isHead = new boolean[orderedUnits.size()];
+        BitSet changedUnits = new BitSet(orderedUnits.size());
 
         List<N> heads = graph.getHeads();
         int numNodes = graph.size();
@@ -79,11 +82,14 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
             while(it.hasNext())
             {
                 N s = it.next();
+                int i = numbers.get(s).intValue();
 
-                changedUnits.add(s);
+                changedUnits.set(i);
 
-                unitToBeforeFlow.put(s, newInitialFlow());
-                unitToAfterFlow.put(s, newInitialFlow());
+                beforeFlows[i] = newInitialFlow();
+                afterFlows[i] = newInitialFlow();
+                unitToBeforeFlow.put(s, beforeFlows[i]);
+                unitToAfterFlow.put(s, afterFlows[i]);
             }
         }
 
@@ -94,8 +100,11 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
             
             while (it.hasNext()) {
                 N s = it.next();
+                int i = numbers.get(s).intValue();
+                isHead[i] = true;
                 // this is a forward flow analysis
-                unitToBeforeFlow.put(s, entryInitialFlow());
+                beforeFlows[i] = entryInitialFlow();
+                unitToBeforeFlow.put(s, beforeFlows[i]);
             }
         }
         
@@ -103,46 +112,43 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
         {
             A previousAfterFlow = newInitialFlow();
 
-            while(!changedUnits.isEmpty())
+            for(int i = changedUnits.nextSetBit(0); i >= 0; i = changedUnits.nextSetBit(0))
             {
                 A beforeFlow;
                 A afterFlow;
 
                 //get the first object
-                N s = changedUnits.iterator().next();
-                changedUnits.remove(s);
-                boolean isHead = heads.contains(s);
+                changedUnits.clear(i);
+                N s = orderedUnits.get(i);
 
-                copy(unitToAfterFlow.get(s), previousAfterFlow);
+                copy(afterFlows[i], previousAfterFlow);
 
                 // Compute and store beforeFlow
                 {
-                    List<N> preds = graph.getPredsOf(s);
+                    int[] preds = predNumbers[i];
 
-                    beforeFlow = unitToBeforeFlow.get(s);
+                    beforeFlow = beforeFlows[i];
                     
-                    if(preds.size() == 1)
-                        copy(unitToAfterFlow.get(preds.get(0)), beforeFlow);
-                    else if(preds.size() != 0)
+                    if(preds.length == 1)
+                        copy(afterFlows[preds[0]], beforeFlow);
+                    else if(preds.length != 0)
                     {
-                        Iterator<N> predIt = preds.iterator();
-
-                        copy(unitToAfterFlow.get(predIt.next()), beforeFlow);
+                        copy(afterFlows[preds[0]], beforeFlow);
 
-                        while(predIt.hasNext())
+                        for(int j = 1; j < preds.length; j++)
                         {
-                            A otherBranchFlow = unitToAfterFlow.get(predIt.next());
+                            A otherBranchFlow = afterFlows[preds[j]];
                             mergeInto(s, beforeFlow, otherBranchFlow);
                         }
                     }
 
-                    if(isHead && preds.size() != 0)
+                    if(isHead[i] && preds.length != 0)
                     		mergeInto(s, beforeFlow, entryInitialFlow());
                     	}
                 
                 {
                     // Compute afterFlow and store it.
-                    afterFlow = unitToAfterFlow.get(s);
+                    afterFlow = afterFlows[i];
                     if (Options.v().interactive_mode()){
                         
                         A savedInfo = newInitialFlow();
@@ -178,14 +184,10 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
                 // Update queue appropriately
                     if(!afterFlow.equals(previousAfterFlow))
                     {
-                        Iterator<N> succIt = graph.getSuccsOf(s).iterator();
+                        int[] succs = succNumbers[i];
 
-                        while(succIt.hasNext())
-                        {
-                            N succ = succIt.next();
-                            
-                            changedUnits.add(succ);
-                        }
+                        for(int j = 0; j < succs.length; j++)
+                            changedUnits.set(succs[j]);
                     }
                 }
             }
@@ -193,10 +195,14 @@ public abstract class ForwardFlowAnalysis<N,A> extends FlowAnalysis<N,A>
         // G.v().out.println(graph.getBody().getMethod().getSignature() + " numNodes: " + numNodes + 
         //    " numComputations: " + numComputations + " avg: " + Main.truncatedOf((double) numComputations / numNodes, 2));
         
-        Timers.v().totalFlowNodes += numNodes;
-        Timers.v().totalFlowComputations += numComputations;
+        Timers.v().addFlowStatistics(numNodes, numComputations);
     }
     
+    /**
+     * No longer used by {@link #doAnalysis()}, which keeps its worklist as a
+     * bit set over the node numbers.
+     * @deprecated
+     */
 	protected Collection<N> constructWorklist(final Map<N, Integer> numbers) {
 		return new TreeSet<N>( new Comparator<N>() {
             public int compare(N o1, N o2) {
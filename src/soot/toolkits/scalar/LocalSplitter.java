@@ -88,13 +88,13 @@ public class LocalSplitter extends BodyTransformer
 
         // Go through the definitions, building the webs
         {
-            ExceptionalUnitGraph graph = new ExceptionalUnitGraph(body,throwAnalysis,true);
+            UnitGraph graph = body.getAnalysisCache().getUnitGraph(throwAnalysis,true);
 
             LocalDefs localDefs;
             
-            localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+            localDefs = body.getAnalysisCache().getLocalDefs(graph);
 
-            LocalUses localUses = new SimpleLocalUses(graph, localDefs);
+            LocalUses localUses = body.getAnalysisCache().getLocalUses(graph);
             
             if(Options.v().time())
                 Timers.v().splitPhase1Timer.end();
@@ -27,21 +27,24 @@ import java.util.*;
  */
 
 public class ArrayNumberer<E> implements IterableNumberer<E> {
-    Numberable[] numberToObj = new Numberable[1024];
-    int lastNumber = 0;
+    // add is synchronized; the readers are not, and see the array and the
+    // objects in it as of the last write of lastNumber they read
+    volatile Numberable[] numberToObj = new Numberable[1024];
+    volatile int lastNumber = 0;
 
-    public void add( E oo ) {
+    public synchronized void add( E oo ) {
         Numberable o = (Numberable) oo;
         if( o.getNumber() != 0 ) return;
         
-        ++lastNumber;
-        if( lastNumber >= numberToObj.length ) {
+        int number = lastNumber + 1;
+        if( number >= numberToObj.length ) {
             Numberable[] newnto = new Numberable[numberToObj.length*2];
             System.arraycopy(numberToObj, 0, newnto, 0, numberToObj.length);
             numberToObj = newnto;
         }
-        numberToObj[lastNumber] = o;
-        o.setNumber( lastNumber );
+        numberToObj[number] = o;
+        o.setNumber( number );
+        lastNumber = number;
     }
 
     public long get( E oo ) {
@@ -54,7 +57,7 @@ public class ArrayNumberer<E> implements IterableNumberer<E> {
 
 	public E get( long number ) {
         if( number == 0 ) return null;
-        E ret = (E) numberToObj[(int) number];
+        E ret = number <= lastNumber ? (E) numberToObj[(int) number] : null;
         if( ret == null ) throw new RuntimeException( "no object with number "+number );
         return ret;
     }
@@ -68,7 +71,7 @@ public class ArrayNumberer<E> implements IterableNumberer<E> {
     final class NumbererIterator implements Iterator<E> {
         int cur = 1;
         public final boolean hasNext() {
-            return cur < numberToObj.length && numberToObj[cur] != null;
+            return cur <= lastNumber;
         }
 
 		public final E next() { 
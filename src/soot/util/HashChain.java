@@ -47,6 +47,13 @@ public class HashChain<E> extends AbstractCollection<E>
     private E lastItem;
     private long stateCount = 0;  
 
+    /** Returns the number of changes made to this Chain so far. Any
+     * insertion or removal increases it. */
+    public long getModificationCount()
+    {
+        return stateCount;
+    }
+
     /** Erases the contents of the current HashChain. */
     public void clear() 
     {
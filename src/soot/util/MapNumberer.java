@@ -24,7 +24,7 @@ public class MapNumberer implements Numberer {
     Map<Object, Integer> map = new HashMap<Object, Integer>();
     ArrayList<Object> al = new ArrayList<Object>();
     int nextIndex = 1;
-    public void add( Object o ) {
+    public synchronized void add( Object o ) {
         if( !map.containsKey(o) ) {
             map.put( o, new Integer(nextIndex) );
             al.add(o);
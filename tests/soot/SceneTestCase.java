@@ -0,0 +1,69 @@
+package soot;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+import soot.options.Options;
+
+/**
+ * Base class of the tests that run Soot on an input class compiled along
+ * with them. Each test loads its input into a freshly reset Soot, which is
+ * reset again once the test is done.
+ */
+public abstract class SceneTestCase extends TestCase
+{
+    public SceneTestCase(String name)
+    {
+        super(name);
+    }
+
+    protected void tearDown() throws Exception
+    {
+        G.reset();
+    }
+
+    /**
+     * Resets Soot and loads the given input class, found where it was
+     * compiled, along with the classes Soot always needs.
+     */
+    protected static SootClass loadInput(Class<?> input) throws Exception
+    {
+        G.reset();
+        setClassPath(input);
+        Options.v().classes().add(input.getName());
+        Scene.v().loadNecessaryClasses();
+        return Scene.v().getSootClass(input.getName());
+    }
+
+    /**
+     * Resets Soot and loads the given input class for a whole-program
+     * analysis: the library is left without bodies, and the main method of
+     * the input is the only entry point.
+     */
+    protected static SootClass loadWholeProgram(Class<?> input) throws Exception
+    {
+        G.reset();
+        setClassPath(input);
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_no_bodies_for_excluded(true);
+        Options.v().set_exclude(Arrays.asList(new String[] { "java.", "javax.", "sun." }));
+        Options.v().classes().add(input.getName());
+        Scene.v().loadNecessaryClasses();
+        SootClass c = Scene.v().getSootClass(input.getName());
+        Scene.v().setEntryPoints(Collections.singletonList(c.getMethodByName("main")));
+        return c;
+    }
+
+    /**
+     * Sets the Soot class path to the directory the given input was compiled
+     * to, followed by the default class path.
+     */
+    protected static void setClassPath(Class<?> input) throws Exception
+    {
+        File inputDir = new File(input.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Options.v().set_soot_classpath(inputDir.getPath() + File.pathSeparator + Scene.v().defaultClassPath());
+    }
+}
@@ -0,0 +1,287 @@
+package soot.baf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.PackManager;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.util.Chain;
+import soot.util.JasminOutputStream;
+
+/**
+ * Writes classes through both class file backends: the direct writer must
+ * agree with Jasmin, its stack maps must satisfy the type checking verifier
+ * and methods too long for 16-bit branch offsets must still run.
+ */
+public class ClassFileWriterTest extends SceneTestCase
+{
+    private static final String INPUT = ClassFileWriterTestInput.class.getName();
+
+    public ClassFileWriterTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        loadInput(ClassFileWriterTestInput.class);
+    }
+
+    public void testSameAsJasmin() throws Exception
+    {
+        SootClass c = bafClass(INPUT);
+        byte[] direct = direct(c, false);
+        byte[] assembled = jasmin(c);
+
+        ClassSummary directSummary = new ClassSummary(direct);
+        ClassSummary jasminSummary = new ClassSummary(assembled);
+        assertEquals(49, directSummary.major);
+        assertEquals(jasminSummary.fields, directSummary.fields);
+        assertEquals(jasminSummary.methods, directSummary.methods);
+
+        assertEquals(ClassFileWriterTestInput.run(), run(INPUT, direct));
+        assertEquals(run(INPUT, assembled), run(INPUT, direct));
+    }
+
+    public void testStackMapFrames() throws Exception
+    {
+        SootClass c = bafClass(INPUT);
+        byte[] direct = direct(c, true);
+
+        ClassSummary summary = new ClassSummary(direct);
+        assertEquals(51, summary.major);
+        assertTrue(summary.codeAttributes.get("exceptions(I)Ljava/lang/String;").contains("StackMapTable"));
+        assertTrue(summary.codeAttributes.get("<init>(Z)V").contains("StackMapTable"));
+        // Loading a version 51 class runs the type checking verifier on these frames.
+        assertEquals(ClassFileWriterTestInput.run(), run(INPUT, direct));
+    }
+
+    public void testWideBranches() throws Exception
+    {
+        int repeats = 3500;
+        SootClass c = longLoopClass("soot.baf.LongLoop", repeats);
+        int expected = 0;
+        for(int i = 0; i < 10; i++)
+            for(int k = 0; k < repeats; k++)
+                expected = expected * 31 + k;
+
+        byte[] direct = direct(c, false);
+        assertTrue(new ClassSummary(direct).codeLengths.get("run(I)I").intValue() > Short.MAX_VALUE);
+        assertEquals(new Integer(expected), invoke("soot.baf.LongLoop", direct, "run", 10));
+
+        byte[] withFrames = direct(c, true);
+        assertEquals(new Integer(expected), invoke("soot.baf.LongLoop", withFrames, "run", 10));
+    }
+
+    private static SootClass bafClass(String name)
+    {
+        SootClass c = Scene.v().getSootClass(name);
+        for(Iterator<SootMethod> it = c.methodIterator(); it.hasNext(); ) {
+            SootMethod m = it.next();
+            if(m.isConcrete()) {
+                m.retrieveActiveBody();
+                m.setActiveBody(PackManager.v().convertJimpleBodyToBaf(m));
+            }
+        }
+        return c;
+    }
+
+    /** <code>static int run(int n)</code> repeats a loop body of <code>repeats</code> statements n times. */
+    private static SootClass longLoopClass(String name, int repeats)
+    {
+        SootClass c = new SootClass(name, Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        SootMethod m = new SootMethod("run", Collections.singletonList(IntType.v()), IntType.v(),
+                                      Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(m);
+
+        Jimple j = Jimple.v();
+        JimpleBody body = j.newBody(m);
+        m.setActiveBody(body);
+        Local n = j.newLocal("n", IntType.v());
+        Local i = j.newLocal("i", IntType.v());
+        Local x = j.newLocal("x", IntType.v());
+        body.getLocals().add(n);
+        body.getLocals().add(i);
+        body.getLocals().add(x);
+
+        Chain<Unit> units = body.getUnits();
+        units.add(j.newIdentityStmt(n, j.newParameterRef(IntType.v(), 0)));
+        units.add(j.newAssignStmt(x, IntConstant.v(0)));
+        units.add(j.newAssignStmt(i, IntConstant.v(0)));
+        Unit exit = j.newReturnStmt(x);
+        Unit head = j.newIfStmt(j.newGeExpr(i, n), exit);
+        units.add(head);
+        for(int k = 0; k < repeats; k++) {
+            units.add(j.newAssignStmt(x, j.newMulExpr(x, IntConstant.v(31))));
+            units.add(j.newAssignStmt(x, j.newAddExpr(x, IntConstant.v(k))));
+        }
+        units.add(j.newAssignStmt(i, j.newAddExpr(i, IntConstant.v(1))));
+        units.add(j.newGotoStmt(head));
+        units.add(exit);
+
+        m.setActiveBody(PackManager.v().convertJimpleBodyToBaf(m));
+        return c;
+    }
+
+    private static byte[] direct(SootClass c, boolean computeFrames) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ClassFileWriter(c, computeFrames).write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] jasmin(SootClass c)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new JasminOutputStream(bytes)));
+        new JasminClass(c).print(writer);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String run(String name, byte[] classFile) throws Exception
+    {
+        Method run = new ClassFileLoader(name, classFile).loadClass(name).getMethod("run", new Class[0]);
+        return (String) run.invoke(null, new Object[0]);
+    }
+
+    private static Object invoke(String name, byte[] classFile, String method, int arg) throws Exception
+    {
+        Method m = new ClassFileLoader(name, classFile).loadClass(name).getMethod(method, new Class[] { int.class });
+        return m.invoke(null, new Object[] { new Integer(arg) });
+    }
+
+    /** Defines one class from bytes, ahead of its parent, which may have the original. */
+    private static class ClassFileLoader extends ClassLoader
+    {
+        private final String name;
+        private final byte[] classFile;
+
+        ClassFileLoader(String name, byte[] classFile)
+        {
+            super(ClassFileWriterTest.class.getClassLoader());
+            this.name = name;
+            this.classFile = classFile;
+        }
+
+        protected synchronized Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException
+        {
+            if(!className.equals(name))
+                return super.loadClass(className, resolve);
+            Class<?> c = findLoadedClass(className);
+            if(c == null)
+                c = defineClass(className, classFile, 0, classFile.length);
+            if(resolve)
+                resolveClass(c);
+            return c;
+        }
+    }
+
+    /** The parts of a class file both backends must agree on, keyed by member name and descriptor. */
+    private static class ClassSummary
+    {
+        int major;
+        final Map<String, String> fields = new HashMap<String, String>();
+        final Map<String, String> methods = new HashMap<String, String>();
+        final Map<String, Integer> codeLengths = new HashMap<String, Integer>();
+        final Map<String, List<String>> codeAttributes = new HashMap<String, List<String>>();
+
+        ClassSummary(byte[] classFile) throws IOException
+        {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+            assertEquals(0xCAFEBABE, in.readInt());
+            in.readUnsignedShort();
+            major = in.readUnsignedShort();
+
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            for(int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                if(tag == 1)
+                    utf8[i] = in.readUTF();
+                else if(tag == 5 || tag == 6) {
+                    in.skipBytes(8);
+                    i++;
+                } else if(tag == 7 || tag == 8 || tag == 16)
+                    in.skipBytes(2);
+                else if(tag == 15)
+                    in.skipBytes(3);
+                else
+                    in.skipBytes(4);
+            }
+
+            in.skipBytes(6);
+            in.skipBytes(2 * in.readUnsignedShort());
+            int fieldCount = in.readUnsignedShort();
+            for(int i = 0; i < fieldCount; i++) {
+                int access = in.readUnsignedShort();
+                String key = utf8[in.readUnsignedShort()] + utf8[in.readUnsignedShort()];
+                fields.put(key, "access " + access);
+                skipAttributes(in);
+            }
+            int methodCount = in.readUnsignedShort();
+            for(int i = 0; i < methodCount; i++) {
+                int access = in.readUnsignedShort();
+                String key = utf8[in.readUnsignedShort()] + utf8[in.readUnsignedShort()];
+                String summary = "access " + access;
+                int attributeCount = in.readUnsignedShort();
+                for(int a = 0; a < attributeCount; a++) {
+                    String name = utf8[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if(!name.equals("Code")) {
+                        in.skipBytes(length);
+                        continue;
+                    }
+                    int maxStack = in.readUnsignedShort();
+                    int maxLocals = in.readUnsignedShort();
+                    int codeLength = in.readInt();
+                    in.skipBytes(codeLength);
+                    int handlers = in.readUnsignedShort();
+                    in.skipBytes(8 * handlers);
+                    summary += ", stack " + maxStack + ", locals " + maxLocals + ", handlers " + handlers;
+                    codeLengths.put(key, new Integer(codeLength));
+                    List<String> names = new ArrayList<String>();
+                    int codeAttributeCount = in.readUnsignedShort();
+                    for(int c = 0; c < codeAttributeCount; c++) {
+                        names.add(utf8[in.readUnsignedShort()]);
+                        in.skipBytes(in.readInt());
+                    }
+                    codeAttributes.put(key, names);
+                }
+                methods.put(key, summary);
+            }
+        }
+
+        private static void skipAttributes(DataInputStream in) throws IOException
+        {
+            int count = in.readUnsignedShort();
+            for(int i = 0; i < count; i++) {
+                in.readUnsignedShort();
+                in.skipBytes(in.readInt());
+            }
+        }
+    }
+}
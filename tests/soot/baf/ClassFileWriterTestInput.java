@@ -0,0 +1,166 @@
+package soot.baf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input for {@link ClassFileWriterTest}: control flow that makes the
+ * verifier merge types, with exception handlers, constructors called on
+ * values computed across branches, wide values and switches.
+ * {@link #run()} collects the results of all of them.
+ */
+public class ClassFileWriterTestInput
+{
+    private static int counter;
+
+    private final String label;
+    private long total;
+
+    public ClassFileWriterTestInput(boolean flag)
+    {
+        this(flag ? "yes" : "no");
+    }
+
+    public ClassFileWriterTestInput(String label)
+    {
+        this.label = label;
+    }
+
+    static
+    {
+        counter = 3;
+    }
+
+    static String mergeReferences(int n)
+    {
+        Shape shape;
+        if(n % 2 == 0)
+            shape = new Square();
+        else
+            shape = new Triangle();
+        int sides = 0;
+        for(int i = 0; i < n; i++)
+            sides += shape.sides();
+        Shape[] shapes = null;
+        if(n > 1)
+            shapes = new Shape[] { shape, new Square() };
+        return sides + ":" + (shapes == null ? 0 : shapes.length + shapes[1].sides());
+    }
+
+    static String uninitializedAcrossBranches(int n)
+    {
+        StringBuffer b = new StringBuffer(n > 0 ? "positive" : "other");
+        return b.append(new ClassFileWriterTestInput(n > 5).label).toString();
+    }
+
+    static String wideValues(int n)
+    {
+        long l = 1;
+        double d = 0.5;
+        for(int i = 0; i < n; i++) {
+            l = l * 3 + i;
+            if(i % 2 == 0)
+                d += l;
+            else
+                d -= i;
+        }
+        return l + "/" + d;
+    }
+
+    static String exceptions(int n)
+    {
+        StringBuffer b = new StringBuffer();
+        int[] a = new int[2];
+        for(int i = 0; i < n; i++) {
+            String s = null;
+            try {
+                s = "try" + i;
+                a[i] = 10 / (i - 1);
+                if(i == 2)
+                    throw new IllegalStateException("two");
+                b.append(s);
+            } catch(ArithmeticException e) {
+                b.append("arith");
+            } catch(RuntimeException e) {
+                b.append(e.getClass().getName().length());
+            } finally {
+                b.append(s == null ? "!" : ".");
+            }
+        }
+        return b.toString();
+    }
+
+    static String switches(int n)
+    {
+        StringBuffer b = new StringBuffer();
+        for(int i = -1; i < n; i++) {
+            switch(i) {
+                case 0: b.append('a'); break;
+                case 1: b.append('b');
+                case 2: b.append('c'); break;
+                case 3: b.append('d'); break;
+                default: b.append('?');
+            }
+            switch(i * 1000) {
+                case -1000: b.append('x'); break;
+                case 3000: b.append('y'); break;
+                default: b.append('-');
+            }
+        }
+        return b.toString();
+    }
+
+    synchronized String monitors(List<String> items)
+    {
+        synchronized(items) {
+            for(int i = 0; i < items.size(); i++)
+                total += items.get(i).length();
+        }
+        return label + total;
+    }
+
+    static String arrays(int n)
+    {
+        int[][] grid = new int[n][n + 1];
+        for(int i = 0; i < n; i++)
+            for(int j = 0; j <= n; j++)
+                grid[i][j] = i * j;
+        char[] chars = new char[] { 'p', 'q' };
+        return grid[n - 1][n] + "" + chars[n % 2] + grid.length;
+    }
+
+    public static class Shape
+    {
+        public int sides()
+        {
+            return 0;
+        }
+    }
+
+    public static class Square extends Shape
+    {
+        public int sides()
+        {
+            return 4;
+        }
+    }
+
+    public static class Triangle extends Shape
+    {
+        public int sides()
+        {
+            return 3;
+        }
+    }
+
+    public static String run()
+    {
+        List<String> items = new ArrayList<String>();
+        items.add("one");
+        items.add("three");
+        return mergeReferences(4) + " " + mergeReferences(1) + " " + uninitializedAcrossBranches(7)
+            + " " + uninitializedAcrossBranches(-1) + " " + wideValues(9) + " " + exceptions(4)
+            + " " + switches(5) + " " + new ClassFileWriterTestInput(true).monitors(items)
+            + " " + arrays(3) + " " + counter;
+    }
+}
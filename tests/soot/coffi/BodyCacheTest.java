@@ -0,0 +1,113 @@
+package soot.coffi;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import soot.G;
+import soot.Printer;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+
+/**
+ * Resolves a class without the body cache, into an empty cache and from the
+ * filled cache, and checks that all three give the same class and bodies,
+ * and that the last one is not parsed from its class file.
+ */
+public class BodyCacheTest extends SceneTestCase
+{
+    private File cache;
+    private boolean fromCache;
+
+    public BodyCacheTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        cache = File.createTempFile("bodycache", "");
+        cache.delete();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+        delete(cache);
+    }
+
+    public void testSameAsClassFile() throws Exception
+    {
+        String expected = resolve(null);
+        String cold = resolve(cache);
+        assertFalse(fromCache);
+        String warm = resolve(cache);
+        assertTrue(fromCache);
+        assertEquals(expected, cold);
+        assertEquals(expected, warm);
+    }
+
+    public void testCorruptEntryIsParsedAgain() throws Exception
+    {
+        String expected = resolve(cache);
+        for(File f : listFiles(cache))
+            if(f.getName().equals("class"))
+                new PrintWriter(f).close();
+        assertEquals(expected, resolve(cache));
+        assertFalse(fromCache);
+        assertEquals(expected, resolve(cache));
+        assertTrue(fromCache);
+    }
+
+    /**
+     * Resets Soot, loads the input with the given cache directory, or none,
+     * and prints it with all of its bodies. Records whether its methods were
+     * to be read from the cache.
+     */
+    private String resolve(File cacheDir) throws Exception
+    {
+        G.reset();
+        setClassPath(BodyCacheTestInput.class);
+        if(cacheDir != null)
+            Options.v().set_body_cache(cacheDir.getPath());
+        Options.v().classes().add(BodyCacheTestInput.class.getName());
+        Scene.v().loadNecessaryClasses();
+        SootClass c = Scene.v().getSootClass(BodyCacheTestInput.class.getName());
+        fromCache = c.getMethodByName("max").getSource() instanceof CachedMethodSource;
+        for(SootMethod m : c.getMethods())
+            if(m.isConcrete())
+                m.retrieveActiveBody();
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        Printer.v().printTo(c, writer);
+        writer.flush();
+        return out.toString() + c.getTags() + c.getInterfaces() + c.getFields();
+    }
+
+    private static File[] listFiles(File dir)
+    {
+        List<File> files = new ArrayList<File>();
+        File[] children = dir.listFiles();
+        for(int i = 0; children != null && i < children.length; i++) {
+            if(children[i].isDirectory())
+                files.addAll(Arrays.asList(listFiles(children[i])));
+            else
+                files.add(children[i]);
+        }
+        return files.toArray(new File[files.size()]);
+    }
+
+    private static void delete(File f)
+    {
+        File[] children = f.listFiles();
+        for(int i = 0; children != null && i < children.length; i++)
+            delete(children[i]);
+        f.delete();
+    }
+}
@@ -0,0 +1,110 @@
+package soot.coffi;
+
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input for {@link BodyCacheTest}: members with generic signatures,
+ * annotations, constants and inner classes, and bodies with branches,
+ * switches, exception handlers, monitors, arrays and every kind of
+ * constant and invoke.
+ */
+@BodyCacheTestInput.Marker(name = "input", values = { 1, 2 }, kind = RetentionPolicy.CLASS)
+public class BodyCacheTestInput<T extends Comparable<T>> implements Serializable, Runnable
+{
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker
+    {
+        String name() default "none";
+        int[] values() default {};
+        RetentionPolicy kind();
+    }
+
+    static final long LIMIT = 1L << 40;
+    static final String NAME = "body-cache";
+    static final double HALF = 0.5;
+
+    private final List<T> items = new ArrayList<T>();
+    private transient int count;
+
+    class Inner
+    {
+        int size()
+        {
+            return items.size() + count;
+        }
+    }
+
+    @Deprecated
+    public BodyCacheTestInput(@Marker(kind = RetentionPolicy.SOURCE) int count)
+    {
+        this.count = count;
+    }
+
+    public void run()
+    {
+        synchronized(items) {
+            count++;
+        }
+    }
+
+    T max() throws IllegalStateException
+    {
+        if(items.isEmpty())
+            throw new IllegalStateException("empty");
+        T best = items.get(0);
+        for(T item : items)
+            if(item.compareTo(best) > 0)
+                best = item;
+        return best;
+    }
+
+    static String switches(int n, char c)
+    {
+        String s;
+        switch(n) {
+        case 1: s = "one"; break;
+        case 2: s = "two"; break;
+        case 3: s = "three"; break;
+        default: s = "many";
+        }
+        switch(c) {
+        case 'a': return s + 'a';
+        case 'z': return s + (float) n;
+        case 1000: return null;
+        }
+        return s + NAME.length();
+    }
+
+    static double arithmetic(long l, float f, short s, byte b, boolean z)
+    {
+        long[][] grid = new long[2][3];
+        grid[1][2] = l >>> 3 ^ (l & 7) | -l % 5;
+        double d = z ? f / 2 : (double) s * b;
+        Object o = grid;
+        if(o instanceof long[][] && d != HALF)
+            d += ((long[][]) o)[1][2] + LIMIT;
+        return d - Double.MAX_VALUE + Float.MIN_VALUE + Long.MIN_VALUE;
+    }
+
+    static int handlers(int[] a)
+    {
+        int total = 0;
+        for(int i = 0; i <= a.length; i++) {
+            try {
+                total += 10 / a[i];
+            } catch(ArithmeticException e) {
+                total -= 1;
+            } catch(RuntimeException e) {
+                total += e.getMessage() == null ? 0 : 1;
+            } finally {
+                total *= 2;
+            }
+        }
+        Class<?> k = String[].class;
+        return total + k.getName().hashCode() + new BodyCacheTestInput<String>(1).new Inner().size();
+    }
+}
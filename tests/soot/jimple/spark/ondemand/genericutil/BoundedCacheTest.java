@@ -0,0 +1,107 @@
+package soot.jimple.spark.ondemand.genericutil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that {@link BoundedCache} evicts the least recently used entries,
+ * both when it is full and when its size is reduced, and counts its hits,
+ * misses and evictions.
+ */
+public class BoundedCacheTest extends TestCase
+{
+    private BoundedCache<String, Integer> cache;
+
+    public BoundedCacheTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp()
+    {
+        cache = new BoundedCache<String, Integer>(3);
+    }
+
+    public void testEvictsLeastRecentlyUsed()
+    {
+        put("a", "b", "c");
+        // reading a makes b the least recently used
+        assertEquals(Integer.valueOf(0), cache.get("a"));
+        cache.put("d", Integer.valueOf(3));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    public void testStatistics()
+    {
+        put("a", "b");
+        cache.get("a");
+        cache.get("a");
+        cache.get("x");
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(0.0, new BoundedCache<String, Integer>(1).getHitRate(), 0.0);
+    }
+
+    public void testShrinkKeepsRecentEntries()
+    {
+        put("a", "b", "c");
+        cache.get("a");
+        cache.setMaxSize(2);
+        assertEquals(2, cache.getMaxSize());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        // b was the least recently used
+        assertNull(cache.get("b"));
+        assertEquals(Integer.valueOf(0), cache.get("a"));
+        assertEquals(Integer.valueOf(2), cache.get("c"));
+
+        cache.setMaxSize(1);
+        assertEquals(1, cache.size());
+        assertEquals(Integer.valueOf(2), cache.get("c"));
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.getEvictions());
+    }
+
+    public void testGrowKeepsEntries()
+    {
+        put("a", "b", "c");
+        cache.setMaxSize(5);
+        put("d", "e");
+        assertEquals(5, cache.size());
+        assertEquals(0, cache.getEvictions());
+        cache.put("f", Integer.valueOf(5));
+        assertEquals(5, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("a"));
+    }
+
+    public void testSizeMustBePositive()
+    {
+        try {
+            new BoundedCache<String, Integer>(0);
+            fail("made an empty cache");
+        } catch(IllegalArgumentException e) {
+        }
+        try {
+            cache.setMaxSize(0);
+            fail("emptied the cache");
+        } catch(IllegalArgumentException e) {
+        }
+        assertEquals(3, cache.getMaxSize());
+    }
+
+    /** Puts each key, with its index as the value, in order. */
+    private void put(String... keys)
+    {
+        for(int i = 0; i < keys.length; i++) cache.put(keys[i], Integer.valueOf(i));
+    }
+}
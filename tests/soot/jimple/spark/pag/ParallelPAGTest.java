@@ -0,0 +1,96 @@
+package soot.jimple.spark.pag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.options.Options;
+import soot.toolkits.scalar.Pair;
+
+/**
+ * Checks that building the method PAGs on several threads gives the
+ * nodes and points-to sets of building them on one. The numbers of the
+ * nodes depend on the timing of the threads, so nodes are described by
+ * what they stand for.
+ */
+public class ParallelPAGTest extends SceneTestCase
+{
+    public ParallelPAGTest(String name)
+    {
+        super(name);
+    }
+
+    public void testSameAsSequential() throws Exception
+    {
+        List<String> sequential = solve(1);
+        assertTrue(sequential.size() > 0);
+        assertEquals(sequential, solve(2));
+        assertEquals(sequential, solve(4));
+    }
+
+    /**
+     * Runs Spark without the on-the-fly call graph on the given number of
+     * threads, and describes each variable node and the objects it points
+     * to, in sorted order. Each node must still be found by its value, or
+     * a later lookup, such as the one for a string constant in a native
+     * method, makes another.
+     */
+    private static List<String> solve(int numThreads) throws Exception
+    {
+        loadWholeProgram(ParallelPAGTestInput.class);
+        Options.v().set_num_threads(numThreads);
+        PhaseOptions.v().setPhaseOption("cg.spark", "enabled:true");
+        PhaseOptions.v().setPhaseOption("cg.spark", "on-fly-cg:false");
+        PackManager.v().getPack("cg").apply();
+        PAG pag = (PAG) Scene.v().getPointsToAnalysis();
+        List<String> result = new ArrayList<String>();
+        for(Iterator it = pag.getVarNodeNumberer().iterator(); it.hasNext(); ) {
+            VarNode vn = (VarNode) it.next();
+            assertSame(vn, pag.getVarNodeNumberer().get(vn.getNumber()));
+            if(vn instanceof GlobalVarNode) {
+                assertSame(vn, pag.findGlobalVarNode(vn.getVariable()));
+            } else {
+                assertSame(vn, pag.findLocalVarNode(vn.getVariable()));
+            }
+            final TreeSet<String> objects = new TreeSet<String>();
+            PointsToSetInternal set = vn.getReplacement().getP2Set();
+            set.forall(new P2SetVisitor() {
+                public void visit(Node n) {
+                    objects.add(describe(n));
+                }
+            });
+            result.add(describe(vn) + " -> " + objects);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Describes o, or the node o, without the numbers of nodes. */
+    private static String describe(Object o)
+    {
+        if(o instanceof AllocNode) {
+            AllocNode an = (AllocNode) o;
+            return "new " + describe(an.getNewExpr()) + " in " + an.getMethod();
+        }
+        if(o instanceof LocalVarNode) {
+            LocalVarNode vn = (LocalVarNode) o;
+            return describe(vn.getVariable()) + " in " + vn.getMethod();
+        }
+        if(o instanceof VarNode) {
+            return describe(((VarNode) o).getVariable());
+        }
+        if(o instanceof Pair) {
+            Pair p = (Pair) o;
+            return "(" + describe(p.getO1()) + ", " + describe(p.getO2()) + ")";
+        }
+        return String.valueOf(o);
+    }
+}
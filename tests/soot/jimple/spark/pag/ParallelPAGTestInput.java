@@ -0,0 +1,95 @@
+package soot.jimple.spark.pag;
+
+/**
+ * Input for {@link ParallelPAGTest}: many methods that use string
+ * constants and allocate objects, so that the workers building their
+ * method PAGs make the same global nodes.
+ */
+public class ParallelPAGTestInput
+{
+    static class Box
+    {
+        Object item;
+        Box next;
+    }
+
+    static Object sink;
+
+    public static void main(String[] args)
+    {
+        Box b = new Box();
+        b.item = args;
+        b.next = a(b);
+        sink = c(d(b.next));
+        sink = e(f(b));
+        sink = g(h(b.next));
+        sink = i(j(b));
+    }
+
+    static Box a(Box b)
+    {
+        b.item = "a";
+        return b(new Box());
+    }
+
+    static Box b(Box b)
+    {
+        b.item = "b";
+        b.next = new Box();
+        return b;
+    }
+
+    static Object c(Box b)
+    {
+        b.item = new Object[] { "c", b };
+        return b.item;
+    }
+
+    static Box d(Box b)
+    {
+        Box d = new Box();
+        d.item = "d";
+        d.next = b;
+        return d;
+    }
+
+    static Object e(Box b)
+    {
+        sink = "e";
+        return b.next == null ? b.item : b.next.item;
+    }
+
+    static Box f(Box b)
+    {
+        b.next = new Box();
+        b.next.item = "f";
+        return b.next;
+    }
+
+    static Object g(Box b)
+    {
+        String s = "g";
+        return s.length() > 0 ? b : (Object) s;
+    }
+
+    static Box h(Box b)
+    {
+        Box h = new Box();
+        h.item = "h";
+        h.next = b.next;
+        return h;
+    }
+
+    static Object i(Box b)
+    {
+        b.item = "i";
+        return new Box[] { b, new Box() };
+    }
+
+    static Box j(Box b)
+    {
+        Box j = new Box();
+        j.item = b.item == null ? "j" : b.item;
+        return j;
+    }
+}
@@ -0,0 +1,153 @@
+package soot.jimple.spark.sets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootMethod;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+
+/**
+ * Checks that freezing keeps the contents and the type of every points-to
+ * set, and that only sets of the same type are shared.
+ */
+public class FrozenPointsToSetTest extends SceneTestCase
+{
+    private static final String INPUT = FrozenPointsToSetTestInput.class.getName();
+
+    private PAG pag;
+
+    public FrozenPointsToSetTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        loadWholeProgram(FrozenPointsToSetTestInput.class);
+        PhaseOptions.v().setPhaseOption("cg.spark", "enabled:true");
+        PackManager.v().getPack("cg").apply();
+        pag = (PAG) Scene.v().getPointsToAnalysis();
+    }
+
+    public void testKeepsContentsAndTypes()
+    {
+        List<Node> nodes = nodes();
+        Map<Node, Object> types = new HashMap<Node, Object>();
+        Map<Node, Set<Integer>> contents = new HashMap<Node, Set<Integer>>();
+        Set<List<Object>> distinct = new HashSet<List<Object>>();
+        for(Iterator<Node> it = nodes.iterator(); it.hasNext(); ) {
+            Node n = it.next();
+            PointsToSetInternal set = n.getP2Set();
+            types.put(n, set.getType());
+            contents.put(n, contents(set));
+            if(!set.isEmpty()) distinct.add(Arrays.asList(new Object[] { set.getType(), contents(set) }));
+        }
+        assertTrue(distinct.size() > 1);
+
+        assertEquals(distinct.size(), FrozenPointsToSet.freeze(pag));
+        for(Iterator<Node> it = nodes.iterator(); it.hasNext(); ) {
+            Node n = it.next();
+            PointsToSetInternal set = n.getP2Set();
+            assertEquals(n.toString(), contents.get(n), contents(set));
+            if(set.isEmpty()) continue;
+            assertTrue(n.toString(), set instanceof FrozenPointsToSet);
+            assertEquals(n.toString(), types.get(n), set.getType());
+            assertEquals(n.toString(), contents.get(n).size(), set.size());
+        }
+    }
+
+    public void testSharesOnlySetsOfOneType()
+    {
+        FrozenPointsToSet.freeze(pag);
+        PointsToSetInternal circle = parameterSet("asCircle");
+        PointsToSetInternal otherCircle = parameterSet("asOtherCircle");
+        PointsToSetInternal shape = parameterSet("asShape");
+        PointsToSetInternal object = parameterSet("asObject");
+
+        assertEquals(1, circle.size());
+        assertSame(circle, otherCircle);
+        assertEquals(contents(circle), contents(shape));
+        assertNotSame(circle, shape);
+        assertEquals(Scene.v().getRefType(INPUT + "$Circle"), circle.getType());
+        assertEquals(Scene.v().getRefType(INPUT + "$Shape"), shape.getType());
+
+        assertEquals(2, object.size());
+        assertTrue(object.hasNonEmptyIntersection(circle));
+        assertTrue(circle.hasNonEmptyIntersection(shape));
+        assertTrue(contents(object).containsAll(contents(circle)));
+    }
+
+    public void testReadOnly()
+    {
+        FrozenPointsToSet.freeze(pag);
+        PointsToSetInternal circle = parameterSet("asCircle");
+        PointsToSetInternal object = parameterSet("asObject");
+        try {
+            circle.addAll(object, null);
+            fail("added to a frozen set");
+        } catch(RuntimeException e) {
+        }
+        try {
+            circle.add((AllocNode) pag.getAllocNodeNumberer().get(1));
+            fail("added to a frozen set");
+        } catch(RuntimeException e) {
+        }
+        assertEquals(1, circle.size());
+    }
+
+    public void testFreezingTwice()
+    {
+        int distinct = FrozenPointsToSet.freeze(pag);
+        PointsToSetInternal circle = parameterSet("asCircle");
+        assertEquals(0, FrozenPointsToSet.freeze(pag));
+        assertTrue(distinct > 0);
+        assertSame(circle, parameterSet("asCircle"));
+    }
+
+    /** Returns the variable nodes, and the fields of alloc nodes, that have
+     * not been merged into another node. */
+    private List<Node> nodes()
+    {
+        List<Node> result = new ArrayList<Node>();
+        for(Iterator<?> it = pag.getVarNodeNumberer().iterator(); it.hasNext(); ) {
+            Node n = (Node) it.next();
+            if(n.getReplacement() == n) result.add(n);
+        }
+        for(Iterator<?> it = pag.getAllocNodeNumberer().iterator(); it.hasNext(); ) {
+            AllocNode an = (AllocNode) it.next();
+            result.addAll(an.getFields());
+        }
+        return result;
+    }
+
+    private PointsToSetInternal parameterSet(String method)
+    {
+        SootMethod m = Scene.v().getSootClass(INPUT).getMethodByName(method);
+        return pag.findLocalVarNode(m.retrieveActiveBody().getParameterLocal(0)).getP2Set();
+    }
+
+    private static Set<Integer> contents(PointsToSetInternal set)
+    {
+        final Set<Integer> result = new TreeSet<Integer>();
+        set.forall(new P2SetVisitor() {
+            public void visit(Node n)
+            {
+                result.add(Integer.valueOf(n.getNumber()));
+            }
+        });
+        return result;
+    }
+}
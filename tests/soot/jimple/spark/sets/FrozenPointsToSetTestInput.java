@@ -0,0 +1,50 @@
+package soot.jimple.spark.sets;
+
+/**
+ * Input for {@link FrozenPointsToSetTest}: parameters of different types,
+ * and of the same type, that point to the same objects.
+ */
+public class FrozenPointsToSetTestInput
+{
+    static class Shape
+    {
+        Object label;
+    }
+
+    static class Circle extends Shape
+    {
+    }
+
+    static Object sink;
+
+    public static void main(String[] args)
+    {
+        Circle c = new Circle();
+        c.label = new Shape();
+        asCircle(c);
+        asOtherCircle(c);
+        asShape(c);
+        asObject(c);
+        asObject(c.label);
+    }
+
+    static void asCircle(Circle c)
+    {
+        sink = c;
+    }
+
+    static void asOtherCircle(Circle c)
+    {
+        sink = c;
+    }
+
+    static void asShape(Shape s)
+    {
+        sink = s.label;
+    }
+
+    static void asObject(Object o)
+    {
+        sink = o;
+    }
+}
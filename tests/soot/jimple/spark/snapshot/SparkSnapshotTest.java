@@ -0,0 +1,158 @@
+package soot.jimple.spark.snapshot;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import soot.Body;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.PointsToAnalysis;
+import soot.RefLikeType;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootMethod;
+import soot.jimple.Jimple;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.SnapshotPAG;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Checks that the call graph, reachable methods and points-to sets loaded
+ * from a snapshot are those of the Spark run that saved it, and that
+ * snapshots of a different program, or of different bodies, are not used.
+ */
+public class SparkSnapshotTest extends SceneTestCase
+{
+    private static final String INPUT = SparkSnapshotTestInput.class.getName();
+
+    private File snapshot;
+
+    public SparkSnapshotTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        snapshot = File.createTempFile("spark", ".snapshot");
+        snapshot.delete();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+        snapshot.delete();
+    }
+
+    public void testRoundTrip() throws Exception
+    {
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        runSpark("save-snapshot:" + snapshot.getPath());
+        assertTrue(snapshot.exists());
+        Map<String, Set<String>> fresh = results();
+        assertFalse(Scene.v().getPointsToAnalysis() instanceof SnapshotPAG);
+
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        runSpark("load-snapshot:" + snapshot.getPath());
+        assertTrue(Scene.v().getPointsToAnalysis() instanceof SnapshotPAG);
+        Map<String, Set<String>> loaded = results();
+        assertTrue(fresh.get("edges").size() > 0);
+        assertEquals(fresh.keySet(), loaded.keySet());
+        int objects = 0;
+        for(Iterator<String> it = fresh.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            assertEquals(key, fresh.get(key), loaded.get(key));
+            objects += fresh.get(key).size();
+        }
+        assertTrue(objects > fresh.get("edges").size() + fresh.get("reachable").size());
+    }
+
+    public void testOtherBodyOptions() throws Exception
+    {
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        runSpark("save-snapshot:" + snapshot.getPath());
+        Map<String, Set<String>> fresh = results();
+
+        // names the locals differently, so the snapshot must not be used
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        PhaseOptions.v().setPhaseOption("jb", "use-original-names:true");
+        runSpark("load-snapshot:" + snapshot.getPath());
+        assertFalse(Scene.v().getPointsToAnalysis() instanceof SnapshotPAG);
+        assertEquals(fresh.get("reachable"), results().get("reachable"));
+    }
+
+    public void testChangedBody() throws Exception
+    {
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        runSpark("save-snapshot:" + snapshot.getPath());
+
+        loadWholeProgram(SparkSnapshotTestInput.class);
+        runSpark("load-snapshot:" + snapshot.getPath());
+        Body b = Scene.v().getSootClass(INPUT).getMethodByName("keep").retrieveActiveBody();
+        b.getUnits().insertBefore(Jimple.v().newNopStmt(), b.getUnits().getLast());
+        try {
+            Scene.v().getPointsToAnalysis().reachingObjects(b.getParameterLocal(0));
+            fail("used the snapshot for a changed body");
+        } catch(RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("has changed") >= 0);
+        }
+    }
+
+    private static void runSpark(String snapshotOption)
+    {
+        PhaseOptions.v().setPhaseOption("cg.spark", "enabled:true");
+        PhaseOptions.v().setPhaseOption("cg.spark", snapshotOption);
+        PackManager.v().getPack("cg").apply();
+    }
+
+    /** Describes the call graph, the reachable methods and the points-to
+     * sets of the locals of the input by strings, which do not depend on
+     * the objects of the run. */
+    private static Map<String, Set<String>> results()
+    {
+        Map<String, Set<String>> result = new TreeMap<String, Set<String>>();
+        Set<String> edges = new TreeSet<String>();
+        for(Iterator<Edge> it = Scene.v().getCallGraph().listener(); it.hasNext(); ) {
+            Edge e = it.next();
+            edges.add(e.getSrc() + " " + e.srcUnit() + " " + e.kind() + " " + e.getTgt());
+        }
+        result.put("edges", edges);
+        Set<String> reachable = new TreeSet<String>();
+        PointsToAnalysis pta = Scene.v().getPointsToAnalysis();
+        for(Iterator<MethodOrMethodContext> it = Scene.v().getReachableMethods().listener(); it.hasNext(); ) {
+            SootMethod m = it.next().method();
+            reachable.add(m.getSignature());
+            if(!m.getDeclaringClass().getName().startsWith(INPUT) || !m.isConcrete()) continue;
+            Body b = m.retrieveActiveBody();
+            for(Iterator<Local> lIt = b.getLocals().iterator(); lIt.hasNext(); ) {
+                Local l = lIt.next();
+                if(!(l.getType() instanceof RefLikeType)) continue;
+                result.put(m.getSignature() + " " + l.getName(), objects((PointsToSetInternal) pta.reachingObjects(l)));
+            }
+        }
+        result.put("reachable", reachable);
+        return result;
+    }
+
+    private static Set<String> objects(PointsToSetInternal set)
+    {
+        final Set<String> result = new TreeSet<String>();
+        set.forall(new P2SetVisitor() {
+            public void visit(Node n)
+            {
+                AllocNode an = (AllocNode) n;
+                result.add(an.getMethod() + " " + an.getNewExpr() + " " + an.getType());
+            }
+        });
+        return result;
+    }
+}
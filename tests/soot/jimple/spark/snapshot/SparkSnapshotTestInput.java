@@ -0,0 +1,76 @@
+package soot.jimple.spark.snapshot;
+
+/**
+ * Input for {@link SparkSnapshotTest}: a small program whose points-to
+ * sets and call graph involve virtual calls, fields, arrays, static
+ * fields, string constants and multi-dimensional arrays.
+ */
+public class SparkSnapshotTestInput
+{
+    static Shape last;
+
+    public static void main(String[] args)
+    {
+        Shape[] shapes = new Shape[] { new Square(), new Circle("unit") };
+        for(int i = 0; i < shapes.length; i++)
+            keep(shapes[i].copy());
+        Object[][] grid = new Object[2][3];
+        grid[0][1] = last.describe();
+        Holder h = new Holder();
+        h.value = grid;
+        h.value = h.get();
+    }
+
+    static void keep(Shape s)
+    {
+        last = s;
+    }
+
+    static abstract class Shape
+    {
+        abstract Shape copy();
+
+        Object describe()
+        {
+            return "shape";
+        }
+    }
+
+    static class Square extends Shape
+    {
+        Shape copy()
+        {
+            return new Square();
+        }
+    }
+
+    static class Circle extends Shape
+    {
+        private Object name;
+
+        Circle(Object name)
+        {
+            this.name = name;
+        }
+
+        Shape copy()
+        {
+            return this;
+        }
+
+        Object describe()
+        {
+            return name;
+        }
+    }
+
+    static class Holder
+    {
+        Object value;
+
+        Object get()
+        {
+            return value;
+        }
+    }
+}
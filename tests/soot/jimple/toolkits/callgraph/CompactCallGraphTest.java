@@ -0,0 +1,208 @@
+package soot.jimple.toolkits.callgraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.util.queue.QueueReader;
+
+/**
+ * Checks that a {@link CompactCallGraph} answers every query like a
+ * {@link CallGraph} holding the same edges, both before and after it is
+ * frozen.
+ */
+public class CompactCallGraphTest extends SceneTestCase
+{
+    private static final String INPUT = CompactCallGraphTestInput.class.getName();
+
+    private List<SootMethod> methods;
+    private List<Unit> units;
+    private CallGraph expected;
+    private CompactCallGraph unfrozen;
+    private CompactCallGraph frozen;
+    private Edge readded;
+
+    public CompactCallGraphTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        loadInput(CompactCallGraphTestInput.class);
+        buildGraphs();
+    }
+
+    public void testSize()
+    {
+        assertTrue(expected.size() > 0);
+        assertEquals(expected.size(), unfrozen.size());
+        assertEquals(expected.size(), frozen.size());
+    }
+
+    public void testListener()
+    {
+        assertEquals(list(expected.listener()), list(unfrozen.listener()));
+        assertEquals(list(expected.listener()), list(frozen.listener()));
+        assertFalse(frozen.newListener().hasNext());
+    }
+
+    public void testListenerOfLaterEdges()
+    {
+        QueueReader<Edge> expectedAll = expected.listener();
+        QueueReader<Edge> expectedNew = expected.newListener();
+        QueueReader<Edge> expectedClone = expectedAll.clone();
+        QueueReader<Edge> all = unfrozen.listener();
+        QueueReader<Edge> fromNow = unfrozen.newListener();
+        QueueReader<Edge> clone = all.clone();
+        SootMethod m = methods.get(0);
+        Edge later = new Edge(m, units.get(0), methods.get(1), Kind.PRIVILEGED);
+        assertTrue(expected.addEdge(later));
+        assertTrue(unfrozen.addEdge(later));
+        assertEquals(list(expectedAll), list(all));
+        assertEquals(list(expectedClone), list(clone));
+        assertEquals(list(expectedNew), list(fromNow));
+        assertFalse(all.hasNext());
+    }
+
+    public void testEdgesOutOfUnit()
+    {
+        for(Iterator<Unit> it = units.iterator(); it.hasNext(); ) {
+            Unit u = it.next();
+            assertEquals(u.toString(), list(expected.edgesOutOf(u)), list(unfrozen.edgesOutOf(u)));
+            assertEquals(u.toString(), list(expected.edgesOutOf(u)), list(frozen.edgesOutOf(u)));
+        }
+        Unit unseen = Jimple.v().newNopStmt();
+        assertFalse(unfrozen.edgesOutOf(unseen).hasNext());
+        assertFalse(frozen.edgesOutOf(unseen).hasNext());
+    }
+
+    public void testEdgesOfMethod()
+    {
+        for(Iterator<SootMethod> it = methods.iterator(); it.hasNext(); ) {
+            SootMethod m = it.next();
+            assertEquals(m.toString(), list(expected.edgesOutOf(m)), list(unfrozen.edgesOutOf(m)));
+            assertEquals(m.toString(), list(expected.edgesOutOf(m)), list(frozen.edgesOutOf(m)));
+            assertEquals(m.toString(), list(expected.edgesInto(m)), list(unfrozen.edgesInto(m)));
+            assertEquals(m.toString(), list(expected.edgesInto(m)), list(frozen.edgesInto(m)));
+            assertEquals(m.toString(), expected.isEntryMethod(m), unfrozen.isEntryMethod(m));
+            assertEquals(m.toString(), expected.isEntryMethod(m), frozen.isEntryMethod(m));
+        }
+    }
+
+    public void testSourceMethods()
+    {
+        // CallGraph returns its sources in no particular order, along with
+        // those whose edges have all been removed
+        Set<MethodOrMethodContext> sources = new HashSet<MethodOrMethodContext>();
+        for(Iterator<MethodOrMethodContext> it = expected.sourceMethods(); it.hasNext(); ) {
+            MethodOrMethodContext m = it.next();
+            if(expected.edgesOutOf(m).hasNext()) sources.add(m);
+        }
+        assertEquals(sources, new HashSet<Object>(list(unfrozen.sourceMethods())));
+        assertEquals(list(unfrozen.sourceMethods()), list(frozen.sourceMethods()));
+    }
+
+    public void testFindEdge()
+    {
+        for(Iterator<Unit> uIt = units.iterator(); uIt.hasNext(); ) {
+            Unit u = uIt.next();
+            // CallGraph.findEdge() fails on units without edges
+            if(!expected.edgesOutOf(u).hasNext()) continue;
+            for(Iterator<SootMethod> mIt = methods.iterator(); mIt.hasNext(); ) {
+                SootMethod m = mIt.next();
+                assertEquals(u + " " + m, expected.findEdge(u, m), unfrozen.findEdge(u, m));
+                assertEquals(u + " " + m, expected.findEdge(u, m), frozen.findEdge(u, m));
+            }
+        }
+    }
+
+    public void testFrozenIsReadOnly()
+    {
+        assertFalse(unfrozen.isFrozen());
+        assertTrue(frozen.isFrozen());
+        Edge e = readded;
+        try {
+            frozen.removeEdge(e);
+            fail("removed an edge from a frozen call graph");
+        } catch(UnsupportedOperationException expectedException) {
+        }
+        assertTrue(unfrozen.removeEdge(e));
+    }
+
+    /** Adds an edge for every call in the input class to its target, and
+     * some edges of other kinds from the same statements, then removes
+     * every third edge and adds one back, to all three call graphs. */
+    private void buildGraphs()
+    {
+        expected = new CallGraph();
+        unfrozen = new CompactCallGraph();
+        frozen = new CompactCallGraph();
+        methods = new ArrayList<SootMethod>();
+        units = new ArrayList<Unit>();
+
+        SootClass c = Scene.v().getSootClass(INPUT);
+        SootMethod clinit = c.getMethodByName("<clinit>");
+        List<Edge> edges = new ArrayList<Edge>();
+        List<Edge> duplicates = new ArrayList<Edge>();
+        for(Iterator<SootMethod> mIt = c.methodIterator(); mIt.hasNext(); ) {
+            SootMethod m = mIt.next();
+            methods.add(m);
+            edges.add(new Edge(m, null, clinit, Kind.CLINIT));
+            for(Iterator<Unit> uIt = m.retrieveActiveBody().getUnits().iterator(); uIt.hasNext(); ) {
+                Stmt s = (Stmt) uIt.next();
+                units.add(s);
+                if(!s.containsInvokeExpr()) continue;
+                if(s.getInvokeExpr().getMethodRef().declaringClass() != c) continue;
+                SootMethod tgt = s.getInvokeExpr().getMethod();
+                edges.add(new Edge(m, s, tgt));
+                edges.add(new Edge(m, s, clinit, Kind.CLINIT));
+                edges.add(new Edge(m, s, tgt, Kind.THREAD));
+                duplicates.add(new Edge(m, s, tgt));
+            }
+        }
+        for(Iterator<Edge> it = edges.iterator(); it.hasNext(); ) {
+            Edge e = it.next();
+            assertTrue(expected.addEdge(e));
+            assertTrue(unfrozen.addEdge(e));
+            assertTrue(frozen.addEdge(e));
+        }
+        for(Iterator<Edge> it = duplicates.iterator(); it.hasNext(); ) {
+            Edge e = it.next();
+            assertFalse(expected.addEdge(e));
+            assertFalse(unfrozen.addEdge(e));
+            assertFalse(frozen.addEdge(e));
+        }
+        // CallGraph can only remove the Edge objects it holds
+        for(int i = 0; i < edges.size(); i += 3) {
+            Edge e = edges.get(i);
+            assertTrue(expected.removeEdge(e));
+            assertTrue(unfrozen.removeEdge(e));
+            assertTrue(frozen.removeEdge(e));
+        }
+        Edge removed = edges.get(3);
+        readded = new Edge(removed.getSrc(), removed.srcUnit(), removed.getTgt(), removed.kind());
+        assertTrue(expected.addEdge(readded));
+        assertTrue(unfrozen.addEdge(readded));
+        assertTrue(frozen.addEdge(readded));
+        frozen.freeze();
+    }
+
+    private static List<Object> list(Iterator<?> it)
+    {
+        List<Object> result = new ArrayList<Object>();
+        while(it.hasNext()) result.add(it.next());
+        return result;
+    }
+}
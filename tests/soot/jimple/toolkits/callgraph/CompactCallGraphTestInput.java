@@ -0,0 +1,50 @@
+package soot.jimple.toolkits.callgraph;
+
+/**
+ * Input for {@link CompactCallGraphTest}: methods calling each other
+ * through static, virtual and special invokes, several times from the same
+ * method and from the same statement.
+ */
+public class CompactCallGraphTestInput
+{
+    private static int counter;
+    private int value;
+
+    static {
+        counter = 1;
+    }
+
+    public CompactCallGraphTestInput()
+    {
+        value = next();
+    }
+
+    void a()
+    {
+        b();
+        value += c(value);
+        b();
+    }
+
+    void b()
+    {
+        value = c(2) + next();
+    }
+
+    int c(int n)
+    {
+        return n > 0 ? c(n - 1) + next() : value;
+    }
+
+    private static int next()
+    {
+        return counter++;
+    }
+
+    static void entry()
+    {
+        CompactCallGraphTestInput input = new CompactCallGraphTestInput();
+        input.a();
+        input.c(next());
+    }
+}
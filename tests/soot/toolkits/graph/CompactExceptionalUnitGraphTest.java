@@ -0,0 +1,161 @@
+package soot.toolkits.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import soot.Body;
+import soot.Scene;
+import soot.SceneTestCase;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.baf.ThrowInst;
+import soot.jimple.ThrowStmt;
+import soot.toolkits.exceptions.AbstractThrowAnalysis;
+import soot.toolkits.exceptions.PedanticThrowAnalysis;
+import soot.toolkits.exceptions.ThrowAnalysis;
+import soot.toolkits.exceptions.ThrowableSet;
+import soot.toolkits.exceptions.UnitThrowAnalysis;
+
+/**
+ * Checks that {@link CompactExceptionalUnitGraph} has exactly the edges,
+ * heads, tails and exception destinations of the
+ * {@link ExceptionalUnitGraph} built with the same parameters.
+ */
+public class CompactExceptionalUnitGraphTest extends SceneTestCase
+{
+    private static final String INPUT = CompactExceptionalUnitGraphTestInput.class.getName();
+
+    public CompactExceptionalUnitGraphTest(String name)
+    {
+        super(name);
+    }
+
+    protected void setUp() throws Exception
+    {
+        loadInput(CompactExceptionalUnitGraphTestInput.class);
+    }
+
+    public void testUnitThrowAnalysis()
+    {
+        assertTrue(compareAll(UnitThrowAnalysis.v()) > 0);
+    }
+
+    public void testPedanticThrowAnalysis()
+    {
+        assertTrue(compareAll(PedanticThrowAnalysis.v()) > 0);
+    }
+
+    public void testNothingThrows()
+    {
+        // No unit reaches a handler, but the traps are still there.
+        assertEquals(0, compareAll(new NothingThrows()));
+    }
+
+    public void testDefaultParameters()
+    {
+        for(Iterator<Body> it = bodies().iterator(); it.hasNext(); ) {
+            Body b = it.next();
+            compare(b, new ExceptionalUnitGraph(b), new CompactExceptionalUnitGraph(b));
+        }
+    }
+
+    public void testHandlerAsHead()
+    {
+        Body b = body("throwFirst");
+        Unit handler = (Unit) b.getTraps().getFirst().getHandlerUnit();
+        CompactExceptionalUnitGraph graph = new CompactExceptionalUnitGraph(b, UnitThrowAnalysis.v(), false);
+        compare(b, new ExceptionalUnitGraph(b, UnitThrowAnalysis.v(), false), graph);
+        assertTrue(graph.getHeads().contains(handler));
+    }
+
+    /** Compares the graphs of every body with and without excepting unit
+     * edges; returns the number of exceptional edges seen. */
+    private int compareAll(ThrowAnalysis throwAnalysis)
+    {
+        int exceptionalEdges = 0;
+        for(Iterator<Body> it = bodies().iterator(); it.hasNext(); ) {
+            Body b = it.next();
+            for(int omit = 0; omit < 2; omit++) {
+                CompactExceptionalUnitGraph actual = new CompactExceptionalUnitGraph(b, throwAnalysis, omit == 1);
+                compare(b, new ExceptionalUnitGraph(b, throwAnalysis, omit == 1), actual);
+                for(Iterator<Unit> uIt = b.getUnits().iterator(); uIt.hasNext(); )
+                    exceptionalEdges += actual.getExceptionalSuccsOf(uIt.next()).size();
+            }
+        }
+        return exceptionalEdges;
+    }
+
+    private static void compare(Body b, ExceptionalUnitGraph expected, CompactExceptionalUnitGraph actual)
+    {
+        GraphComparer comparer = new GraphComparer(expected, actual);
+        String method = b.getMethod().getSignature();
+        assertTrue(method + "\n" + comparer.diff("ExceptionalUnitGraph", "CompactExceptionalUnitGraph"),
+                   comparer.equal());
+        for(Iterator<Unit> it = b.getUnits().iterator(); it.hasNext(); ) {
+            Unit u = it.next();
+            String where = method + ": " + u;
+            assertEquals(where, asSet(expected.getUnexceptionalSuccsOf(u)), asSet(actual.getUnexceptionalSuccsOf(u)));
+            assertEquals(where, asSet(expected.getUnexceptionalPredsOf(u)), asSet(actual.getUnexceptionalPredsOf(u)));
+            assertEquals(where, asSet(expected.getExceptionalSuccsOf(u)), asSet(actual.getExceptionalSuccsOf(u)));
+            assertEquals(where, asSet(expected.getExceptionalPredsOf(u)), asSet(actual.getExceptionalPredsOf(u)));
+            assertEquals(where, dests(expected.getExceptionDests(u)), dests(actual.getExceptionDests(u)));
+        }
+    }
+
+    private static Set<Unit> asSet(List<Unit> units)
+    {
+        return new HashSet<Unit>(units);
+    }
+
+    private static Set<List<Object>> dests(Collection<ExceptionalUnitGraph.ExceptionDest> dests)
+    {
+        Set<List<Object>> result = new HashSet<List<Object>>();
+        for(Iterator<ExceptionalUnitGraph.ExceptionDest> it = dests.iterator(); it.hasNext(); ) {
+            ExceptionalUnitGraph.ExceptionDest d = it.next();
+            result.add(Arrays.asList(new Object[] { d.getTrap(), d.getHandlerNode(), d.getThrowables().toString() }));
+        }
+        return result;
+    }
+
+    private static List<Body> bodies()
+    {
+        List<Body> result = new ArrayList<Body>();
+        SootClass c = Scene.v().getSootClass(INPUT);
+        for(Iterator<SootMethod> it = c.methodIterator(); it.hasNext(); ) {
+            SootMethod m = it.next();
+            if(m.isConcrete())
+                result.add(m.retrieveActiveBody());
+        }
+        return result;
+    }
+
+    private static Body body(String name)
+    {
+        return Scene.v().getSootClass(INPUT).getMethodByName(name).retrieveActiveBody();
+    }
+
+    /** Claims that no unit throws anything. */
+    private static class NothingThrows extends AbstractThrowAnalysis
+    {
+        public ThrowableSet mightThrow(Unit u)
+        {
+            return ThrowableSet.Manager.v().EMPTY;
+        }
+
+        public ThrowableSet mightThrowImplicitly(ThrowInst t)
+        {
+            return ThrowableSet.Manager.v().EMPTY;
+        }
+
+        public ThrowableSet mightThrowImplicitly(ThrowStmt t)
+        {
+            return ThrowableSet.Manager.v().EMPTY;
+        }
+    }
+}
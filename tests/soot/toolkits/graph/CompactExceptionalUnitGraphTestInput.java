@@ -0,0 +1,118 @@
+package soot.toolkits.graph;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Input for {@link CompactExceptionalUnitGraphTest}: methods whose
+ * control flow graphs have exceptional edges of every kind, from nested
+ * and overlapping traps to handlers that are heads of the graph.
+ */
+public class CompactExceptionalUnitGraphTestInput
+{
+    private int[] values = new int[4];
+    private Object lock = new Object();
+    private static int divisor;
+
+    int straightLine(int a, int b)
+    {
+        int c = a + b;
+        return c * 2;
+    }
+
+    int nestedTraps(int n)
+    {
+        int result = 0;
+        try {
+            try {
+                result = values[n] / n;
+            } catch(ArithmeticException e) {
+                result = -1;
+            }
+            result += values[n + 1];
+        } catch(ArrayIndexOutOfBoundsException e) {
+            result = -2;
+        } catch(RuntimeException e) {
+            result = -3;
+        }
+        return result;
+    }
+
+    int tryFinally(int n)
+    {
+        try {
+            if(n > 2)
+                return values[n];
+            n = n * values[0];
+        } finally {
+            values[1] = n;
+        }
+        return n;
+    }
+
+    void rethrow(List<String> items) throws IOException
+    {
+        for(int i = 0; i < items.size(); i++) {
+            try {
+                if(items.get(i).length() == 0)
+                    throw new IOException("empty");
+                values[i] = items.get(i).length();
+            } catch(IOException e) {
+                if(i > 2)
+                    throw e;
+                values[0]--;
+            }
+        }
+    }
+
+    static int throwFirst()
+    {
+        try {
+            // without identity statements the first unit, reading the
+            // static field, may throw, which makes the handler a head
+            return 100 / divisor;
+        } catch(Throwable e) {
+            return 0;
+        }
+    }
+
+    int loopInHandler(int n)
+    {
+        int tries = 0;
+        while(true) {
+            try {
+                return values[n - tries];
+            } catch(ArrayIndexOutOfBoundsException e) {
+                tries++;
+                if(tries > n)
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
+    void monitors(int n)
+    {
+        synchronized(lock) {
+            values[n] = n;
+            synchronized(this) {
+                values[n + 1] = values[n] / n;
+            }
+        }
+    }
+
+    String switchesAndCasts(Object o, int n)
+    {
+        switch(n) {
+            case 0:
+                return (String) o;
+            case 1:
+                try {
+                    return ((Integer) o).toString();
+                } catch(ClassCastException e) {
+                    return "cast";
+                }
+            default:
+                return String.valueOf(values[n]);
+        }
+    }
+}
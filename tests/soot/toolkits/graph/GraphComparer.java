@@ -258,6 +258,9 @@ public class GraphComparer {
 		} else if (g.getClass().getName().endsWith(".TrapUnitGraph")) {
 		} else if (g instanceof BriefUnitGraph) {
 		} else if (g.getClass().getName().endsWith(".BriefUnitGraph")) {
+		} else if (g instanceof CompactExceptionalUnitGraph) {
+		    // Has the same edges as an ExceptionalUnitGraph, so
+		    // equal() is the whole comparison.
 		} else if (g instanceof ExceptionalBlockGraph) {
 		} else if (g instanceof ClassicCompleteBlockGraph) {
 		    classicCompleteBlockGraph = (ClassicCompleteBlockGraph) g;